@@ -0,0 +1,36 @@
+package io.github.martinwitt.imagedetector;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.helm")
+public class HelmCheckProperties {
+
+    private String cacheDir;
+    private int maxConcurrentRequestsPerHost = 4;
+    private Duration checkTimeout = Duration.ofMinutes(2);
+
+    public String getCacheDir() {
+        return cacheDir;
+    }
+
+    public void setCacheDir(String cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public int getMaxConcurrentRequestsPerHost() {
+        return maxConcurrentRequestsPerHost;
+    }
+
+    public void setMaxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+    }
+
+    public Duration getCheckTimeout() {
+        return checkTimeout;
+    }
+
+    public void setCheckTimeout(Duration checkTimeout) {
+        this.checkTimeout = checkTimeout;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.martinwitt.imagedetector;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.history")
+public class HistoryProperties {
+
+    private String dir;
+    private Duration retention = Duration.ofDays(365);
+
+    public String getDir() {
+        return dir;
+    }
+
+    public void setDir(String dir) {
+        this.dir = dir;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.martinwitt.imagedetector;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.images")
+public class ImageCheckProperties {
+
+    private Duration tagCacheTtl = Duration.ofHours(1);
+    private int maxConcurrentRequestsPerRegistry = 8;
+    private Duration checkTimeout = Duration.ofMinutes(5);
+    private List<String> insecureRegistries = new ArrayList<>();
+
+    public Duration getTagCacheTtl() {
+        return tagCacheTtl;
+    }
+
+    public void setTagCacheTtl(Duration tagCacheTtl) {
+        this.tagCacheTtl = tagCacheTtl;
+    }
+
+    public int getMaxConcurrentRequestsPerRegistry() {
+        return maxConcurrentRequestsPerRegistry;
+    }
+
+    public void setMaxConcurrentRequestsPerRegistry(int maxConcurrentRequestsPerRegistry) {
+        this.maxConcurrentRequestsPerRegistry = maxConcurrentRequestsPerRegistry;
+    }
+
+    public Duration getCheckTimeout() {
+        return checkTimeout;
+    }
+
+    public void setCheckTimeout(Duration checkTimeout) {
+        this.checkTimeout = checkTimeout;
+    }
+
+    public List<String> getInsecureRegistries() {
+        return insecureRegistries;
+    }
+
+    public void setInsecureRegistries(List<String> insecureRegistries) {
+        this.insecureRegistries = insecureRegistries;
+    }
+}
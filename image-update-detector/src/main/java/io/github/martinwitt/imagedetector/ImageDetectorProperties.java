@@ -1,7 +1,15 @@
 package io.github.martinwitt.imagedetector;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * GitOps settings. Either a single repository is configured with {@code repo} and {@code branch},
+ * or any number of named {@code sources}, each a branch of a repository with its own app layout and
+ * refresh interval.
+ */
 @ConfigurationProperties(prefix = "app.gitops")
 public class ImageDetectorProperties {
 
@@ -9,6 +17,57 @@ public class ImageDetectorProperties {
     private String branch;
     private String token;
     private long refreshIntervalMs = 300000;
+    private String webhookSecret;
+    private int rateLimitReserve = 100;
+    private List<Source> sources = new ArrayList<>();
+
+    public static class Source {
+        private String name;
+        private String repo;
+        private String branch;
+        private String appPattern = "apps/*";
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getRepo() {
+            return repo;
+        }
+
+        public void setRepo(String repo) {
+            this.repo = repo;
+        }
+
+        public String getBranch() {
+            return branch;
+        }
+
+        public void setBranch(String branch) {
+            this.branch = branch;
+        }
+
+        public String getAppPattern() {
+            return appPattern;
+        }
+
+        public void setAppPattern(String appPattern) {
+            this.appPattern = appPattern;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
 
     public String getRepo() {
         return repo;
@@ -41,4 +100,28 @@ public class ImageDetectorProperties {
     public void setRefreshIntervalMs(long refreshIntervalMs) {
         this.refreshIntervalMs = refreshIntervalMs;
     }
+
+    public String getWebhookSecret() {
+        return webhookSecret;
+    }
+
+    public void setWebhookSecret(String webhookSecret) {
+        this.webhookSecret = webhookSecret;
+    }
+
+    public int getRateLimitReserve() {
+        return rateLimitReserve;
+    }
+
+    public void setRateLimitReserve(int rateLimitReserve) {
+        this.rateLimitReserve = rateLimitReserve;
+    }
+
+    public List<Source> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<Source> sources) {
+        this.sources = sources;
+    }
 }
@@ -9,7 +9,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @SpringBootApplication
 @EnableCaching
 @EnableScheduling
-@EnableConfigurationProperties(ImageDetectorProperties.class)
+@EnableConfigurationProperties({
+    ImageDetectorProperties.class,
+    HelmCheckProperties.class,
+    ImageCheckProperties.class,
+    HistoryProperties.class
+})
 public class ImageUpdateDetectorApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,160 @@
+package io.github.martinwitt.imagedetector.client;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.RateLimitChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Paces GitHub API requests against the primary rate limit.
+ *
+ * <p>github-api calls {@link #checkRateLimit} before every request with the limit reported by the
+ * previous response. While more than half of the limit is left, requests go out unthrottled. Below
+ * that, the budget above the configured reserve is split evenly over the scan intervals left until
+ * the limit resets. A scan may spend its interval's share in a burst; requests beyond it wait for
+ * the next interval. Spacing every request over the whole reset window instead would stretch a
+ * single scan far beyond its interval.
+ *
+ * <p>Only the scan threads talk to GitHub, and they hold the lock of the source they scan, so every
+ * wait here also holds back webhook rescans of that source. Waits are therefore bounded by the scan
+ * interval: once only the reserve is left, the thread pauses until the reset if that comes within
+ * one interval, and otherwise the request fails with {@link GitOpsUnavailableException}. The scan
+ * then treats the affected files as unknown and retries with its next run.
+ *
+ * <p>The remaining budget is published as the {@code github.ratelimit.remaining} gauge.
+ */
+@Component
+public class GitHubRateLimiter extends RateLimitChecker {
+    private static final Logger logger = LoggerFactory.getLogger(GitHubRateLimiter.class);
+
+    /** Extra wait after the reported reset, as GitHub's clock and ours may differ slightly. */
+    private static final long RESET_GRACE_MS = 1000;
+
+    /** Pauses the calling thread; replaced in tests. */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final int reserve;
+    private final long scanIntervalMs;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+    private volatile GHRateLimit.Record lastRecord;
+    private long windowEnd = Long.MIN_VALUE;
+    private long windowBudget;
+    private long windowUsed;
+
+    public GitHubRateLimiter(ImageDetectorProperties properties, MeterRegistry meterRegistry) {
+        this(
+                properties.getRateLimitReserve(),
+                scanInterval(properties),
+                meterRegistry,
+                System::currentTimeMillis,
+                Thread::sleep);
+    }
+
+    GitHubRateLimiter(
+            int reserve,
+            Duration scanInterval,
+            MeterRegistry meterRegistry,
+            LongSupplier clock,
+            Sleeper sleeper) {
+        this.reserve = Math.max(0, reserve);
+        this.scanIntervalMs = Math.max(1, scanInterval.toMillis());
+        this.clock = clock;
+        this.sleeper = sleeper;
+        Gauge.builder("github.ratelimit.remaining", this, limiter -> limiter.remaining())
+                .description("GitHub API requests left until the rate limit resets")
+                .register(meterRegistry);
+        Gauge.builder("github.ratelimit.limit", this, limiter -> limiter.limit())
+                .description("GitHub API requests allowed per rate limit window")
+                .register(meterRegistry);
+    }
+
+    /** The shortest refresh interval of the configured sources. */
+    static Duration scanInterval(ImageDetectorProperties properties) {
+        return properties.getSources().stream()
+                .map(ImageDetectorProperties.Source::getRefreshInterval)
+                .min(Duration::compareTo)
+                .orElse(Duration.ofMillis(properties.getRefreshIntervalMs()));
+    }
+
+    private double remaining() {
+        GHRateLimit.Record record = lastRecord;
+        return record != null ? record.getRemaining() : Double.NaN;
+    }
+
+    private double limit() {
+        GHRateLimit.Record record = lastRecord;
+        return record != null ? record.getLimit() : Double.NaN;
+    }
+
+    @Override
+    protected boolean checkRateLimit(GHRateLimit.Record record, long count)
+            throws InterruptedException {
+        lastRecord = record;
+        long now = clock.getAsLong();
+        long untilReset = record.getResetEpochSeconds() * 1000 - now;
+        if (untilReset <= 0) {
+            return false;
+        }
+
+        int remaining = record.getRemaining();
+        if (remaining <= reserve) {
+            if (untilReset > scanIntervalMs) {
+                throw new GitOpsUnavailableException(
+                        "GitHub rate limit reserve reached ("
+                                + remaining
+                                + " of "
+                                + record.getLimit()
+                                + " left) until "
+                                + record.getResetInstant(),
+                        null);
+            }
+            logger.warn(
+                    "GitHub rate limit nearly exhausted ({} of {} left), pausing until {}",
+                    remaining,
+                    record.getLimit(),
+                    record.getResetInstant());
+            sleeper.sleep(untilReset + RESET_GRACE_MS);
+            logger.info("GitHub rate limit reset, resuming requests");
+            // github-api fetches the new limit and asks again
+            return true;
+        }
+        if (remaining > record.getLimit() / 2) {
+            return false;
+        }
+
+        long delay = 0;
+        synchronized (this) {
+            if (now >= windowEnd) {
+                startWindow(now, remaining, untilReset);
+            }
+            if (windowUsed >= windowBudget) {
+                delay = windowEnd - now;
+                startWindow(windowEnd, remaining, untilReset - delay);
+            }
+            windowUsed++;
+        }
+        if (delay > 0) {
+            logger.debug("Delaying GitHub request by {} ms ({} left)", delay, remaining);
+            sleeper.sleep(delay);
+        }
+        return false;
+    }
+
+    /** Start a scan interval with its share of the budget left above the reserve. */
+    private void startWindow(long start, int remaining, long untilReset) {
+        long intervals = Math.max(1, Math.ceilDiv(untilReset, scanIntervalMs));
+        windowEnd = start + scanIntervalMs;
+        windowBudget = Math.max(1, (remaining - reserve) / intervals);
+        windowUsed = 0;
+    }
+}
@@ -1,57 +1,167 @@
 package io.github.martinwitt.imagedetector.client;
 
-import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.kohsuke.github.GHContent;
 import org.kohsuke.github.GHFileNotFoundException;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 
 @Component
 public class GitOpsClient {
     private static final Logger logger = LoggerFactory.getLogger(GitOpsClient.class);
-    private final ImageDetectorProperties properties;
     private final GitHub gitHub;
+    private final Map<String, GHRepository> repositories = new ConcurrentHashMap<>();
 
-    public GitOpsClient(ImageDetectorProperties properties, GitHub gitHub) {
-        this.properties = properties;
+    public GitOpsClient(GitHub gitHub) {
         this.gitHub = gitHub;
     }
 
-    @Cacheable(value = "helm-charts", key = "#path")
-    public String getFileContent(String path) {
+    /** Repository handles are looked up once instead of with every content request. */
+    private GHRepository repository(GitOpsSource source) throws IOException {
+        GHRepository current = repositories.get(source.repo());
+        if (current == null) {
+            current = gitHub.getRepository(source.repo());
+            repositories.put(source.repo(), current);
+        }
+        return current;
+    }
+
+    /**
+     * Read a file of a source's branch.
+     *
+     * @param source The source to read from
+     * @param path Path within the repository
+     * @return The file content, or null if the file does not exist
+     * @throws GitOpsUnavailableException if the file could not be read, e.g. when throttled
+     */
+    @Cacheable(value = "helm-charts", key = "#source.name() + ':' + #path")
+    public String getFileContent(GitOpsSource source, String path) {
         try {
-            String repo = properties.getRepo();
-            String branch = properties.getBranch();
-            GHRepository repository = gitHub.getRepository(repo);
-            return repository.getFileContent(path, branch).getContent();
+            return repository(source).getFileContent(path, source.branch()).getContent();
         } catch (GHFileNotFoundException e) {
             logger.debug("File not found {}: {}", path, e.getMessage());
             return null;
         } catch (Exception e) {
             logger.debug("Failed to fetch file {}: {}", path, e.getMessage());
+            throw new GitOpsUnavailableException("Failed to fetch " + path, e);
+        }
+    }
+
+    /** Drop a cached file so the next {@link #getFileContent} reads the pushed content. */
+    @CacheEvict(value = "helm-charts", key = "#source.name() + ':' + #path")
+    public void evictFileContent(GitOpsSource source, String path) {
+        logger.debug("Evicted cached file {}", path);
+    }
+
+    /**
+     * Name of a source's branch: the configured one, or the repository's default branch.
+     *
+     * @return The branch name, or null if the repository cannot be read
+     */
+    public String getBranchName(GitOpsSource source) {
+        if (source.branch() != null) {
+            return source.branch();
+        }
+        try {
+            return repository(source).getDefaultBranch();
+        } catch (Exception e) {
+            logger.warn("Failed to read default branch of {}: {}", source.repo(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Commit SHA a source's branch currently points to. Costs a single API request, which makes it
+     * a cheap check whether a full scan is needed at all.
+     *
+     * @return The head commit SHA, or null if it cannot be read
+     */
+    public String getHeadSha(GitOpsSource source) {
+        try {
+            String branch = getBranchName(source);
+            return branch != null ? repository(source).getBranch(branch).getSHA1() : null;
+        } catch (Exception e) {
+            logger.warn("Failed to read head commit of {}: {}", source.describe(), e.getMessage());
             return null;
         }
     }
 
-    public List<String> listApps() {
+    /**
+     * List the apps matched by a source's app pattern, with one directory listing per wildcard
+     * directory.
+     *
+     * @return The app names
+     * @throws GitOpsUnavailableException if a directory could not be read, so that an unreadable
+     *     repository is not mistaken for one without apps
+     */
+    public List<String> listApps(GitOpsSource source) {
         List<String> apps = new ArrayList<>();
         try {
-            String repo = properties.getRepo();
-            String branch = properties.getBranch();
-            GHRepository repository = gitHub.getRepository(repo);
-            repository.getDirectoryContent("apps", branch).stream()
-                    .filter(GHContent::isDirectory)
-                    .map(GHContent::getName)
-                    .forEach(apps::add);
+            collectApps(
+                    repository(source), source, source.appPattern().split("/"), 0, "", "", apps);
         } catch (Exception e) {
-            logger.warn("Failed to list apps: {}", e.getMessage());
+            logger.warn("Failed to list apps of {}: {}", source.describe(), e.getMessage());
+            throw new GitOpsUnavailableException("Failed to list apps", e);
         }
         return apps;
     }
+
+    private void collectApps(
+            GHRepository repository,
+            GitOpsSource source,
+            String[] pattern,
+            int index,
+            String directory,
+            String app,
+            List<String> apps)
+            throws IOException {
+        if (index == pattern.length) {
+            apps.add(app);
+            return;
+        }
+        if (!pattern[index].equals("*")) {
+            collectApps(
+                    repository,
+                    source,
+                    pattern,
+                    index + 1,
+                    join(directory, pattern[index]),
+                    app,
+                    apps);
+            return;
+        }
+
+        List<GHContent> contents;
+        try {
+            contents = repository.getDirectoryContent(directory, source.branch());
+        } catch (GHFileNotFoundException e) {
+            logger.debug("No directory {}: {}", directory, e.getMessage());
+            return;
+        }
+        for (GHContent content : contents) {
+            if (content.isDirectory()) {
+                collectApps(
+                        repository,
+                        source,
+                        pattern,
+                        index + 1,
+                        join(directory, content.getName()),
+                        join(app, content.getName()),
+                        apps);
+            }
+        }
+    }
+
+    private static String join(String parent, String child) {
+        return parent.isEmpty() ? child : parent + "/" + child;
+    }
 }
@@ -0,0 +1,149 @@
+package io.github.martinwitt.imagedetector.client;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A branch of a GitOps repository to scan.
+ *
+ * <p>The app pattern locates the app directories, each holding a Chart.yaml and values.yaml. A
+ * {@code *} segment matches one directory level, as in the default {@code apps/*}; a layout with
+ * one directory per cluster takes a second wildcard for the cluster. The app name consists of the
+ * directories matched by the wildcards, joined by {@code /}. Apps of a named source are reported as
+ * {@code <source>:<app>}, so the same app on a staging and a prod branch stays apart.
+ *
+ * @param name Unique name of the source; empty for the single repository configured with {@code
+ *     app.gitops.repo}, whose apps keep their plain names
+ * @param repo Repository in {@code owner/name} form
+ * @param branch Branch to scan; null for the default branch
+ * @param appPattern Directory pattern of the apps, without leading or trailing slash
+ * @param refreshInterval Time between two polls of the branch head
+ */
+public record GitOpsSource(
+        String name, String repo, String branch, String appPattern, Duration refreshInterval) {
+    public static final String DEFAULT_APP_PATTERN = "apps/*";
+
+    public GitOpsSource {
+        appPattern = trimSlashes(appPattern);
+        boolean wildcard = false;
+        for (String segment : appPattern.split("/")) {
+            if (segment.equals("*")) {
+                wildcard = true;
+            } else if (segment.isEmpty() || segment.contains("*")) {
+                throw new IllegalArgumentException("Invalid app pattern: " + appPattern);
+            }
+        }
+        if (!wildcard) {
+            throw new IllegalArgumentException("App pattern without wildcard: " + appPattern);
+        }
+    }
+
+    /**
+     * The sources configured in the properties: the named {@code sources}, or else the single
+     * {@code repo}.
+     *
+     * @throws IllegalArgumentException if a source has no repository or no unique name
+     */
+    public static List<GitOpsSource> fromProperties(ImageDetectorProperties properties) {
+        List<GitOpsSource> sources = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (ImageDetectorProperties.Source source : properties.getSources()) {
+            String name = source.getName();
+            if (name == null || name.isBlank() || name.contains(":") || !names.add(name)) {
+                throw new IllegalArgumentException(
+                        "GitOps sources need unique names without ':', got " + name);
+            }
+            if (isBlank(source.getRepo())) {
+                throw new IllegalArgumentException("GitOps source " + name + " has no repo");
+            }
+            sources.add(
+                    new GitOpsSource(
+                            name,
+                            source.getRepo(),
+                            isBlank(source.getBranch()) ? null : source.getBranch(),
+                            source.getAppPattern(),
+                            source.getRefreshInterval()));
+        }
+        if (sources.isEmpty() && !isBlank(properties.getRepo())) {
+            sources.add(
+                    new GitOpsSource(
+                            "",
+                            properties.getRepo(),
+                            isBlank(properties.getBranch()) ? null : properties.getBranch(),
+                            DEFAULT_APP_PATTERN,
+                            Duration.ofMillis(properties.getRefreshIntervalMs())));
+        }
+        return List.copyOf(sources);
+    }
+
+    /** Name under which an app of this source is reported. */
+    public String qualify(String app) {
+        return name.isEmpty() ? app : name + ":" + app;
+    }
+
+    /** Repository path of an app's directory, e.g. {@code apps/grafana}. */
+    public String appDirectory(String app) {
+        String[] names = app.split("/");
+        StringBuilder directory = new StringBuilder();
+        int next = 0;
+        for (String segment : appPattern.split("/")) {
+            if (!directory.isEmpty()) {
+                directory.append('/');
+            }
+            directory.append(segment.equals("*") ? names[next++] : segment);
+        }
+        return directory.toString();
+    }
+
+    /**
+     * App a changed file belongs to, e.g. {@code apps/grafana/values.yaml} is "grafana" with the
+     * default pattern.
+     *
+     * @return The app name, or null if the file is not inside an app directory
+     */
+    public String appOf(String path) {
+        String[] pattern = appPattern.split("/");
+        String[] segments = trimSlashes(path).split("/");
+        if (segments.length <= pattern.length) {
+            return null;
+        }
+        StringBuilder app = new StringBuilder();
+        for (int i = 0; i < pattern.length; i++) {
+            if (pattern[i].equals("*")) {
+                if (!app.isEmpty()) {
+                    app.append('/');
+                }
+                app.append(segments[i]);
+            } else if (!pattern[i].equals(segments[i])) {
+                return null;
+            }
+        }
+        return app.toString();
+    }
+
+    /** Human-readable form for logs, e.g. {@code prod (org/gitops@main)}. */
+    public String describe() {
+        String location = branch != null ? repo + "@" + branch : repo;
+        return name.isEmpty() ? location : name + " (" + location + ")";
+    }
+
+    private static String trimSlashes(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
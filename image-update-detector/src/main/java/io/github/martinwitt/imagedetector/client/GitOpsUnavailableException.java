@@ -0,0 +1,12 @@
+package io.github.martinwitt.imagedetector.client;
+
+/**
+ * The GitOps repository could not be read, e.g. because the GitHub rate limit is exhausted or the
+ * API is unreachable. Unlike a missing file this says nothing about the repository content, so
+ * callers must keep what they know instead of treating the file as deleted.
+ */
+public class GitOpsUnavailableException extends RuntimeException {
+    public GitOpsUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,298 @@
+package io.github.martinwitt.imagedetector.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP client for streaming Helm repository {@code index.yaml} files.
+ *
+ * <p>Uses the JDK {@link HttpClient} directly instead of a RestTemplate. Spring's client responses
+ * drain the remaining body when they are closed, so the full index would still be downloaded after
+ * the parser has found every chart it needs. Closing the JDK response stream cancels the exchange
+ * instead, which makes an early return from the {@link IndexReader} actually save I/O.
+ *
+ * <p>The JDK client does not decompress responses on its own, so gzip content encoding is
+ * negotiated and decoded here. The size limit applies to the decoded stream.
+ *
+ * <p>A single client is shared by all repository checks. It prefers HTTP/2, so concurrent requests
+ * to the same host are multiplexed over one pooled connection, and falls back to HTTP/1.1 with
+ * keep-alive where the server does not support it. Every request records its latency, the bytes
+ * received on the wire and failures in Micrometer ({@code helm.index.fetch}, {@code
+ * helm.index.received}, {@code helm.index.fetch.errors}), tagged with the repository URL reduced to
+ * scheme, host and path. Query strings and userinfo are dropped so that credentials and tokens do
+ * not end up in metric tags.
+ */
+@Component
+public class HelmRepositoryClient {
+    private static final Logger logger = LoggerFactory.getLogger(HelmRepositoryClient.class);
+
+    public static final long MAX_INDEX_SIZE = 100L * 1024 * 1024;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+
+    /** Reads a streamed index body. The stream is closed by the client once the reader returns. */
+    @FunctionalInterface
+    public interface IndexReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    public HelmRepositoryClient(MeterRegistry meterRegistry) {
+        this(
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(CONNECT_TIMEOUT)
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build(),
+                meterRegistry);
+    }
+
+    HelmRepositoryClient(HttpClient httpClient, MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Validators from a previous download of the same index, used for a conditional request.
+     *
+     * @param etag ETag response header, or null
+     * @param lastModified Last-Modified response header, or null
+     */
+    public record Validators(String etag, String lastModified) {
+        public static final Validators NONE = new Validators(null, null);
+    }
+
+    /**
+     * Outcome of an index request.
+     *
+     * @param notModified true if the server answered 304 and no body was read
+     * @param validators Validators to send with the next request for this index
+     * @param body The reader's result; null if not modified or the index was too large
+     */
+    public record IndexResponse<T>(boolean notModified, Validators validators, T body) {}
+
+    /**
+     * Fetch an index and hand its body to the reader while it is still being received.
+     *
+     * <p>Sends If-None-Match/If-Modified-Since when validators are given, so an unchanged index
+     * costs a 304 without a body, and accepts gzip for the downloads that do happen.
+     *
+     * @param indexUrl Full URL of the index.yaml file
+     * @param validators Validators of the previously read copy, or {@link Validators#NONE}
+     * @param reader Consumer of the decoded response body; may stop reading at any point
+     * @return The response outcome
+     * @throws IOException if the request fails or the server answers with another status
+     */
+    public <T> IndexResponse<T> streamIndex(
+            String indexUrl, Validators validators, IndexReader<T> reader) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String repository = repository(indexUrl);
+        AtomicLong bytesReceived = new AtomicLong();
+        String outcome = "error";
+        try {
+            IndexResponse<T> response = fetch(indexUrl, validators, reader, bytesReceived);
+            if (response.notModified()) {
+                outcome = "not_modified";
+            } else {
+                outcome = response.body() != null ? "success" : "too_large";
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            Counter.builder("helm.index.fetch.errors")
+                    .description("Failed Helm index requests")
+                    .tag("repository", repository)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        } finally {
+            sample.stop(
+                    Timer.builder("helm.index.fetch")
+                            .description("Time to fetch and scan a Helm index")
+                            .tag("repository", repository)
+                            .tag("outcome", outcome)
+                            .register(meterRegistry));
+            DistributionSummary.builder("helm.index.received")
+                    .description("Helm index bytes received before decompression")
+                    .baseUnit("bytes")
+                    .tag("repository", repository)
+                    .register(meterRegistry)
+                    .record(bytesReceived.get());
+        }
+    }
+
+    /**
+     * The repository an index URL belongs to, for use as a metric tag: scheme, host, port and path
+     * without the trailing {@code index.yaml}. Userinfo, query and fragment are left out.
+     *
+     * @return The sanitized repository URL, or "unknown" if the URL has no scheme or host
+     */
+    static String repository(String indexUrl) {
+        URI uri;
+        try {
+            uri = URI.create(indexUrl);
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return "unknown";
+        }
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        if (path.endsWith("/index.yaml")) {
+            path = path.substring(0, path.length() - "/index.yaml".length());
+        }
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return uri.getScheme().toLowerCase(Locale.ROOT)
+                + "://"
+                + uri.getHost().toLowerCase(Locale.ROOT)
+                + (uri.getPort() >= 0 ? ":" + uri.getPort() : "")
+                + path;
+    }
+
+    private <T> IndexResponse<T> fetch(
+            String indexUrl, Validators validators, IndexReader<T> reader, AtomicLong bytesReceived)
+            throws IOException {
+        HttpRequest.Builder builder =
+                HttpRequest.newBuilder(URI.create(indexUrl))
+                        .timeout(RESPONSE_TIMEOUT)
+                        .header("Accept-Encoding", "gzip")
+                        .GET();
+        if (validators.etag() != null) {
+            builder.header("If-None-Match", validators.etag());
+        }
+        if (validators.lastModified() != null) {
+            builder.header("If-Modified-Since", validators.lastModified());
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + indexUrl, e);
+        }
+
+        try (InputStream body = new CountingInputStream(response.body(), bytesReceived)) {
+            if (response.statusCode() == 304) {
+                logger.debug("Helm index {} not modified", indexUrl);
+                return new IndexResponse<>(true, validators, null);
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException(
+                        "Unexpected HTTP status " + response.statusCode() + " from " + indexUrl);
+            }
+
+            Validators received =
+                    new Validators(
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null));
+
+            OptionalLong contentLength = response.headers().firstValueAsLong("Content-Length");
+            if (contentLength.isPresent() && contentLength.getAsLong() > MAX_INDEX_SIZE) {
+                logger.warn(
+                        "Helm index.yaml too large ({}MB) from {}, skipping",
+                        contentLength.getAsLong() / (1024 * 1024),
+                        indexUrl);
+                return new IndexResponse<>(false, received, null);
+            }
+
+            InputStream decoded =
+                    response.headers()
+                                    .firstValue("Content-Encoding")
+                                    .filter("gzip"::equalsIgnoreCase)
+                                    .isPresent()
+                            ? new GZIPInputStream(body, 8192)
+                            : body;
+            T result = reader.read(new SizeLimitedInputStream(decoded, MAX_INDEX_SIZE, indexUrl));
+            return new IndexResponse<>(false, received, result);
+        }
+    }
+
+    /** Adds the number of bytes read to a shared counter. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+    }
+
+    /** Fails the read once more than the allowed number of bytes has been consumed. */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private final String source;
+        private long consumed;
+
+        SizeLimitedInputStream(InputStream in, long limit, String source) {
+            super(in);
+            this.limit = limit;
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            consumed += n;
+            if (consumed > limit) {
+                throw new IOException(
+                        "Helm index.yaml from " + source + " exceeds " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package io.github.martinwitt.imagedetector.client;
+
+import io.github.martinwitt.imagedetector.ImageCheckProperties;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Client for the OCI distribution {@code tags/list} API.
+ *
+ * <p>Registries that require a token answer the first request with a {@code WWW-Authenticate:
+ * Bearer} challenge. The client fetches an anonymous pull token from the announced realm and caches
+ * it per registry and scope until shortly before it expires, so checking many images of the same
+ * registry costs one token request per repository scope and TTL instead of one per check. Callers
+ * that know all repositories of a registry up front can {@link #authorize} them together, which
+ * fetches a single token carrying all pull scopes.
+ *
+ * <p>Tag lists are followed through {@code Link: <...>; rel="next"} pagination. The ETag of the
+ * first page is kept with the result; a later request sends it as {@code If-None-Match} and a 304
+ * reuses the previous list without downloading any page.
+ *
+ * <p>Registries listed in {@code app.images.insecure-registries} and loopback hosts are contacted
+ * over plain HTTP, which is what a local {@code registry:2} stand-in serves.
+ */
+@Component
+public class OciRegistryClient {
+    private static final Logger logger = LoggerFactory.getLogger(OciRegistryClient.class);
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int PAGE_SIZE = 1000;
+    private static final int MAX_PAGES = 100;
+    private static final long DEFAULT_TOKEN_TTL_SECONDS = 60;
+    private static final long TOKEN_EXPIRY_MARGIN_MS = 10_000;
+    private static final int MAX_SCOPES_PER_TOKEN = 25;
+    private static final Pattern CHALLENGE_PARAM = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"?next\"?");
+
+    private final HttpClient httpClient;
+    private final Set<String> insecureRegistries;
+    private final Map<String, BearerToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Challenge> challenges = new ConcurrentHashMap<>();
+
+    /**
+     * Tags of one repository.
+     *
+     * @param tags All tags in registry order
+     * @param etag ETag of the first page, or null
+     * @param fetchedAt Time the list was fetched or last revalidated, in epoch milliseconds
+     */
+    public record TagList(List<String> tags, String etag, long fetchedAt) {
+        public boolean isExpired(Duration ttl) {
+            return System.currentTimeMillis() - fetchedAt > ttl.toMillis();
+        }
+
+        TagList revalidated() {
+            return new TagList(tags, etag, System.currentTimeMillis());
+        }
+    }
+
+    private record BearerToken(String value, long expiresAt) {
+        boolean isValid() {
+            return System.currentTimeMillis() < expiresAt - TOKEN_EXPIRY_MARGIN_MS;
+        }
+    }
+
+    /** Token endpoint of a registry; {@link #NONE} for registries that do not ask for a token. */
+    private record Challenge(String realm, String service) {
+        static final Challenge NONE = new Challenge(null, null);
+    }
+
+    public OciRegistryClient(ImageCheckProperties properties) {
+        this(
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(CONNECT_TIMEOUT)
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build(),
+                properties);
+    }
+
+    OciRegistryClient(HttpClient httpClient, ImageCheckProperties properties) {
+        this.httpClient = httpClient;
+        this.insecureRegistries = Set.copyOf(properties.getInsecureRegistries());
+    }
+
+    /**
+     * List the tags of a repository.
+     *
+     * @param registry Registry host, optionally with port, e.g. {@code ghcr.io}
+     * @param repository Repository path within the registry, e.g. {@code library/nginx}
+     * @param previous Previously fetched list used for a conditional request, or null
+     * @return The current tag list; {@code previous} with a new fetch time if unchanged
+     * @throws IOException if the registry cannot be reached or answers with an error
+     */
+    public TagList listTags(String registry, String repository, TagList previous)
+            throws IOException {
+        String scope = pullScope(repository);
+        URI pageUri =
+                URI.create(baseUrl(registry) + "/v2/" + repository + "/tags/list?n=" + PAGE_SIZE);
+
+        List<String> tags = new ArrayList<>();
+        String etag = null;
+        for (int page = 0; pageUri != null; page++) {
+            if (page == MAX_PAGES) {
+                logger.warn(
+                        "Stopped listing {}/{} after {} pages", registry, repository, MAX_PAGES);
+                break;
+            }
+            String ifNoneMatch = page == 0 && previous != null ? previous.etag() : null;
+            HttpResponse<byte[]> response = get(registry, scope, pageUri, ifNoneMatch);
+
+            // a 304 is only meaningful as the answer to our own If-None-Match; anything else
+            // falls through to the status check below
+            if (response.statusCode() == 304 && ifNoneMatch != null) {
+                logger.debug("Tags of {}/{} not modified", registry, repository);
+                return previous.revalidated();
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException(
+                        "Unexpected HTTP status "
+                                + response.statusCode()
+                                + " listing tags of "
+                                + registry
+                                + "/"
+                                + repository);
+            }
+            if (page == 0) {
+                etag = response.headers().firstValue("ETag").orElse(null);
+            }
+
+            JsonNode body = JsonMapper.shared().readTree(response.body());
+            for (JsonNode tag : body.path("tags")) {
+                tags.add(tag.asString());
+            }
+            pageUri = nextPage(pageUri, response);
+        }
+
+        logger.debug("Listed {} tags of {}/{}", tags.size(), registry, repository);
+        return new TagList(List.copyOf(tags), etag, System.currentTimeMillis());
+    }
+
+    /**
+     * Fetch pull tokens for several repositories of one registry ahead of listing their tags.
+     *
+     * <p>Scopes that already have a valid token are skipped; the rest are requested together, up to
+     * {@value #MAX_SCOPES_PER_TOKEN} per token request. The token endpoint is discovered once per
+     * registry from the challenge of {@code /v2/}. Registries that serve tags anonymously need no
+     * token and cost one probe request.
+     *
+     * @param registry Registry host, optionally with port
+     * @param repositories Repository paths whose tags will be listed
+     * @throws IOException if the registry or its token endpoint cannot be reached
+     */
+    public void authorize(String registry, Collection<String> repositories) throws IOException {
+        List<String> scopes =
+                repositories.stream()
+                        .map(OciRegistryClient::pullScope)
+                        .distinct()
+                        .filter(scope -> !hasValidToken(registry, scope))
+                        .toList();
+        if (scopes.isEmpty()) {
+            return;
+        }
+
+        Challenge challenge = challenges.get(registry);
+        if (challenge == null) {
+            HttpResponse<byte[]> probe = send(URI.create(baseUrl(registry) + "/v2/"), null, null);
+            challenge =
+                    probe.statusCode() == 401 ? parseChallenge(registry, probe) : Challenge.NONE;
+            challenges.put(registry, challenge);
+        }
+        if (challenge == Challenge.NONE) {
+            return;
+        }
+
+        for (int i = 0; i < scopes.size(); i += MAX_SCOPES_PER_TOKEN) {
+            List<String> batch =
+                    scopes.subList(i, Math.min(i + MAX_SCOPES_PER_TOKEN, scopes.size()));
+            BearerToken token = fetchToken(challenge, batch);
+            batch.forEach(scope -> tokens.put(tokenKey(registry, scope), token));
+        }
+        logger.debug("Authorized {} repositories of {}", scopes.size(), registry);
+    }
+
+    private static String pullScope(String repository) {
+        return "repository:" + repository + ":pull";
+    }
+
+    private static String tokenKey(String registry, String scope) {
+        return registry + " " + scope;
+    }
+
+    private boolean hasValidToken(String registry, String scope) {
+        BearerToken token = tokens.get(tokenKey(registry, scope));
+        return token != null && token.isValid();
+    }
+
+    private HttpResponse<byte[]> get(String registry, String scope, URI uri, String ifNoneMatch)
+            throws IOException {
+        String tokenKey = tokenKey(registry, scope);
+        BearerToken token = tokens.get(tokenKey);
+        HttpResponse<byte[]> response =
+                send(uri, token != null && token.isValid() ? token.value() : null, ifNoneMatch);
+        if (response.statusCode() != 401) {
+            return response;
+        }
+
+        Challenge challenge = parseChallenge(registry, response);
+        challenges.put(registry, challenge);
+        token = fetchToken(challenge, List.of(scope));
+        tokens.put(tokenKey, token);
+        return send(uri, token.value(), ifNoneMatch);
+    }
+
+    private static Challenge parseChallenge(String registry, HttpResponse<?> response)
+            throws IOException {
+        String header = response.headers().firstValue("WWW-Authenticate").orElse("");
+        if (!header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            throw new IOException("Registry " + registry + " requires unsupported authentication");
+        }
+        Map<String, String> params = new HashMap<>();
+        Matcher matcher = CHALLENGE_PARAM.matcher(header);
+        while (matcher.find()) {
+            params.put(matcher.group(1).toLowerCase(), matcher.group(2));
+        }
+        String realm = params.get("realm");
+        if (realm == null || realm.isBlank()) {
+            throw new IOException("Registry " + registry + " sent a challenge without realm");
+        }
+        return new Challenge(realm, params.get("service"));
+    }
+
+    private HttpResponse<byte[]> send(URI uri, String token, String ifNoneMatch)
+            throws IOException {
+        HttpRequest.Builder builder =
+                HttpRequest.newBuilder(uri)
+                        .timeout(RESPONSE_TIMEOUT)
+                        .header("Accept", "application/json")
+                        .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        try {
+            return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + uri, e);
+        }
+    }
+
+    /** Request an anonymous token for the given scopes from the realm of a Bearer challenge. */
+    private BearerToken fetchToken(Challenge challenge, List<String> scopes) throws IOException {
+        String realm = challenge.realm();
+        StringBuilder tokenUrl = new StringBuilder(realm);
+        char separator = realm.contains("?") ? '&' : '?';
+        if (challenge.service() != null) {
+            tokenUrl.append(separator)
+                    .append("service=")
+                    .append(URLEncoder.encode(challenge.service(), StandardCharsets.UTF_8));
+            separator = '&';
+        }
+        for (String scope : scopes) {
+            tokenUrl.append(separator)
+                    .append("scope=")
+                    .append(URLEncoder.encode(scope, StandardCharsets.UTF_8));
+            separator = '&';
+        }
+
+        HttpResponse<byte[]> response = send(URI.create(tokenUrl.toString()), null, null);
+        if (response.statusCode() != 200) {
+            throw new IOException(
+                    "Token request to " + realm + " failed with HTTP " + response.statusCode());
+        }
+        JsonNode body = JsonMapper.shared().readTree(response.body());
+        String value = body.path("token").asString(body.path("access_token").asString(null));
+        if (value == null || value.isEmpty()) {
+            throw new IOException("Token response from " + realm + " contains no token");
+        }
+        long expiresIn = body.path("expires_in").asLong(DEFAULT_TOKEN_TTL_SECONDS);
+        logger.debug("Fetched registry token for {} ({}s)", scopes, expiresIn);
+        return new BearerToken(value, System.currentTimeMillis() + expiresIn * 1000);
+    }
+
+    private static URI nextPage(URI current, HttpResponse<?> response) {
+        for (String link : response.headers().allValues("Link")) {
+            Matcher matcher = NEXT_LINK.matcher(link);
+            if (matcher.find()) {
+                return current.resolve(matcher.group(1));
+            }
+        }
+        return null;
+    }
+
+    private String baseUrl(String registry) {
+        if ("docker.io".equals(registry)) {
+            return "https://registry-1.docker.io";
+        }
+        String host =
+                registry.contains(":") ? registry.substring(0, registry.indexOf(':')) : registry;
+        boolean insecure =
+                insecureRegistries.contains(registry)
+                        || "localhost".equals(host)
+                        || "127.0.0.1".equals(host);
+        return (insecure ? "http://" : "https://") + registry;
+    }
+}
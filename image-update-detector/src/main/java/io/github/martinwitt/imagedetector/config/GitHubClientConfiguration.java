@@ -1,7 +1,10 @@
 package io.github.martinwitt.imagedetector.config;
 
 import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitHubRateLimiter;
 import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.GitHubRateLimitHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +15,10 @@ import org.springframework.context.annotation.Configuration;
  *
  * <p>Provides a singleton GitHub client bean configured with authentication token from properties.
  * The bean is only created if github.token property is set.
+ *
+ * <p>Requests are paced by {@link GitHubRateLimiter}. Should a request still be rejected for
+ * exceeding a rate limit, it fails instead of blocking for up to an hour; the scan then treats the
+ * affected files as unknown and retries with its next run.
  */
 @Configuration
 public class GitHubClientConfiguration {
@@ -21,17 +28,23 @@ public class GitHubClientConfiguration {
      * Create a GitHub API client bean with OAuth authentication.
      *
      * @param properties Image detector properties containing GitHub token and credentials
+     * @param rateLimiter Paces requests against the remaining rate limit
      * @return Configured GitHub client instance
      * @throws Exception if authentication token is missing or invalid
      */
     @Bean
-    public GitHub gitHubClient(ImageDetectorProperties properties) throws Exception {
+    public GitHub gitHubClient(ImageDetectorProperties properties, GitHubRateLimiter rateLimiter)
+            throws Exception {
         String authToken = properties.getToken();
         if (authToken == null || authToken.isEmpty()) {
             logger.warn("GitHub token not configured. GitOps features will be disabled.");
             throw new IllegalArgumentException("GitHub token is required for GitOps integration");
         }
         logger.info("Connecting to GitHub with OAuth authentication");
-        return GitHub.connectUsingOAuth(authToken);
+        return new GitHubBuilder()
+                .withOAuthToken(authToken)
+                .withRateLimitChecker(rateLimiter)
+                .withRateLimitHandler(GitHubRateLimitHandler.FAIL)
+                .build();
     }
 }
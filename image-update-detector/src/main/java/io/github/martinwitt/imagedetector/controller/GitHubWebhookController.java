@@ -0,0 +1,55 @@
+package io.github.martinwitt.imagedetector.controller;
+
+import io.github.martinwitt.imagedetector.service.GitOpsWebhookService;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Receives GitHub webhook deliveries. The body is bound as raw bytes because the signature covers
+ * the payload exactly as sent.
+ */
+@RestController
+@RequestMapping("/api/webhooks/github")
+public class GitHubWebhookController {
+    private final GitOpsWebhookService webhookService;
+
+    public GitHubWebhookController(GitOpsWebhookService webhookService) {
+        this.webhookService = webhookService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> onDelivery(
+            @RequestHeader(value = "X-GitHub-Event", required = false) String event,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestBody(required = false) byte[] body) {
+        if (!webhookService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("status", "disabled"));
+        }
+        byte[] payload = body != null ? body : new byte[0];
+        if (!webhookService.verifySignature(signature, payload)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("status", "invalid signature"));
+        }
+
+        if ("ping".equals(event)) {
+            return ResponseEntity.ok(Map.of("status", "pong"));
+        }
+        if (!"push".equals(event)) {
+            return ResponseEntity.ok(Map.of("status", "ignored"));
+        }
+
+        GitOpsWebhookService.Outcome outcome = webhookService.handlePush(payload);
+        HttpStatus status =
+                outcome == GitOpsWebhookService.Outcome.IGNORED
+                        ? HttpStatus.OK
+                        : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(Map.of("status", outcome.name().toLowerCase()));
+    }
+}
@@ -1,65 +1,33 @@
 package io.github.martinwitt.imagedetector.controller;
 
-import io.github.martinwitt.imagedetector.service.HelmChartScanService;
-import io.github.martinwitt.imagedetector.service.HelmVersionCheckService;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import io.github.martinwitt.imagedetector.service.DashboardSnapshot;
+import io.github.martinwitt.imagedetector.service.DashboardSnapshotService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.WebRequest;
 
 @Controller
 @RequestMapping("/")
 public class ImageDashboardController {
-    private final HelmChartScanService scanService;
-    private final HelmVersionCheckService versionCheckService;
+    private final DashboardSnapshotService snapshotService;
 
-    public ImageDashboardController(
-            HelmChartScanService scanService, HelmVersionCheckService versionCheckService) {
-        this.scanService = scanService;
-        this.versionCheckService = versionCheckService;
+    public ImageDashboardController(DashboardSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
     }
 
     @GetMapping
-    public String index(Model model) {
-        Map<String, List<HelmChartScanService.ChartDependency>> scannedApps =
-                scanService.getScannedCharts();
-        Map<String, HelmVersionCheckService.ChartInfo> trackedCharts =
-                versionCheckService.getTrackedCharts();
-
-        List<Map<String, Object>> allDependencies = new ArrayList<>();
-        int outOfDateCount = 0;
-
-        for (Map.Entry<String, List<HelmChartScanService.ChartDependency>> entry :
-                scannedApps.entrySet()) {
-            String appName = entry.getKey();
-            for (HelmChartScanService.ChartDependency dep : entry.getValue()) {
-                Map<String, Object> depMap = new LinkedHashMap<>();
-                depMap.put("app", appName);
-                depMap.put("name", dep.name());
-                depMap.put("version", dep.version());
-                depMap.put("repository", dep.repository());
-
-                HelmVersionCheckService.ChartInfo chartInfo =
-                        trackedCharts.get(appName + "/" + dep.name());
-                if (chartInfo != null && chartInfo.latestVersion() != null) {
-                    depMap.put("latestVersion", chartInfo.latestVersion());
-                    if (!chartInfo.latestVersion().equals(dep.version())) {
-                        outOfDateCount++;
-                    }
-                }
-
-                allDependencies.add(depMap);
-            }
+    public String index(Model model, WebRequest request) {
+        DashboardSnapshot snapshot = snapshotService.current();
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
         }
 
-        model.addAttribute("dependencies", allDependencies);
-        model.addAttribute("dependencyCount", allDependencies.size());
-        model.addAttribute("appCount", scannedApps.size());
-        model.addAttribute("outOfDateCount", outOfDateCount);
+        model.addAttribute("dependencies", snapshot.dashboardRows());
+        model.addAttribute("dependencyCount", snapshot.dashboardRows().size());
+        model.addAttribute("appCount", snapshot.appCount());
+        model.addAttribute("outOfDateCount", snapshot.outOfDateCount());
 
         return "index";
     }
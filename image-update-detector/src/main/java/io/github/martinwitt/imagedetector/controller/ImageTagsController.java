@@ -0,0 +1,38 @@
+package io.github.martinwitt.imagedetector.controller;
+
+import io.github.martinwitt.imagedetector.service.DashboardSnapshot;
+import io.github.martinwitt.imagedetector.service.DashboardSnapshotService;
+import java.util.Map;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/images")
+public class ImageTagsController {
+    private final DashboardSnapshotService snapshotService;
+
+    public ImageTagsController(DashboardSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @GetMapping
+    public Map<String, Object> getAllImages(WebRequest request) {
+        DashboardSnapshot snapshot = snapshotService.current();
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+        return snapshot.imagesResponse();
+    }
+
+    @GetMapping("/app/{appName}")
+    public Map<String, Object> getImagesByApp(@PathVariable String appName, WebRequest request) {
+        DashboardSnapshot snapshot = snapshotService.current();
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+        return snapshot.imagesOfApp(appName);
+    }
+}
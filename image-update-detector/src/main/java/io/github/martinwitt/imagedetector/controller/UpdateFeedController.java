@@ -0,0 +1,29 @@
+package io.github.martinwitt.imagedetector.controller;
+
+import io.github.martinwitt.imagedetector.service.UpdateFeedService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent event stream of detected changes. Browsers' {@code EventSource} sends {@code
+ * Last-Event-ID} on reconnect by itself, so a dropped connection resumes without gaps.
+ */
+@RestController
+@RequestMapping("/api/events")
+public class UpdateFeedController {
+    private final UpdateFeedService feedService;
+
+    public UpdateFeedController(UpdateFeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return feedService.subscribe(lastEventId);
+    }
+}
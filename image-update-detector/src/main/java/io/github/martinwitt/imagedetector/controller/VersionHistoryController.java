@@ -0,0 +1,101 @@
+package io.github.martinwitt.imagedetector.controller;
+
+import io.github.martinwitt.imagedetector.service.VersionHistoryService;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * History of the latest chart versions and of each app's drift. {@code from} and {@code to} take
+ * ISO-8601 instants such as {@code 2025-01-01T00:00:00Z} and default to an open range.
+ */
+@RestController
+@RequestMapping("/api/history")
+public class VersionHistoryController {
+    private final VersionHistoryService historyService;
+
+    public VersionHistoryController(VersionHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    @GetMapping("/versions")
+    public Map<String, Object> getVersions(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String chart,
+            @RequestParam(defaultValue = "" + VersionHistoryService.DEFAULT_LIMIT) int limit) {
+        VersionHistoryService.HistoryPage<VersionHistoryStore.VersionRecord> page =
+                historyService.versions(
+                        millis(from, Long.MIN_VALUE), millis(to, Long.MAX_VALUE), chart, limit);
+        return response(
+                from,
+                to,
+                page,
+                record -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("time", Instant.ofEpochMilli(record.timestamp()).toString());
+                    entry.put("chart", record.chart());
+                    entry.put("version", record.version());
+                    return entry;
+                });
+    }
+
+    @GetMapping("/drift")
+    public Map<String, Object> getDrift(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String app,
+            @RequestParam(defaultValue = "" + VersionHistoryService.DEFAULT_LIMIT) int limit) {
+        VersionHistoryService.HistoryPage<VersionHistoryStore.DriftRecord> page =
+                historyService.drift(
+                        millis(from, Long.MIN_VALUE), millis(to, Long.MAX_VALUE), app, limit);
+        Map<String, Object> response =
+                response(
+                        from,
+                        to,
+                        page,
+                        record -> {
+                            Map<String, Object> entry = new LinkedHashMap<>();
+                            entry.put("time", Instant.ofEpochMilli(record.timestamp()).toString());
+                            entry.put("app", record.app());
+                            entry.put("outdatedCharts", record.outdatedCharts());
+                            entry.put("charts", record.charts());
+                            entry.put("outdatedImages", record.outdatedImages());
+                            entry.put("images", record.images());
+                            return entry;
+                        });
+        if (app != null) {
+            Long since = historyService.outOfDateSince(app);
+            response.put(
+                    "outOfDateSince",
+                    since != null ? Instant.ofEpochMilli(since).toString() : null);
+        }
+        return response;
+    }
+
+    private static long millis(Instant instant, long fallback) {
+        return instant != null ? instant.toEpochMilli() : fallback;
+    }
+
+    private static <T> Map<String, Object> response(
+            Instant from,
+            Instant to,
+            VersionHistoryService.HistoryPage<T> page,
+            Function<T, Map<String, Object>> toEntry) {
+        List<Map<String, Object>> entries = page.entries().stream().map(toEntry).toList();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", from != null ? from.toString() : null);
+        response.put("to", to != null ? to.toString() : null);
+        response.put("count", entries.size());
+        response.put("truncated", page.truncated());
+        response.put("entries", entries);
+        return response;
+    }
+}
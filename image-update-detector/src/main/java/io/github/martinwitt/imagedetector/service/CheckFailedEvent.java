@@ -0,0 +1,10 @@
+package io.github.martinwitt.imagedetector.service;
+
+/**
+ * Published when a scan or version check could not read a source.
+ *
+ * @param source The failing activity: {@code scan}, {@code helm-check} or {@code image-check}
+ * @param target The repository, registry or app that failed; null if the whole run failed
+ * @param message Reason of the failure
+ */
+public record CheckFailedEvent(String source, String target, String message) {}
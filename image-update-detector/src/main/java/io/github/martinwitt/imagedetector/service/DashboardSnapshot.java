@@ -0,0 +1,88 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of all scanned dependencies, joined with their latest versions.
+ *
+ * <p>Built once per state change by {@link DashboardSnapshotService} and shared by all requests
+ * until the next change. The response maps have the JSON shape of the REST API and are returned as
+ * they are; nothing is copied or joined per request.
+ *
+ * @param version Increases with every content change and starts at the startup time, so ETags from
+ *     before a restart do not match; the source of the HTTP ETag
+ * @param chartsResponse Body of {@code GET /api/helm-dependencies}
+ * @param chartsByApp Body of {@code GET /api/helm-dependencies/app/{app}} per app
+ * @param dashboardRows One row per chart dependency for the dashboard page
+ * @param appCount Number of apps with chart dependencies
+ * @param outOfDateCount Number of chart dependencies with a newer version available
+ * @param imagesResponse Body of {@code GET /api/images}
+ * @param imagesByApp Body of {@code GET /api/images/app/{app}} per app
+ * @param driftByApp How far each app is behind the latest versions
+ */
+public record DashboardSnapshot(
+        long version,
+        Map<String, Object> chartsResponse,
+        Map<String, Map<String, Object>> chartsByApp,
+        List<Map<String, Object>> dashboardRows,
+        int appCount,
+        int outOfDateCount,
+        Map<String, Object> imagesResponse,
+        Map<String, Map<String, Object>> imagesByApp,
+        Map<String, AppDrift> driftByApp) {
+
+    /**
+     * Dependencies of an app and how many of them have a newer version available.
+     *
+     * @param outdatedCharts Charts with a newer version
+     * @param charts All charts of the app
+     * @param outdatedImages Images with a newer tag
+     * @param images All images of the app
+     */
+    public record AppDrift(int outdatedCharts, int charts, int outdatedImages, int images) {
+        public static final AppDrift NONE = new AppDrift(0, 0, 0, 0);
+
+        public boolean isOutOfDate() {
+            return outdatedCharts > 0 || outdatedImages > 0;
+        }
+    }
+
+    /** Snapshot before the first scan. */
+    static DashboardSnapshot empty(long version) {
+        return new DashboardSnapshot(
+                version,
+                Map.of("scannedApps", 0, "apps", Map.of()),
+                Map.of(),
+                List.of(),
+                0,
+                0,
+                Map.of("scannedApps", 0, "apps", Map.of()),
+                Map.of(),
+                Map.of());
+    }
+
+    public String etag() {
+        return "\"" + version + "\"";
+    }
+
+    public Map<String, Object> chartsOfApp(String appName) {
+        Map<String, Object> response = chartsByApp.get(appName);
+        return response != null
+                ? response
+                : Map.of("app", appName, "dependencyCount", 0, "dependencies", List.of());
+    }
+
+    public Map<String, Object> imagesOfApp(String appName) {
+        Map<String, Object> response = imagesByApp.get(appName);
+        return response != null
+                ? response
+                : Map.of("app", appName, "imageCount", 0, "images", List.of());
+    }
+
+    /** True if both snapshots would serve the same responses, regardless of their version. */
+    boolean hasSameContent(DashboardSnapshot other) {
+        return chartsResponse.equals(other.chartsResponse)
+                && imagesResponse.equals(other.imagesResponse);
+    }
+}
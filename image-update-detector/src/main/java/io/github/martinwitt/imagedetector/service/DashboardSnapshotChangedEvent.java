@@ -0,0 +1,10 @@
+package io.github.martinwitt.imagedetector.service;
+
+/**
+ * Published after a new {@link DashboardSnapshot} was swapped in.
+ *
+ * @param previous The replaced snapshot; null for the first snapshot after startup
+ * @param current The new snapshot
+ */
+public record DashboardSnapshotChangedEvent(
+        DashboardSnapshot previous, DashboardSnapshot current) {}
@@ -0,0 +1,202 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the current {@link DashboardSnapshot}.
+ *
+ * <p>The snapshot is rebuilt whenever a scan or version check reports a {@link
+ * DependenciesUpdatedEvent} and swapped in atomically, so readers always see a consistent state
+ * without locking. A rebuild that produces the same content keeps the previous version, so clients
+ * holding its ETag keep getting 304 responses.
+ */
+@Service
+public class DashboardSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    private final HelmChartScanService scanService;
+    private final HelmVersionCheckService versionCheckService;
+    private final ImageTagCheckService imageTagCheckService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DashboardSnapshot initial = DashboardSnapshot.empty(System.currentTimeMillis());
+    private final AtomicReference<DashboardSnapshot> snapshot = new AtomicReference<>(initial);
+
+    public DashboardSnapshotService(
+            HelmChartScanService scanService,
+            HelmVersionCheckService versionCheckService,
+            ImageTagCheckService imageTagCheckService,
+            ApplicationEventPublisher eventPublisher) {
+        this.scanService = scanService;
+        this.versionCheckService = versionCheckService;
+        this.imageTagCheckService = imageTagCheckService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public DashboardSnapshot current() {
+        return snapshot.get();
+    }
+
+    @EventListener
+    void onDependenciesUpdated(DependenciesUpdatedEvent event) {
+        rebuild();
+    }
+
+    synchronized void rebuild() {
+        DashboardSnapshot previous = snapshot.get();
+        DashboardSnapshot next =
+                build(
+                        previous.version() + 1,
+                        scanService.getScannedCharts(),
+                        versionCheckService.getTrackedCharts(),
+                        scanService.getScannedImages(),
+                        imageTagCheckService.getTrackedImages());
+        if (next.hasSameContent(previous)) {
+            return;
+        }
+        snapshot.set(next);
+        logger.debug("Dashboard snapshot {} built", next.version());
+        eventPublisher.publishEvent(
+                new DashboardSnapshotChangedEvent(previous != initial ? previous : null, next));
+    }
+
+    static DashboardSnapshot build(
+            long version,
+            Map<String, List<HelmChartScanService.ChartDependency>> scannedCharts,
+            Map<String, HelmVersionCheckService.ChartInfo> trackedCharts,
+            Map<String, List<HelmChartScanService.ImageDependency>> scannedImages,
+            Map<String, ImageTagCheckService.ImageInfo> trackedImages) {
+        Map<String, Object> chartApps = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> chartsByApp = new TreeMap<>();
+        List<Map<String, Object>> dashboardRows = new ArrayList<>();
+        int outOfDateCount = 0;
+        // Per app: outdated charts, charts, outdated images, images
+        Map<String, int[]> countsByApp = new TreeMap<>();
+
+        for (Map.Entry<String, List<HelmChartScanService.ChartDependency>> entry :
+                new TreeMap<>(scannedCharts).entrySet()) {
+            String appName = entry.getKey();
+            List<Map<String, Object>> charts = new ArrayList<>();
+            for (HelmChartScanService.ChartDependency chart : entry.getValue()) {
+                HelmVersionCheckService.ChartInfo chartInfo =
+                        trackedCharts.get(appName + "/" + chart.name());
+                String latestVersion = chartInfo != null ? chartInfo.latestVersion() : null;
+
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("name", chart.name());
+                data.put("version", chart.version());
+                data.put("repository", chart.repository());
+                data.put("lastUpdated", chart.lastUpdated());
+                if (latestVersion != null) {
+                    data.put("latestVersion", latestVersion);
+                }
+                charts.add(Collections.unmodifiableMap(data));
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("app", appName);
+                row.put("name", chart.name());
+                row.put("version", chart.version());
+                row.put("repository", chart.repository());
+                if (latestVersion != null) {
+                    row.put("latestVersion", latestVersion);
+                    if (!latestVersion.equals(chart.version())) {
+                        outOfDateCount++;
+                        countsByApp.computeIfAbsent(appName, k -> new int[4])[0]++;
+                    }
+                }
+                dashboardRows.add(Collections.unmodifiableMap(row));
+            }
+            List<Map<String, Object>> appCharts = List.copyOf(charts);
+            countsByApp.computeIfAbsent(appName, k -> new int[4])[1] = appCharts.size();
+            chartApps.put(appName, appCharts);
+            chartsByApp.put(
+                    appName,
+                    orderedMap(
+                            "app", appName,
+                            "dependencyCount", appCharts.size(),
+                            "dependencies", appCharts));
+        }
+
+        Map<String, Object> imageApps = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> imagesByApp = new TreeMap<>();
+        for (Map.Entry<String, List<HelmChartScanService.ImageDependency>> entry :
+                new TreeMap<>(scannedImages).entrySet()) {
+            String appName = entry.getKey();
+            List<Map<String, Object>> images = new ArrayList<>();
+            for (HelmChartScanService.ImageDependency image : entry.getValue()) {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("path", image.path());
+                data.put("registry", image.image().registry());
+                data.put("repository", image.image().repository());
+                data.put("tag", image.image().tag());
+                ImageTagCheckService.ImageInfo imageInfo =
+                        trackedImages.get(appName + "/" + image.path());
+                if (imageInfo != null && imageInfo.latestTag() != null) {
+                    data.put("latestTag", imageInfo.latestTag());
+                    if (!imageInfo.latestTag().equals(image.image().tag())) {
+                        countsByApp.computeIfAbsent(appName, k -> new int[4])[2]++;
+                    }
+                }
+                images.add(Collections.unmodifiableMap(data));
+            }
+            List<Map<String, Object>> appImages = List.copyOf(images);
+            countsByApp.computeIfAbsent(appName, k -> new int[4])[3] = appImages.size();
+            imageApps.put(appName, appImages);
+            imagesByApp.put(
+                    appName,
+                    orderedMap(
+                            "app", appName,
+                            "imageCount", appImages.size(),
+                            "images", appImages));
+        }
+
+        return new DashboardSnapshot(
+                version,
+                orderedMap(
+                        "scannedApps",
+                        chartApps.size(),
+                        "apps",
+                        Collections.unmodifiableMap(chartApps)),
+                Collections.unmodifiableMap(chartsByApp),
+                List.copyOf(dashboardRows),
+                chartApps.size(),
+                outOfDateCount,
+                orderedMap(
+                        "scannedApps",
+                        imageApps.size(),
+                        "apps",
+                        Collections.unmodifiableMap(imageApps)),
+                Collections.unmodifiableMap(imagesByApp),
+                driftByApp(countsByApp));
+    }
+
+    private static Map<String, DashboardSnapshot.AppDrift> driftByApp(
+            Map<String, int[]> countsByApp) {
+        Map<String, DashboardSnapshot.AppDrift> driftByApp = new TreeMap<>();
+        countsByApp.forEach(
+                (app, counts) ->
+                        driftByApp.put(
+                                app,
+                                new DashboardSnapshot.AppDrift(
+                                        counts[0], counts[1], counts[2], counts[3])));
+        return Collections.unmodifiableMap(driftByApp);
+    }
+
+    private static Map<String, Object> orderedMap(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.martinwitt.imagedetector.service;
+
+/**
+ * Published when a scan or version check has finished and the dependency state may have changed.
+ *
+ * @param source The component that finished, e.g. {@code scan} or {@code helm-check}
+ */
+public record DependenciesUpdatedEvent(String source) {}
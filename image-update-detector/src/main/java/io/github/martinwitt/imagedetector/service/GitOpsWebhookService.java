@@ -0,0 +1,158 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitOpsSource;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Handles GitHub push webhooks for the GitOps sources.
+ *
+ * <p>Deliveries are authenticated with the {@code X-Hub-Signature-256} HMAC over the raw request
+ * body. A push is matched against every source tracking the pushed repository and branch. For each,
+ * it is reduced to the set of app directories its commits touched, and only those apps are
+ * rescanned. Pushes whose file lists cannot be trusted (forced pushes, new branches, payloads at
+ * GitHub's commit limit) fall back to a full scan of the source.
+ */
+@Service
+public class GitOpsWebhookService {
+    private static final Logger logger = LoggerFactory.getLogger(GitOpsWebhookService.class);
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    private static final int MAX_PAYLOAD_COMMITS = 2048;
+
+    private final ImageDetectorProperties properties;
+    private final HelmChartScanService scanService;
+
+    public enum Outcome {
+        QUEUED,
+        FULL_SCAN,
+        IGNORED
+    }
+
+    public GitOpsWebhookService(
+            ImageDetectorProperties properties, HelmChartScanService scanService) {
+        this.properties = properties;
+        this.scanService = scanService;
+    }
+
+    public boolean isEnabled() {
+        String secret = properties.getWebhookSecret();
+        return secret != null && !secret.isBlank();
+    }
+
+    /**
+     * Check the {@code X-Hub-Signature-256} header against the HMAC-SHA256 of the body.
+     *
+     * @param signature Header value, {@code sha256=<hex>}; may be null
+     * @param body Raw request body exactly as received
+     * @return true if the signature was made with the configured secret
+     */
+    public boolean verifySignature(String signature, byte[] body) {
+        if (!isEnabled() || signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(
+                    new SecretKeySpec(
+                            properties.getWebhookSecret().getBytes(StandardCharsets.UTF_8),
+                            "HmacSHA256"));
+            expected = mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+
+        byte[] received;
+        try {
+            received = HexFormat.of().parseHex(signature.substring(SIGNATURE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, received);
+    }
+
+    /**
+     * Queue the rescans for a verified push event.
+     *
+     * @param body Raw push event payload
+     * @return What was done with the push
+     */
+    public Outcome handlePush(byte[] body) {
+        JsonNode push;
+        try {
+            push = JsonMapper.shared().readTree(body);
+        } catch (JacksonException e) {
+            logger.warn("Ignoring malformed push payload: {}", e.getMessage());
+            return Outcome.IGNORED;
+        }
+
+        String repository = push.path("repository").path("full_name").asString("");
+        String ref = push.path("ref").asString("");
+        if (push.path("deleted").asBoolean(false)) {
+            logger.debug("Ignoring deletion of {}", ref);
+            return Outcome.IGNORED;
+        }
+        String defaultBranch = push.path("repository").path("default_branch").asString("");
+        List<GitOpsSource> sources =
+                scanService.getSources().stream()
+                        .filter(source -> source.repo().equalsIgnoreCase(repository))
+                        .filter(
+                                source -> {
+                                    String branch =
+                                            source.branch() != null
+                                                    ? source.branch()
+                                                    : defaultBranch;
+                                    return ref.equals("refs/heads/" + branch);
+                                })
+                        .toList();
+        if (sources.isEmpty()) {
+            logger.debug("Ignoring push to {} {}", repository, ref);
+            return Outcome.IGNORED;
+        }
+
+        JsonNode commits = push.path("commits");
+        if (push.path("forced").asBoolean(false)
+                || push.path("created").asBoolean(false)
+                || commits.size() >= MAX_PAYLOAD_COMMITS) {
+            logger.info("Push to {} without a usable change list, scanning all apps", ref);
+            sources.forEach(scanService::requestFullScan);
+            return Outcome.FULL_SCAN;
+        }
+
+        for (GitOpsSource source : sources) {
+            Set<String> apps = new TreeSet<>();
+            for (JsonNode commit : commits) {
+                for (String field : new String[] {"added", "modified", "removed"}) {
+                    for (JsonNode path : commit.path(field)) {
+                        String app = source.appOf(path.asString(""));
+                        if (app != null) {
+                            apps.add(app);
+                        }
+                    }
+                }
+            }
+
+            logger.info("Push to {} changed apps {}", source.describe(), apps);
+            scanService.enqueueRescan(
+                    source,
+                    apps,
+                    push.path("before").asString(""),
+                    push.path("after").asString(""));
+        }
+        return Outcome.QUEUED;
+    }
+}
@@ -1,27 +1,84 @@
 package io.github.martinwitt.imagedetector.service;
 
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
 import io.github.martinwitt.imagedetector.client.GitOpsClient;
+import io.github.martinwitt.imagedetector.client.GitOpsSource;
+import io.github.martinwitt.imagedetector.client.GitOpsUnavailableException;
+import jakarta.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 
+/**
+ * Scans the apps of the GitOps sources for Helm chart dependencies and container images.
+ *
+ * <p>Each source is polled at its own interval, and due sources are scanned in parallel on virtual
+ * threads. Scans of the same source never overlap. Charts and images of all sources are registered
+ * with the shared version check services, which check each repository and chart only once however
+ * many apps and branches use it.
+ *
+ * <p>Pushes reported by the webhook rescan just the apps they touched. The poll is the safety net:
+ * it compares the branch head with the last commit the scan state is known to reflect and only runs
+ * a full scan if they differ, which happens when a webhook delivery was missed or none is
+ * configured.
+ */
 @Service
 public class HelmChartScanService {
     private static final Logger logger = LoggerFactory.getLogger(HelmChartScanService.class);
 
     private final Map<String, List<ChartDependency>> scannedCharts = new ConcurrentHashMap<>();
+    private final Map<String, List<ImageDependency>> scannedImages = new ConcurrentHashMap<>();
     private final GitOpsClient gitOpsClient;
     private final HelmVersionCheckService versionCheckService;
+    private final ImageTagCheckService imageTagCheckService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, SourceState> sources = new LinkedHashMap<>();
+    private final ExecutorService scanExecutor =
+            Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("gitops-scan-", 0).factory());
 
+    /** A push whose changed apps still have to be rescanned. */
+    private record Push(Set<String> apps, String before, String after) {}
+
+    /** Scan state of one source; scans and rescans of the source hold its lock. */
+    private static final class SourceState {
+        final GitOpsSource source;
+        final ReentrantLock lock = new ReentrantLock();
+        final Queue<Push> pendingPushes = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean polling = new AtomicBoolean();
+        final Set<String> apps = ConcurrentHashMap.newKeySet();
+        volatile String lastScannedSha;
+        volatile long nextPollAt;
+
+        SourceState(GitOpsSource source) {
+            this.source = source;
+        }
+    }
+
+    /**
+     * A Helm chart dependency from an app's Chart.yaml.
+     *
+     * @param lastUpdated When the dependency was first scanned with this version and repository
+     */
     public record ChartDependency(
             String name, String version, String repository, long lastUpdated) {
         public ChartDependency(String name, String version, String repository) {
@@ -29,16 +86,44 @@ public class HelmChartScanService {
         }
     }
 
+    /**
+     * A container image referenced from an app's values.yaml.
+     *
+     * @param path Location in values.yaml, e.g. {@code server.image}
+     * @param image The referenced image
+     */
+    public record ImageDependency(String path, ImageReference image) {}
+
     public HelmChartScanService(
-            GitOpsClient gitOpsClient, HelmVersionCheckService versionCheckService) {
+            GitOpsClient gitOpsClient,
+            HelmVersionCheckService versionCheckService,
+            ImageTagCheckService imageTagCheckService,
+            ApplicationEventPublisher eventPublisher,
+            ImageDetectorProperties properties) {
         this.gitOpsClient = gitOpsClient;
         this.versionCheckService = versionCheckService;
+        this.imageTagCheckService = imageTagCheckService;
+        this.eventPublisher = eventPublisher;
+        for (GitOpsSource source : GitOpsSource.fromProperties(properties)) {
+            sources.put(source.name(), new SourceState(source));
+        }
+        if (sources.isEmpty()) {
+            logger.warn("No GitOps source configured, nothing will be scanned");
+        }
     }
 
     public Map<String, List<ChartDependency>> getScannedCharts() {
         return Map.copyOf(scannedCharts);
     }
 
+    public Map<String, List<ImageDependency>> getScannedImages() {
+        return Map.copyOf(scannedImages);
+    }
+
+    public List<GitOpsSource> getSources() {
+        return sources.values().stream().map(state -> state.source).toList();
+    }
+
     private Yaml createYamlParser() {
         LoaderOptions loaderOptions = new LoaderOptions();
         loaderOptions.setCodePointLimit(50 * 1024 * 1024);
@@ -47,52 +132,226 @@ public class HelmChartScanService {
         return new Yaml(loaderOptions);
     }
 
-    @Scheduled(fixedDelayString = "${app.gitops.refresh-interval-ms:300000}", initialDelay = 0)
-    public void scanHelmCharts() {
-        logger.info("Starting Helm chart scan from GitOps repository");
+    @PreDestroy
+    void shutdown() {
+        scanExecutor.shutdownNow();
+    }
+
+    /** Start a poll of every source whose refresh interval has passed and that is not polling. */
+    @Scheduled(fixedDelay = 5, initialDelay = 0, timeUnit = TimeUnit.SECONDS)
+    public void pollDueSources() {
+        long now = System.currentTimeMillis();
+        for (SourceState state : sources.values()) {
+            if (now >= state.nextPollAt && state.polling.compareAndSet(false, true)) {
+                scanExecutor.execute(() -> poll(state));
+            }
+        }
+    }
 
+    private void poll(SourceState state) {
         try {
-            List<String> apps = gitOpsClient.listApps();
-            logger.info("Found {} apps in /apps/", apps.size());
+            String headSha = gitOpsClient.getHeadSha(state.source);
+            if (headSha != null && headSha.equals(state.lastScannedSha)) {
+                logger.debug(
+                        "{} head {} already scanned, skipping scan",
+                        state.source.describe(),
+                        headSha);
+                return;
+            }
+
+            state.lock.lock();
+            try {
+                scanAllApps(state, headSha);
+            } finally {
+                state.lock.unlock();
+            }
+        } finally {
+            state.nextPollAt =
+                    System.currentTimeMillis() + state.source.refreshInterval().toMillis();
+            state.polling.set(false);
+        }
+    }
+
+    /** Queue a full scan of a source, e.g. after a push whose changed files are not known. */
+    public void requestFullScan(GitOpsSource source) {
+        SourceState state = sources.get(source.name());
+        scanExecutor.execute(
+                () -> {
+                    state.lock.lock();
+                    try {
+                        scanAllApps(state, gitOpsClient.getHeadSha(source));
+                    } finally {
+                        state.lock.unlock();
+                    }
+                });
+    }
 
-            Set<String> currentApps = new HashSet<>(apps);
+    /**
+     * Queue a rescan of the apps changed by a push. Pushes that arrive while a rescan of the same
+     * source is running are coalesced into the next one.
+     *
+     * @param source The source the push went to
+     * @param apps Names of the apps with changed files, as returned by {@link GitOpsSource#appOf};
+     *     may be empty
+     * @param before Branch head before the push
+     * @param after Branch head after the push
+     */
+    public void enqueueRescan(GitOpsSource source, Set<String> apps, String before, String after) {
+        SourceState state = sources.get(source.name());
+        state.pendingPushes.add(new Push(Set.copyOf(apps), before, after));
+        scanExecutor.execute(() -> rescanPendingApps(state));
+    }
 
-            for (String appName : apps) {
-                try {
-                    scanApp(appName);
-                } catch (Exception e) {
-                    logger.warn("Failed to scan app {}: {}", appName, e.getMessage());
+    private void rescanPendingApps(SourceState state) {
+        state.lock.lock();
+        try {
+            Set<String> apps = new TreeSet<>();
+            String head = state.lastScannedSha;
+            boolean contiguous = head != null;
+            Push push;
+            while ((push = state.pendingPushes.poll()) != null) {
+                apps.addAll(push.apps());
+                if (contiguous && head.equals(push.before())) {
+                    head = push.after();
+                } else {
+                    contiguous = false;
                 }
             }
 
-            scannedCharts.keySet().stream()
-                    .filter(app -> !currentApps.contains(app))
-                    .toList()
-                    .forEach(
-                            app -> {
-                                List<ChartDependency> charts = scannedCharts.remove(app);
-                                logger.info(
-                                        "Removed app from scanning: {} (had {} charts)",
-                                        app,
-                                        charts.size());
-                                charts.forEach(
-                                        chart ->
-                                                versionCheckService.unregisterChart(
-                                                        app, chart.name()));
-                            });
+            boolean complete = true;
+            for (String app : apps) {
+                evictApp(state.source, app);
+                complete &= scanApp(state, app);
+            }
+            // Only a gapless chain of pushes starting at the scanned head, with every app read,
+            // proves the state is current; otherwise the next poll runs a full scan.
+            if (contiguous && complete) {
+                state.lastScannedSha = head;
+            }
+            if (!apps.isEmpty()) {
+                logger.info(
+                        "Rescanned {} apps of {} after push: {}",
+                        apps.size(),
+                        state.source.describe(),
+                        apps);
+                eventPublisher.publishEvent(new DependenciesUpdatedEvent("scan"));
+            }
+        } catch (Exception e) {
+            logger.error("Incremental rescan failed: {}", e.getMessage());
+            eventPublisher.publishEvent(new CheckFailedEvent("scan", null, e.getMessage()));
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Scan the Chart.yaml and values.yaml of an app. An app whose Chart.yaml is gone loses its
+     * charts, while an unreadable file leaves the app as it was.
+     *
+     * @return false if a file could not be read
+     */
+    private boolean scanApp(SourceState state, String app) {
+        GitOpsSource source = state.source;
+        String appName = source.qualify(app);
+        state.apps.add(appName);
+        boolean complete = true;
+        try {
+            if (!scanChart(source, app, appName)) {
+                removeCharts(appName);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to scan app {}: {}", appName, e.getMessage());
+            eventPublisher.publishEvent(new CheckFailedEvent("scan", appName, e.getMessage()));
+            complete &= !(e instanceof GitOpsUnavailableException);
+        }
+        try {
+            scanValues(source, app, appName);
+        } catch (Exception e) {
+            logger.warn("Failed to scan values of app {}: {}", appName, e.getMessage());
+            eventPublisher.publishEvent(new CheckFailedEvent("scan", appName, e.getMessage()));
+            complete &= !(e instanceof GitOpsUnavailableException);
+        }
+        return complete;
+    }
+
+    private void evictApp(GitOpsSource source, String app) {
+        gitOpsClient.evictFileContent(source, chartPath(source, app));
+        gitOpsClient.evictFileContent(source, valuesPath(source, app));
+    }
+
+    private static String chartPath(GitOpsSource source, String app) {
+        return "/" + source.appDirectory(app) + "/Chart.yaml";
+    }
+
+    private static String valuesPath(GitOpsSource source, String app) {
+        return "/" + source.appDirectory(app) + "/values.yaml";
+    }
+
+    private void scanAllApps(SourceState state, String headSha) {
+        GitOpsSource source = state.source;
+        logger.info("Starting Helm chart scan of {}", source.describe());
+
+        try {
+            List<String> apps = gitOpsClient.listApps(source);
+            logger.info("Found {} apps in {}", apps.size(), source.describe());
 
-            logger.info("Helm chart scan completed");
+            Set<String> currentApps = new HashSet<>();
+            for (String app : apps) {
+                currentApps.add(source.qualify(app));
+                evictApp(source, app);
+            }
+
+            // An unreadable file leaves the app as it was; only successful reads change state.
+            boolean complete = true;
+            for (String app : apps) {
+                complete &= scanApp(state, app);
+            }
+
+            for (String appName : List.copyOf(state.apps)) {
+                if (!currentApps.contains(appName)) {
+                    removeCharts(appName);
+                    removeImages(appName);
+                    state.apps.remove(appName);
+                }
+            }
+
+            if (complete) {
+                state.lastScannedSha = headSha;
+                logger.info("Helm chart scan of {} completed", source.describe());
+            } else {
+                logger.warn(
+                        "Helm chart scan of {} incomplete, unreadable apps are retried next run",
+                        source.describe());
+            }
+            eventPublisher.publishEvent(new DependenciesUpdatedEvent("scan"));
         } catch (Exception e) {
-            logger.error("Helm chart scan failed: {}", e.getMessage());
+            logger.error("Helm chart scan of {} failed: {}", source.describe(), e.getMessage());
+            eventPublisher.publishEvent(
+                    new CheckFailedEvent("scan", source.describe(), e.getMessage()));
+        }
+    }
+
+    private void removeCharts(String appName) {
+        List<ChartDependency> charts = scannedCharts.remove(appName);
+        if (charts != null) {
+            logger.info("Removed app from scanning: {} (had {} charts)", appName, charts.size());
+            charts.forEach(chart -> versionCheckService.unregisterChart(appName, chart.name()));
+        }
+    }
+
+    private void removeImages(String appName) {
+        List<ImageDependency> images = scannedImages.remove(appName);
+        if (images != null) {
+            images.forEach(image -> imageTagCheckService.unregisterImage(appName, image.path()));
         }
     }
 
-    private void scanApp(String appName) {
-        String chartPath = "/apps/" + appName + "/Chart.yaml";
-        String chartContent = gitOpsClient.getFileContent(chartPath);
+    /** Scan the Chart.yaml of an app; returns false if the app has none. */
+    private boolean scanChart(GitOpsSource source, String app, String appName) {
+        String chartContent = gitOpsClient.getFileContent(source, chartPath(source, app));
         if (chartContent == null) {
             logger.info("No Chart.yaml found for app: {}", appName);
-            return;
+            return false;
         }
 
         try {
@@ -100,19 +359,49 @@ public class HelmChartScanService {
             Map<String, Object> chartYaml = yaml.load(chartContent);
             if (chartYaml == null) {
                 logger.warn("Empty Chart.yaml for app: {}", appName);
-                return;
+                return true;
             }
             extractAndSaveDependencies(appName, chartYaml);
             logger.info("Scanned dependencies for app: {}", appName);
         } catch (Exception e) {
             logger.warn("Failed to parse Chart.yaml for {}: {}", appName, e.getMessage());
         }
+        return true;
     }
 
-    private void extractAndSaveDependencies(String appName, Map<String, Object> chartYaml) {
+    private void scanValues(GitOpsSource source, String app, String appName) {
+        String valuesContent = gitOpsClient.getFileContent(source, valuesPath(source, app));
+        List<ImageDependency> images = List.of();
+        if (valuesContent != null) {
+            Object values = createYamlParser().load(valuesContent);
+            if (values instanceof Map<?, ?> valuesMap) {
+                images = ValuesImageExtractor.extract(valuesMap);
+            }
+        }
+
+        Set<String> newPaths = new HashSet<>();
+        for (ImageDependency image : images) {
+            newPaths.add(image.path());
+            imageTagCheckService.registerImage(appName, image.path(), image.image());
+        }
+        List<ImageDependency> oldImages =
+                images.isEmpty()
+                        ? scannedImages.remove(appName)
+                        : scannedImages.put(appName, List.copyOf(images));
+        if (oldImages != null) {
+            oldImages.stream()
+                    .filter(old -> !newPaths.contains(old.path()))
+                    .forEach(old -> imageTagCheckService.unregisterImage(appName, old.path()));
+        }
+        if (!images.isEmpty()) {
+            logger.info("Updated {} with {} image references", appName, images.size());
+        }
+    }
+
+    void extractAndSaveDependencies(String appName, Map<String, Object> chartYaml) {
         Object depsObj = chartYaml.get("dependencies");
         if (depsObj == null) {
-            scannedCharts.remove(appName);
+            removeCharts(appName);
             return;
         }
 
@@ -121,6 +410,7 @@ public class HelmChartScanService {
             return;
         }
 
+        List<ChartDependency> oldCharts = scannedCharts.getOrDefault(appName, List.of());
         List<ChartDependency> newCharts = new ArrayList<>();
         Set<String> newDepNames = new HashSet<>();
 
@@ -140,7 +430,11 @@ public class HelmChartScanService {
             }
 
             newDepNames.add(name);
-            newCharts.add(new ChartDependency(name, version, repository != null ? repository : ""));
+            newCharts.add(
+                    unchangedOrNew(
+                            oldCharts,
+                            new ChartDependency(
+                                    name, version, repository != null ? repository : "")));
 
             if (repository != null && !repository.isBlank()) {
                 versionCheckService.registerChart(appName, name, version, repository);
@@ -148,26 +442,40 @@ public class HelmChartScanService {
         }
 
         if (!newCharts.isEmpty()) {
-            List<ChartDependency> oldCharts = scannedCharts.put(appName, newCharts);
-            if (oldCharts != null) {
-                oldCharts.stream()
-                        .filter(old -> !newDepNames.contains(old.name()))
-                        .forEach(
-                                old -> {
-                                    logger.info("Chart removed for {}/{}", appName, old.name());
-                                    versionCheckService.unregisterChart(appName, old.name());
-                                });
-            }
+            scannedCharts.put(appName, newCharts);
+            oldCharts.stream()
+                    .filter(old -> !newDepNames.contains(old.name()))
+                    .forEach(
+                            old -> {
+                                logger.info("Chart removed for {}/{}", appName, old.name());
+                                versionCheckService.unregisterChart(appName, old.name());
+                            });
             logger.info("Updated {} with {} Helm chart dependencies", appName, newCharts.size());
         } else {
-            List<ChartDependency> oldCharts = scannedCharts.remove(appName);
-            if (oldCharts != null) {
-                oldCharts.forEach(
+            List<ChartDependency> removed = scannedCharts.remove(appName);
+            if (removed != null) {
+                removed.forEach(
                         chart -> versionCheckService.unregisterChart(appName, chart.name()));
             }
         }
     }
 
+    /**
+     * The previously scanned dependency if it is unchanged, so that its {@code lastUpdated} and
+     * with it the dashboard snapshot and its ETag stay the same when a scan finds nothing new.
+     */
+    private static ChartDependency unchangedOrNew(
+            List<ChartDependency> oldCharts, ChartDependency chart) {
+        for (ChartDependency old : oldCharts) {
+            if (old.name().equals(chart.name())
+                    && old.version().equals(chart.version())
+                    && old.repository().equals(chart.repository())) {
+                return old;
+            }
+        }
+        return chart;
+    }
+
     private String stringify(Object value) {
         return value == null ? null : value.toString();
     }
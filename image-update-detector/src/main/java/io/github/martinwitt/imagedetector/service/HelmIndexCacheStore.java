@@ -0,0 +1,151 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.HelmCheckProperties;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Persists the parsed per-repository chart version tables between restarts.
+ *
+ * <p>The file is small (one entry per repository with the latest version of each tracked chart and
+ * the index validators), so a restarted pod answers from it immediately and revalidates with
+ * conditional requests instead of downloading every index again. Persistence is disabled when
+ * {@code app.helm.cache-dir} is blank.
+ */
+@Component
+public class HelmIndexCacheStore {
+    private static final Logger logger = LoggerFactory.getLogger(HelmIndexCacheStore.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path cacheFile;
+
+    public HelmIndexCacheStore(HelmCheckProperties properties) {
+        String cacheDir = properties.getCacheDir();
+        this.cacheFile =
+                cacheDir == null || cacheDir.isBlank()
+                        ? null
+                        : Path.of(cacheDir, "helm-index-cache.yaml");
+    }
+
+    /**
+     * Load the persisted tables.
+     *
+     * @return Tables keyed by repository URL; empty if persistence is disabled or the file is
+     *     missing or unreadable
+     */
+    public Map<String, HelmRepoIndex> load() {
+        Map<String, HelmRepoIndex> indexes = new HashMap<>();
+        if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+            return indexes;
+        }
+
+        try (Reader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+            LoaderOptions loaderOptions = new LoaderOptions();
+            loaderOptions.setMaxAliasesForCollections(50);
+            Object loaded = new Yaml(loaderOptions).load(reader);
+            if (!(loaded instanceof Map<?, ?> root)
+                    || !Integer.valueOf(FORMAT_VERSION).equals(root.get("version"))
+                    || !(root.get("repositories") instanceof Map<?, ?> repositories)) {
+                logger.warn("Ignoring Helm index cache {} with unknown format", cacheFile);
+                return indexes;
+            }
+
+            repositories.forEach(
+                    (repoUrl, value) -> {
+                        if (value instanceof Map<?, ?> entry) {
+                            indexes.put(repoUrl.toString(), toIndex(entry));
+                        }
+                    });
+            logger.info("Loaded {} Helm repository indexes from {}", indexes.size(), cacheFile);
+        } catch (Exception e) {
+            logger.warn("Failed to load Helm index cache {}: {}", cacheFile, e.getMessage());
+            indexes.clear();
+        }
+        return indexes;
+    }
+
+    /**
+     * Replace the persisted tables. The file is written to a temporary sibling first and moved into
+     * place, so a crash never leaves a truncated cache behind.
+     */
+    public void save(Map<String, HelmRepoIndex> indexes) {
+        if (cacheFile == null) {
+            return;
+        }
+
+        Map<String, Object> repositories = new TreeMap<>();
+        indexes.forEach((repoUrl, index) -> repositories.put(repoUrl, toMap(index)));
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("version", FORMAT_VERSION);
+        root.put("repositories", repositories);
+
+        DumperOptions dumperOptions = new DumperOptions();
+        dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                new Yaml(dumperOptions).dump(root, writer);
+            }
+            Files.move(
+                    tempFile,
+                    cacheFile,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Saved {} Helm repository indexes to {}", indexes.size(), cacheFile);
+        } catch (IOException e) {
+            logger.warn("Failed to save Helm index cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> toMap(HelmRepoIndex index) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("fetchedAt", index.fetchedAt());
+        if (index.etag() != null) {
+            entry.put("etag", index.etag());
+        }
+        if (index.lastModified() != null) {
+            entry.put("lastModified", index.lastModified());
+        }
+        entry.put("charts", List.copyOf(index.charts()));
+        entry.put("latestVersions", new TreeMap<>(index.latestVersions()));
+        return entry;
+    }
+
+    private static HelmRepoIndex toIndex(Map<?, ?> entry) {
+        Map<String, String> latestVersions = new HashMap<>();
+        if (entry.get("latestVersions") instanceof Map<?, ?> versions) {
+            versions.forEach(
+                    (chart, version) -> latestVersions.put(chart.toString(), version.toString()));
+        }
+        Set<String> charts =
+                entry.get("charts") instanceof List<?> list
+                        ? Set.copyOf(list.stream().map(Object::toString).toList())
+                        : Set.of();
+        long fetchedAt = entry.get("fetchedAt") instanceof Number n ? n.longValue() : 0L;
+        return new HelmRepoIndex(
+                Map.copyOf(latestVersions),
+                charts,
+                entry.get("etag") instanceof String etag ? etag : null,
+                entry.get("lastModified") instanceof String lastModified ? lastModified : null,
+                fetchedAt);
+    }
+}
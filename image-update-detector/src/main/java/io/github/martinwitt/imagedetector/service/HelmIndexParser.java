@@ -0,0 +1,580 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+
+/**
+ * Streaming scanner for Helm repository index files.
+ *
+ * <p>Indexes written by {@code helm repo index} and ChartMuseum are block-style YAML, so the
+ * top-level keys and the chart keys under {@code entries} can be found by indentation alone. The
+ * body is scanned line by line in a reused byte buffer and only the block of each requested chart
+ * is handed to the SnakeYAML event parser, which walks {@code <chart>[].version} without composing
+ * nodes. Everything else, including the annotations and dependencies of other charts, is skipped
+ * without decoding. Scanning stops as soon as the blocks of all requested charts have been read, so
+ * the caller can close the connection without downloading the rest of the index.
+ *
+ * <p>Indexes that are not laid out this way, such as JSON or flow-style {@code entries}, are handed
+ * to a full walk over the SnakeYAML event stream from the first line the scanner does not
+ * recognize.
+ */
+final class HelmIndexParser {
+    private static final Logger logger = LoggerFactory.getLogger(HelmIndexParser.class);
+    private static final int READ_BUFFER_SIZE = 16384;
+    private static final byte[] ENTRIES_LINE = "entries:\n".getBytes(StandardCharsets.UTF_8);
+
+    private HelmIndexParser() {}
+
+    /**
+     * Find the latest stable version of each requested chart.
+     *
+     * @param inputStream Index body; not closed by this method
+     * @param chartNames Names of the charts to look up
+     * @return Latest stable version per chart; charts without a stable version are absent
+     */
+    static Map<String, String> parseLatestVersionFromStream(
+            InputStream inputStream, Set<String> chartNames) throws IOException {
+        Map<String, String> latestVersions = new HashMap<>();
+        Set<String> remaining = new HashSet<>(chartNames);
+        if (remaining.isEmpty()) {
+            return latestVersions;
+        }
+
+        try {
+            LineScanner lines = new LineScanner(inputStream);
+            if (!seekEntries(lines)) {
+                if (lines.fallback) {
+                    walkEvents(lines.rest(null), remaining, latestVersions, chartNames);
+                } else {
+                    logger.warn("Helm index has no entries mapping, looked for {}", chartNames);
+                }
+                return latestVersions;
+            }
+            if (!scanEntries(lines, remaining, latestVersions)) {
+                walkEvents(lines.rest(ENTRIES_LINE), remaining, latestVersions, chartNames);
+            }
+            return latestVersions;
+        } catch (YAMLException e) {
+            logger.error("YAML parse error for {}: {}", chartNames, e.getMessage(), e);
+            throw new IOException("Parse failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Advance to the line after a top-level {@code entries:} key, skipping all other top-level
+     * subtrees. Sets {@link LineScanner#fallback} if the document is not a block mapping.
+     */
+    private static boolean seekEntries(LineScanner lines) throws IOException {
+        boolean seenKey = false;
+        while (lines.next()) {
+            if (lines.isBlank()) {
+                continue;
+            }
+            if (lines.indent() > 0) {
+                if (seenKey) {
+                    continue;
+                }
+                lines.fallback = true;
+                return false;
+            }
+            if (lines.isMarker('-') || lines.isMarker('.')) {
+                if (seenKey) {
+                    return false;
+                }
+                if (lines.isMarker('-') && lines.isValueEmpty(3)) {
+                    continue;
+                }
+                lines.fallback = true;
+                return false;
+            }
+            String key = lines.key();
+            if (key == null) {
+                lines.fallback = true;
+                return false;
+            }
+            if ("entries".equals(key)) {
+                if (lines.isValueEmpty(lines.valueStart)) {
+                    return true;
+                }
+                lines.fallback = true;
+                return false;
+            }
+            seenKey = true;
+        }
+        return false;
+    }
+
+    /**
+     * Scan the chart keys of the entries mapping and parse the blocks of requested charts.
+     *
+     * @return false if the scanner stopped at a line it does not recognize, which the caller
+     *     continues from with a full event walk
+     */
+    private static boolean scanEntries(
+            LineScanner lines, Set<String> remaining, Map<String, String> latestVersions)
+            throws IOException {
+        BlockBuffer block = new BlockBuffer();
+        String chartName = null;
+        int chartIndent = -1;
+        while (lines.next()) {
+            if (lines.isBlank()) {
+                if (chartName != null) {
+                    lines.appendTo(block);
+                }
+                continue;
+            }
+            int indent = lines.indent();
+            if (chartIndent < 0) {
+                if (indent == 0 || lines.isSequenceItem()) {
+                    // entries is empty or a sequence, let the event walk decide
+                    return false;
+                }
+                chartIndent = indent;
+            }
+            if (indent > chartIndent || (indent == chartIndent && lines.isSequenceItem())) {
+                if (chartName != null) {
+                    lines.appendTo(block);
+                }
+                continue;
+            }
+
+            if (chartName != null) {
+                readChartBlock(block, chartName, latestVersions);
+                chartName = null;
+                if (remaining.isEmpty()) {
+                    return true;
+                }
+            }
+            if (indent < chartIndent) {
+                return true;
+            }
+            String key = lines.key();
+            if (key == null) {
+                return false;
+            }
+            if (remaining.remove(key)) {
+                chartName = key;
+                block.reset();
+                lines.appendTo(block);
+            }
+        }
+        if (chartName != null) {
+            readChartBlock(block, chartName, latestVersions);
+        }
+        return true;
+    }
+
+    /** Parse the block of a single chart, which starts with the chart key. */
+    private static void readChartBlock(
+            BlockBuffer block, String chartName, Map<String, String> latestVersions) {
+        Iterator<Event> events = parse(block.asInputStream());
+        while (events.hasNext()) {
+            if (events.next().is(Event.ID.MappingStart)) {
+                events.next();
+                readChartVersions(chartName, events).finish(latestVersions);
+                return;
+            }
+        }
+    }
+
+    /** Walk the full event stream for indexes the line scanner does not understand. */
+    private static void walkEvents(
+            InputStream body,
+            Set<String> remaining,
+            Map<String, String> latestVersions,
+            Set<String> chartNames) {
+        Iterator<Event> events = parse(body);
+        if (!seekEntries(events)) {
+            logger.warn("Helm index has no entries mapping, looked for {}", chartNames);
+            return;
+        }
+
+        while (events.hasNext() && !remaining.isEmpty()) {
+            Event key = events.next();
+            if (key.is(Event.ID.MappingEnd)) {
+                break;
+            }
+            String chartName = scalarValue(key);
+            if (chartName == null) {
+                skip(key, events);
+                skip(events.next(), events);
+            } else if (remaining.remove(chartName)) {
+                readChartVersions(chartName, events).finish(latestVersions);
+            } else {
+                skip(events.next(), events);
+            }
+        }
+    }
+
+    /**
+     * Event stream of the given body. Uses the parser directly, as the {@code Yaml} facade also
+     * builds a constructor and representer, which costs more than parsing a small chart block.
+     */
+    private static Iterator<Event> parse(InputStream body) {
+        Parser parser =
+                new ParserImpl(
+                        new StreamReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                        createLoaderOptions());
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return parser.peekEvent() != null;
+            }
+
+            @Override
+            public Event next() {
+                return parser.getEvent();
+            }
+        };
+    }
+
+    private static LoaderOptions createLoaderOptions() {
+        LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit((int) HelmRepositoryClient.MAX_INDEX_SIZE);
+        loaderOptions.setMaxAliasesForCollections(50);
+        return loaderOptions;
+    }
+
+    /** Advance to the value of the top-level {@code entries} key, consuming its mapping start. */
+    private static boolean seekEntries(Iterator<Event> events) {
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (event.is(Event.ID.MappingStart)) {
+                break;
+            }
+            if (!event.is(Event.ID.StreamStart) && !event.is(Event.ID.DocumentStart)) {
+                return false;
+            }
+        }
+
+        while (events.hasNext()) {
+            Event key = events.next();
+            if (key.is(Event.ID.MappingEnd)) {
+                return false;
+            }
+            Event value = events.next();
+            if ("entries".equals(scalarValue(key)) && value.is(Event.ID.MappingStart)) {
+                return true;
+            }
+            skip(key, events);
+            skip(value, events);
+        }
+        return false;
+    }
+
+    /** Read the sequence of chart versions that follows a chart key. */
+    private static ChartVersions readChartVersions(String chartName, Iterator<Event> events) {
+        ChartVersions versions = new ChartVersions(chartName);
+        Event start = events.next();
+        if (!start.is(Event.ID.SequenceStart)) {
+            skip(start, events);
+            return versions;
+        }
+
+        while (events.hasNext()) {
+            Event item = events.next();
+            if (item.is(Event.ID.SequenceEnd)) {
+                break;
+            }
+            if (!item.is(Event.ID.MappingStart)) {
+                skip(item, events);
+                continue;
+            }
+            while (events.hasNext()) {
+                Event key = events.next();
+                if (key.is(Event.ID.MappingEnd)) {
+                    break;
+                }
+                Event value = events.next();
+                if ("version".equals(scalarValue(key))) {
+                    String version = scalarValue(value);
+                    if (version != null && !version.isEmpty()) {
+                        versions.accept(version);
+                    }
+                }
+                skip(key, events);
+                skip(value, events);
+            }
+        }
+        return versions;
+    }
+
+    private static String scalarValue(Event event) {
+        return event instanceof ScalarEvent scalar ? scalar.getValue() : null;
+    }
+
+    /** Consume the rest of the node that starts with the given event. */
+    private static void skip(Event first, Iterator<Event> events) {
+        if (!first.is(Event.ID.MappingStart) && !first.is(Event.ID.SequenceStart)) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0 && events.hasNext()) {
+            Event event = events.next();
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Splits the body into lines inside a single reused buffer. Only the key of a line is ever
+     * decoded; UTF-8 continuation bytes never equal the ASCII characters looked for here.
+     */
+    private static final class LineScanner {
+        private final InputStream in;
+        private byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private int limit;
+        private int next;
+        private int scanned;
+        private boolean eof;
+        private boolean firstLine = true;
+        private int start;
+        private int end;
+        private int valueStart;
+        private boolean fallback;
+
+        LineScanner(InputStream in) {
+            this.in = in;
+        }
+
+        boolean next() throws IOException {
+            while (true) {
+                for (int i = scanned; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        setLine(next, i);
+                        next = i + 1;
+                        scanned = next;
+                        return true;
+                    }
+                }
+                scanned = limit;
+                if (eof) {
+                    if (next < limit) {
+                        setLine(next, limit);
+                        next = limit;
+                        return true;
+                    }
+                    return false;
+                }
+                fill();
+            }
+        }
+
+        private void setLine(int from, int to) {
+            start = from;
+            end = to > from && buffer[to - 1] == '\r' ? to - 1 : to;
+            if (firstLine) {
+                firstLine = false;
+                if (end - start >= 3
+                        && buffer[start] == (byte) 0xEF
+                        && buffer[start + 1] == (byte) 0xBB
+                        && buffer[start + 2] == (byte) 0xBF) {
+                    start += 3;
+                }
+            }
+        }
+
+        private void fill() throws IOException {
+            if (next > 0) {
+                System.arraycopy(buffer, next, buffer, 0, limit - next);
+                limit -= next;
+                scanned -= next;
+                next = 0;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+
+        int indent() {
+            int i = start;
+            while (i < end && buffer[i] == ' ') {
+                i++;
+            }
+            return i - start;
+        }
+
+        /** Whitespace only or a comment. */
+        boolean isBlank() {
+            int i = start;
+            while (i < end && (buffer[i] == ' ' || buffer[i] == '\t')) {
+                i++;
+            }
+            return i == end || buffer[i] == '#';
+        }
+
+        boolean isSequenceItem() {
+            int i = start + indent();
+            return buffer[i] == '-' && (i + 1 == end || isSpace(buffer[i + 1]));
+        }
+
+        /** A {@code ---} or {@code ...} document marker at the start of the line. */
+        boolean isMarker(char c) {
+            return end - start >= 3
+                    && buffer[start] == c
+                    && buffer[start + 1] == c
+                    && buffer[start + 2] == c
+                    && (end - start == 3 || isSpace(buffer[start + 3]));
+        }
+
+        /** Nothing but whitespace or a comment from the given offset into the line. */
+        boolean isValueEmpty(int offset) {
+            int i = start + offset;
+            while (i < end && isSpace(buffer[i])) {
+                i++;
+            }
+            return i == end || buffer[i] == '#';
+        }
+
+        /**
+         * The plain or simply quoted mapping key on this line, or null if the line does not start
+         * with one. Sets {@link #valueStart} to the offset after the colon.
+         */
+        String key() {
+            int from = start + indent();
+            int i = from;
+            String key;
+            byte quote = buffer[from];
+            if (quote == '"' || quote == '\'') {
+                i++;
+                while (i < end && buffer[i] != quote) {
+                    if (buffer[i] == '\\' && quote == '"') {
+                        return null;
+                    }
+                    i++;
+                }
+                if (i == end || (quote == '\'' && i + 1 < end && buffer[i + 1] == '\'')) {
+                    return null;
+                }
+                key = new String(buffer, from + 1, i - from - 1, StandardCharsets.UTF_8);
+                i++;
+                while (i < end && buffer[i] == ' ') {
+                    i++;
+                }
+                if (i == end || buffer[i] != ':') {
+                    return null;
+                }
+            } else {
+                if ("-?:,[]{}#&*!|>%@`".indexOf(quote) >= 0 || isSpace(quote)) {
+                    return null;
+                }
+                while (i < end && !(buffer[i] == ':' && (i + 1 == end || isSpace(buffer[i + 1])))) {
+                    if (buffer[i] == '#' && isSpace(buffer[i - 1])) {
+                        return null;
+                    }
+                    i++;
+                }
+                if (i == end) {
+                    return null;
+                }
+                int keyEnd = i;
+                while (isSpace(buffer[keyEnd - 1])) {
+                    keyEnd--;
+                }
+                key = new String(buffer, from, keyEnd - from, StandardCharsets.UTF_8);
+            }
+            valueStart = i + 1 - start;
+            return key;
+        }
+
+        void appendTo(BlockBuffer block) {
+            block.write(buffer, start, end - start);
+            block.write('\n');
+        }
+
+        /** The current line and everything after it, preceded by the given prefix. */
+        InputStream rest(byte[] prefix) {
+            InputStream head = new ByteArrayInputStream(Arrays.copyOfRange(buffer, start, limit));
+            if (prefix != null) {
+                head = new SequenceInputStream(new ByteArrayInputStream(prefix), head);
+            }
+            return eof ? head : new SequenceInputStream(head, in);
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t';
+        }
+    }
+
+    /** Collects the lines of a chart block without copying them again for the parser. */
+    private static final class BlockBuffer extends ByteArrayOutputStream {
+        BlockBuffer() {
+            super(4096);
+        }
+
+        InputStream asInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /** Latest stable version seen so far for a single chart. */
+    private static final class ChartVersions {
+        private final String chartName;
+        private SemanticVersion latestVersion;
+        private int versionCount;
+        private int stableCount;
+
+        ChartVersions(String chartName) {
+            this.chartName = chartName;
+        }
+
+        void accept(String version) {
+            versionCount++;
+            SemanticVersion parsed = SemanticVersion.parse(version);
+            if (parsed != null && parsed.isStable()) {
+                stableCount++;
+                if (latestVersion == null || parsed.compareTo(latestVersion) > 0) {
+                    latestVersion = parsed;
+                }
+            }
+        }
+
+        void finish(Map<String, String> latestVersions) {
+            if (latestVersion != null) {
+                latestVersions.put(chartName, latestVersion.toString());
+                logger.info(
+                        "Chart {}: found latest={} ({} versions, {} stable)",
+                        chartName,
+                        latestVersion,
+                        versionCount,
+                        stableCount);
+            } else {
+                logger.warn(
+                        "Chart {}: no stable version found ({} total, {} stable)",
+                        chartName,
+                        versionCount,
+                        stableCount);
+            }
+        }
+    }
+}
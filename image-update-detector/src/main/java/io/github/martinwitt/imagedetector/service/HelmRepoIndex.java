@@ -0,0 +1,39 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient.Validators;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parsed view of one Helm repository index.
+ *
+ * @param latestVersions Latest stable version per chart, for the charts that have one
+ * @param charts Charts the index was scanned for; a chart may be absent from latestVersions
+ * @param etag ETag of the index the table was parsed from, or null
+ * @param lastModified Last-Modified of the index the table was parsed from, or null
+ * @param fetchedAt Time the index was last downloaded or revalidated
+ */
+public record HelmRepoIndex(
+        Map<String, String> latestVersions,
+        Set<String> charts,
+        String etag,
+        String lastModified,
+        long fetchedAt) {
+
+    boolean covers(Set<String> chartNames) {
+        return charts.containsAll(chartNames);
+    }
+
+    boolean isExpired(long ttlMs) {
+        return System.currentTimeMillis() - fetchedAt > ttlMs;
+    }
+
+    Validators validators() {
+        return new Validators(etag, lastModified);
+    }
+
+    HelmRepoIndex revalidated() {
+        return new HelmRepoIndex(
+                latestVersions, charts, etag, lastModified, System.currentTimeMillis());
+    }
+}
@@ -1,39 +1,45 @@
 package io.github.martinwitt.imagedetector.service;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import io.github.martinwitt.imagedetector.HelmCheckProperties;
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient;
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient.IndexResponse;
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient.Validators;
+import java.net.URI;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.yaml.snakeyaml.LoaderOptions;
-import org.yaml.snakeyaml.Yaml;
 
 @Service
 public class HelmVersionCheckService {
     private static final Logger logger = LoggerFactory.getLogger(HelmVersionCheckService.class);
-    private static final int MAX_INDEX_SIZE = 100 * 1024 * 1024;
     private static final long REPO_CACHE_TTL_MS = 3600000;
 
     private final Map<String, ChartInfo> trackedCharts = new ConcurrentHashMap<>();
-    private final Map<String, CacheEntry> perRepoCaches = new ConcurrentHashMap<>();
-    private final org.springframework.web.client.RestTemplate restTemplate;
-
-    private record CacheEntry(Map<String, String> cache, long timestamp) {
-        CacheEntry(Map<String, String> cache) {
-            this(cache, System.currentTimeMillis());
-        }
-
-        boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > REPO_CACHE_TTL_MS;
-        }
-    }
+    private final Map<String, HelmRepoIndex> perRepoCaches = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final AtomicBoolean cacheDirty = new AtomicBoolean();
+    private final HelmRepositoryClient repositoryClient;
+    private final HelmIndexCacheStore cacheStore;
+    private final OciChartResolver ociChartResolver;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxConcurrentRequestsPerHost;
+    private final Duration checkTimeout;
 
     public static class ChartInfo {
         private final String currentVersion;
@@ -69,21 +75,20 @@ public class HelmVersionCheckService {
         }
     }
 
-    public HelmVersionCheckService() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(10000);
-        factory.setReadTimeout(30000);
-        this.restTemplate =
-                new org.springframework.web.client.RestTemplate(
-                        new BufferingClientHttpRequestFactory(factory));
-    }
-
-    private Yaml createYamlParser() {
-        LoaderOptions loaderOptions = new LoaderOptions();
-        loaderOptions.setCodePointLimit(MAX_INDEX_SIZE);
-        loaderOptions.setMaxAliasesForCollections(50);
-        loaderOptions.setAllowDuplicateKeys(false);
-        return new Yaml(loaderOptions);
+    public HelmVersionCheckService(
+            HelmRepositoryClient repositoryClient,
+            HelmIndexCacheStore cacheStore,
+            OciChartResolver ociChartResolver,
+            HelmCheckProperties properties,
+            ApplicationEventPublisher eventPublisher) {
+        this.repositoryClient = repositoryClient;
+        this.cacheStore = cacheStore;
+        this.ociChartResolver = ociChartResolver;
+        this.eventPublisher = eventPublisher;
+        this.maxConcurrentRequestsPerHost =
+                Math.max(1, properties.getMaxConcurrentRequestsPerHost());
+        this.checkTimeout = properties.getCheckTimeout();
+        this.perRepoCaches.putAll(cacheStore.load());
     }
 
     @Scheduled(fixedDelayString = "${app.helm-check-interval-ms:600000}", initialDelay = 10000)
@@ -91,258 +96,297 @@ public class HelmVersionCheckService {
         logger.info("Starting Helm version check for {} charts", trackedCharts.size());
 
         try {
-            perRepoCaches.entrySet().removeIf(e -> e.getValue().isExpired());
+            Map<String, Set<String>> chartsByRepo = new HashMap<>();
+            for (ChartInfo chartInfo : trackedCharts.values()) {
+                String repoUrl = normalizeRepoUrl(chartInfo.repoUrl());
+                if (repoUrl != null) {
+                    chartsByRepo
+                            .computeIfAbsent(repoUrl, k -> new HashSet<>())
+                            .add(chartInfo.chartName());
+                }
+            }
+
+            // Apps and branches using the same chart share one lookup.
+            logger.debug(
+                    "{} charts resolve to {} unique charts in {} repositories",
+                    trackedCharts.size(),
+                    chartsByRepo.values().stream().mapToInt(Set::size).sum(),
+                    chartsByRepo.size());
+
+            perRepoCaches
+                    .entrySet()
+                    .removeIf(
+                            e ->
+                                    !chartsByRepo.containsKey(e.getKey())
+                                            && e.getValue().isExpired(REPO_CACHE_TTL_MS));
+
+            Map<String, Map<String, String>> latestByRepo = findLatestVersions(chartsByRepo);
 
             for (Map.Entry<String, ChartInfo> entry : trackedCharts.entrySet()) {
                 String chartId = entry.getKey();
                 ChartInfo chartInfo = entry.getValue();
 
-                try {
-                    String latestVersion = findLatestVersion(chartInfo);
-                    if (latestVersion != null) {
-                        chartInfo.updateLatestVersion(latestVersion);
-                        if (!latestVersion.equals(chartInfo.currentVersion())) {
-                            logger.info(
-                                    "Update available for {}: {} -> {}",
-                                    chartId,
-                                    chartInfo.currentVersion(),
-                                    latestVersion);
-                        }
+                Map<String, String> repoVersions =
+                        latestByRepo.get(normalizeRepoUrl(chartInfo.repoUrl()));
+                String latestVersion =
+                        repoVersions != null ? repoVersions.get(chartInfo.chartName()) : null;
+                if (latestVersion != null) {
+                    chartInfo.updateLatestVersion(latestVersion);
+                    if (!latestVersion.equals(chartInfo.currentVersion())) {
+                        logger.info(
+                                "Update available for {}: {} -> {}",
+                                chartId,
+                                chartInfo.currentVersion(),
+                                latestVersion);
                     }
-                } catch (Exception e) {
-                    logger.warn("Failed to check version for {}: {}", chartId, e.getMessage());
                 }
             }
 
+            if (cacheDirty.getAndSet(false)) {
+                cacheStore.save(Map.copyOf(perRepoCaches));
+            }
+
+            Set<String> charts = new HashSet<>();
+            Map<String, String> latestVersions = new HashMap<>();
+            chartsByRepo.forEach(
+                    (repoUrl, chartNames) -> {
+                        Map<String, String> repoVersions =
+                                latestByRepo.getOrDefault(repoUrl, Map.of());
+                        for (String chartName : chartNames) {
+                            charts.add(repoUrl + chartName);
+                            String latestVersion = repoVersions.get(chartName);
+                            if (latestVersion != null) {
+                                latestVersions.put(repoUrl + chartName, latestVersion);
+                            }
+                        }
+                    });
+
             logger.info("Helm version check completed");
+            eventPublisher.publishEvent(new LatestVersionsObservedEvent(charts, latestVersions));
+            eventPublisher.publishEvent(new DependenciesUpdatedEvent("helm-check"));
         } catch (Exception e) {
             logger.error("Helm version check failed: {}", e.getMessage());
+            eventPublisher.publishEvent(new CheckFailedEvent("helm-check", null, e.getMessage()));
         }
     }
 
-    private String findLatestVersion(ChartInfo chartInfo) throws IOException {
-        if (chartInfo.repoUrl() == null || chartInfo.repoUrl().isBlank()) {
+    private static String normalizeRepoUrl(String repoUrl) {
+        if (repoUrl == null || repoUrl.isBlank()) {
             return null;
         }
+        String normalized = repoUrl.trim();
+        return normalized.endsWith("/") ? normalized : normalized + "/";
+    }
 
-        String repoUrl = chartInfo.repoUrl().trim();
-        if (!repoUrl.endsWith("/")) {
-            repoUrl += "/";
-        }
-
-        String indexUrl = repoUrl + "index.yaml";
-        String chartName = chartInfo.chartName();
+    /**
+     * Resolve the latest versions of all repositories concurrently, one virtual thread per
+     * repository.
+     *
+     * <p>The whole cycle shares one timeout budget. A repository that has not answered when the
+     * budget is spent is cancelled and answered from its cached table, so one slow server no longer
+     * delays the results of all others. OCI registries are authorized with one token per registry
+     * for all charts that need a lookup. The authorization runs in the same fan-out, under the
+     * registry's request limit and the budget, and the lookups of the registry wait for it.
+     */
+    private Map<String, Map<String, String>> findLatestVersions(
+            Map<String, Set<String>> chartsByRepo) {
+        long deadline = System.nanoTime() + checkTimeout.toNanos();
+
+        Map<String, Future<?>> authorizations = new HashMap<>();
+        Map<String, Future<Map<String, String>>> futures = new HashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            ociChartResolver
+                    .repositoriesToAuthorize(chartsByRepo)
+                    .forEach(
+                            (registry, repositories) ->
+                                    authorizations.put(
+                                            registry,
+                                            executor.submit(
+                                                    () ->
+                                                            authorize(
+                                                                    registry,
+                                                                    repositories,
+                                                                    deadline))));
+            chartsByRepo.forEach(
+                    (repoUrl, chartNames) -> {
+                        Future<?> authorization =
+                                OciChartResolver.isOciRepository(repoUrl)
+                                        ? authorizations.get(OciChartResolver.registry(repoUrl))
+                                        : null;
+                        futures.put(
+                                repoUrl,
+                                executor.submit(
+                                        () -> {
+                                            awaitAuthorization(authorization, deadline);
+                                            return findLatestVersions(
+                                                    repoUrl, chartNames, deadline);
+                                        }));
+                    });
 
-        CacheEntry cacheEntry = perRepoCaches.get(repoUrl);
-        if (cacheEntry != null
-                && !cacheEntry.isExpired()
-                && cacheEntry.cache().containsKey(chartName)) {
-            return cacheEntry.cache().get(chartName);
+            Map<String, Map<String, String>> latestByRepo = new HashMap<>();
+            futures.forEach(
+                    (repoUrl, future) ->
+                            latestByRepo.put(
+                                    repoUrl,
+                                    awaitLatestVersions(
+                                            repoUrl, chartsByRepo.get(repoUrl), future, deadline)));
+            return latestByRepo;
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
+    private void authorize(String registry, Set<String> repositories, long deadline) {
+        Semaphore permits = hostPermits("oci://" + registry + "/");
+        if (!acquire(permits, deadline, registry)) {
+            return;
+        }
         try {
-            String latestVersion = fetchLatestChartVersionStreaming(indexUrl, chartName);
-            if (latestVersion != null && isStableVersion(latestVersion)) {
-                CacheEntry entry =
-                        (cacheEntry == null || cacheEntry.isExpired())
-                                ? new CacheEntry(new HashMap<>())
-                                : cacheEntry;
-                if (cacheEntry == null || cacheEntry.isExpired()) {
-                    perRepoCaches.put(repoUrl, entry);
-                }
-                entry.cache().put(chartName, latestVersion);
-                return latestVersion;
-            }
-            return null;
-        } catch (Exception e) {
-            logger.warn("Failed to fetch index from {}: {}", indexUrl, e.getMessage());
-            return null;
+            ociChartResolver.authorize(registry, repositories);
+        } finally {
+            permits.release();
         }
     }
 
-    private String fetchLatestChartVersionStreaming(String indexUrl, String chartName)
-            throws IOException {
+    /**
+     * Wait for the registry token, at most until the deadline. Without one, the lookups fetch their
+     * own tokens.
+     */
+    private static void awaitAuthorization(Future<?> authorization, long deadline) {
+        if (authorization == null) {
+            return;
+        }
         try {
-            return restTemplate.execute(
-                    indexUrl,
-                    org.springframework.http.HttpMethod.GET,
-                    clientHttpRequest -> {},
-                    clientHttpResponse -> {
-                        String contentLength =
-                                clientHttpResponse.getHeaders().getFirst("Content-Length");
-                        if (contentLength != null) {
-                            try {
-                                long size = Long.parseLong(contentLength);
-                                if (size > MAX_INDEX_SIZE) {
-                                    logger.warn(
-                                            "Helm index.yaml too large ({}MB) from {}, skipping",
-                                            size / (1024 * 1024),
-                                            indexUrl);
-                                    return null;
-                                }
-                            } catch (NumberFormatException e) {
-                                logger.debug("Could not parse Content-Length from {}", indexUrl);
-                            }
-                        }
-
-                        try (InputStream is = clientHttpResponse.getBody()) {
-                            return parseLatestVersionFromStream(is, chartName);
-                        }
-                    });
-        } catch (Exception e) {
-            logger.warn("Failed to fetch chart versions from {}: {}", indexUrl, e.getMessage());
-            throw new IOException(
-                    "Failed to fetch index from " + indexUrl + ": " + e.getMessage(), e);
+            authorization.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // the lookup itself reports what went wrong
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    private String parseLatestVersionFromStream(InputStream inputStream, String chartName)
-            throws IOException {
-        try (InputStreamReader reader = new InputStreamReader(inputStream);
-                java.io.BufferedReader buffered = new java.io.BufferedReader(reader, 16384)) {
-
-            String latestVersion = null;
-            boolean foundChart = false;
-            int chartIndentLevel = -1;
-            boolean inDependencies = false;
-            int dependenciesIndent = -1;
-            int versionCount = 0;
-            int stableCount = 0;
-            int linesAfterChart = 0;
-            final int MAX_LINES_AFTER_CHART = 10000;
-
-            String line;
-            while ((line = buffered.readLine()) != null) {
-                int indent = 0;
-                for (char c : line.toCharArray()) {
-                    if (c == ' ') indent++;
-                    else if (c == '\t') indent += 4;
-                    else break;
-                }
-
-                String trimmed = line.trim();
-                if (trimmed.isEmpty()) continue;
-
-                if (!foundChart) {
-                    if (trimmed.startsWith(chartName + ":")
-                            && (trimmed.length() == chartName.length() + 1
-                                    || trimmed.charAt(chartName.length() + 1) != '-')) {
-                        foundChart = true;
-                        chartIndentLevel = indent;
-                        logger.info(
-                                "Found chart {} in entries at indent {}",
-                                chartName,
-                                chartIndentLevel);
-                    }
-                    continue;
-                }
-
-                if (trimmed.startsWith("dependencies:")) {
-                    inDependencies = true;
-                    dependenciesIndent = indent;
-                    continue;
-                }
-
-                if (inDependencies
-                        && indent <= dependenciesIndent
-                        && trimmed.endsWith(":")
-                        && !trimmed.startsWith("-")) {
-                    inDependencies = false;
-                }
-
-                linesAfterChart++;
-                if (linesAfterChart > MAX_LINES_AFTER_CHART) {
-                    logger.warn("Exceeded max lines after finding chart {}, stopping", chartName);
-                    break;
-                }
+    private Map<String, String> awaitLatestVersions(
+            String repoUrl,
+            Set<String> chartNames,
+            Future<Map<String, String>> future,
+            long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Helm index check for {} exceeded the {} budget", repoUrl, checkTimeout);
+            eventPublisher.publishEvent(
+                    new CheckFailedEvent(
+                            "helm-check", repoUrl, "Exceeded the " + checkTimeout + " budget"));
+        } catch (ExecutionException e) {
+            logger.warn("Helm index check for {} failed: {}", repoUrl, e.getCause().getMessage());
+            eventPublisher.publishEvent(
+                    new CheckFailedEvent("helm-check", repoUrl, e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        }
+        return cachedLatestVersions(repoUrl, chartNames);
+    }
 
-                if (indent <= chartIndentLevel
-                        && trimmed.endsWith(":")
-                        && !trimmed.startsWith("-")) {
-                    break;
-                }
+    private Map<String, String> cachedLatestVersions(String repoUrl, Set<String> chartNames) {
+        if (OciChartResolver.isOciRepository(repoUrl)) {
+            return ociChartResolver.cachedLatestVersions(repoUrl, chartNames);
+        }
+        HelmRepoIndex cached = perRepoCaches.get(repoUrl);
+        return cached != null ? cached.latestVersions() : Map.of();
+    }
 
-                if (trimmed.contains("version:") && !inDependencies) {
-                    String version = extractVersionValue(trimmed);
-                    if (version != null && !version.isEmpty()) {
-                        versionCount++;
-                        if (isStableVersion(version)) {
-                            stableCount++;
-                            if (latestVersion == null
-                                    || compareVersions(version, latestVersion) > 0) {
-                                latestVersion = version;
-                            }
-                        }
-                    }
-                }
-            }
+    private Semaphore hostPermits(String repoUrl) {
+        String host;
+        try {
+            host = URI.create(repoUrl).getHost();
+        } catch (IllegalArgumentException e) {
+            host = null;
+        }
+        return hostPermits.computeIfAbsent(
+                host != null ? host : repoUrl, k -> new Semaphore(maxConcurrentRequestsPerHost));
+    }
 
-            if (latestVersion != null) {
-                logger.info(
-                        "Chart {}: found latest={} ({} versions, {} stable)",
-                        chartName,
-                        latestVersion,
-                        versionCount,
-                        stableCount);
-            } else {
-                logger.warn(
-                        "Chart {}: no stable version found ({} total, {} stable)",
-                        chartName,
-                        versionCount,
-                        stableCount);
+    private static boolean acquire(Semaphore permits, long deadline, String target) {
+        try {
+            if (permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return true;
             }
-
-            return latestVersion;
-        } catch (Exception e) {
-            logger.error("YAML parse error for {}: {}", chartName, e.getMessage(), e);
-            throw new IOException("Parse failed: " + e.getMessage(), e);
+            logger.warn("No request slot for {} within the check budget", target);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        return false;
     }
 
-    private String extractVersionValue(String line) {
-        if (!line.contains("version:")) {
-            return null;
-        }
-        String afterVersion = line.substring(line.indexOf("version:") + 8).trim();
-        if (afterVersion.startsWith("\"") && afterVersion.endsWith("\"")) {
-            return afterVersion.substring(1, afterVersion.length() - 1);
-        }
-        if (afterVersion.startsWith("'") && afterVersion.endsWith("'")) {
-            return afterVersion.substring(1, afterVersion.length() - 1);
+    /**
+     * Resolve the latest stable versions of several charts from one repository.
+     *
+     * <p>A cached table that covers all charts is used as is until it expires. After that it is
+     * revalidated with a conditional request, so an unchanged index costs a 304. Charts the table
+     * does not cover yet trigger a full download that scans for all requested charts at once.
+     * {@code oci://} repositories have no index and are resolved by {@link OciChartResolver}.
+     */
+    private Map<String, String> findLatestVersions(
+            String repoUrl, Set<String> chartNames, long deadline) {
+        if (OciChartResolver.isOciRepository(repoUrl)) {
+            Semaphore permits = hostPermits(repoUrl);
+            if (!acquire(permits, deadline, repoUrl)) {
+                return ociChartResolver.cachedLatestVersions(repoUrl, chartNames);
+            }
+            try {
+                return ociChartResolver.findLatestVersions(repoUrl, chartNames);
+            } finally {
+                permits.release();
+            }
         }
-        return afterVersion;
-    }
 
-    private boolean isStableVersion(String version) {
-        String lower = version.toLowerCase();
-        return !lower.matches(".*(-alpha|-beta|-rc|v?0\\.0\\.0|-dev|-snapshot|-next|\\*|\\?).*");
-    }
+        HelmRepoIndex cached = perRepoCaches.get(repoUrl);
+        boolean covered = cached != null && cached.covers(chartNames);
+        if (covered && !cached.isExpired(REPO_CACHE_TTL_MS)) {
+            return cached.latestVersions();
+        }
 
-    private int compareVersions(String v1, String v2) {
-        return parseVersion(v1).compareTo(parseVersion(v2));
-    }
+        String indexUrl = repoUrl + "index.yaml";
+        Semaphore permits = hostPermits(repoUrl);
+        if (!acquire(permits, deadline, indexUrl)) {
+            return cached != null ? cached.latestVersions() : Map.of();
+        }
 
-    private VersionParts parseVersion(String version) {
         try {
-            String clean = version.replaceAll("[^0-9.]", "");
-            String[] parts = clean.split("\\.");
-            int major = parts.length > 0 ? Integer.parseInt(parts[0]) : 0;
-            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
-            int patch = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
-            return new VersionParts(major, minor, patch);
+            IndexResponse<Map<String, String>> response =
+                    repositoryClient.streamIndex(
+                            indexUrl,
+                            covered ? cached.validators() : Validators.NONE,
+                            body -> HelmIndexParser.parseLatestVersionFromStream(body, chartNames));
+
+            if (response.notModified() && covered) {
+                perRepoCaches.put(repoUrl, cached.revalidated());
+                cacheDirty.set(true);
+                return cached.latestVersions();
+            }
+            if (response.body() != null) {
+                HelmRepoIndex index =
+                        new HelmRepoIndex(
+                                Map.copyOf(response.body()),
+                                Set.copyOf(chartNames),
+                                response.validators().etag(),
+                                response.validators().lastModified(),
+                                System.currentTimeMillis());
+                perRepoCaches.put(repoUrl, index);
+                cacheDirty.set(true);
+                return index.latestVersions();
+            }
         } catch (Exception e) {
-            return new VersionParts(0, 0, 0);
-        }
-    }
-
-    private record VersionParts(int major, int minor, int patch)
-            implements Comparable<VersionParts> {
-        @Override
-        public int compareTo(VersionParts other) {
-            if (major != other.major) return Integer.compare(major, other.major);
-            if (minor != other.minor) return Integer.compare(minor, other.minor);
-            return Integer.compare(patch, other.patch);
+            logger.warn("Failed to fetch index from {}: {}", indexUrl, e.getMessage());
+            eventPublisher.publishEvent(
+                    new CheckFailedEvent("helm-check", repoUrl, e.getMessage()));
+        } finally {
+            permits.release();
         }
+        return cached != null ? cached.latestVersions() : Map.of();
     }
 
     public Map<String, ChartInfo> getTrackedCharts() {
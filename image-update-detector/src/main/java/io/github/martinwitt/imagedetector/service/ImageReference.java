@@ -0,0 +1,75 @@
+package io.github.martinwitt.imagedetector.service;
+
+/**
+ * A container image reference split into registry, repository and tag.
+ *
+ * <p>Follows the Docker reference rules: the first path component is a registry only if it contains
+ * a dot or a port or is {@code localhost}, images without a registry live on Docker Hub, and
+ * single-component Docker Hub names belong to {@code library/}. A missing tag means {@code latest}.
+ *
+ * @param registry Registry host, e.g. {@code docker.io} or {@code ghcr.io}
+ * @param repository Repository path, e.g. {@code library/nginx}
+ * @param tag Image tag, e.g. {@code 1.27.2-alpine}
+ */
+public record ImageReference(String registry, String repository, String tag) {
+    public static final String DOCKER_HUB = "docker.io";
+
+    /**
+     * Parse a reference such as {@code nginx:1.27}, {@code ghcr.io/org/app:v2.1.0} or {@code
+     * localhost:5000/app:1.0@sha256:...}.
+     *
+     * @return The reference, or null if the text is not an image reference
+     */
+    public static ImageReference parse(String reference) {
+        if (reference == null) {
+            return null;
+        }
+        String text = reference.trim();
+        int digest = text.indexOf('@');
+        if (digest >= 0) {
+            text = text.substring(0, digest);
+        }
+        if (text.isEmpty()
+                || text.contains("{{")
+                || text.chars().anyMatch(Character::isWhitespace)) {
+            return null;
+        }
+
+        String tag = "latest";
+        int colon = text.lastIndexOf(':');
+        if (colon > text.lastIndexOf('/')) {
+            tag = text.substring(colon + 1);
+            text = text.substring(0, colon);
+        }
+        if (tag.isEmpty() || text.isEmpty()) {
+            return null;
+        }
+
+        String registry = DOCKER_HUB;
+        int slash = text.indexOf('/');
+        if (slash > 0) {
+            String first = text.substring(0, slash);
+            if (first.contains(".") || first.contains(":") || "localhost".equals(first)) {
+                registry = first;
+                text = text.substring(slash + 1);
+            }
+        }
+        if (registry.equals("index.docker.io") || registry.equals("registry-1.docker.io")) {
+            registry = DOCKER_HUB;
+        }
+        if (DOCKER_HUB.equals(registry) && !text.contains("/")) {
+            text = "library/" + text;
+        }
+        return text.isEmpty() ? null : new ImageReference(registry, text.toLowerCase(), tag);
+    }
+
+    /** Registry and repository without the tag; all tags of one image share this key. */
+    public String repositoryKey() {
+        return registry + "/" + repository;
+    }
+
+    @Override
+    public String toString() {
+        return repositoryKey() + ":" + tag;
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.martinwitt.imagedetector.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.martinwitt.imagedetector.ImageCheckProperties;
+import io.github.martinwitt.imagedetector.client.OciRegistryClient;
+import io.github.martinwitt.imagedetector.client.OciRegistryClient.TagList;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks the container images referenced by the scanned apps and looks up newer tags.
+ *
+ * <p>Tag lists are cached per image repository, not per app, so the same image used by many apps is
+ * listed once per TTL. After the TTL a list is revalidated with its ETag. Entries of images no app
+ * references any more are dropped after a day without access.
+ */
+@Service
+public class ImageTagCheckService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageTagCheckService.class);
+
+    private final Map<String, ImageInfo> trackedImages = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> registryPermits = new ConcurrentHashMap<>();
+    private final Cache<String, TagList> tagLists =
+            Caffeine.newBuilder().expireAfterAccess(Duration.ofDays(1)).build();
+    private final OciRegistryClient registryClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration tagCacheTtl;
+    private final int maxConcurrentRequestsPerRegistry;
+    private final Duration checkTimeout;
+
+    public static class ImageInfo {
+        private final ImageReference image;
+        private volatile String latestTag;
+
+        ImageInfo(ImageReference image) {
+            this.image = image;
+            this.latestTag = image.tag();
+        }
+
+        public ImageReference image() {
+            return image;
+        }
+
+        public String latestTag() {
+            return latestTag;
+        }
+
+        void updateLatestTag(String tag) {
+            this.latestTag = tag;
+        }
+    }
+
+    public ImageTagCheckService(
+            OciRegistryClient registryClient,
+            ImageCheckProperties properties,
+            ApplicationEventPublisher eventPublisher) {
+        this.registryClient = registryClient;
+        this.eventPublisher = eventPublisher;
+        this.tagCacheTtl = properties.getTagCacheTtl();
+        this.maxConcurrentRequestsPerRegistry =
+                Math.max(1, properties.getMaxConcurrentRequestsPerRegistry());
+        this.checkTimeout = properties.getCheckTimeout();
+    }
+
+    @Scheduled(fixedDelayString = "${app.images.check-interval-ms:600000}", initialDelay = 15000)
+    public void checkForUpdates() {
+        logger.info("Starting image tag check for {} images", trackedImages.size());
+
+        try {
+            Map<String, ImageReference> imagesByRepository = new HashMap<>();
+            for (ImageInfo imageInfo : trackedImages.values()) {
+                imagesByRepository.putIfAbsent(
+                        imageInfo.image().repositoryKey(), imageInfo.image());
+            }
+
+            Map<String, List<String>> tagsByRepository = listTags(imagesByRepository);
+
+            for (Map.Entry<String, ImageInfo> entry : trackedImages.entrySet()) {
+                ImageInfo imageInfo = entry.getValue();
+                List<String> tags = tagsByRepository.get(imageInfo.image().repositoryKey());
+                String latestTag =
+                        tags != null
+                                ? ImageTagSelector.latestTag(imageInfo.image().tag(), tags)
+                                : null;
+                if (latestTag != null) {
+                    imageInfo.updateLatestTag(latestTag);
+                    if (!latestTag.equals(imageInfo.image().tag())) {
+                        logger.info(
+                                "Image update available for {}: {} -> {}",
+                                entry.getKey(),
+                                imageInfo.image(),
+                                latestTag);
+                    }
+                }
+            }
+
+            logger.info("Image tag check completed ({} repositories)", imagesByRepository.size());
+            eventPublisher.publishEvent(new DependenciesUpdatedEvent("image-check"));
+        } catch (Exception e) {
+            logger.error("Image tag check failed: {}", e.getMessage());
+            eventPublisher.publishEvent(new CheckFailedEvent("image-check", null, e.getMessage()));
+        }
+    }
+
+    /**
+     * List the tags of all image repositories concurrently, one virtual thread per repository, with
+     * a per-registry request cap and one timeout budget for the whole cycle. Registries are
+     * authorized first with one token for all repositories that need a lookup.
+     */
+    private Map<String, List<String>> listTags(Map<String, ImageReference> imagesByRepository) {
+        long deadline = System.nanoTime() + checkTimeout.toNanos();
+        authorize(imagesByRepository.values());
+        Map<String, Future<List<String>>> futures = new HashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            imagesByRepository.forEach(
+                    (repositoryKey, image) ->
+                            futures.put(
+                                    repositoryKey,
+                                    executor.submit(() -> listTags(image, deadline))));
+
+            Map<String, List<String>> tagsByRepository = new HashMap<>();
+            futures.forEach(
+                    (repositoryKey, future) ->
+                            tagsByRepository.put(
+                                    repositoryKey, awaitTags(repositoryKey, future, deadline)));
+            return tagsByRepository;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void authorize(Collection<ImageReference> images) {
+        Map<String, Set<String>> repositoriesByRegistry = new HashMap<>();
+        for (ImageReference image : images) {
+            TagList cached = tagLists.getIfPresent(image.repositoryKey());
+            if (cached == null || cached.isExpired(tagCacheTtl)) {
+                repositoriesByRegistry
+                        .computeIfAbsent(image.registry(), k -> new HashSet<>())
+                        .add(image.repository());
+            }
+        }
+        repositoriesByRegistry.forEach(
+                (registry, repositories) -> {
+                    try {
+                        registryClient.authorize(registry, repositories);
+                    } catch (Exception e) {
+                        logger.warn("Failed to authorize against {}: {}", registry, e.getMessage());
+                    }
+                });
+    }
+
+    private List<String> awaitTags(
+            String repositoryKey, Future<List<String>> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Tag listing for {} exceeded the {} budget", repositoryKey, checkTimeout);
+            eventPublisher.publishEvent(
+                    new CheckFailedEvent(
+                            "image-check",
+                            repositoryKey,
+                            "Exceeded the " + checkTimeout + " budget"));
+        } catch (ExecutionException e) {
+            logger.warn("Tag listing for {} failed: {}", repositoryKey, e.getCause().getMessage());
+            eventPublisher.publishEvent(
+                    new CheckFailedEvent("image-check", repositoryKey, e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        }
+        return cachedTags(repositoryKey);
+    }
+
+    private List<String> cachedTags(String repositoryKey) {
+        TagList cached = tagLists.getIfPresent(repositoryKey);
+        return cached != null ? cached.tags() : null;
+    }
+
+    private List<String> listTags(ImageReference image, long deadline) {
+        String repositoryKey = image.repositoryKey();
+        TagList cached = tagLists.getIfPresent(repositoryKey);
+        if (cached != null && !cached.isExpired(tagCacheTtl)) {
+            return cached.tags();
+        }
+
+        Semaphore permits =
+                registryPermits.computeIfAbsent(
+                        image.registry(), k -> new Semaphore(maxConcurrentRequestsPerRegistry));
+        try {
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                logger.warn("No request slot for {} within the check budget", repositoryKey);
+                return cached != null ? cached.tags() : null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return cached != null ? cached.tags() : null;
+        }
+
+        try {
+            TagList tags = registryClient.listTags(image.registry(), image.repository(), cached);
+            tagLists.put(repositoryKey, tags);
+            return tags.tags();
+        } catch (Exception e) {
+            logger.warn("Failed to list tags of {}: {}", repositoryKey, e.getMessage());
+            eventPublisher.publishEvent(
+                    new CheckFailedEvent("image-check", repositoryKey, e.getMessage()));
+            return cached != null ? cached.tags() : null;
+        } finally {
+            permits.release();
+        }
+    }
+
+    public Map<String, ImageInfo> getTrackedImages() {
+        return trackedImages;
+    }
+
+    public void registerImage(String appName, String valuesPath, ImageReference image) {
+        String imageId = appName + "/" + valuesPath;
+        trackedImages.compute(
+                imageId,
+                (id, existing) ->
+                        existing != null && existing.image().equals(image)
+                                ? existing
+                                : new ImageInfo(image));
+        logger.debug("Registered image for tracking: {} ({})", imageId, image);
+    }
+
+    public void unregisterImage(String appName, String valuesPath) {
+        String imageId = appName + "/" + valuesPath;
+        if (trackedImages.remove(imageId) != null) {
+            logger.debug("Unregistered image: {}", imageId);
+        }
+    }
+}
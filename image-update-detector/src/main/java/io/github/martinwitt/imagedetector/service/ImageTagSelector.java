@@ -0,0 +1,82 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.util.Collection;
+
+/**
+ * Picks the newest tag that keeps the shape of the tag currently in use.
+ *
+ * <p>Image tags are not release versions: {@code 1.27.2-alpine} and {@code 1.27.2} are different
+ * variants of the same release, and {@code 16} tracks a major line while {@code 16.4} pins a minor.
+ * A candidate therefore has to use the same {@code v} prefix, the same number of numeric components
+ * and exactly the same suffix as the current tag. Among those the highest numeric version, compared
+ * with {@link SemanticVersion}, wins. Tags without a numeric core, such as {@code latest} or commit
+ * hashes, are not tracked.
+ */
+final class ImageTagSelector {
+
+    private ImageTagSelector() {}
+
+    /** Decomposed tag, e.g. {@code v1.2-alpine} is prefix "v", 2 components, suffix "-alpine". */
+    private record TagShape(boolean prefixed, int components, String suffix, SemanticVersion core) {
+        boolean sameShape(TagShape other) {
+            return prefixed == other.prefixed
+                    && components == other.components
+                    && suffix.equals(other.suffix);
+        }
+    }
+
+    /**
+     * @param currentTag Tag currently referenced
+     * @param tags All tags of the repository
+     * @return The newest tag of the same shape, {@code currentTag} if it is the newest, or null if
+     *     the current tag cannot be compared
+     */
+    static String latestTag(String currentTag, Collection<String> tags) {
+        TagShape current = shape(currentTag);
+        if (current == null) {
+            return null;
+        }
+
+        String latest = currentTag;
+        SemanticVersion latestCore = current.core();
+        for (String tag : tags) {
+            TagShape candidate = shape(tag);
+            if (candidate != null
+                    && candidate.sameShape(current)
+                    && candidate.core().compareTo(latestCore) > 0) {
+                latest = tag;
+                latestCore = candidate.core();
+            }
+        }
+        return latest;
+    }
+
+    private static TagShape shape(String tag) {
+        if (tag == null || tag.isEmpty()) {
+            return null;
+        }
+        int i = tag.charAt(0) == 'v' || tag.charAt(0) == 'V' ? 1 : 0;
+        int coreStart = i;
+        int components = 0;
+        while (i < tag.length()) {
+            int digitsStart = i;
+            while (i < tag.length() && Character.isDigit(tag.charAt(i))) {
+                i++;
+            }
+            if (i == digitsStart) {
+                return null;
+            }
+            components++;
+            if (components == 3 || i == tag.length() || tag.charAt(i) != '.') {
+                break;
+            }
+            i++;
+        }
+        String suffix = tag.substring(i);
+        if (components == 0 || (!suffix.isEmpty() && suffix.charAt(0) != '-')) {
+            return null;
+        }
+        SemanticVersion core = SemanticVersion.parse(tag.substring(coreStart, i));
+        return core != null ? new TagShape(coreStart == 1, components, suffix, core) : null;
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Published after a Helm version check with the latest versions it resolved.
+ *
+ * @param charts All checked charts as repository URL followed by chart name, including those whose
+ *     lookup failed
+ * @param latestVersions Latest version per chart, for the charts that could be resolved
+ */
+public record LatestVersionsObservedEvent(Set<String> charts, Map<String, String> latestVersions) {}
@@ -0,0 +1,166 @@
+package io.github.martinwitt.imagedetector.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.martinwitt.imagedetector.client.OciRegistryClient;
+import io.github.martinwitt.imagedetector.client.OciRegistryClient.TagList;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the latest stable versions of charts published to OCI registries ({@code oci://}
+ * dependencies).
+ *
+ * <p>An OCI chart repository has no index; every chart is its own registry repository whose tags
+ * are the chart versions. Helm stores the {@code +} of SemVer build metadata as {@code _} in tags,
+ * which is reversed before the tags are filtered with the same {@link SemanticVersion} rules as
+ * index-based repositories. Tag lists are cached per chart repository and revalidated with their
+ * ETag after {@link #TAG_LIST_TTL}.
+ */
+@Component
+public class OciChartResolver {
+    private static final Logger logger = LoggerFactory.getLogger(OciChartResolver.class);
+    private static final Duration TAG_LIST_TTL = Duration.ofHours(1);
+
+    private final OciRegistryClient registryClient;
+    private final Cache<String, TagList> tagLists =
+            Caffeine.newBuilder().expireAfterAccess(Duration.ofDays(1)).build();
+
+    public OciChartResolver(OciRegistryClient registryClient) {
+        this.registryClient = registryClient;
+    }
+
+    /** Registry host and repository prefix of an {@code oci://host/path/} repository URL. */
+    private record OciLocation(String registry, String basePath) {
+        static OciLocation of(String repoUrl) {
+            String rest = repoUrl.substring("oci://".length());
+            while (rest.endsWith("/")) {
+                rest = rest.substring(0, rest.length() - 1);
+            }
+            int slash = rest.indexOf('/');
+            return slash < 0
+                    ? new OciLocation(rest, "")
+                    : new OciLocation(rest.substring(0, slash), rest.substring(slash + 1));
+        }
+
+        String repository(String chartName) {
+            return basePath.isEmpty() ? chartName : basePath + "/" + chartName;
+        }
+
+        String cacheKey(String chartName) {
+            return registry + "/" + repository(chartName);
+        }
+    }
+
+    static boolean isOciRepository(String repoUrl) {
+        return repoUrl.regionMatches(true, 0, "oci://", 0, 6);
+    }
+
+    /**
+     * Group the charts whose cached tag list is missing or expired by registry, so one token per
+     * registry can be fetched for all of them before the per-chart lookups.
+     *
+     * @param chartsByRepo Chart names keyed by normalized repository URL; non-OCI URLs are ignored
+     * @return Repositories to authorize, keyed by registry host
+     */
+    Map<String, Set<String>> repositoriesToAuthorize(Map<String, Set<String>> chartsByRepo) {
+        Map<String, Set<String>> repositoriesByRegistry = new HashMap<>();
+        chartsByRepo.forEach(
+                (repoUrl, chartNames) -> {
+                    if (!isOciRepository(repoUrl)) {
+                        return;
+                    }
+                    OciLocation location = OciLocation.of(repoUrl);
+                    for (String chartName : chartNames) {
+                        TagList cached = tagLists.getIfPresent(location.cacheKey(chartName));
+                        if (cached == null || cached.isExpired(TAG_LIST_TTL)) {
+                            repositoriesByRegistry
+                                    .computeIfAbsent(location.registry(), k -> new HashSet<>())
+                                    .add(location.repository(chartName));
+                        }
+                    }
+                });
+        return repositoriesByRegistry;
+    }
+
+    /** Fetch one token for several repositories of a registry; failures are only logged. */
+    void authorize(String registry, Set<String> repositories) {
+        try {
+            registryClient.authorize(registry, repositories);
+        } catch (Exception e) {
+            logger.warn("Failed to authorize against {}: {}", registry, e.getMessage());
+        }
+    }
+
+    /** Registry host of an {@code oci://} repository URL. */
+    static String registry(String repoUrl) {
+        return OciLocation.of(repoUrl).registry();
+    }
+
+    /**
+     * Resolve the latest stable versions of charts in one OCI repository.
+     *
+     * @param repoUrl Normalized {@code oci://} repository URL
+     * @param chartNames Charts to look up
+     * @return Latest stable version per chart; charts without one, or whose tags could not be
+     *     listed and are not cached, are absent
+     */
+    Map<String, String> findLatestVersions(String repoUrl, Set<String> chartNames) {
+        OciLocation location = OciLocation.of(repoUrl);
+        Map<String, String> latestVersions = new HashMap<>();
+        for (String chartName : chartNames) {
+            String cacheKey = location.cacheKey(chartName);
+            TagList cached = tagLists.getIfPresent(cacheKey);
+            TagList tags = cached;
+            if (cached == null || cached.isExpired(TAG_LIST_TTL)) {
+                try {
+                    tags =
+                            registryClient.listTags(
+                                    location.registry(), location.repository(chartName), cached);
+                    tagLists.put(cacheKey, tags);
+                } catch (Exception e) {
+                    logger.warn("Failed to list chart tags of {}: {}", cacheKey, e.getMessage());
+                }
+            }
+            String latest = tags != null ? latestStableVersion(tags.tags()) : null;
+            if (latest != null) {
+                latestVersions.put(chartName, latest);
+            }
+        }
+        return latestVersions;
+    }
+
+    /** Latest versions from cached tag lists only, used when a lookup ran out of time. */
+    Map<String, String> cachedLatestVersions(String repoUrl, Set<String> chartNames) {
+        OciLocation location = OciLocation.of(repoUrl);
+        Map<String, String> latestVersions = new HashMap<>();
+        for (String chartName : chartNames) {
+            TagList cached = tagLists.getIfPresent(location.cacheKey(chartName));
+            String latest = cached != null ? latestStableVersion(cached.tags()) : null;
+            if (latest != null) {
+                latestVersions.put(chartName, latest);
+            }
+        }
+        return latestVersions;
+    }
+
+    static String latestStableVersion(List<String> tags) {
+        SemanticVersion latest = null;
+        for (String tag : tags) {
+            SemanticVersion version = SemanticVersion.parse(tag.replace('_', '+'));
+            if (version != null
+                    && version.isStable()
+                    && (latest == null || version.compareTo(latest) > 0)) {
+                latest = version;
+            }
+        }
+        return latest != null ? latest.toString() : null;
+    }
+}
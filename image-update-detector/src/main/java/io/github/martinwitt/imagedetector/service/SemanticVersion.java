@@ -0,0 +1,231 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A version following Semantic Versioning 2.0.0, parsed once and compared without re-parsing.
+ *
+ * <p>Plain numeric versions such as {@code 1.2.3} are recognised by a hand-written scan without
+ * touching a regular expression. Everything else is matched against a single precompiled pattern.
+ * To cope with what Helm repositories and image registries publish in practice, a leading {@code v}
+ * is accepted and missing minor or patch components default to zero; the original text is kept and
+ * returned by {@link #toString()}.
+ *
+ * <p>Ordering follows the SemVer precedence rules: numeric core first, a pre-release sorts below
+ * the release, pre-release identifiers are compared left to right with numeric identifiers below
+ * alphanumeric ones, and build metadata is ignored. {@link #equals(Object)} is consistent with that
+ * ordering.
+ */
+public final class SemanticVersion implements Comparable<SemanticVersion> {
+
+    private static final Pattern SEMVER_PATTERN =
+            Pattern.compile(
+                    "^[vV]?(0|[1-9]\\d*)(?:\\.(0|[1-9]\\d*))?(?:\\.(0|[1-9]\\d*))?"
+                            + "(?:-((?:0|[1-9]\\d*|\\d*[a-zA-Z-][0-9a-zA-Z-]*)"
+                            + "(?:\\.(?:0|[1-9]\\d*|\\d*[a-zA-Z-][0-9a-zA-Z-]*))*))?"
+                            + "(?:\\+([0-9a-zA-Z-]+(?:\\.[0-9a-zA-Z-]+)*))?$");
+
+    private static final String[] NO_IDENTIFIERS = new String[0];
+    private static final long[] NO_NUMBERS = new long[0];
+
+    private final String text;
+    private final long major;
+    private final long minor;
+    private final long patch;
+    private final String[] preRelease;
+    private final long[] preReleaseNumbers;
+
+    private SemanticVersion(
+            String text,
+            long major,
+            long minor,
+            long patch,
+            String[] preRelease,
+            long[] preReleaseNumbers) {
+        this.text = text;
+        this.major = major;
+        this.minor = minor;
+        this.patch = patch;
+        this.preRelease = preRelease;
+        this.preReleaseNumbers = preReleaseNumbers;
+    }
+
+    /**
+     * Parse a version string.
+     *
+     * @param version Version text, e.g. {@code 1.2.3}, {@code v2.0.0-rc.1} or {@code 1.0.0+build.5}
+     * @return The parsed version, or null if the text is not a semantic version
+     */
+    public static SemanticVersion parse(String version) {
+        if (version == null || version.isEmpty()) {
+            return null;
+        }
+        SemanticVersion plain = parsePlain(version);
+        return plain != null ? plain : parseFull(version);
+    }
+
+    /** Fast path for {@code [v]MAJOR[.MINOR[.PATCH]]} without any suffix. */
+    private static SemanticVersion parsePlain(String version) {
+        int length = version.length();
+        int i = 0;
+        char first = version.charAt(0);
+        if (first == 'v' || first == 'V') {
+            i++;
+        }
+
+        long major = 0;
+        long minor = 0;
+        int part = 0;
+        int digits = 0;
+        long value = 0;
+        boolean leadingZero = false;
+        for (; i < length; i++) {
+            char c = version.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (leadingZero || value > (Long.MAX_VALUE - 9) / 10) {
+                    return null;
+                }
+                leadingZero = digits == 0 && c == '0';
+                value = value * 10 + (c - '0');
+                digits++;
+            } else if (c == '.' && digits > 0 && part < 2) {
+                if (part++ == 0) {
+                    major = value;
+                } else {
+                    minor = value;
+                }
+                value = 0;
+                digits = 0;
+                leadingZero = false;
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return switch (part) {
+            case 0 -> new SemanticVersion(version, value, 0, 0, NO_IDENTIFIERS, NO_NUMBERS);
+            case 1 -> new SemanticVersion(version, major, value, 0, NO_IDENTIFIERS, NO_NUMBERS);
+            default ->
+                    new SemanticVersion(version, major, minor, value, NO_IDENTIFIERS, NO_NUMBERS);
+        };
+    }
+
+    private static SemanticVersion parseFull(String version) {
+        Matcher matcher = SEMVER_PATTERN.matcher(version);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            long major = Long.parseLong(matcher.group(1));
+            long minor = matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0;
+            long patch = matcher.group(3) != null ? Long.parseLong(matcher.group(3)) : 0;
+
+            String[] identifiers = NO_IDENTIFIERS;
+            long[] numbers = NO_NUMBERS;
+            if (matcher.group(4) != null) {
+                identifiers = matcher.group(4).split("\\.");
+                numbers = new long[identifiers.length];
+                for (int i = 0; i < identifiers.length; i++) {
+                    numbers[i] = numericIdentifier(identifiers[i]);
+                }
+            }
+            return new SemanticVersion(version, major, minor, patch, identifiers, numbers);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Value of a purely numeric identifier, or -1 for an alphanumeric one. */
+    private static long numericIdentifier(String identifier) {
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = identifier.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return Long.parseLong(identifier);
+    }
+
+    public long major() {
+        return major;
+    }
+
+    public long minor() {
+        return minor;
+    }
+
+    public long patch() {
+        return patch;
+    }
+
+    public boolean isPreRelease() {
+        return preRelease.length > 0;
+    }
+
+    /**
+     * A version is stable if it is a release (no pre-release identifiers) and not the {@code 0.0.0}
+     * placeholder used by unversioned charts.
+     */
+    public boolean isStable() {
+        return preRelease.length == 0 && (major | minor | patch) != 0;
+    }
+
+    @Override
+    public int compareTo(SemanticVersion other) {
+        int cmp = Long.compare(major, other.major);
+        if (cmp != 0) return cmp;
+        cmp = Long.compare(minor, other.minor);
+        if (cmp != 0) return cmp;
+        cmp = Long.compare(patch, other.patch);
+        if (cmp != 0) return cmp;
+
+        if (preRelease.length == 0) {
+            return other.preRelease.length == 0 ? 0 : 1;
+        }
+        if (other.preRelease.length == 0) {
+            return -1;
+        }
+
+        int common = Math.min(preRelease.length, other.preRelease.length);
+        for (int i = 0; i < common; i++) {
+            long n1 = preReleaseNumbers[i];
+            long n2 = other.preReleaseNumbers[i];
+            if (n1 >= 0 && n2 >= 0) {
+                cmp = Long.compare(n1, n2);
+            } else if (n1 >= 0) {
+                cmp = -1;
+            } else if (n2 >= 0) {
+                cmp = 1;
+            } else {
+                cmp = preRelease[i].compareTo(other.preRelease[i]);
+            }
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(preRelease.length, other.preRelease.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SemanticVersion other && compareTo(other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(major);
+        result = 31 * result + Long.hashCode(minor);
+        result = 31 * result + Long.hashCode(patch);
+        for (String identifier : preRelease) {
+            result = 31 * result + identifier.hashCode();
+        }
+        return result;
+    }
+
+    /** The original version text. */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
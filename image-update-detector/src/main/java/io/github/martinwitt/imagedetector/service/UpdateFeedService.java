@@ -0,0 +1,297 @@
+package io.github.martinwitt.imagedetector.service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams dependency changes to server-sent event subscribers.
+ *
+ * <p>Changes are derived by comparing consecutive {@link DashboardSnapshot}s, so each change is
+ * reported once no matter which scan or check revealed it. Every event gets an increasing id and is
+ * kept in a bounded in-memory log. A client reconnecting with {@code Last-Event-ID} gets the events
+ * it missed replayed from the log. If they are no longer there, or the id is from before a restart,
+ * it gets a {@code resync} event instead and should reload the full state from the REST API.
+ *
+ * <p>Each subscriber has a bounded buffer drained by its own virtual thread. A subscriber that
+ * cannot keep up is disconnected rather than buffering without limit or slowing down the others; it
+ * resumes from the log when it reconnects.
+ */
+@Service
+public class UpdateFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(UpdateFeedService.class);
+    private static final int EVENT_LOG_SIZE = 512;
+    // As large as the log, so a full replay always fits into the buffer of a new subscriber.
+    private static final int SUBSCRIBER_BUFFER_SIZE = EVENT_LOG_SIZE;
+    private static final Duration SUBSCRIPTION_TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration KEEPALIVE_INTERVAL = Duration.ofSeconds(30);
+
+    private final Deque<FeedEvent> log = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Ids continue from the startup time, so ids handed out before a restart are recognized.
+    private final long firstId = System.currentTimeMillis();
+    private long lastId = firstId;
+
+    /**
+     * One entry of the feed.
+     *
+     * @param id Sent as the SSE id and echoed back by clients in {@code Last-Event-ID}
+     * @param type Sent as the SSE event name, e.g. {@code chart-update} or {@code app-removed}
+     * @param data Sent as JSON
+     */
+    public record FeedEvent(long id, String type, Map<String, Object> data) {}
+
+    record Change(String type, Map<String, Object> data) {}
+
+    /**
+     * Open a subscription.
+     *
+     * @param lastEventId Value of the {@code Last-Event-ID} header; null for a new client
+     * @return The emitter streaming all events after {@code lastEventId}
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(SUBSCRIPTION_TIMEOUT.toMillis()));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::disconnect);
+        emitter.onTimeout(subscriber::disconnect);
+        emitter.onError(e -> subscriber.disconnect());
+
+        synchronized (log) {
+            replay(subscriber, lastEventId);
+            subscribers.add(subscriber);
+        }
+        subscriber.start();
+        logger.debug("Update feed subscriber connected, {} in total", subscribers.size());
+        return emitter;
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+        long id;
+        try {
+            id = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            id = -1;
+        }
+        long oldestId = log.isEmpty() ? lastId + 1 : log.peekFirst().id();
+        if (id < firstId || id > lastId || id < oldestId - 1) {
+            subscriber.offer(
+                    new FeedEvent(
+                            lastId,
+                            "resync",
+                            Map.of("reason", "Events after " + lastEventId + " are unavailable")));
+            return;
+        }
+        for (FeedEvent event : log) {
+            if (event.id() > id) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    void publish(String type, Map<String, Object> data) {
+        synchronized (log) {
+            FeedEvent event = new FeedEvent(++lastId, type, data);
+            log.addLast(event);
+            if (log.size() > EVENT_LOG_SIZE) {
+                log.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.offer(event)) {
+                    logger.info("Disconnecting update feed subscriber that fell behind");
+                    subscriber.close();
+                }
+            }
+        }
+    }
+
+    @EventListener
+    void onSnapshotChanged(DashboardSnapshotChangedEvent event) {
+        if (event.previous() == null) {
+            // Everything would look new after a restart; clients are told to resync instead.
+            return;
+        }
+        for (Change change : changes(event.previous(), event.current())) {
+            publish(change.type(), change.data());
+        }
+    }
+
+    @EventListener
+    void onCheckFailed(CheckFailedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("source", event.source());
+        if (event.target() != null) {
+            data.put("target", event.target());
+        }
+        data.put("message", event.message() != null ? event.message() : "unknown error");
+        publish("check-failed", data);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(Subscriber::close);
+    }
+
+    /**
+     * Compare two snapshots: apps that appeared or disappeared, and charts or images whose latest
+     * version changed to one other than the version in use.
+     */
+    static List<Change> changes(DashboardSnapshot previous, DashboardSnapshot current) {
+        Set<String> previousApps = new TreeSet<>(previous.chartsByApp().keySet());
+        previousApps.addAll(previous.imagesByApp().keySet());
+        Set<String> currentApps = new TreeSet<>(current.chartsByApp().keySet());
+        currentApps.addAll(current.imagesByApp().keySet());
+
+        List<Change> changes = new ArrayList<>();
+        for (String app : currentApps) {
+            if (!previousApps.contains(app)) {
+                changes.add(new Change("app-added", Map.of("app", app)));
+            }
+        }
+        for (String app : previousApps) {
+            if (!currentApps.contains(app)) {
+                changes.add(new Change("app-removed", Map.of("app", app)));
+            }
+        }
+        for (String app : currentApps) {
+            addLatestChanges(
+                    changes,
+                    "chart-update",
+                    app,
+                    "name",
+                    "version",
+                    "latestVersion",
+                    previous.chartsOfApp(app).get("dependencies"),
+                    current.chartsOfApp(app).get("dependencies"));
+            addLatestChanges(
+                    changes,
+                    "image-update",
+                    app,
+                    "path",
+                    "tag",
+                    "latestTag",
+                    previous.imagesOfApp(app).get("images"),
+                    current.imagesOfApp(app).get("images"));
+        }
+        return changes;
+    }
+
+    private static void addLatestChanges(
+            List<Change> changes,
+            String type,
+            String app,
+            String keyField,
+            String versionField,
+            String latestField,
+            Object previousEntries,
+            Object currentEntries) {
+        Map<Object, Object> previousLatest = new HashMap<>();
+        for (Map<?, ?> entry : entries(previousEntries)) {
+            previousLatest.put(entry.get(keyField), entry.get(latestField));
+        }
+        for (Map<?, ?> entry : entries(currentEntries)) {
+            Object latest = entry.get(latestField);
+            if (latest == null
+                    || latest.equals(entry.get(versionField))
+                    || latest.equals(previousLatest.get(entry.get(keyField)))) {
+                continue;
+            }
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("app", app);
+            entry.forEach((key, value) -> data.put(key.toString(), value));
+            changes.add(new Change(type, data));
+        }
+    }
+
+    private static List<Map<?, ?>> entries(Object entries) {
+        List<Map<?, ?>> maps = new ArrayList<>();
+        if (entries instanceof List<?> list) {
+            for (Object entry : list) {
+                if (entry instanceof Map<?, ?> map) {
+                    maps.add(map);
+                }
+            }
+        }
+        return maps;
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<FeedEvent> buffer =
+                new ArrayBlockingQueue<>(SUBSCRIBER_BUFFER_SIZE);
+        private volatile Thread sender;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        boolean offer(FeedEvent event) {
+            return buffer.offer(event);
+        }
+
+        void start() {
+            sender = Thread.ofVirtual().name("update-feed").start(this::send);
+        }
+
+        private void send() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    FeedEvent event =
+                            buffer.poll(KEEPALIVE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        emitter.send(
+                                SseEmitter.event()
+                                        .id(Long.toString(event.id()))
+                                        .name(event.type())
+                                        .data(event.data()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Update feed subscriber gone: {}", e.getMessage());
+            } finally {
+                disconnect();
+            }
+        }
+
+        /** Stop sending; the emitter is already completed or failed. */
+        void disconnect() {
+            subscribers.remove(this);
+            Thread current = sender;
+            if (current != null && current != Thread.currentThread()) {
+                current.interrupt();
+            }
+        }
+
+        void close() {
+            disconnect();
+            emitter.complete();
+        }
+    }
+}
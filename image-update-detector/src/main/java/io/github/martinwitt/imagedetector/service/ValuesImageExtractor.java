@@ -0,0 +1,84 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.service.HelmChartScanService.ImageDependency;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds container image references in a loaded {@code values.yaml}.
+ *
+ * <p>Two forms are recognised anywhere in the tree:
+ *
+ * <ul>
+ *   <li>maps with {@code repository} and {@code tag} keys and an optional {@code registry}, as used
+ *       by most charts under {@code image:}
+ *   <li>complete references under an {@code image} key, e.g. {@code image: nginx:1.27}, as found in
+ *       extra containers, init containers and other rendered manifests embedded in values
+ * </ul>
+ *
+ * Values that still contain template expressions, and images without an explicit tag, are skipped.
+ */
+final class ValuesImageExtractor {
+
+    private ValuesImageExtractor() {}
+
+    static List<ImageDependency> extract(Map<?, ?> values) {
+        List<ImageDependency> images = new ArrayList<>();
+        walk(values, "", images);
+        return images;
+    }
+
+    private static void walk(Object node, String path, List<ImageDependency> images) {
+        if (node instanceof Map<?, ?> map) {
+            ImageReference structured = structuredImage(map);
+            if (structured != null) {
+                images.add(new ImageDependency(path, structured));
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                String childPath = path.isEmpty() ? key : path + "." + key;
+                if ("image".equals(key) && entry.getValue() instanceof String reference) {
+                    ImageReference image = referenceWithTag(reference);
+                    if (image != null) {
+                        images.add(new ImageDependency(childPath, image));
+                    }
+                } else {
+                    walk(entry.getValue(), childPath, images);
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                walk(list.get(i), path + "[" + i + "]", images);
+            }
+        }
+    }
+
+    private static ImageReference structuredImage(Map<?, ?> map) {
+        if (!(map.get("repository") instanceof String repository) || repository.isBlank()) {
+            return null;
+        }
+        // Integer tags such as "16" are fine; floats like 1.20 have already lost their text.
+        Object tagValue = map.get("tag");
+        String tag =
+                tagValue instanceof String s
+                        ? s
+                        : tagValue instanceof Integer i ? i.toString() : null;
+        if (tag == null || tag.isBlank()) {
+            return null;
+        }
+        String reference =
+                map.get("registry") instanceof String registry && !registry.isBlank()
+                        ? registry + "/" + repository
+                        : repository;
+        return ImageReference.parse(reference + ":" + tag);
+    }
+
+    private static ImageReference referenceWithTag(String reference) {
+        int slash = reference.lastIndexOf('/');
+        if (reference.indexOf(':', slash + 1) < 0) {
+            return null;
+        }
+        return ImageReference.parse(reference);
+    }
+}
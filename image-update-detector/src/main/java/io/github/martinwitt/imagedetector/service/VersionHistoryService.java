@@ -0,0 +1,189 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.HistoryProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records when new chart versions appeared and how far each app was behind, in the {@link
+ * VersionHistoryStore}.
+ *
+ * <p>Only changes are recorded: a chart's latest version when it differs from the last one seen,
+ * and an app's drift when one of its counts changes. Image tags are covered through the drift of
+ * the apps using them. The last recorded state, including since when each app has been out of date,
+ * is the only history kept in memory.
+ */
+@Service
+public class VersionHistoryService {
+    private static final Logger logger = LoggerFactory.getLogger(VersionHistoryService.class);
+    public static final int DEFAULT_LIMIT = 1000;
+    public static final int MAX_LIMIT = 10000;
+
+    private final VersionHistoryStore store;
+    private final Duration retention;
+    private final Map<String, String> lastVersions;
+    private final Map<String, DashboardSnapshot.AppDrift> lastDrift;
+    // Read by API requests without taking the lock of the event listeners
+    private final Map<String, Long> outOfDateSince;
+
+    /**
+     * Result of a history query.
+     *
+     * @param entries The matching records, oldest first
+     * @param truncated True if more records matched than the limit
+     */
+    public record HistoryPage<T>(List<T> entries, boolean truncated) {}
+
+    public VersionHistoryService(VersionHistoryStore store, HistoryProperties properties) {
+        this.store = store;
+        this.retention = properties.getRetention();
+        VersionHistoryStore.LastState state = store.load();
+        this.lastVersions = new HashMap<>(state.versions());
+        this.lastDrift = new HashMap<>(state.drift());
+        this.outOfDateSince = new ConcurrentHashMap<>(state.outOfDateSince());
+    }
+
+    @EventListener
+    synchronized void onLatestVersionsObserved(LatestVersionsObservedEvent event) {
+        long now = System.currentTimeMillis();
+        List<VersionHistoryStore.HistoryRecord> records = new ArrayList<>();
+        event.latestVersions()
+                .forEach(
+                        (chart, version) -> {
+                            if (!version.equals(lastVersions.put(chart, version))) {
+                                records.add(
+                                        new VersionHistoryStore.VersionRecord(now, chart, version));
+                            }
+                        });
+        // Charts no longer used by any app are dropped at the next compaction
+        lastVersions.keySet().retainAll(event.charts());
+        store.append(records);
+        if (!records.isEmpty()) {
+            logger.debug("Recorded {} new chart versions", records.size());
+        }
+    }
+
+    @EventListener
+    synchronized void onSnapshotChanged(DashboardSnapshotChangedEvent event) {
+        long now = System.currentTimeMillis();
+        Map<String, DashboardSnapshot.AppDrift> current = event.current().driftByApp();
+        List<VersionHistoryStore.HistoryRecord> records = new ArrayList<>();
+        current.forEach(
+                (app, drift) -> {
+                    if (!drift.equals(lastDrift.put(app, drift))) {
+                        records.add(new VersionHistoryStore.DriftRecord(now, app, drift));
+                        trackOutOfDate(app, drift, now);
+                    }
+                });
+        for (String app : new ArrayList<>(lastDrift.keySet())) {
+            if (!current.containsKey(app)) {
+                lastDrift.remove(app);
+                records.add(
+                        new VersionHistoryStore.DriftRecord(
+                                now, app, DashboardSnapshot.AppDrift.NONE));
+                outOfDateSince.remove(app);
+            }
+        }
+        store.append(records);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${app.history.compaction-interval-ms:86400000}",
+            initialDelay = 300000)
+    synchronized void compact() {
+        store.compact(
+                System.currentTimeMillis() - retention.toMillis(),
+                new HashSet<>(lastVersions.keySet()),
+                new HashSet<>(lastDrift.keySet()));
+    }
+
+    /**
+     * Latest chart versions as they appeared.
+     *
+     * @param from Oldest timestamp in epoch milliseconds, inclusive
+     * @param to Newest timestamp in epoch milliseconds, inclusive
+     * @param chart Chart name, or repository URL followed by the chart name; null for all charts
+     * @param limit Maximum number of entries, capped at {@link #MAX_LIMIT}
+     */
+    public HistoryPage<VersionHistoryStore.VersionRecord> versions(
+            long from, long to, String chart, int limit) {
+        List<VersionHistoryStore.VersionRecord> entries = new ArrayList<>();
+        int cappedLimit = cap(limit);
+        store.forEach(
+                from,
+                to,
+                record -> {
+                    if (record instanceof VersionHistoryStore.VersionRecord version
+                            && (chart == null || matchesChart(version.chart(), chart))) {
+                        entries.add(version);
+                    }
+                    return entries.size() <= cappedLimit;
+                });
+        return page(entries, cappedLimit);
+    }
+
+    /**
+     * Drift changes of the apps.
+     *
+     * @param from Oldest timestamp in epoch milliseconds, inclusive
+     * @param to Newest timestamp in epoch milliseconds, inclusive
+     * @param app App name; null for all apps
+     * @param limit Maximum number of entries, capped at {@link #MAX_LIMIT}
+     */
+    public HistoryPage<VersionHistoryStore.DriftRecord> drift(
+            long from, long to, String app, int limit) {
+        List<VersionHistoryStore.DriftRecord> entries = new ArrayList<>();
+        int cappedLimit = cap(limit);
+        store.forEach(
+                from,
+                to,
+                record -> {
+                    if (record instanceof VersionHistoryStore.DriftRecord drift
+                            && (app == null || drift.app().equals(app))) {
+                        entries.add(drift);
+                    }
+                    return entries.size() <= cappedLimit;
+                });
+        return page(entries, cappedLimit);
+    }
+
+    /**
+     * Since when an app has been continuously out of date.
+     *
+     * @return The timestamp in epoch milliseconds, or null if the app is up to date or unknown
+     */
+    public Long outOfDateSince(String app) {
+        return outOfDateSince.get(app);
+    }
+
+    private void trackOutOfDate(String app, DashboardSnapshot.AppDrift drift, long now) {
+        if (drift.isOutOfDate()) {
+            outOfDateSince.putIfAbsent(app, now);
+        } else {
+            outOfDateSince.remove(app);
+        }
+    }
+
+    private static boolean matchesChart(String recorded, String chart) {
+        return recorded.equals(chart) || recorded.endsWith("/" + chart);
+    }
+
+    private static int cap(int limit) {
+        return limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    }
+
+    private static <T> HistoryPage<T> page(List<T> entries, int limit) {
+        boolean truncated = entries.size() > limit;
+        return new HistoryPage<>(truncated ? entries.subList(0, limit) : entries, truncated);
+    }
+}
@@ -0,0 +1,602 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.HistoryProperties;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only on-disk history of the observed latest chart versions and of each app's drift.
+ *
+ * <p>After a header, the file holds three kinds of records, each led by a tag byte:
+ *
+ * <ul>
+ *   <li>{@code NAME}: id and string. Chart and app names are written once per file and referenced
+ *       by id afterwards.
+ *   <li>{@code VERSION}: timestamp, chart id and version; the chart's latest version, first seen at
+ *       the timestamp.
+ *   <li>{@code DRIFT}: timestamp, app id and the outdated and total chart and image counts; the
+ *       app's drift from the timestamp on.
+ * </ul>
+ *
+ * <p>Numbers are unsigned LEB128 varints and strings modified UTF-8, so a record takes a few bytes.
+ * Records are only written on change, which makes the file grow with the number of changes rather
+ * than with time. Records are stored oldest first. A sparse index in memory holds the offset and
+ * timestamp of one record per {@value #INDEX_INTERVAL} bytes, so queries start reading close to
+ * their range and stop at its end. They keep nothing but their results, and {@link #compact} drops
+ * records past the retention, so memory stays flat however long the history gets. A record torn by
+ * a crash is cut off when the history is loaded. Persistence is disabled when {@code
+ * app.history.dir} is blank.
+ */
+@Component
+public class VersionHistoryStore {
+    private static final Logger logger = LoggerFactory.getLogger(VersionHistoryStore.class);
+    private static final int MAGIC = 0x56484953;
+    private static final int FORMAT_VERSION = 1;
+    private static final int TAG_NAME = 0;
+    private static final int TAG_VERSION = 1;
+    private static final int TAG_DRIFT = 2;
+    private static final int HEADER_SIZE = 5;
+    static final int INDEX_INTERVAL = 64 * 1024;
+
+    private final Path historyFile;
+    // Ids of the names already written to the current file
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private SparseIndex index = new SparseIndex();
+
+    public sealed interface HistoryRecord permits VersionRecord, DriftRecord {
+        long timestamp();
+    }
+
+    /**
+     * A chart's latest version as first observed.
+     *
+     * @param timestamp When the version was first seen, in epoch milliseconds
+     * @param chart Repository URL followed by the chart name
+     * @param version The latest version
+     */
+    public record VersionRecord(long timestamp, String chart, String version)
+            implements HistoryRecord {}
+
+    /**
+     * An app's drift from {@code timestamp} on. An app without any charts and images was removed.
+     */
+    public record DriftRecord(
+            long timestamp,
+            String app,
+            int outdatedCharts,
+            int charts,
+            int outdatedImages,
+            int images)
+            implements HistoryRecord {
+        DriftRecord(long timestamp, String app, DashboardSnapshot.AppDrift drift) {
+            this(
+                    timestamp,
+                    app,
+                    drift.outdatedCharts(),
+                    drift.charts(),
+                    drift.outdatedImages(),
+                    drift.images());
+        }
+
+        DashboardSnapshot.AppDrift drift() {
+            return new DashboardSnapshot.AppDrift(outdatedCharts, charts, outdatedImages, images);
+        }
+    }
+
+    /**
+     * The last recorded state, to continue recording only changes after a restart.
+     *
+     * @param versions Latest version per chart
+     * @param drift Drift per app that has not been removed
+     * @param outOfDateSince Since when each out-of-date app has been continuously out of date, in
+     *     epoch milliseconds
+     */
+    public record LastState(
+            Map<String, String> versions,
+            Map<String, DashboardSnapshot.AppDrift> drift,
+            Map<String, Long> outOfDateSince) {}
+
+    public VersionHistoryStore(HistoryProperties properties) {
+        String dir = properties.getDir();
+        this.historyFile =
+                dir == null || dir.isBlank() ? null : Path.of(dir, "version-history.bin");
+    }
+
+    /**
+     * Open the history. A torn record at the end is cut off, and a file in an unknown format is
+     * moved aside.
+     *
+     * @return The last recorded state; empty if persistence is disabled or there is no history yet
+     */
+    public synchronized LastState load() {
+        Map<String, String> versions = new HashMap<>();
+        Map<String, DashboardSnapshot.AppDrift> drift = new HashMap<>();
+        Map<String, Long> outOfDateSince = new HashMap<>();
+        nameIds.clear();
+        index = new SparseIndex();
+        if (historyFile == null || !Files.isRegularFile(historyFile)) {
+            return new LastState(versions, drift, outOfDateSince);
+        }
+
+        long validLength = -1;
+        try (RecordReader reader = new RecordReader(historyFile)) {
+            try {
+                if (!reader.readHeader()) {
+                    Path unreadable =
+                            historyFile.resolveSibling(historyFile.getFileName() + ".old");
+                    logger.warn("Moving version history in unknown format to {}", unreadable);
+                    reader.close();
+                    Files.move(historyFile, unreadable, StandardCopyOption.REPLACE_EXISTING);
+                    return new LastState(versions, drift, outOfDateSince);
+                }
+                HistoryRecord record;
+                long start = reader.completePosition();
+                while ((record = reader.next()) != null) {
+                    index.offer(start, record.timestamp());
+                    start = reader.completePosition();
+                    switch (record) {
+                        case VersionRecord version ->
+                                versions.put(version.chart(), version.version());
+                        case DriftRecord appDrift -> {
+                            if (appDrift.charts() == 0 && appDrift.images() == 0) {
+                                drift.remove(appDrift.app());
+                            } else {
+                                drift.put(appDrift.app(), appDrift.drift());
+                            }
+                            if (appDrift.drift().isOutOfDate()) {
+                                outOfDateSince.putIfAbsent(appDrift.app(), appDrift.timestamp());
+                            } else {
+                                outOfDateSince.remove(appDrift.app());
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                validLength = reader.completePosition();
+                if (!(e instanceof EOFException)) {
+                    logger.warn("Version history {} is damaged: {}", historyFile, e.getMessage());
+                }
+            }
+            reader.names().forEach((id, name) -> nameIds.put(name, id));
+        } catch (IOException e) {
+            logger.warn("Failed to load version history {}: {}", historyFile, e.getMessage());
+        }
+
+        if (validLength >= 0) {
+            try (FileChannel channel = FileChannel.open(historyFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                logger.info("Cut off torn record of version history at {} bytes", validLength);
+            } catch (IOException e) {
+                logger.warn("Failed to repair version history {}: {}", historyFile, e.getMessage());
+            }
+        }
+        logger.info(
+                "Loaded version history of {} charts and {} apps from {}",
+                versions.size(),
+                drift.size(),
+                historyFile);
+        return new LastState(versions, drift, outOfDateSince);
+    }
+
+    /** Append records, which must not be older than the ones already stored. */
+    public synchronized void append(List<? extends HistoryRecord> records) {
+        if (historyFile == null || records.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(historyFile.getParent());
+            long size = Files.exists(historyFile) ? Files.size(historyFile) : 0;
+            try (DataOutputStream out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(
+                                    Files.newOutputStream(
+                                            historyFile,
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.APPEND)))) {
+                if (size == 0) {
+                    nameIds.clear();
+                    index = new SparseIndex();
+                    writeHeader(out);
+                }
+                for (HistoryRecord record : records) {
+                    index.offer(size + out.size(), record.timestamp());
+                    write(out, record, nameIds);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to append to version history {}: {}", historyFile, e.getMessage());
+            // Resynchronize the name ids with what actually reached the file
+            load();
+        }
+    }
+
+    /**
+     * Stream the records with a timestamp in [{@code from}, {@code to}], oldest first.
+     *
+     * @param action Receives the records; returns false to stop
+     */
+    public void forEach(long from, long to, Predicate<HistoryRecord> action) {
+        try (RecordReader reader = openAt(from)) {
+            if (reader == null) {
+                return;
+            }
+            HistoryRecord record;
+            while ((record = reader.next()) != null && record.timestamp() <= to) {
+                if (record.timestamp() >= from && !action.test(record)) {
+                    return;
+                }
+            }
+        } catch (EOFException e) {
+            // A record being appended right now; everything before it has been read
+        } catch (IOException e) {
+            logger.warn("Failed to read version history {}: {}", historyFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Open the history at the last indexed record older than {@code from}. The file is opened under
+     * the lock, so the offset and the names written before it match the file being read.
+     *
+     * @return The reader; null if there is no history to read
+     */
+    private synchronized RecordReader openAt(long from) throws IOException {
+        if (historyFile == null || !Files.isRegularFile(historyFile)) {
+            return null;
+        }
+        RecordReader reader = new RecordReader(historyFile);
+        try {
+            if (!reader.readHeader()) {
+                reader.close();
+                return null;
+            }
+            long offset = index.seek(from);
+            if (offset > HEADER_SIZE) {
+                nameIds.forEach((name, id) -> reader.names().put(id, name));
+                reader.skipTo(offset);
+            }
+            return reader;
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Rewrite the history without the records older than {@code cutoff}. For the charts and apps
+     * still tracked, the last record before the cutoff is kept, so their state at the cutoff stays
+     * known. For apps out of date at the cutoff, the record that started the out-of-date period is
+     * kept as well. The new file is written next to the old one and moved into place.
+     *
+     * @param cutoff Oldest timestamp to keep, in epoch milliseconds
+     * @param charts Charts still tracked
+     * @param apps Apps still tracked
+     */
+    public synchronized void compact(long cutoff, Set<String> charts, Set<String> apps) {
+        if (historyFile == null || !Files.isRegularFile(historyFile)) {
+            return;
+        }
+
+        Map<String, HistoryRecord> carried = new HashMap<>();
+        Map<String, DriftRecord> outOfDateFrom = new HashMap<>();
+        forEach(
+                Long.MIN_VALUE,
+                cutoff - 1,
+                record -> {
+                    switch (record) {
+                        case VersionRecord version -> {
+                            if (charts.contains(version.chart())) {
+                                carried.put("chart " + version.chart(), version);
+                            }
+                        }
+                        case DriftRecord drift -> {
+                            if (apps.contains(drift.app())) {
+                                carried.put("app " + drift.app(), drift);
+                                if (!drift.drift().isOutOfDate()) {
+                                    outOfDateFrom.remove(drift.app());
+                                } else {
+                                    outOfDateFrom.putIfAbsent(drift.app(), drift);
+                                }
+                            }
+                        }
+                    }
+                    return true;
+                });
+        List<HistoryRecord> kept = new ArrayList<>(carried.values());
+        for (DriftRecord drift : outOfDateFrom.values()) {
+            if (!kept.contains(drift)) {
+                kept.add(drift);
+            }
+        }
+        kept.sort(Comparator.comparingLong(HistoryRecord::timestamp));
+
+        Path tempFile = historyFile.resolveSibling(historyFile.getFileName() + ".tmp");
+        Map<String, Integer> ids = new HashMap<>();
+        SparseIndex compactedIndex = new SparseIndex();
+        try {
+            long before = Files.size(historyFile);
+            try (DataOutputStream out =
+                            new DataOutputStream(
+                                    new BufferedOutputStream(Files.newOutputStream(tempFile)));
+                    RecordReader reader = new RecordReader(historyFile)) {
+                writeHeader(out);
+                for (HistoryRecord record : kept) {
+                    compactedIndex.offer(out.size(), record.timestamp());
+                    write(out, record, ids);
+                }
+                if (reader.readHeader()) {
+                    HistoryRecord record;
+                    while ((record = reader.next()) != null) {
+                        if (record.timestamp() >= cutoff) {
+                            compactedIndex.offer(out.size(), record.timestamp());
+                            write(out, record, ids);
+                        }
+                    }
+                }
+            }
+            Files.move(
+                    tempFile,
+                    historyFile,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            nameIds.clear();
+            nameIds.putAll(ids);
+            index = compactedIndex;
+            logger.info(
+                    "Compacted version history from {} to {} bytes",
+                    before,
+                    Files.size(historyFile));
+        } catch (IOException e) {
+            logger.warn("Failed to compact version history {}: {}", historyFile, e.getMessage());
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+    }
+
+    private static void write(
+            DataOutputStream out, HistoryRecord record, Map<String, Integer> nameIds)
+            throws IOException {
+        switch (record) {
+            case VersionRecord version -> {
+                int chartId = nameId(out, version.chart(), nameIds);
+                out.writeByte(TAG_VERSION);
+                writeVarLong(out, version.timestamp());
+                writeVarLong(out, chartId);
+                out.writeUTF(version.version());
+            }
+            case DriftRecord drift -> {
+                int appId = nameId(out, drift.app(), nameIds);
+                out.writeByte(TAG_DRIFT);
+                writeVarLong(out, drift.timestamp());
+                writeVarLong(out, appId);
+                writeVarLong(out, drift.outdatedCharts());
+                writeVarLong(out, drift.charts());
+                writeVarLong(out, drift.outdatedImages());
+                writeVarLong(out, drift.images());
+            }
+        }
+    }
+
+    private static int nameId(DataOutputStream out, String name, Map<String, Integer> nameIds)
+            throws IOException {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = nameIds.size();
+            out.writeByte(TAG_NAME);
+            writeVarLong(out, id);
+            out.writeUTF(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Number out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Offsets of records at least {@link #INDEX_INTERVAL} bytes apart, with their timestamps. As
+     * the records are stored oldest first, so are the entries.
+     */
+    private static final class SparseIndex {
+        private long[] offsets = new long[16];
+        private long[] timestamps = new long[16];
+        private int size;
+
+        void offer(long offset, long timestamp) {
+            long last = size == 0 ? HEADER_SIZE : offsets[size - 1];
+            if (offset - last < INDEX_INTERVAL) {
+                return;
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+            }
+            offsets[size] = offset;
+            timestamps[size] = timestamp;
+            size++;
+        }
+
+        /** Offset of the last entry older than {@code from}, or of the first record if none is. */
+        long seek(long from) {
+            int low = 0;
+            int high = size - 1;
+            long offset = HEADER_SIZE;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] < from) {
+                    offset = offsets[mid];
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return offset;
+        }
+    }
+
+    /** Sequential reader that resolves name ids and tracks the end of the last complete record. */
+    private static final class RecordReader implements Closeable {
+        private final CountingInputStream counter;
+        private final DataInputStream in;
+        private final Map<Integer, String> names = new HashMap<>();
+        private long completePosition;
+
+        RecordReader(Path file) throws IOException {
+            this.counter =
+                    new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            this.in = new DataInputStream(counter);
+        }
+
+        /** Returns false if the file is not a version history of this format. */
+        boolean readHeader() throws IOException {
+            boolean known = in.readInt() == MAGIC && in.readUnsignedByte() == FORMAT_VERSION;
+            completePosition = counter.count;
+            return known;
+        }
+
+        /** The next version or drift record, or null at the end of the file. */
+        HistoryRecord next() throws IOException {
+            while (true) {
+                int tag = in.read();
+                if (tag < 0) {
+                    return null;
+                }
+                HistoryRecord record =
+                        switch (tag) {
+                            case TAG_NAME -> {
+                                names.put(readVarInt(in), in.readUTF());
+                                yield null;
+                            }
+                            case TAG_VERSION ->
+                                    new VersionRecord(
+                                            readVarLong(in), name(readVarInt(in)), in.readUTF());
+                            case TAG_DRIFT ->
+                                    new DriftRecord(
+                                            readVarLong(in),
+                                            name(readVarInt(in)),
+                                            readVarInt(in),
+                                            readVarInt(in),
+                                            readVarInt(in),
+                                            readVarInt(in));
+                            default -> throw new IOException("Unknown record tag " + tag);
+                        };
+                completePosition = counter.count;
+                if (record != null) {
+                    return record;
+                }
+            }
+        }
+
+        private String name(int id) throws IOException {
+            String name = names.get(id);
+            if (name == null) {
+                throw new IOException("Unknown name id " + id);
+            }
+            return name;
+        }
+
+        /** Skip ahead to a record boundary; names written before it must already be known. */
+        void skipTo(long offset) throws IOException {
+            in.skipNBytes(offset - counter.count);
+            completePosition = counter.count;
+        }
+
+        Map<Integer, String> names() {
+            return names;
+        }
+
+        long completePosition() {
+            return completePosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
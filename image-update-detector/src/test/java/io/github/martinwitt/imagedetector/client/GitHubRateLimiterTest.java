@@ -0,0 +1,120 @@
+package io.github.martinwitt.imagedetector.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHRateLimit;
+
+/** Drives the limiter with hand-made rate limit records on a fake clock. */
+class GitHubRateLimiterTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final Duration SCAN_INTERVAL = Duration.ofMinutes(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private final List<Long> sleeps = new ArrayList<>();
+    private final GitHubRateLimiter limiter =
+            new GitHubRateLimiter(
+                    100,
+                    SCAN_INTERVAL,
+                    meterRegistry,
+                    clock::get,
+                    millis -> {
+                        sleeps.add(millis);
+                        clock.addAndGet(millis);
+                    });
+
+    /** A record as reported by GitHub, resetting the given time after the start of the test. */
+    private static GHRateLimit.Record record(int remaining, Duration untilReset) {
+        Instant reset = Instant.ofEpochMilli(NOW).plus(untilReset);
+        GHRateLimit.Record record = mock(GHRateLimit.Record.class);
+        when(record.getLimit()).thenReturn(5000);
+        when(record.getRemaining()).thenReturn(remaining);
+        when(record.getResetEpochSeconds()).thenReturn(reset.getEpochSecond());
+        when(record.getResetInstant()).thenReturn(reset);
+        return record;
+    }
+
+    @Test
+    void sendsFreelyAboveHalfTheLimit() throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(limiter.checkRateLimit(record(4000, Duration.ofHours(1)), i));
+        }
+
+        assertEquals(List.of(), sleeps);
+        assertEquals(4000, meterRegistry.get("github.ratelimit.remaining").gauge().value());
+        assertEquals(5000, meterRegistry.get("github.ratelimit.limit").gauge().value());
+    }
+
+    @Test
+    void splitsBudgetOverScanIntervalsUntilReset() throws InterruptedException {
+        // 1300 - 100 reserve over the twelve scan intervals left in the hour: 100 per interval
+        GHRateLimit.Record record = record(1300, Duration.ofHours(1));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(limiter.checkRateLimit(record, i));
+        }
+        assertEquals(List.of(), sleeps, "a scan spends its share without delay");
+
+        assertFalse(limiter.checkRateLimit(record, 100));
+
+        assertEquals(List.of(SCAN_INTERVAL.toMillis()), sleeps);
+    }
+
+    @Test
+    void waitsNoLongerThanTheRestOfTheInterval() throws InterruptedException {
+        GHRateLimit.Record record = record(1300, Duration.ofHours(1));
+        for (int i = 0; i < 100; i++) {
+            limiter.checkRateLimit(record, i);
+        }
+        clock.addAndGet(Duration.ofMinutes(4).toMillis());
+
+        limiter.checkRateLimit(record, 100);
+
+        assertEquals(List.of(Duration.ofMinutes(1).toMillis()), sleeps);
+    }
+
+    @Test
+    void pausesUntilResetWithinOneScanInterval() throws InterruptedException {
+        assertTrue(limiter.checkRateLimit(record(100, Duration.ofMinutes(2)), 0));
+
+        assertEquals(List.of(Duration.ofMinutes(2).toMillis() + 1000), sleeps);
+    }
+
+    @Test
+    void failsInsteadOfPausingPastScanInterval() {
+        GHRateLimit.Record record = record(50, Duration.ofMinutes(30));
+
+        assertThrows(GitOpsUnavailableException.class, () -> limiter.checkRateLimit(record, 0));
+        assertEquals(List.of(), sleeps);
+    }
+
+    @Test
+    void ignoresRecordPastItsReset() throws InterruptedException {
+        assertFalse(limiter.checkRateLimit(record(0, Duration.ofSeconds(-1)), 0));
+
+        assertEquals(List.of(), sleeps);
+    }
+
+    @Test
+    void pacesForShortestSourceInterval() {
+        ImageDetectorProperties properties = new ImageDetectorProperties();
+        assertEquals(Duration.ofMinutes(5), GitHubRateLimiter.scanInterval(properties));
+
+        ImageDetectorProperties.Source slow = new ImageDetectorProperties.Source();
+        slow.setRefreshInterval(Duration.ofMinutes(10));
+        ImageDetectorProperties.Source fast = new ImageDetectorProperties.Source();
+        fast.setRefreshInterval(Duration.ofMinutes(1));
+        properties.setSources(List.of(slow, fast));
+
+        assertEquals(Duration.ofMinutes(1), GitHubRateLimiter.scanInterval(properties));
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.martinwitt.imagedetector.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.imagedetector.ImageCheckProperties;
+import io.github.martinwitt.imagedetector.client.OciRegistryClient.TagList;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the client against a local stand-in for a token-protected registry that pages tag lists two
+ * tags at a time.
+ */
+class OciRegistryClientTest {
+
+    private static final List<String> TAGS =
+            List.of("1.0.0", "1.1.0", "1.2.0", "2.0.0-rc.1", "2.0.0");
+    private static final String ETAG = "\"tags-v1\"";
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger pageRequests = new AtomicInteger();
+    private volatile String lastTokenQuery;
+    private HttpServer server;
+    private String registry;
+    private OciRegistryClient client;
+
+    @BeforeEach
+    void startRegistry() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        registry = "127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/token", this::token);
+        server.createContext("/v2/", this::tagsList);
+        server.start();
+        client = new OciRegistryClient(new ImageCheckProperties());
+    }
+
+    @AfterEach
+    void stopRegistry() {
+        server.stop(0);
+    }
+
+    @Test
+    void listsAllPagesWithBearerToken() throws IOException {
+        TagList tagList = client.listTags(registry, "team/app", null);
+
+        assertEquals(TAGS, tagList.tags());
+        assertEquals(ETAG, tagList.etag());
+        assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    void reusesCachedToken() throws IOException {
+        client.listTags(registry, "team/app", null);
+        client.listTags(registry, "team/app", null);
+
+        assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    void revalidatesWithEtag() throws IOException {
+        TagList first = client.listTags(registry, "team/app", null);
+        int pagesBefore = pageRequests.get();
+
+        TagList second = client.listTags(registry, "team/app", first);
+
+        assertEquals(first.tags(), second.tags());
+        assertEquals(1, pageRequests.get() - pagesBefore);
+        assertTrue(second.fetchedAt() >= first.fetchedAt());
+    }
+
+    @Test
+    void failsOnNotModifiedWithoutValidator() {
+        TagList withoutEtag = new TagList(List.of("1.0.0"), null, 0);
+
+        assertThrows(IOException.class, () -> client.listTags(registry, "team/stale", null));
+        assertThrows(IOException.class, () -> client.listTags(registry, "team/stale", withoutEtag));
+    }
+
+    @Test
+    void authorizesRepositoriesWithOneToken() throws IOException {
+        client.authorize(registry, List.of("team/app", "team/other"));
+        client.listTags(registry, "team/app", null);
+        client.listTags(registry, "team/other", null);
+
+        assertEquals(1, tokenRequests.get());
+        assertTrue(lastTokenQuery.contains("scope=repository:team/app:pull"));
+        assertTrue(lastTokenQuery.contains("scope=repository:team/other:pull"));
+    }
+
+    @Test
+    void failsOnUnknownRepository() {
+        assertThrows(IOException.class, () -> client.listTags(registry, "team/missing", null));
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        tokenRequests.incrementAndGet();
+        lastTokenQuery = exchange.getRequestURI().getQuery();
+        respond(exchange, 200, "{\"token\":\"secret\",\"expires_in\":300}");
+    }
+
+    private void tagsList(HttpExchange exchange) throws IOException {
+        pageRequests.incrementAndGet();
+        if (!"Bearer secret".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            exchange.getResponseHeaders()
+                    .add(
+                            "WWW-Authenticate",
+                            "Bearer realm=\"http://"
+                                    + registry
+                                    + "/token\",service=\"stand-in\",scope=\"repository:team/app:pull\"");
+            respond(exchange, 401, "{\"errors\":[{\"code\":\"UNAUTHORIZED\"}]}");
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/v2/team/stale/tags/list")) {
+            // a misbehaving cache that answers 304 to unconditional requests
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        if (!path.equals("/v2/team/app/tags/list") && !path.equals("/v2/team/other/tags/list")) {
+            respond(exchange, 404, "{\"errors\":[{\"code\":\"NAME_UNKNOWN\"}]}");
+            return;
+        }
+
+        String query = exchange.getRequestURI().getQuery();
+        int start =
+                query != null && query.contains("last=") ? TAGS.indexOf(lastParam(query)) + 1 : 0;
+        if (start == 0 && ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        List<String> page = TAGS.subList(start, Math.min(start + 2, TAGS.size()));
+        if (start + 2 < TAGS.size()) {
+            exchange.getResponseHeaders()
+                    .add("Link", "<" + path + "?n=2&last=" + page.getLast() + ">; rel=\"next\"");
+        }
+        if (start == 0) {
+            exchange.getResponseHeaders().add("ETag", ETAG);
+        }
+        String tags = String.join("\",\"", page);
+        respond(exchange, 200, "{\"name\":\"team/app\",\"tags\":[\"" + tags + "\"]}");
+    }
+
+    private static String lastParam(String query) {
+        for (String param : query.split("&")) {
+            if (param.startsWith("last=")) {
+                return param.substring(5);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
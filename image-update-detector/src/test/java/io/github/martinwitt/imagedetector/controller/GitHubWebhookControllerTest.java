@@ -0,0 +1,112 @@
+package io.github.martinwitt.imagedetector.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitOpsSource;
+import io.github.martinwitt.imagedetector.service.GitOpsWebhookService;
+import io.github.martinwitt.imagedetector.service.HelmChartScanService;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GitHubWebhookControllerTest {
+
+    private static final String SECRET = "webhook-secret";
+    private static final GitOpsSource SOURCE =
+            new GitOpsSource("", "org/gitops", "main", "apps/*", Duration.ofMinutes(5));
+    private static final byte[] PUSH =
+            """
+            {"ref": "refs/heads/main", "before": "a1", "after": "b2",
+             "repository": {"full_name": "org/gitops"},
+             "commits": [{"modified": ["apps/grafana/values.yaml"]}]}
+            """
+                    .getBytes(StandardCharsets.UTF_8);
+
+    @Mock private HelmChartScanService scanService;
+
+    private final ImageDetectorProperties properties = new ImageDetectorProperties();
+    private GitHubWebhookController controller;
+
+    @BeforeEach
+    void setUp() {
+        properties.setWebhookSecret(SECRET);
+        when(scanService.getSources()).thenReturn(List.of(SOURCE));
+        controller = new GitHubWebhookController(new GitOpsWebhookService(properties, scanService));
+    }
+
+    @Test
+    void answersUnavailableWithoutSecret() {
+        properties.setWebhookSecret(null);
+
+        ResponseEntity<Map<String, Object>> response =
+                controller.onDelivery("push", sign(PUSH), PUSH);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verifyNoInteractions(scanService);
+    }
+
+    @Test
+    void rejectsUnsignedAndMissignedDeliveries() {
+        assertEquals(
+                HttpStatus.UNAUTHORIZED, controller.onDelivery("push", null, PUSH).getStatusCode());
+        assertEquals(
+                HttpStatus.UNAUTHORIZED,
+                controller.onDelivery("push", sign("{}".getBytes()), PUSH).getStatusCode());
+        assertEquals(
+                HttpStatus.UNAUTHORIZED,
+                controller.onDelivery("push", sign(PUSH), null).getStatusCode());
+        verify(scanService, never()).enqueueRescan(any(), anySet(), any(), any());
+    }
+
+    @Test
+    void answersPingAndIgnoresOtherEvents() {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(
+                Map.of("status", "pong"),
+                controller.onDelivery("ping", sign(body), body).getBody());
+        assertEquals(
+                Map.of("status", "ignored"),
+                controller.onDelivery("issues", sign(body), body).getBody());
+        verifyNoInteractions(scanService);
+    }
+
+    @Test
+    void acceptsSignedPush() {
+        ResponseEntity<Map<String, Object>> response =
+                controller.onDelivery("push", sign(PUSH), PUSH);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(Map.of("status", "queued"), response.getBody());
+        verify(scanService).enqueueRescan(SOURCE, Set.of("grafana"), "a1", "b2");
+    }
+
+    private static String sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
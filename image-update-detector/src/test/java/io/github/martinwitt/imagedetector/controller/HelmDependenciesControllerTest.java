@@ -0,0 +1,126 @@
+package io.github.martinwitt.imagedetector.controller;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import io.github.martinwitt.imagedetector.service.DashboardSnapshot;
+import io.github.martinwitt.imagedetector.service.DashboardSnapshotService;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HelmDependenciesControllerTest {
+
+    private static final Map<String, Object> LOKI =
+            Map.of("name", "loki", "version", "6.0.0", "repository", "https://g");
+
+    @Mock private DashboardSnapshotService snapshotService;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        when(snapshotService.current()).thenReturn(snapshot(41, "8.0.0"));
+        mvc =
+                MockMvcBuilders.standaloneSetup(
+                                new HelmDependenciesController(snapshotService),
+                                new ImageTagsController(snapshotService))
+                        .build();
+    }
+
+    @Test
+    void answersNotModifiedForCurrentEtag() throws Exception {
+        mvc.perform(get("/api/helm-dependencies"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"41\""))
+                .andExpect(jsonPath("$.scannedApps").value(2));
+        for (String path :
+                List.of(
+                        "/api/helm-dependencies",
+                        "/api/helm-dependencies/app/monitoring",
+                        "/api/images",
+                        "/api/images/app/monitoring")) {
+            mvc.perform(get(path).header("If-None-Match", "\"41\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", "\"41\""))
+                    .andExpect(content().string(""));
+        }
+    }
+
+    @Test
+    void answersWithBodyOnceSnapshotChanged() throws Exception {
+        when(snapshotService.current()).thenReturn(snapshot(42, "8.1.0"));
+
+        mvc.perform(get("/api/helm-dependencies").header("If-None-Match", "\"41\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"42\""))
+                .andExpect(jsonPath("$.apps.monitoring[0].version").value("8.1.0"));
+        mvc.perform(get("/api/helm-dependencies").header("If-None-Match", "\"40\", \"42\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void servesAppFromPerAppIndex() throws Exception {
+        mvc.perform(get("/api/helm-dependencies/app/logging"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.app").value("logging"))
+                .andExpect(jsonPath("$.dependencyCount").value(1))
+                .andExpect(jsonPath("$.dependencies[0].name").value("loki"));
+        mvc.perform(get("/api/helm-dependencies/app/unknown"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.app").value("unknown"))
+                .andExpect(jsonPath("$.dependencyCount").value(0));
+        mvc.perform(get("/api/images/app/monitoring"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.images[0].tag").value("11.3.0"));
+    }
+
+    private static DashboardSnapshot snapshot(long version, String grafanaVersion) {
+        Map<String, Object> grafana =
+                Map.of("name", "grafana", "version", grafanaVersion, "repository", "https://g");
+        Map<String, Object> image = Map.of("path", "image", "tag", "11.3.0");
+        return new DashboardSnapshot(
+                version,
+                Map.of(
+                        "scannedApps",
+                        2,
+                        "apps",
+                        Map.of("monitoring", List.of(grafana), "logging", List.of(LOKI))),
+                Map.of(
+                        "monitoring",
+                        Map.of(
+                                "app",
+                                "monitoring",
+                                "dependencyCount",
+                                1,
+                                "dependencies",
+                                List.of(grafana)),
+                        "logging",
+                        Map.of(
+                                "app",
+                                "logging",
+                                "dependencyCount",
+                                1,
+                                "dependencies",
+                                List.of(LOKI))),
+                List.of(),
+                2,
+                0,
+                Map.of("scannedApps", 1, "apps", Map.of("monitoring", List.of(image))),
+                Map.of(
+                        "monitoring",
+                        Map.of("app", "monitoring", "imageCount", 1, "images", List.of(image))),
+                Map.of());
+    }
+}
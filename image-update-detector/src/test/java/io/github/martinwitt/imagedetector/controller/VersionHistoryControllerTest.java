@@ -0,0 +1,153 @@
+package io.github.martinwitt.imagedetector.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.martinwitt.imagedetector.HistoryProperties;
+import io.github.martinwitt.imagedetector.service.VersionHistoryService;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore.DriftRecord;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore.HistoryRecord;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore.VersionRecord;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VersionHistoryControllerTest {
+
+    private static final String GRAFANA = "https://grafana.github.io/helm-charts/grafana";
+    private static final String LOKI = "https://grafana.github.io/helm-charts/loki";
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir Path dir;
+
+    private VersionHistoryStore store;
+    private VersionHistoryController controller;
+
+    @BeforeEach
+    void setUp() {
+        HistoryProperties properties = new HistoryProperties();
+        properties.setDir(dir.toString());
+        store = new VersionHistoryStore(properties);
+        List<HistoryRecord> records = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            records.add(new VersionRecord(millis(day), day % 2 == 0 ? GRAFANA : LOKI, "1." + day));
+        }
+        records.add(new DriftRecord(millis(3), "monitoring", 0, 2, 0, 3));
+        records.add(new DriftRecord(millis(5), "monitoring", 1, 2, 0, 3));
+        records.add(new DriftRecord(millis(7), "monitoring", 1, 2, 1, 3));
+        records.sort((a, b) -> Long.compare(a.timestamp(), b.timestamp()));
+        store.append(records);
+        controller = new VersionHistoryController(new VersionHistoryService(store, properties));
+    }
+
+    @Test
+    void includesBothBounds() {
+        Map<String, Object> response =
+                controller.getVersions(day(2), day(4), null, VersionHistoryService.DEFAULT_LIMIT);
+
+        assertEquals(List.of("1.2", "1.3", "1.4"), versions(response));
+        assertEquals(3, response.get("count"));
+        assertEquals(false, response.get("truncated"));
+        assertEquals("2025-01-03T00:00:00Z", response.get("from"));
+        assertEquals("2025-01-05T00:00:00Z", response.get("to"));
+        assertEquals("2025-01-03T00:00:00Z", entries(response).getFirst().get("time"));
+    }
+
+    @Test
+    void openRangeWithoutBounds() {
+        Map<String, Object> response =
+                controller.getVersions(null, null, null, VersionHistoryService.DEFAULT_LIMIT);
+
+        assertEquals(10, response.get("count"));
+        assertNull(response.get("from"));
+        assertNull(response.get("to"));
+        assertEquals(
+                List.of("1.0", "1.1", "1.2"),
+                versions(controller.getVersions(null, day(2), null, 100)));
+        assertEquals(
+                List.of("1.8", "1.9"), versions(controller.getVersions(day(8), null, null, 100)));
+    }
+
+    @Test
+    void emptyWhenFromIsAfterTo() {
+        Map<String, Object> response = controller.getVersions(day(5), day(4), null, 100);
+
+        assertEquals(0, response.get("count"));
+        assertEquals(false, response.get("truncated"));
+    }
+
+    @Test
+    void truncatesAtLimit() {
+        Map<String, Object> limited = controller.getVersions(null, null, null, 3);
+        Map<String, Object> exact = controller.getVersions(null, null, null, 10);
+
+        assertEquals(List.of("1.0", "1.1", "1.2"), versions(limited));
+        assertEquals(true, limited.get("truncated"));
+        assertEquals(10, exact.get("count"));
+        assertEquals(false, exact.get("truncated"), "exactly as many records as the limit");
+    }
+
+    @Test
+    void usesDefaultLimitForNonPositiveLimit() {
+        assertEquals(10, controller.getVersions(null, null, null, 0).get("count"));
+        assertEquals(10, controller.getVersions(null, null, null, -1).get("count"));
+    }
+
+    @Test
+    void capsLimitAtMaximum() {
+        List<HistoryRecord> records = new ArrayList<>();
+        for (int i = 0; i <= VersionHistoryService.MAX_LIMIT; i++) {
+            records.add(new VersionRecord(millis(20) + i, GRAFANA, "2." + i));
+        }
+        store.append(records);
+
+        Map<String, Object> response =
+                controller.getVersions(day(20), null, null, Integer.MAX_VALUE);
+
+        assertEquals(VersionHistoryService.MAX_LIMIT, response.get("count"));
+        assertEquals(true, response.get("truncated"));
+    }
+
+    @Test
+    void filtersByChartName() {
+        assertEquals(
+                List.of("1.1", "1.3"), versions(controller.getVersions(null, day(4), "loki", 100)));
+        assertEquals(
+                List.of("1.0", "1.2"),
+                versions(controller.getVersions(null, day(3), GRAFANA, 100)));
+        assertEquals(0, controller.getVersions(null, null, "oki", 100).get("count"));
+    }
+
+    @Test
+    void reportsDriftWithinBoundsAndOutOfDateSince() {
+        Map<String, Object> response = controller.getDrift(day(5), day(7), "monitoring", 100);
+
+        assertEquals(2, response.get("count"));
+        assertEquals(1, entries(response).get(1).get("outdatedImages"));
+        assertEquals("2025-01-06T00:00:00Z", response.get("outOfDateSince"));
+        assertFalse(controller.getDrift(null, null, null, 100).containsKey("outOfDateSince"));
+        assertNull(controller.getDrift(null, null, "unknown", 100).get("outOfDateSince"));
+    }
+
+    private static long millis(int day) {
+        return day(day).toEpochMilli();
+    }
+
+    private static Instant day(int day) {
+        return T0.plusSeconds(day * 86_400L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> entries(Map<String, Object> response) {
+        return (List<Map<String, Object>>) response.get("entries");
+    }
+
+    private static List<Object> versions(Map<String, Object> response) {
+        return entries(response).stream().map(entry -> entry.get("version")).toList();
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.martinwitt.imagedetector.service;
+
+import io.github.martinwitt.imagedetector.HelmCheckProperties;
+import io.github.martinwitt.imagedetector.ImageCheckProperties;
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitOpsClient;
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient;
+import io.github.martinwitt.imagedetector.client.OciRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * {@link HelmChartScanService#extractAndSaveDependencies} on Chart.yaml files with many
+ * dependencies, including the chart registration with {@link HelmVersionCheckService}.
+ *
+ * <p>{@code rescan} feeds the same dependencies again, the common case of a scan without changes;
+ * {@code alternate} switches between two dependency lists that share half their charts, so every
+ * call also unregisters the removed ones.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ChartDependencyBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChartDependencyBenchmark {
+
+    @Param({"10", "1000"})
+    int dependencyCount;
+
+    private HelmChartScanService scanService;
+    private Map<String, Object> chartYaml;
+    private Map<String, Object> shiftedChartYaml;
+    private boolean shifted;
+
+    @Setup
+    public void createService() {
+        HelmCheckProperties helmProperties = new HelmCheckProperties();
+        ImageCheckProperties imageProperties = new ImageCheckProperties();
+        OciRegistryClient registryClient = new OciRegistryClient(imageProperties);
+        HelmVersionCheckService versionCheckService =
+                new HelmVersionCheckService(
+                        new HelmRepositoryClient(new SimpleMeterRegistry()),
+                        new HelmIndexCacheStore(helmProperties),
+                        new OciChartResolver(registryClient),
+                        helmProperties,
+                        event -> {});
+        scanService =
+                new HelmChartScanService(
+                        new GitOpsClient(null),
+                        versionCheckService,
+                        new ImageTagCheckService(registryClient, imageProperties, event -> {}),
+                        event -> {},
+                        new ImageDetectorProperties());
+
+        Yaml yaml = new Yaml();
+        chartYaml = yaml.load(chartYaml(0, dependencyCount));
+        shiftedChartYaml = yaml.load(chartYaml(dependencyCount / 2, dependencyCount));
+    }
+
+    @TearDown
+    public void stopService() {
+        scanService.shutdown();
+    }
+
+    /** Chart.yaml with {@code count} dependencies numbered from {@code first}. */
+    static String chartYaml(int first, int count) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("apiVersion: v2\nname: umbrella\nversion: 1.0.0\ndependencies:\n");
+        for (int i = first; i < first + count; i++) {
+            sb.append("  - name: chart-").append(i).append('\n');
+            sb.append("    version: ").append(i % 10).append('.').append(i % 7).append(".0\n");
+            sb.append("    repository: https://charts-").append(i % 20).append(".example.com/\n");
+            sb.append("    condition: chart-").append(i).append(".enabled\n");
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public void rescan() {
+        scanService.extractAndSaveDependencies("umbrella", chartYaml);
+    }
+
+    @Benchmark
+    public void alternate() {
+        shifted = !shifted;
+        scanService.extractAndSaveDependencies("umbrella", shifted ? shiftedChartYaml : chartYaml);
+    }
+}
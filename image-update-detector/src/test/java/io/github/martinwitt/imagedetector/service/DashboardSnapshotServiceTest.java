@@ -0,0 +1,151 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitOpsClient;
+import io.github.martinwitt.imagedetector.service.HelmChartScanService.ChartDependency;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DashboardSnapshotServiceTest {
+
+    private static final Map<String, Object> CHART_YAML =
+            Map.of(
+                    "dependencies",
+                    List.of(
+                            Map.of(
+                                    "name", "grafana",
+                                    "version", "8.0.0",
+                                    "repository", "https://grafana.github.io/helm-charts"),
+                            Map.of(
+                                    "name", "loki",
+                                    "version", "6.0.0",
+                                    "repository", "https://grafana.github.io/helm-charts")));
+
+    @Mock private GitOpsClient gitOpsClient;
+    @Mock private HelmVersionCheckService versionCheckService;
+    @Mock private ImageTagCheckService imageTagCheckService;
+
+    private final List<Object> events = new ArrayList<>();
+    private HelmChartScanService scanService;
+    private DashboardSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        when(versionCheckService.getTrackedCharts()).thenReturn(Map.of());
+        when(imageTagCheckService.getTrackedImages()).thenReturn(Map.of());
+        scanService =
+                new HelmChartScanService(
+                        gitOpsClient,
+                        versionCheckService,
+                        imageTagCheckService,
+                        events::add,
+                        new ImageDetectorProperties());
+        snapshotService =
+                new DashboardSnapshotService(
+                        scanService, versionCheckService, imageTagCheckService, events::add);
+    }
+
+    @Test
+    void keepsVersionWhenRescanFindsSameDependencies() {
+        scanService.extractAndSaveDependencies("monitoring", CHART_YAML);
+        snapshotService.rebuild();
+        DashboardSnapshot first = snapshotService.current();
+        List<ChartDependency> scanned = scanService.getScannedCharts().get("monitoring");
+
+        // a new commit elsewhere in the repository makes every app be extracted again
+        scanService.extractAndSaveDependencies("monitoring", CHART_YAML);
+        snapshotService.rebuild();
+
+        assertSame(first, snapshotService.current());
+        assertEquals(first.etag(), snapshotService.current().etag());
+        List<ChartDependency> rescanned = scanService.getScannedCharts().get("monitoring");
+        assertSame(scanned.get(0), rescanned.get(0), "lastUpdated is carried over");
+        assertSame(scanned.get(1), rescanned.get(1));
+        assertEquals(
+                1, events.stream().filter(e -> e instanceof DashboardSnapshotChangedEvent).count());
+    }
+
+    @Test
+    void bumpsVersionOnlyForChangedDependency() {
+        scanService.extractAndSaveDependencies("monitoring", CHART_YAML);
+        snapshotService.rebuild();
+        DashboardSnapshot first = snapshotService.current();
+        List<ChartDependency> scanned = scanService.getScannedCharts().get("monitoring");
+
+        scanService.extractAndSaveDependencies(
+                "monitoring",
+                Map.of(
+                        "dependencies",
+                        List.of(
+                                Map.of(
+                                        "name", "grafana",
+                                        "version", "8.1.0",
+                                        "repository", "https://grafana.github.io/helm-charts"),
+                                Map.of(
+                                        "name", "loki",
+                                        "version", "6.0.0",
+                                        "repository", "https://grafana.github.io/helm-charts"))));
+        snapshotService.rebuild();
+
+        List<ChartDependency> rescanned = scanService.getScannedCharts().get("monitoring");
+        assertEquals("8.1.0", rescanned.get(0).version());
+        assertSame(scanned.get(1), rescanned.get(1), "unchanged loki keeps lastUpdated");
+        assertEquals(first.version() + 1, snapshotService.current().version());
+        assertNotEquals(first.etag(), snapshotService.current().etag());
+    }
+
+    @Test
+    void indexesResponsesByApp() {
+        HelmVersionCheckService.ChartInfo grafana =
+                new HelmVersionCheckService.ChartInfo("8.0.0", "https://g", "grafana");
+        grafana.updateLatestVersion("8.1.0");
+        DashboardSnapshot snapshot =
+                DashboardSnapshotService.build(
+                        7,
+                        Map.of(
+                                "monitoring",
+                                List.of(new ChartDependency("grafana", "8.0.0", "https://g", 1)),
+                                "logging",
+                                List.of(new ChartDependency("loki", "6.0.0", "https://g", 2))),
+                        Map.of("monitoring/grafana", grafana),
+                        Map.of(),
+                        Map.of());
+
+        Map<String, Object> monitoring = snapshot.chartsOfApp("monitoring");
+        assertEquals("monitoring", monitoring.get("app"));
+        assertEquals(1, monitoring.get("dependencyCount"));
+        assertEquals(
+                List.of(
+                        Map.of(
+                                "name", "grafana",
+                                "version", "8.0.0",
+                                "repository", "https://g",
+                                "lastUpdated", 1L,
+                                "latestVersion", "8.1.0")),
+                monitoring.get("dependencies"));
+        assertEquals(1, snapshot.chartsOfApp("logging").get("dependencyCount"));
+        assertEquals(
+                Map.of("app", "unknown", "dependencyCount", 0, "dependencies", List.of()),
+                snapshot.chartsOfApp("unknown"));
+        assertEquals(0, snapshot.imagesOfApp("monitoring").get("imageCount"));
+        assertSame(snapshot.chartsOfApp("monitoring"), snapshot.chartsByApp().get("monitoring"));
+        assertEquals(
+                new DashboardSnapshot.AppDrift(1, 1, 0, 0),
+                snapshot.driftByApp().get("monitoring"));
+        assertEquals(2, snapshot.appCount());
+        assertEquals(1, snapshot.outOfDateCount());
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.martinwitt.imagedetector.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.imagedetector.HelmCheckProperties;
+import io.github.martinwitt.imagedetector.ImageCheckProperties;
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitOpsClient;
+import io.github.martinwitt.imagedetector.client.GitOpsSource;
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient;
+import io.github.martinwitt.imagedetector.client.OciRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full scan of a GitOps repository followed by a Helm version check, end to end.
+ *
+ * <p>The repository is served from memory by a {@link GitOpsClient} stub, and the Helm repositories
+ * by a local HTTP server streaming synthetic 1 MB indexes. Each operation starts from fresh
+ * services, so every index is downloaded and parsed again, and covers listing the apps, parsing
+ * their Chart.yaml and values.yaml, registering charts and images and resolving the latest chart
+ * versions. Image tags are not checked, as that needs a registry.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="GitOpsScanBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GitOpsScanBenchmark {
+    private static final int REPOSITORY_COUNT = 5;
+    private static final int CHARTS_PER_APP = 3;
+    private static final long INDEX_SIZE = 1024 * 1024;
+
+    @Param({"50", "500"})
+    int appCount;
+
+    private HttpServer server;
+    private GitOpsClient gitOpsClient;
+    private HelmRepositoryClient repositoryClient;
+    private OciRegistryClient registryClient;
+    private ImageDetectorProperties properties;
+
+    private HelmChartScanService scanService;
+    private HelmVersionCheckService versionCheckService;
+    private final Semaphore scanned = new Semaphore(0);
+
+    @Setup
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        for (int r = 0; r < REPOSITORY_COUNT; r++) {
+            server.createContext(
+                    "/repo-" + r + "/index.yaml",
+                    exchange -> {
+                        exchange.sendResponseHeaders(200, 0);
+                        try (InputStream index = new SyntheticHelmIndex(INDEX_SIZE, 20);
+                                OutputStream out = exchange.getResponseBody()) {
+                            index.transferTo(out);
+                        } catch (IOException e) {
+                            // client closed the connection after finding its charts
+                        } finally {
+                            exchange.close();
+                        }
+                    });
+        }
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        gitOpsClient = new InMemoryGitOpsClient(appCount, baseUrl);
+        repositoryClient = new HelmRepositoryClient(new SimpleMeterRegistry());
+        registryClient = new OciRegistryClient(new ImageCheckProperties());
+        properties = new ImageDetectorProperties();
+        properties.setRepo("org/gitops");
+    }
+
+    @TearDown
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Setup(Level.Invocation)
+    public void createServices() {
+        HelmCheckProperties helmProperties = new HelmCheckProperties();
+        versionCheckService =
+                new HelmVersionCheckService(
+                        repositoryClient,
+                        new HelmIndexCacheStore(helmProperties),
+                        new OciChartResolver(registryClient),
+                        helmProperties,
+                        event -> {});
+        scanService =
+                new HelmChartScanService(
+                        gitOpsClient,
+                        versionCheckService,
+                        new ImageTagCheckService(
+                                registryClient, new ImageCheckProperties(), event -> {}),
+                        event -> {
+                            if (event instanceof DependenciesUpdatedEvent updated
+                                    && updated.source().equals("scan")) {
+                                scanned.release();
+                            }
+                        },
+                        properties);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopServices() {
+        scanService.shutdown();
+    }
+
+    @Benchmark
+    public int scanAndCheck() throws InterruptedException {
+        scanService.requestFullScan(scanService.getSources().getFirst());
+        scanned.acquire();
+        versionCheckService.checkForUpdates();
+        return versionCheckService.getTrackedCharts().size();
+    }
+
+    /** Serves generated apps, each with a Chart.yaml and a values.yaml. */
+    private static final class InMemoryGitOpsClient extends GitOpsClient {
+        private final List<String> apps = new ArrayList<>();
+        private final Map<String, String> files = new HashMap<>();
+
+        InMemoryGitOpsClient(int appCount, String helmBaseUrl) {
+            super(null);
+            for (int a = 0; a < appCount; a++) {
+                String app = "app-" + a;
+                apps.add(app);
+                StringBuilder chart = new StringBuilder();
+                chart.append("apiVersion: v2\nname: ").append(app);
+                chart.append("\nversion: 1.0.0\ndependencies:\n");
+                for (int c = 0; c < CHARTS_PER_APP; c++) {
+                    int chartIndex = (a * CHARTS_PER_APP + c) % 40;
+                    chart.append("  - name: ")
+                            .append(String.format("synthetic-%05d", chartIndex))
+                            .append("\n    version: 0.1.")
+                            .append(c)
+                            .append("\n    repository: ")
+                            .append(helmBaseUrl)
+                            .append("/repo-")
+                            .append(chartIndex % REPOSITORY_COUNT)
+                            .append("/\n");
+                }
+                files.put("/apps/" + app + "/Chart.yaml", chart.toString());
+                files.put(
+                        "/apps/" + app + "/values.yaml",
+                        """
+                        replicaCount: 2
+                        image:
+                          repository: ghcr.io/example/%s
+                          tag: 1.%d.0
+                        sidecar:
+                          image: docker.io/library/nginx:1.27.%d
+                        resources:
+                          limits:
+                            memory: 256Mi
+                        """
+                                .formatted(app, a % 10, a % 5));
+            }
+        }
+
+        @Override
+        public String getFileContent(GitOpsSource source, String path) {
+            return files.get(path);
+        }
+
+        @Override
+        public void evictFileContent(GitOpsSource source, String path) {}
+
+        @Override
+        public String getBranchName(GitOpsSource source) {
+            return "main";
+        }
+
+        @Override
+        public String getHeadSha(GitOpsSource source) {
+            return "0000000000000000000000000000000000000000";
+        }
+
+        @Override
+        public List<String> listApps(GitOpsSource source) {
+            return List.copyOf(apps);
+        }
+    }
+}
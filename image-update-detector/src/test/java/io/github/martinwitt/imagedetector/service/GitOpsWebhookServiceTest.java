@@ -0,0 +1,195 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitOpsSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GitOpsWebhookServiceTest {
+
+    /** The example from GitHub's "Validating webhook deliveries" documentation. */
+    private static final String GITHUB_SECRET = "It's a Secret to Everybody";
+
+    private static final byte[] GITHUB_PAYLOAD = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+    private static final String GITHUB_SIGNATURE =
+            "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17";
+
+    private static final GitOpsSource PROD =
+            new GitOpsSource("prod", "org/gitops", "main", "apps/*", Duration.ofMinutes(5));
+    private static final GitOpsSource STAGING =
+            new GitOpsSource(
+                    "staging", "org/gitops", "staging", "clusters/*/apps/*", Duration.ofMinutes(5));
+
+    @Mock private HelmChartScanService scanService;
+
+    private final ImageDetectorProperties properties = new ImageDetectorProperties();
+    private GitOpsWebhookService service;
+
+    @BeforeEach
+    void setUp() {
+        properties.setWebhookSecret(GITHUB_SECRET);
+        when(scanService.getSources()).thenReturn(List.of(PROD, STAGING));
+        service = new GitOpsWebhookService(properties, scanService);
+    }
+
+    @Test
+    void acceptsGitHubTestVector() {
+        assertTrue(service.verifySignature(GITHUB_SIGNATURE, GITHUB_PAYLOAD));
+    }
+
+    @Test
+    void rejectsSignatureOfOtherPayload() {
+        byte[] tampered = "Hello, World?".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(service.verifySignature(GITHUB_SIGNATURE, tampered));
+    }
+
+    @Test
+    void rejectsMalformedSignatures() {
+        String hex = GITHUB_SIGNATURE.substring("sha256=".length());
+
+        assertFalse(service.verifySignature(null, GITHUB_PAYLOAD), "missing header");
+        assertFalse(service.verifySignature("sha1=" + hex, GITHUB_PAYLOAD), "sha1 prefix");
+        assertFalse(service.verifySignature(hex, GITHUB_PAYLOAD), "no prefix");
+        assertFalse(service.verifySignature("SHA256=" + hex, GITHUB_PAYLOAD), "upper-case prefix");
+        assertFalse(
+                service.verifySignature("sha256=" + hex.replace('e', 'g'), GITHUB_PAYLOAD),
+                "non-hex digest");
+        assertFalse(
+                service.verifySignature("sha256=" + hex.substring(1), GITHUB_PAYLOAD),
+                "odd-length digest");
+        assertFalse(
+                service.verifySignature("sha256=" + hex.substring(0, 62), GITHUB_PAYLOAD),
+                "truncated digest");
+        assertFalse(service.verifySignature("sha256=" + hex + "00", GITHUB_PAYLOAD), "long digest");
+        assertFalse(service.verifySignature("sha256=", GITHUB_PAYLOAD), "empty digest");
+    }
+
+    @Test
+    void isDisabledWithoutSecret() {
+        for (String secret : new String[] {null, "", "  "}) {
+            properties.setWebhookSecret(secret);
+
+            assertFalse(service.isEnabled());
+            assertFalse(service.verifySignature(GITHUB_SIGNATURE, GITHUB_PAYLOAD));
+        }
+    }
+
+    @Test
+    void rescansTheChangedAppsOfTheMatchingSource() {
+        String push =
+                """
+                {"ref": "refs/heads/main", "before": "a1", "after": "b2",
+                 "repository": {"full_name": "Org/GitOps", "default_branch": "main"},
+                 "commits": [
+                   {"added": ["apps/grafana/values.yaml"], "modified": ["README.md"],
+                    "removed": []},
+                   {"added": [], "modified": ["apps/loki/Chart.yaml", "apps/grafana/Chart.yaml"],
+                    "removed": ["apps/tempo/values.yaml", "apps/values.yaml"]}
+                 ]}
+                """;
+
+        assertEquals(GitOpsWebhookService.Outcome.QUEUED, service.handlePush(bytes(push)));
+
+        verify(scanService).enqueueRescan(PROD, Set.of("grafana", "loki", "tempo"), "a1", "b2");
+        verify(scanService, never()).enqueueRescan(eq(STAGING), anySet(), any(), any());
+        verify(scanService, never()).requestFullScan(any());
+    }
+
+    @Test
+    void mapsChangedPathsToQualifiedAppNames() {
+        assertEquals("grafana", PROD.appOf("apps/grafana/values.yaml"));
+        assertEquals("prod:grafana", PROD.qualify(PROD.appOf("/apps/grafana/templates/a.yaml")));
+        assertEquals("eu/grafana", STAGING.appOf("clusters/eu/apps/grafana/values.yaml"));
+        assertEquals("staging:eu/grafana", STAGING.qualify("eu/grafana"));
+        assertNull(PROD.appOf("apps/grafana"), "the app directory itself");
+        assertNull(PROD.appOf("charts/grafana/values.yaml"), "outside the pattern");
+        assertNull(STAGING.appOf("clusters/eu/infra/grafana/values.yaml"), "literal mismatch");
+        assertEquals(
+                "grafana",
+                new GitOpsSource("", "org/gitops", null, "apps/*", Duration.ofMinutes(5))
+                        .qualify("grafana"),
+                "an unnamed source keeps plain names");
+    }
+
+    @Test
+    void scansEverythingAfterForcedPush() {
+        assertFullScan(push("main", "\"forced\": true", 1));
+    }
+
+    @Test
+    void scansEverythingAfterCreatedRef() {
+        assertFullScan(push("main", "\"created\": true", 1));
+    }
+
+    @Test
+    void scansEverythingWhenCommitListIsAtGitHubsLimit() {
+        assertFullScan(push("main", "\"forced\": false", 2048));
+    }
+
+    @Test
+    void usesChangeListBelowGitHubsLimit() {
+        assertEquals(
+                GitOpsWebhookService.Outcome.QUEUED,
+                service.handlePush(bytes(push("main", "\"forced\": false", 2047))));
+
+        verify(scanService).enqueueRescan(PROD, Set.of("grafana"), "a1", "b2");
+        verify(scanService, never()).requestFullScan(any());
+    }
+
+    @Test
+    void ignoresPushesNoSourceTracks() {
+        assertEquals(
+                GitOpsWebhookService.Outcome.IGNORED,
+                service.handlePush(bytes(push("feature", "\"forced\": true", 1))));
+        assertEquals(
+                GitOpsWebhookService.Outcome.IGNORED,
+                service.handlePush(bytes(push("main", "\"deleted\": true", 0))));
+        assertEquals(
+                GitOpsWebhookService.Outcome.IGNORED,
+                service.handlePush("{not json".getBytes(StandardCharsets.UTF_8)));
+
+        verify(scanService, never()).requestFullScan(any());
+        verify(scanService, never()).enqueueRescan(any(), anySet(), anyString(), anyString());
+    }
+
+    private void assertFullScan(String push) {
+        assertEquals(GitOpsWebhookService.Outcome.FULL_SCAN, service.handlePush(bytes(push)));
+
+        verify(scanService).requestFullScan(PROD);
+        verify(scanService, never()).enqueueRescan(any(), anySet(), any(), any());
+    }
+
+    /** A push to a branch of org/gitops with the given flag and commits touching grafana. */
+    private static String push(String branch, String flag, int commits) {
+        StringBuilder json =
+                new StringBuilder("{\"ref\": \"refs/heads/")
+                        .append(branch)
+                        .append("\", \"before\": \"a1\", \"after\": \"b2\", ")
+                        .append(flag)
+                        .append(", \"repository\": {\"full_name\": \"org/gitops\"},")
+                        .append(" \"commits\": [");
+        for (int i = 0; i < commits; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"modified\": [\"apps/grafana/values.yaml\"]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import io.github.martinwitt.imagedetector.ImageDetectorProperties;
+import io.github.martinwitt.imagedetector.client.GitOpsClient;
+import io.github.martinwitt.imagedetector.client.GitOpsSource;
+import io.github.martinwitt.imagedetector.client.GitOpsUnavailableException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.yaml.snakeyaml.Yaml;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HelmChartScanServiceTest {
+
+    private static final String GRAFANA =
+            """
+            dependencies:
+            - name: grafana
+              version: 8.0.0
+              repository: https://grafana.github.io/helm-charts
+            """;
+    private static final String LOKI =
+            """
+            dependencies:
+            - name: loki
+              version: 6.0.0
+              repository: https://grafana.github.io/helm-charts
+            """;
+
+    @Mock private GitOpsClient gitOpsClient;
+    @Mock private HelmVersionCheckService versionCheckService;
+    @Mock private ImageTagCheckService imageTagCheckService;
+
+    private final BlockingQueue<DependenciesUpdatedEvent> scans = new LinkedBlockingQueue<>();
+    private HelmChartScanService scanService;
+
+    @BeforeEach
+    void setUp() {
+        ImageDetectorProperties properties = new ImageDetectorProperties();
+        properties.setRepo("org/gitops");
+        scanService =
+                new HelmChartScanService(
+                        gitOpsClient,
+                        versionCheckService,
+                        imageTagCheckService,
+                        event -> {
+                            if (event instanceof DependenciesUpdatedEvent updated) {
+                                scans.add(updated);
+                            }
+                        },
+                        properties);
+        when(gitOpsClient.listApps(any())).thenReturn(List.of("monitoring", "logging"));
+        when(gitOpsClient.getFileContent(any(), eq("/apps/monitoring/Chart.yaml")))
+                .thenReturn(GRAFANA);
+        when(gitOpsClient.getFileContent(any(), eq("/apps/logging/Chart.yaml"))).thenReturn(LOKI);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanService.shutdown();
+    }
+
+    private void fullScan() throws InterruptedException {
+        scanService.requestFullScan(scanService.getSources().getFirst());
+        assertNotNull(scans.poll(5, TimeUnit.SECONDS), "scan finished");
+    }
+
+    @Test
+    void keepsUnreadableAppsAndDropsMissingOnes() throws InterruptedException {
+        when(gitOpsClient.getHeadSha(any())).thenReturn("a1");
+        fullScan();
+        assertEquals(Map.of("monitoring", 1, "logging", 1), chartCounts());
+
+        // throttled: nothing is known about monitoring's Chart.yaml; logging's is deleted
+        when(gitOpsClient.getHeadSha(any())).thenReturn("b2");
+        when(gitOpsClient.getFileContent(any(), eq("/apps/monitoring/Chart.yaml")))
+                .thenThrow(new GitOpsUnavailableException("rate limited", null));
+        when(gitOpsClient.getFileContent(any(), eq("/apps/logging/Chart.yaml"))).thenReturn(null);
+        fullScan();
+
+        assertEquals(Map.of("monitoring", 1), chartCounts());
+        verify(versionCheckService).unregisterChart("logging", "loki");
+        verify(versionCheckService, never()).unregisterChart(eq("monitoring"), any());
+
+        // the incomplete scan did not mark b2 as scanned, so the next poll retries it
+        scanService.pollDueSources();
+        assertNotNull(scans.poll(5, TimeUnit.SECONDS), "poll rescanned b2");
+        verify(gitOpsClient, times(3)).listApps(any());
+    }
+
+    @Test
+    void skipsPollOfCompletelyScannedHead() throws InterruptedException {
+        when(gitOpsClient.getHeadSha(any())).thenReturn("a1");
+        fullScan();
+
+        scanService.pollDueSources();
+
+        assertNull(scans.poll(500, TimeUnit.MILLISECONDS));
+        verify(gitOpsClient, times(1)).listApps(any());
+    }
+
+    @Test
+    void unregistersChartsWhenDependenciesAreRemoved() {
+        scanService.extractAndSaveDependencies("monitoring", new Yaml().load(GRAFANA));
+
+        scanService.extractAndSaveDependencies("monitoring", Map.of("name", "monitoring"));
+
+        verify(versionCheckService).unregisterChart("monitoring", "grafana");
+        assertFalse(scanService.getScannedCharts().containsKey("monitoring"));
+    }
+
+    @Test
+    void pollsSourcesInParallel() throws InterruptedException {
+        scanService.shutdown();
+        ImageDetectorProperties properties = new ImageDetectorProperties();
+        properties.setSources(List.of(source("prod"), source("staging")));
+        scanService =
+                new HelmChartScanService(
+                        gitOpsClient,
+                        versionCheckService,
+                        imageTagCheckService,
+                        event -> {
+                            if (event instanceof DependenciesUpdatedEvent updated) {
+                                scans.add(updated);
+                            }
+                        },
+                        properties);
+        when(gitOpsClient.getHeadSha(any())).thenReturn("a1");
+        // each source's scan only gets past listing its apps once the other one has started
+        CountDownLatch listing = new CountDownLatch(2);
+        Set<String> overlapping = ConcurrentHashMap.newKeySet();
+        when(gitOpsClient.listApps(any()))
+                .thenAnswer(
+                        invocation -> {
+                            listing.countDown();
+                            if (listing.await(5, TimeUnit.SECONDS)) {
+                                overlapping.add(invocation.<GitOpsSource>getArgument(0).name());
+                            }
+                            return List.of("monitoring");
+                        });
+
+        scanService.pollDueSources();
+
+        assertNotNull(scans.poll(10, TimeUnit.SECONDS));
+        assertNotNull(scans.poll(10, TimeUnit.SECONDS));
+        assertEquals(Set.of("prod", "staging"), overlapping);
+        assertEquals(
+                Set.of("prod:monitoring", "staging:monitoring"),
+                scanService.getScannedCharts().keySet());
+    }
+
+    private static ImageDetectorProperties.Source source(String branch) {
+        ImageDetectorProperties.Source source = new ImageDetectorProperties.Source();
+        source.setName(branch);
+        source.setRepo("org/gitops");
+        source.setBranch(branch);
+        return source;
+    }
+
+    private Map<String, Integer> chartCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        scanService.getScannedCharts().forEach((app, charts) -> counts.put(app, charts.size()));
+        return counts;
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.martinwitt.imagedetector.HelmCheckProperties;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HelmIndexCacheStoreTest {
+
+    private static final Map<String, HelmRepoIndex> INDEXES =
+            Map.of(
+                    "https://grafana.github.io/helm-charts/",
+                    new HelmRepoIndex(
+                            Map.of("grafana", "8.1.0", "loki", "6.2.0"),
+                            Set.of("grafana", "loki", "tempo"),
+                            "\"abc\"",
+                            "Wed, 21 Oct 2026 07:28:00 GMT",
+                            1_700_000_000_000L),
+                    "oci://ghcr.io/org/charts/",
+                    new HelmRepoIndex(
+                            Map.of("app", "1.0.0"), Set.of("app"), null, null, 1_700_000_000_001L));
+
+    @TempDir Path directory;
+
+    private Path cacheFile;
+    private HelmIndexCacheStore store;
+
+    @BeforeEach
+    void setUp() {
+        HelmCheckProperties properties = new HelmCheckProperties();
+        properties.setCacheDir(directory.resolve("cache").toString());
+        store = new HelmIndexCacheStore(properties);
+        cacheFile = directory.resolve("cache/helm-index-cache.yaml");
+    }
+
+    @Test
+    void roundTripsIndexes() {
+        store.save(INDEXES);
+
+        assertEquals(INDEXES, store.load());
+        assertFalse(Files.exists(cacheFile.resolveSibling("helm-index-cache.yaml.tmp")));
+    }
+
+    @Test
+    void loadsNothingWithoutFile() {
+        assertEquals(Map.of(), store.load());
+    }
+
+    @Test
+    void ignoresTruncatedFile() throws IOException {
+        store.save(INDEXES);
+        String content = Files.readString(cacheFile, StandardCharsets.UTF_8);
+        Files.writeString(
+                cacheFile, content.substring(0, content.lastIndexOf("latestVersions") + 6));
+
+        assertEquals(Map.of(), store.load());
+    }
+
+    @Test
+    void ignoresCorruptFile() throws IOException {
+        Files.createDirectories(cacheFile.getParent());
+
+        Files.write(cacheFile, new byte[] {'{', 0, (byte) 0xFF, '[', '\n'});
+        assertEquals(Map.of(), store.load());
+
+        Files.writeString(cacheFile, "version: 2\nrepositories: {}\n");
+        assertEquals(Map.of(), store.load());
+
+        Files.writeString(
+                cacheFile,
+                "version: 1\nrepositories:\n  https://g/:\n    latestVersions: {grafana: null}\n");
+        assertEquals(Map.of(), store.load());
+    }
+
+    @Test
+    void skipsPersistenceWithoutCacheDir() {
+        HelmCheckProperties properties = new HelmCheckProperties();
+        properties.setCacheDir(" ");
+        HelmIndexCacheStore disabled = new HelmIndexCacheStore(properties);
+
+        disabled.save(INDEXES);
+
+        assertEquals(Map.of(), disabled.load());
+        assertFalse(Files.exists(cacheFile));
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the line scanner in {@link HelmIndexParser}, which parses only the blocks of requested
+ * charts as SnakeYAML events, with the indentation-based {@link LineBasedHelmIndexParser} that came
+ * before it.
+ *
+ * <p>The fixtures in {@code src/test/resources/helm-index} are hand-written in the two layouts seen
+ * in practice: {@code helm repo index} output with sequences at the key's indentation, and
+ * ChartMuseum-style output with indented sequences and quoted scalars. Both contain {@code
+ * version:} text inside annotations and chart dependencies, which the baseline reads as chart
+ * versions on the first fixture. The synthetic index measures throughput on a 10 MB body where the
+ * requested chart is the last entry.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="HelmIndexParserBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HelmIndexParserBenchmark {
+
+    private static final Map<String, Set<String>> CHARTS_BY_INDEX =
+            Map.of(
+                    "helm-repo-index.yaml", Set.of("ingress-nginx", "kube-prometheus-stack"),
+                    "chartmuseum-index.yaml", Set.of("postgresql", "redis"),
+                    "synthetic-10mb", Set.of(SyntheticHelmIndex.LAST_CHART));
+
+    @Param({"helm-repo-index.yaml", "chartmuseum-index.yaml", "synthetic-10mb"})
+    String index;
+
+    private byte[] content;
+    private Set<String> chartNames;
+
+    @Setup
+    public void loadIndex() throws IOException {
+        chartNames = CHARTS_BY_INDEX.get(index);
+        if (index.startsWith("synthetic")) {
+            try (InputStream in = new SyntheticHelmIndex(10L * 1024 * 1024, 50)) {
+                content = in.readAllBytes();
+            }
+            return;
+        }
+        try (InputStream in = getClass().getResourceAsStream("/helm-index/" + index)) {
+            if (in == null) {
+                throw new IOException("Missing benchmark resource " + index);
+            }
+            content = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> blockScanner() throws IOException {
+        return HelmIndexParser.parseLatestVersionFromStream(
+                new ByteArrayInputStream(content), chartNames);
+    }
+
+    @Benchmark
+    public Map<String, String> lineParser() throws IOException {
+        return LineBasedHelmIndexParser.parseLatestVersionFromStream(
+                new ByteArrayInputStream(content), chartNames);
+    }
+}
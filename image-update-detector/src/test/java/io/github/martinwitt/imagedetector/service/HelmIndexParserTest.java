@@ -0,0 +1,256 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class HelmIndexParserTest {
+
+    private static final Set<String> FIXTURE_CHARTS =
+            Set.of("ingress-nginx", "ingress-nginx-crds", "kube-prometheus-stack", "missing");
+
+    @Test
+    void ignoresVersionTextThatTheLineBasedParserPicksUp() throws IOException {
+        byte[] index = fixture("helm-repo-index.yaml");
+
+        Map<String, String> versions =
+                HelmIndexParser.parseLatestVersionFromStream(
+                        new ByteArrayInputStream(index), FIXTURE_CHARTS);
+        Map<String, String> lines =
+                LineBasedHelmIndexParser.parseLatestVersionFromStream(
+                        new ByteArrayInputStream(index), FIXTURE_CHARTS);
+
+        // pre-releases, annotation text and dependency versions are not chart versions
+        assertEquals(
+                Map.of(
+                        "ingress-nginx", "4.11.3",
+                        "ingress-nginx-crds", "0.3.0",
+                        "kube-prometheus-stack", "66.2.1"),
+                versions);
+        // the line scanner matches "version:" anywhere in a line, including annotation text
+        String annotation = "99.0.0 is not a chart version\"";
+        assertEquals(
+                Map.of(
+                        "ingress-nginx", annotation,
+                        "ingress-nginx-crds", annotation,
+                        "kube-prometheus-stack", annotation),
+                lines);
+    }
+
+    @Test
+    void agreesWithLineBasedParserWithoutVersionText() throws IOException {
+        byte[] chartmuseum = fixture("chartmuseum-index.yaml");
+        byte[] synthetic;
+        try (InputStream in = new SyntheticHelmIndex(256 * 1024, 20)) {
+            synthetic = in.readAllBytes();
+        }
+
+        for (Map.Entry<byte[], Set<String>> index :
+                Map.of(
+                                chartmuseum,
+                                Set.of("postgresql", "redis", "missing"),
+                                synthetic,
+                                Set.of(
+                                        SyntheticHelmIndex.FIRST_CHART,
+                                        "synthetic-00003",
+                                        SyntheticHelmIndex.LAST_CHART))
+                        .entrySet()) {
+            Map<String, String> versions =
+                    HelmIndexParser.parseLatestVersionFromStream(
+                            new ByteArrayInputStream(index.getKey()), index.getValue());
+
+            assertFalse(versions.isEmpty(), index.getValue().toString());
+            assertEquals(
+                    LineBasedHelmIndexParser.parseLatestVersionFromStream(
+                            new ByteArrayInputStream(index.getKey()), index.getValue()),
+                    versions);
+        }
+    }
+
+    @Test
+    void findsEntriesAfterOtherTopLevelKeys() throws IOException {
+        Map<String, String> versions =
+                HelmIndexParser.parseLatestVersionFromStream(
+                        new ByteArrayInputStream(fixture("chartmuseum-index.yaml")),
+                        Set.of("postgresql", "redis", "missing"));
+
+        assertEquals(Map.of("postgresql", "16.2.1", "redis", "20.3.0"), versions);
+    }
+
+    @Test
+    void skipsNestedMapsAndListsAroundTheVersion() throws IOException {
+        String index =
+                """
+                apiVersion: v1
+                serverInfo:
+                  entries: {nested: [{version: 9.9.9}]}
+                  mirrors: [[a, b], {entries: {}}]
+                generated: "2024-11-29T08:00:00Z"
+                entries:
+                  other:
+                  - version: 7.0.0
+                    dependencies: [{name: app, version: 8.0.0}]
+                  app:
+                  - annotations:
+                      deep: {list: [{version: 99.0.0}, [version, 98.0.0]]}
+                    dependencies:
+                    - name: common
+                      version: 97.0.0
+                    version: 1.2.0
+                    urls: [app-1.2.0.tgz]
+                  - just a string
+                  - [1.9.0]
+                  - {version: 1.10.0, keywords: [version]}
+                  - version: 2.0.0-rc.1
+                  tail: not a sequence
+                """;
+
+        assertEquals(Map.of("app", "1.10.0"), parse(index, "app"));
+        assertEquals(Map.of("other", "7.0.0"), parse(index, "other"));
+        assertEquals(Map.of(), parse(index, "tail"));
+    }
+
+    @Test
+    void omitsMissingAndUnstableCharts() throws IOException {
+        String index =
+                """
+                entries:
+                  app:
+                  - version: 1.0.0
+                  unversioned:
+                  - version: 0.0.0
+                  - version: 1.0.0-beta.1
+                  - version: ""
+                  - name: no version at all
+                """;
+
+        assertEquals(
+                Map.of("app", "1.0.0"), parse(index, "app", "unversioned", "missing", "other"));
+        assertEquals(Map.of(), parse(index));
+    }
+
+    @Test
+    void returnsNothingWithoutEntriesMapping() throws IOException {
+        assertEquals(Map.of(), parse("apiVersion: v1\ngenerated: now\n", "app"));
+        assertEquals(Map.of(), parse("entries: [app]\n", "app"));
+        assertEquals(Map.of(), parse("- entries\n", "app"));
+        assertEquals(Map.of(), parse("", "app"));
+    }
+
+    @Test
+    void handlesLineEndingsCommentsAndQuotedKeys() throws IOException {
+        String index =
+                "\uFEFF# generated\r\n"
+                        + "---\r\n"
+                        + "apiVersion: v1\r\n"
+                        + "entries:   # charts\r\n"
+                        + "\r\n"
+                        + "    \"app\":\r\n"
+                        + "# a comment at column zero\r\n"
+                        + "      - version: 1.0.0\r\n"
+                        + "        description: |\r\n"
+                        + "          version: 9.0.0\r\n"
+                        + "\r\n"
+                        + "          more text\r\n"
+                        + "      - version: '1.1.0'\r\n"
+                        + "    'other' :\r\n"
+                        + "      - version: \"2.0.0\"\r\n"
+                        + "    last: [{version: 3.0.0}]";
+
+        assertEquals(
+                Map.of("app", "1.1.0", "other", "2.0.0", "last", "3.0.0"),
+                parse(index, "app", "other", "last"));
+    }
+
+    @Test
+    void walksFlowStyleIndexesAsEvents() throws IOException {
+        String json =
+                """
+                {"apiVersion": "v1", "entries": {"app": [{"version": "1.0.0"}, {"version": "1.2.0"}]}}
+                """;
+        String flowEntries =
+                """
+                apiVersion: v1
+                entries: {app: [{version: 2.0.0}], other: [{version: 2.1.0}]}
+                """;
+        String complexKey =
+                """
+                entries:
+                  app:
+                  - version: 3.0.0
+                  ? [complex, key]
+                  : ignored
+                  other:
+                  - version: 3.1.0
+                """;
+        String indentedDocument =
+                """
+                  apiVersion: v1
+                  entries:
+                    app:
+                    - version: 4.0.0
+                """;
+
+        assertEquals(Map.of("app", "1.2.0"), parse(json, "app"));
+        assertEquals(Map.of("app", "2.0.0", "other", "2.1.0"), parse(flowEntries, "app", "other"));
+        assertEquals(Map.of("app", "3.0.0", "other", "3.1.0"), parse(complexKey, "app", "other"));
+        assertEquals(Map.of("app", "4.0.0"), parse(indentedDocument, "app"));
+    }
+
+    @Test
+    void readsOnlyTheFirstDocument() throws IOException {
+        String index =
+                """
+                apiVersion: v1
+                generated: now
+                ---
+                entries:
+                  app:
+                  - version: 1.0.0
+                """;
+
+        assertEquals(Map.of(), parse(index, "app"));
+    }
+
+    @Test
+    void readsLinesLongerThanTheBuffer() throws IOException {
+        String index =
+                "entries:\n  app:\n  - description: "
+                        + "x".repeat(100_000)
+                        + "\n    version: 1.0.0\n";
+
+        assertEquals(Map.of("app", "1.0.0"), parse(index, "app"));
+    }
+
+    @Test
+    void stopsOnceAllRequestedChartsAreRead() throws IOException {
+        String index =
+                """
+                entries:
+                  app:
+                  - version: 1.0.0
+                  broken: [unterminated
+                """;
+
+        assertEquals(Map.of("app", "1.0.0"), parse(index, "app"));
+        assertThrows(IOException.class, () -> parse(index, "app", "broken"));
+    }
+
+    private static Map<String, String> parse(String index, String... charts) throws IOException {
+        return HelmIndexParser.parseLatestVersionFromStream(
+                new ByteArrayInputStream(index.getBytes(StandardCharsets.UTF_8)), Set.of(charts));
+    }
+
+    private byte[] fixture(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/helm-index/" + name)) {
+            assertNotNull(in, name);
+            return in.readAllBytes();
+        }
+    }
+}
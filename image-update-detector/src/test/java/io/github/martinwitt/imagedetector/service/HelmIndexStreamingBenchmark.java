@@ -0,0 +1,108 @@
+package io.github.martinwitt.imagedetector.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Heap usage of streaming synthetic Helm indexes of 1, 10 and 100 MB through {@link
+ * HelmRepositoryClient}.
+ *
+ * <p>The forked JVM is capped at 64 MB of heap, so the 100 MB case only completes if the index is
+ * never held in memory as a whole. Run with {@code -prof gc} (the default {@code jmh.args} of the
+ * {@code benchmark} profile) to see the allocation rate per operation:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="HelmIndexStreamingBenchmark -prof gc"
+ * </pre>
+ *
+ * <p>Looking up {@link SyntheticHelmIndex#FIRST_CHART} shows the early close after the chart block;
+ * {@link SyntheticHelmIndex#LAST_CHART} forces the whole body to be read.
+ *
+ * <p>All sizes are generated. The repository has no recorded indexes; the small hand-written ones
+ * used by {@link HelmIndexParserBenchmark} only stand in for the two common layouts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx64m")
+public class HelmIndexStreamingBenchmark {
+
+    @Param({"1048576", "10485760", "104857600"})
+    long indexSize;
+
+    @Param({SyntheticHelmIndex.FIRST_CHART, SyntheticHelmIndex.LAST_CHART})
+    String chartName;
+
+    private HttpServer server;
+    private HelmRepositoryClient client;
+    private String indexUrl;
+
+    @Setup
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(
+                "/index.yaml",
+                exchange -> {
+                    exchange.sendResponseHeaders(200, 0);
+                    try (InputStream index = new SyntheticHelmIndex(indexSize, 50);
+                            OutputStream out = exchange.getResponseBody()) {
+                        index.transferTo(out);
+                    } catch (IOException e) {
+                        // client closed the connection after finding its charts
+                    } finally {
+                        exchange.close();
+                    }
+                });
+        server.start();
+        indexUrl = "http://localhost:" + server.getAddress().getPort() + "/index.yaml";
+        client = new HelmRepositoryClient(new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Map<String, String> streamFromServer() throws IOException {
+        return client.streamIndex(
+                        indexUrl,
+                        HelmRepositoryClient.Validators.NONE,
+                        body ->
+                                HelmIndexParser.parseLatestVersionFromStream(
+                                        body, Set.of(chartName)))
+                .body();
+    }
+
+    @Benchmark
+    public Map<String, String> parseGeneratedIndex() throws IOException {
+        try (InputStream index = new SyntheticHelmIndex(indexSize, 50)) {
+            return HelmIndexParser.parseLatestVersionFromStream(index, Set.of(chartName));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import io.github.martinwitt.imagedetector.HelmCheckProperties;
+import io.github.martinwitt.imagedetector.client.HelmRepositoryClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HelmVersionCheckServiceTest {
+
+    private static final String STALLED = "oci://stalled.example/charts/";
+    private static final String HEALTHY = "oci://healthy.example/charts/";
+
+    @Mock private HelmRepositoryClient repositoryClient;
+    @Mock private HelmIndexCacheStore cacheStore;
+    @Mock private OciChartResolver ociChartResolver;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HelmVersionCheckService service;
+
+    @BeforeEach
+    void setUp() {
+        HelmCheckProperties properties = new HelmCheckProperties();
+        properties.setMaxConcurrentRequestsPerHost(1);
+        properties.setCheckTimeout(Duration.ofMillis(300));
+        service =
+                new HelmVersionCheckService(
+                        repositoryClient, cacheStore, ociChartResolver, properties, event -> {});
+        service.registerChart("monitoring", "app", "1.0.0", STALLED);
+        service.registerChart("logging", "other", "2.0.0", HEALTHY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void authorizesInsideBudgetAndHostLimit() throws InterruptedException {
+        when(ociChartResolver.repositoriesToAuthorize(any()))
+                .thenReturn(
+                        Map.of(
+                                "stalled.example", Set.of("charts/app"),
+                                "healthy.example", Set.of("charts/other")));
+        Thread caller = Thread.currentThread();
+        CountDownLatch authorizing = new CountDownLatch(1);
+        doAnswer(
+                        invocation -> {
+                            assertNotSame(caller, Thread.currentThread());
+                            authorizing.countDown();
+                            // a token endpoint that never answers
+                            release.await();
+                            return null;
+                        })
+                .when(ociChartResolver)
+                .authorize(eq("stalled.example"), any());
+        when(ociChartResolver.findLatestVersions(HEALTHY, Set.of("other")))
+                .thenReturn(Map.of("other", "2.1.0"));
+        when(ociChartResolver.cachedLatestVersions(STALLED, Set.of("app")))
+                .thenReturn(Map.of("app", "1.1.0"));
+
+        long start = System.nanoTime();
+        service.checkForUpdates();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(authorizing.await(0, TimeUnit.SECONDS), "authorization ran in the fan-out");
+        assertTrue(elapsed < 5_000, "the check ends with its budget, took " + elapsed + " ms");
+        assertEquals("2.1.0", service.getTrackedCharts().get("logging/other").latestVersion());
+        // the stalled authorization holds the registry's only request slot until the deadline
+        verify(ociChartResolver, never()).findLatestVersions(eq(STALLED), any());
+        assertEquals("1.1.0", service.getTrackedCharts().get("monitoring/app").latestVersion());
+        verify(ociChartResolver).authorize(eq("healthy.example"), eq(Set.of("charts/other")));
+    }
+
+    @Test
+    void looksUpChartSharedBySourcesOnce() {
+        service.unregisterChart("monitoring", "app");
+        service.unregisterChart("logging", "other");
+        service.registerChart("prod:monitoring", "grafana", "8.0.0", HEALTHY);
+        service.registerChart("staging:monitoring", "grafana", "7.0.0", HEALTHY);
+        when(ociChartResolver.repositoriesToAuthorize(any()))
+                .thenReturn(Map.of("healthy.example", Set.of("charts/grafana")));
+        when(ociChartResolver.findLatestVersions(HEALTHY, Set.of("grafana")))
+                .thenReturn(Map.of("grafana", "8.1.0"));
+
+        service.checkForUpdates();
+
+        verify(ociChartResolver, times(1)).findLatestVersions(any(), any());
+        verify(ociChartResolver, times(1)).authorize(any(), any());
+        assertEquals(
+                "8.1.0", service.getTrackedCharts().get("prod:monitoring/grafana").latestVersion());
+        assertEquals(
+                "8.1.0",
+                service.getTrackedCharts().get("staging:monitoring/grafana").latestVersion());
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ImageTagSelectorTest {
+
+    /** Current tag | tags in the repository, space separated | expected tag, empty for none. */
+    @ParameterizedTest(name = "{0} -> {2}")
+    @CsvSource(
+            delimiter = '|',
+            textBlock =
+                    """
+                    # plain versions keep their number of components
+                    1.27.2          | 1.27.1 1.27.3 1.28.0 1.28 2                       | 1.28.0
+                    16              | 16 16.4 17 17.1 18-alpine                         | 17
+                    16.4            | 16.5 17.0 17.0.1 17                               | 17.0
+                    1.9.0           | 1.10.0 1.9.10 1.9.9                               | 1.10.0
+                    1.2.3           | 1.2.2 1.0.0                                       | 1.2.3
+                    1.2.3           |                                                   | 1.2.3
+                    # variant suffixes must match exactly
+                    1.27.2-alpine   | 1.27.3 1.28.0-alpine 1.28.0-alpine-slim 1.29.0-bookworm | 1.28.0-alpine
+                    1.27.2          | 1.27.3-alpine 1.27.3 2.0.0-rc.1                   | 1.27.3
+                    1.27-alpine3.20 | 1.28-alpine3.21 1.27-alpine3.20 1.27.9-alpine3.20  | 1.27-alpine3.20
+                    1.0.0-rc.1      | 1.0.0 1.0.0-rc.2 1.1.0-rc.1                       | 1.1.0-rc.1
+                    # the v prefix is kept
+                    v2.1.0          | 2.2.0 v2.1.1 v2.1.10 v2.1.9                       | v2.1.10
+                    2.1.0           | v3.0.0 2.1.1                                      | 2.1.1
+                    # signature and attestation tags named after digests are skipped
+                    1.0.0           | sha256-3f2a9c1.sig sha256-3f2a9c1.att 1.0.1       | 1.0.1
+                    # tags without a numeric core are not tracked
+                    latest          | latest 1.0.0 2.0.0                                |
+                    stable-alpine   | stable 1.0.0                                      |
+                    3f2a9c1         | 4e5d6f7 1.0.0                                     |
+                    sha256-3f2a9c1  | sha256-4e5d6f7                                    |
+                    # neither are tags that are not SemVer cores
+                    1.2.3.4         | 1.2.3.5                                           |
+                    2024.01.15      | 2024.02.01                                        |
+                    1.0_1           | 1.0_2                                             |
+                    ''              | 1.0.0                                             |
+                    """)
+    void picksNewestTagOfSameShape(String current, String tags, String expected) {
+        List<String> candidates =
+                tags == null ? List.of() : Arrays.asList(tags.trim().split("\\s+"));
+
+        assertEquals(expected, ImageTagSelector.latestTag(current, candidates));
+    }
+}
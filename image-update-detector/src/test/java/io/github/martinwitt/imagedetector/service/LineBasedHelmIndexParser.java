@@ -0,0 +1,224 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The indentation-based line scanner that {@link HelmIndexParser} replaced, kept as the baseline
+ * for {@link HelmIndexParserBenchmark}. Also carries the regex stability filter and
+ * string-splitting comparison that {@link SemanticVersion} replaced, the baseline for {@link
+ * SemanticVersionBenchmark}.
+ */
+final class LineBasedHelmIndexParser {
+    private static final Logger logger = LoggerFactory.getLogger(LineBasedHelmIndexParser.class);
+    static final int READ_BUFFER_SIZE = 16384;
+    private static final int MAX_LINES_AFTER_CHART = 10000;
+
+    private LineBasedHelmIndexParser() {}
+
+    /**
+     * Find the latest stable version of each requested chart.
+     *
+     * @param inputStream Index body; not closed by this method
+     * @param chartNames Names of the charts to look up
+     * @return Latest stable version per chart; charts without a stable version are absent
+     */
+    static Map<String, String> parseLatestVersionFromStream(
+            InputStream inputStream, Set<String> chartNames) throws IOException {
+        Map<String, String> latestVersions = new HashMap<>();
+        Set<String> remaining = new HashSet<>(chartNames);
+        if (remaining.isEmpty()) {
+            return latestVersions;
+        }
+
+        try {
+            BufferedReader buffered =
+                    new BufferedReader(
+                            new InputStreamReader(inputStream, StandardCharsets.UTF_8),
+                            READ_BUFFER_SIZE);
+
+            ChartBlock block = null;
+            String line;
+            while ((line = buffered.readLine()) != null) {
+                int indent = 0;
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (c == ' ') indent++;
+                    else if (c == '\t') indent += 4;
+                    else break;
+                }
+
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) continue;
+
+                if (block != null) {
+                    if (indent <= block.indent
+                            && trimmed.endsWith(":")
+                            && !trimmed.startsWith("-")) {
+                        block.finish(latestVersions);
+                        remaining.remove(block.chartName);
+                        block = null;
+                        if (remaining.isEmpty()) {
+                            break;
+                        }
+                    } else {
+                        if (!block.accept(trimmed, indent)) {
+                            logger.warn(
+                                    "Exceeded max lines after finding chart {}, stopping",
+                                    block.chartName);
+                            block.finish(latestVersions);
+                            remaining.remove(block.chartName);
+                            block = null;
+                        }
+                        continue;
+                    }
+                }
+
+                String chartName = matchChartKey(trimmed, remaining);
+                if (chartName != null) {
+                    block = new ChartBlock(chartName, indent);
+                    logger.debug("Found chart {} in entries at indent {}", chartName, indent);
+                }
+            }
+
+            if (block != null) {
+                block.finish(latestVersions);
+            }
+            return latestVersions;
+        } catch (Exception e) {
+            logger.error("YAML parse error for {}: {}", chartNames, e.getMessage(), e);
+            throw new IOException("Parse failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static String matchChartKey(String trimmed, Set<String> chartNames) {
+        if (!trimmed.endsWith(":") || trimmed.startsWith("-")) {
+            return null;
+        }
+        String key = trimmed.substring(0, trimmed.length() - 1);
+        return chartNames.contains(key) ? key : null;
+    }
+
+    /** Scan state for the entries block of a single chart. */
+    private static final class ChartBlock {
+        private final String chartName;
+        private final int indent;
+        private String latestVersion;
+        private boolean inDependencies;
+        private int dependenciesIndent = -1;
+        private int versionCount;
+        private int stableCount;
+        private int linesAfterChart;
+
+        ChartBlock(String chartName, int indent) {
+            this.chartName = chartName;
+            this.indent = indent;
+        }
+
+        boolean accept(String trimmed, int lineIndent) {
+            if (trimmed.startsWith("dependencies:")) {
+                inDependencies = true;
+                dependenciesIndent = lineIndent;
+                return true;
+            }
+
+            if (inDependencies
+                    && lineIndent <= dependenciesIndent
+                    && trimmed.endsWith(":")
+                    && !trimmed.startsWith("-")) {
+                inDependencies = false;
+            }
+
+            if (++linesAfterChart > MAX_LINES_AFTER_CHART) {
+                return false;
+            }
+
+            if (trimmed.contains("version:") && !inDependencies) {
+                String version = extractVersionValue(trimmed);
+                if (version != null && !version.isEmpty()) {
+                    versionCount++;
+                    if (isStableVersion(version)) {
+                        stableCount++;
+                        if (latestVersion == null || compareVersions(version, latestVersion) > 0) {
+                            latestVersion = version;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        void finish(Map<String, String> latestVersions) {
+            if (latestVersion != null) {
+                latestVersions.put(chartName, latestVersion);
+                logger.info(
+                        "Chart {}: found latest={} ({} versions, {} stable)",
+                        chartName,
+                        latestVersion,
+                        versionCount,
+                        stableCount);
+            } else {
+                logger.warn(
+                        "Chart {}: no stable version found ({} total, {} stable)",
+                        chartName,
+                        versionCount,
+                        stableCount);
+            }
+        }
+    }
+
+    private static String extractVersionValue(String line) {
+        if (!line.contains("version:")) {
+            return null;
+        }
+        String afterVersion = line.substring(line.indexOf("version:") + 8).trim();
+        if (afterVersion.startsWith("\"") && afterVersion.endsWith("\"")) {
+            return afterVersion.substring(1, afterVersion.length() - 1);
+        }
+        if (afterVersion.startsWith("'") && afterVersion.endsWith("'")) {
+            return afterVersion.substring(1, afterVersion.length() - 1);
+        }
+        return afterVersion;
+    }
+
+    static boolean isStableVersion(String version) {
+        String lower = version.toLowerCase();
+        return !lower.matches(".*(-alpha|-beta|-rc|v?0\\.0\\.0|-dev|-snapshot|-next|\\*|\\?).*");
+    }
+
+    static int compareVersions(String v1, String v2) {
+        return parseVersion(v1).compareTo(parseVersion(v2));
+    }
+
+    private static VersionParts parseVersion(String version) {
+        try {
+            String clean = version.replaceAll("[^0-9.]", "");
+            String[] parts = clean.split("\\.");
+            int major = parts.length > 0 ? Integer.parseInt(parts[0]) : 0;
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            int patch = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+            return new VersionParts(major, minor, patch);
+        } catch (Exception e) {
+            return new VersionParts(0, 0, 0);
+        }
+    }
+
+    private record VersionParts(int major, int minor, int patch)
+            implements Comparable<VersionParts> {
+        @Override
+        public int compareTo(VersionParts other) {
+            if (major != other.major) return Integer.compare(major, other.major);
+            if (minor != other.minor) return Integer.compare(minor, other.minor);
+            return Integer.compare(patch, other.patch);
+        }
+    }
+}
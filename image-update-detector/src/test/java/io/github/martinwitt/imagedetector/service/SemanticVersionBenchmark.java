@@ -0,0 +1,90 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latest-stable selection over the version strings of a large index: the regex filter and
+ * re-parsing comparison from {@link LineBasedHelmIndexParser} against {@link SemanticVersion}.
+ *
+ * <p>{@code plain} contains only {@code x.y.z} versions and exercises the regex-free fast path;
+ * {@code mixed} adds {@code v}-prefixed versions and pre-releases the way real indexes do.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="SemanticVersionBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SemanticVersionBenchmark {
+
+    @Param({"20000"})
+    int versionCount;
+
+    @Param({"plain", "mixed"})
+    String shape;
+
+    private List<String> versions;
+
+    @Setup
+    public void generateVersions() {
+        Random random = new Random(42);
+        String[] preReleases = {"alpha.1", "beta.2", "rc.1", "rc.10", "dev", "next.3"};
+        versions = new ArrayList<>(versionCount);
+        for (int i = 0; i < versionCount; i++) {
+            String core = random.nextInt(30) + "." + random.nextInt(50) + "." + random.nextInt(20);
+            int kind = "plain".equals(shape) ? 0 : random.nextInt(10);
+            if (kind == 0 || kind > 3) {
+                versions.add(core);
+            } else if (kind == 1) {
+                versions.add("v" + core);
+            } else {
+                versions.add(core + "-" + preReleases[random.nextInt(preReleases.length)]);
+            }
+        }
+    }
+
+    @Benchmark
+    public String legacyLatestStable() {
+        String latest = null;
+        for (String version : versions) {
+            if (LineBasedHelmIndexParser.isStableVersion(version)
+                    && (latest == null
+                            || LineBasedHelmIndexParser.compareVersions(version, latest) > 0)) {
+                latest = version;
+            }
+        }
+        return latest;
+    }
+
+    @Benchmark
+    public String semanticVersionLatestStable() {
+        SemanticVersion latest = null;
+        for (String version : versions) {
+            SemanticVersion parsed = SemanticVersion.parse(version);
+            if (parsed != null
+                    && parsed.isStable()
+                    && (latest == null || parsed.compareTo(latest) > 0)) {
+                latest = parsed;
+            }
+        }
+        return latest != null ? latest.toString() : null;
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SemanticVersionTest {
+
+    @Test
+    void ordersPreReleasesAsInSpecification() {
+        List<String> chain =
+                List.of(
+                        "1.0.0-alpha",
+                        "1.0.0-alpha.1",
+                        "1.0.0-alpha.beta",
+                        "1.0.0-beta",
+                        "1.0.0-beta.2",
+                        "1.0.0-beta.11",
+                        "1.0.0-rc.1",
+                        "1.0.0");
+        for (int i = 0; i + 1 < chain.size(); i++) {
+            SemanticVersion lower = version(chain.get(i));
+            SemanticVersion higher = version(chain.get(i + 1));
+
+            assertTrue(lower.compareTo(higher) < 0, lower + " < " + higher);
+            assertTrue(higher.compareTo(lower) > 0, higher + " > " + lower);
+        }
+
+        List<SemanticVersion> sorted = new ArrayList<>(chain.stream().map(this::version).toList());
+        Collections.reverse(sorted);
+        Collections.sort(sorted);
+        assertEquals(chain, sorted.stream().map(SemanticVersion::toString).toList());
+    }
+
+    @Test
+    void ordersNumericCoreNumerically() {
+        assertTrue(version("1.9.0").compareTo(version("1.10.0")) < 0);
+        assertTrue(version("1.0.10").compareTo(version("1.0.9")) > 0);
+        assertTrue(version("2.0.0-alpha").compareTo(version("1.99.99")) > 0);
+        assertTrue(version("1.0.0-2").compareTo(version("1.0.0-10")) < 0);
+        assertTrue(version("1.0.0-10").compareTo(version("1.0.0-1a")) < 0, "numeric below alpha");
+    }
+
+    @Test
+    void acceptsVPrefix() {
+        for (String text : List.of("v1.2.3", "V1.2.3", "v1.2.3-rc.1")) {
+            SemanticVersion version = version(text);
+
+            assertEquals(1, version.major());
+            assertEquals(2, version.minor());
+            assertEquals(3, version.patch());
+            assertEquals(text, version.toString());
+        }
+        assertEquals(version("1.2.3"), version("v1.2.3"));
+    }
+
+    @Test
+    void defaultsMissingMinorAndPatchToZero() {
+        assertEquals(version("1.0.0"), version("1"));
+        assertEquals(version("1.2.0"), version("1.2"));
+        assertEquals(version("1.2.0-rc.1"), version("v1.2-rc.1"));
+        assertEquals(0, version("7").minor());
+        assertEquals(0, version("7.1").patch());
+    }
+
+    @Test
+    void ignoresBuildMetadata() {
+        SemanticVersion plain = version("1.0.0");
+        SemanticVersion build = version("1.0.0+20130313144700");
+        SemanticVersion preReleaseBuild = version("1.0.0-beta+exp.sha.5114f85");
+
+        assertEquals(plain, build);
+        assertEquals(plain.hashCode(), build.hashCode());
+        assertEquals(0, version("1.0.0+a").compareTo(version("1.0.0+b")));
+        assertEquals(version("1.0.0-beta"), preReleaseBuild);
+        assertTrue(preReleaseBuild.isPreRelease());
+        assertEquals("1.0.0+20130313144700", build.toString());
+    }
+
+    @Test
+    void treatsPreReleasesAndZeroVersionAsUnstable() {
+        assertFalse(version("0.0.0").isStable());
+        assertFalse(version("v0.0.0").isStable());
+        assertFalse(version("0.0.0+build").isStable());
+        assertFalse(version("1.0.0-rc.1").isStable());
+        assertTrue(version("0.0.1").isStable());
+        assertTrue(version("0.1").isStable());
+        assertTrue(version("1.0.0+build").isStable());
+        assertFalse(version("1.0.0+build").isPreRelease());
+    }
+
+    @Test
+    void returnsNullForNonSemanticVersions() {
+        for (String text :
+                new String[] {
+                    null,
+                    "",
+                    "v",
+                    "latest",
+                    "stable-alpine",
+                    "1.",
+                    "1..2",
+                    ".1.2",
+                    "1.2.3.4",
+                    "01.2.3",
+                    "1.02.3",
+                    "1.2.3-",
+                    "1.2.3-01",
+                    "1.2.3-alpha..1",
+                    "1.2.3+",
+                    "1.2.3_4",
+                    " 1.2.3",
+                    "99999999999999999999.0.0"
+                }) {
+            assertNull(SemanticVersion.parse(text), String.valueOf(text));
+        }
+    }
+
+    @Test
+    void keepsLargeComponents() {
+        SemanticVersion version = version("20240101.123456789.0");
+
+        assertEquals(20240101, version.major());
+        assertEquals(123456789, version.minor());
+        assertEquals(-1, version("20240101.123456789.0-rc.1").compareTo(version));
+    }
+
+    private SemanticVersion version(String text) {
+        SemanticVersion version = SemanticVersion.parse(text);
+        assertNotNull(version, text);
+        return version;
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.martinwitt.imagedetector.service;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates a Helm repository index of roughly the requested size on the fly.
+ *
+ * <p>Charts are named {@code synthetic-00000}, {@code synthetic-00001}, ... and the index always
+ * ends with {@link #LAST_CHART}, so benchmarks can pick a chart that forces a full read. Nothing is
+ * materialized beyond the current chart block, which keeps the generator itself out of heap
+ * measurements.
+ */
+final class SyntheticHelmIndex extends InputStream {
+    static final String FIRST_CHART = "synthetic-00000";
+    static final String LAST_CHART = "synthetic-last";
+
+    private final long targetSize;
+    private final int versionsPerChart;
+    private long produced;
+    private int chartIndex;
+    private boolean finished;
+    private byte[] chunk;
+    private int position;
+
+    SyntheticHelmIndex(long targetSize, int versionsPerChart) {
+        this.targetSize = targetSize;
+        this.versionsPerChart = versionsPerChart;
+        this.chunk = "apiVersion: v1\nentries:\n".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int read() {
+        if (!ensureChunk()) {
+            return -1;
+        }
+        produced++;
+        return chunk[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureChunk()) {
+            return -1;
+        }
+        int n = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, n);
+        position += n;
+        produced += n;
+        return n;
+    }
+
+    private boolean ensureChunk() {
+        while (position >= chunk.length) {
+            if (finished) {
+                return false;
+            }
+            if (produced >= targetSize) {
+                chunk =
+                        (chartBlock(LAST_CHART, versionsPerChart)
+                                        + "generated: \"2024-01-01T00:00:00Z\"\n")
+                                .getBytes(StandardCharsets.UTF_8);
+                finished = true;
+            } else {
+                chunk =
+                        chartBlock(String.format("synthetic-%05d", chartIndex++), versionsPerChart)
+                                .getBytes(StandardCharsets.UTF_8);
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    /** Render one chart's entries block in the layout used by {@code helm repo index}. */
+    static String chartBlock(String chartName, int versions) {
+        StringBuilder sb = new StringBuilder(versions * 640);
+        sb.append("  ").append(chartName).append(":\n");
+        for (int v = versions - 1; v >= 0; v--) {
+            String version = (v / 100) + "." + (v / 10 % 10) + "." + (v % 10);
+            sb.append("  - annotations:\n");
+            sb.append("      category: Infrastructure\n");
+            sb.append("    apiVersion: v2\n");
+            sb.append("    appVersion: ").append(v + 10).append(".0.0\n");
+            sb.append("    created: \"2024-01-01T00:00:00.000000000Z\"\n");
+            sb.append("    dependencies:\n");
+            sb.append("    - name: common\n");
+            sb.append("      repository: oci://registry.example.com/charts\n");
+            sb.append("      version: 2.x.x\n");
+            sb.append("    description: Synthetic chart used for benchmarks\n");
+            sb.append("    digest: ")
+                    .append("0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef")
+                    .append('\n');
+            sb.append("    kubeVersion: '>=1.23.0-0'\n");
+            sb.append("    name: ").append(chartName).append('\n');
+            sb.append("    urls:\n");
+            sb.append("    - https://charts.example.com/")
+                    .append(chartName)
+                    .append('-')
+                    .append(version)
+                    .append(".tgz\n");
+            sb.append("    version: ")
+                    .append(version)
+                    .append(v % 7 == 0 ? "-rc.1" : "")
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class UpdateFeedServiceTest {
+
+    private static final int EVENT_LOG_SIZE = 512;
+
+    private final UpdateFeedService service = new UpdateFeedService();
+    private final List<CountDownLatch> gates = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        gates.forEach(CountDownLatch::countDown);
+        service.shutdown();
+    }
+
+    @Test
+    void replaysEventsAfterIdInLog() throws InterruptedException {
+        RecordingEmitter live = subscribe(null);
+        publish(10);
+        List<Sent> events = take(live, 10);
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(events.get(i - 1).id() + 1, events.get(i).id());
+        }
+
+        RecordingEmitter resumed = subscribe(Long.toString(events.get(3).id()));
+
+        assertEquals(events.subList(4, 10), take(resumed, 6));
+        service.publish("app-added", Map.of("app", "monitoring"));
+        assertEquals(new Sent(events.getLast().id() + 1, "app-added"), next(resumed));
+    }
+
+    @Test
+    void replaysNothingForLatestIdOrNewClient() throws InterruptedException {
+        RecordingEmitter live = subscribe(null);
+        publish(3);
+        long latest = take(live, 3).getLast().id();
+
+        RecordingEmitter upToDate = subscribe(Long.toString(latest));
+        RecordingEmitter fresh = subscribe(" ");
+        service.publish("app-removed", Map.of("app", "monitoring"));
+
+        assertEquals(new Sent(latest + 1, "app-removed"), next(upToDate));
+        assertEquals(new Sent(latest + 1, "app-removed"), next(fresh));
+    }
+
+    @Test
+    void resyncsOnceIdWasEvictedFromLog() throws InterruptedException {
+        long first = firstId();
+        publish(EVENT_LOG_SIZE + 87);
+        long last = first + EVENT_LOG_SIZE + 87;
+        long oldest = last - EVENT_LOG_SIZE + 1;
+
+        RecordingEmitter justInLog = subscribe(Long.toString(oldest - 1));
+        List<Sent> replayed = take(justInLog, EVENT_LOG_SIZE);
+
+        assertEquals(oldest, replayed.getFirst().id());
+        assertEquals(last, replayed.getLast().id());
+        assertEquals(new Sent(last, "resync"), next(subscribe(Long.toString(oldest - 2))));
+        assertEquals(new Sent(last, "resync"), next(subscribe(Long.toString(first))));
+    }
+
+    @Test
+    void resyncsOnUnknownId() throws InterruptedException {
+        long first = firstId();
+        publish(2);
+        long last = first + 2;
+
+        // ids start right after the startup time, so first - 2 was handed out before a restart
+        for (String id : List.of("1", Long.toString(first - 2), Long.toString(last + 1), "abc")) {
+            assertEquals(new Sent(last, "resync"), next(subscribe(id)), id);
+        }
+        assertEquals(new Sent(first, "app-added"), next(subscribe(Long.toString(first - 1))));
+
+        // a client resuming from the resync id gets the events from then on
+        RecordingEmitter resynced = subscribe(Long.toString(last));
+        service.publish("chart-update", Map.of("name", "grafana"));
+        assertEquals(new Sent(last + 1, "chart-update"), next(resynced));
+    }
+
+    @Test
+    void dropsSubscriberWithFullBuffer() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        gates.add(gate);
+        RecordingEmitter stalled = subscribe(null, gate);
+        RecordingEmitter healthy = subscribe(null);
+
+        // the buffer holds as many events as the log, one more may be stuck in send
+        List<Sent> received = new ArrayList<>();
+        for (int i = 0; i < EVENT_LOG_SIZE + 2; i++) {
+            service.publish("chart-update", Map.of("n", i));
+            received.add(next(healthy));
+        }
+
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS), "stalled subscriber closed");
+        assertFalse(healthy.completed.await(0, TimeUnit.SECONDS), "healthy subscriber kept");
+        assertEquals(EVENT_LOG_SIZE + 2, received.size());
+        gate.countDown();
+        service.publish("chart-update", Map.of("n", "after drop"));
+        assertEquals(received.getLast().id() + 1, next(healthy).id());
+        assertTrue(stalled.sent.isEmpty());
+    }
+
+    /** The id of a first event, published with no subscriber left afterwards. */
+    private long firstId() throws InterruptedException {
+        RecordingEmitter probe = subscribe(null);
+        service.publish("app-added", Map.of("app", "probe"));
+        long id = next(probe).id();
+        // completing without an HTTP handler leaves the subscriber to notice on its next send
+        probe.complete();
+        return id;
+    }
+
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            service.publish(
+                    "chart-update", Map.of("name", "chart-" + i, "latestVersion", "1." + i));
+        }
+    }
+
+    private RecordingEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new CountDownLatch(0));
+    }
+
+    private RecordingEmitter subscribe(String lastEventId, CountDownLatch gate) {
+        RecordingEmitter emitter = new RecordingEmitter(gate);
+        service.subscribe(lastEventId, emitter);
+        return emitter;
+    }
+
+    private static Sent next(RecordingEmitter emitter) throws InterruptedException {
+        Sent sent = emitter.sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(sent, "no event within 5 seconds");
+        return sent;
+    }
+
+    private static List<Sent> take(RecordingEmitter emitter, int count)
+            throws InterruptedException {
+        List<Sent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(next(emitter));
+        }
+        return events;
+    }
+
+    /** An event as sent to a subscriber. */
+    record Sent(long id, String type) {}
+
+    /** Records the events sent to it, after waiting for the gate to open. */
+    private static final class RecordingEmitter extends SseEmitter {
+        private static final Pattern ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+        private static final Pattern EVENT = Pattern.compile("^event:(.+)$", Pattern.MULTILINE);
+
+        final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch gate;
+
+        RecordingEmitter(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Set<DataWithMediaType> parts = builder.build();
+            super.send(parts);
+            StringBuilder text = new StringBuilder();
+            for (DataWithMediaType part : parts) {
+                if (part.getData() instanceof String string) {
+                    text.append(string);
+                }
+            }
+            Matcher id = ID.matcher(text);
+            Matcher event = EVENT.matcher(text);
+            if (id.find() && event.find()) {
+                sent.add(new Sent(Long.parseLong(id.group(1)), event.group(1)));
+            }
+        }
+
+        @Override
+        public void complete() {
+            super.complete();
+            completed.countDown();
+        }
+    }
+}
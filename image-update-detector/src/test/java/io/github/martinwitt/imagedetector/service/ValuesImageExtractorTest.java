@@ -0,0 +1,102 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.yaml.snakeyaml.Yaml;
+
+class ValuesImageExtractorTest {
+
+    /** A values.yaml and the images found in it, as {@code path=reference}. */
+    static Stream<Arguments> values() {
+        return Stream.of(
+                Arguments.of(
+                        "image:\n  repository: nginx\n  tag: 1.27.2-alpine\n",
+                        List.of("image=docker.io/library/nginx:1.27.2-alpine")),
+                Arguments.of(
+                        """
+                        server:
+                          replicas: 2
+                          image:
+                            registry: ghcr.io
+                            repository: org/app
+                            tag: v2.1.0
+                            pullPolicy: IfNotPresent
+                        """,
+                        List.of("server.image=ghcr.io/org/app:v2.1.0")),
+                Arguments.of(
+                        """
+                        postgresql:
+                          primary:
+                            image: {registry: "", repository: bitnami/postgresql, tag: 16}
+                        """,
+                        List.of("postgresql.primary.image=docker.io/bitnami/postgresql:16")),
+                Arguments.of(
+                        """
+                        controller:
+                          image: {repository: ingress-nginx/controller, tag: "1.20"}
+                          admissionWebhooks:
+                            patch:
+                              image: {repository: ingress-nginx/kube-webhook-certgen, tag: v1.4.4}
+                        """,
+                        List.of(
+                                "controller.image=docker.io/ingress-nginx/controller:1.20",
+                                "controller.admissionWebhooks.patch.image="
+                                        + "docker.io/ingress-nginx/kube-webhook-certgen:v1.4.4")),
+                Arguments.of(
+                        """
+                        initContainers:
+                        - name: wait
+                          image: busybox:1.36
+                        - name: migrate
+                          image: localhost:5000/team/migrate:2.0@sha256:3f2a9c1
+                        """,
+                        List.of(
+                                "initContainers[0].image=docker.io/library/busybox:1.36",
+                                "initContainers[1].image=localhost:5000/team/migrate:2.0")),
+                // untagged, templated and float tags are skipped
+                Arguments.of(
+                        """
+                        a: {image: {repository: nginx}}
+                        b: {image: {repository: nginx, tag: ""}}
+                        c: {image: {repository: nginx, tag: 1.20}}
+                        d: {image: {repository: "{{ .Values.global.repo }}", tag: "1.0"}}
+                        e: {image: {repository: nginx, tag: "{{ .Chart.AppVersion }}"}}
+                        f: {image: nginx}
+                        g: {image: localhost:5000/app}
+                        h: {image: {repository: "", tag: "1.0"}}
+                        i: {repository: [nginx], tag: "1.0"}
+                        """,
+                        List.of()),
+                Arguments.of(
+                        """
+                        image:
+                          repository: grafana/grafana
+                          tag: 11.3.0
+                        sidecar:
+                          image: {repository: kiwigrid/k8s-sidecar, tag: 1.28.0}
+                        extraContainers: []
+                        """,
+                        List.of(
+                                "image=docker.io/grafana/grafana:11.3.0",
+                                "sidecar.image=docker.io/kiwigrid/k8s-sidecar:1.28.0")));
+    }
+
+    @ParameterizedTest
+    @MethodSource("values")
+    void findsImagesInNestedValues(String yaml, List<String> expected) {
+        Map<?, ?> values = new Yaml().load(yaml);
+
+        List<String> images =
+                ValuesImageExtractor.extract(values).stream()
+                        .map(dependency -> dependency.path() + "=" + dependency.image())
+                        .toList();
+
+        assertEquals(expected, images);
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.martinwitt.imagedetector.HistoryProperties;
+import io.github.martinwitt.imagedetector.service.DashboardSnapshot.AppDrift;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VersionHistoryServiceTest {
+
+    @TempDir Path dir;
+
+    @Test
+    void tracksOutOfDateSinceFromDriftChanges() {
+        VersionHistoryService service = open();
+
+        publish(
+                service,
+                Map.of("monitoring", new AppDrift(0, 2, 0, 3), "web", new AppDrift(0, 1, 0, 0)));
+        assertNull(service.outOfDateSince("monitoring"));
+
+        long before = System.currentTimeMillis();
+        publish(
+                service,
+                Map.of("monitoring", new AppDrift(1, 2, 0, 3), "web", new AppDrift(1, 1, 0, 0)));
+        Long since = service.outOfDateSince("monitoring");
+        assertNotNull(since);
+        assertTrue(since >= before, "since the first out-of-date snapshot");
+
+        // a different count keeps the app out of date since the same time
+        publish(
+                service,
+                Map.of("monitoring", new AppDrift(1, 2, 1, 3), "web", new AppDrift(0, 1, 0, 0)));
+        assertEquals(since, service.outOfDateSince("monitoring"));
+        assertNull(service.outOfDateSince("web"), "up to date again");
+
+        // the period survives a restart
+        assertEquals(since, open().outOfDateSince("monitoring"));
+
+        publish(service, Map.of("web", new AppDrift(0, 1, 0, 0)));
+        assertNull(service.outOfDateSince("monitoring"), "removed app");
+        assertNull(open().outOfDateSince("monitoring"));
+        assertNull(service.outOfDateSince("unknown"));
+    }
+
+    private VersionHistoryService open() {
+        HistoryProperties properties = new HistoryProperties();
+        properties.setDir(dir.toString());
+        return new VersionHistoryService(new VersionHistoryStore(properties), properties);
+    }
+
+    private static void publish(VersionHistoryService service, Map<String, AppDrift> drift) {
+        DashboardSnapshot snapshot =
+                new DashboardSnapshot(
+                        1, Map.of(), Map.of(), List.of(), 0, 0, Map.of(), Map.of(), drift);
+        service.onSnapshotChanged(new DashboardSnapshotChangedEvent(null, snapshot));
+    }
+}
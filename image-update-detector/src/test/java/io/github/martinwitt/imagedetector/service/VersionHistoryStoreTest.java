@@ -0,0 +1,282 @@
+package io.github.martinwitt.imagedetector.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.github.martinwitt.imagedetector.HistoryProperties;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore.DriftRecord;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore.HistoryRecord;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore.LastState;
+import io.github.martinwitt.imagedetector.service.VersionHistoryStore.VersionRecord;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VersionHistoryStoreTest {
+
+    private static final String GRAFANA = "https://grafana.github.io/helm-charts/grafana";
+    private static final String LOKI = "https://grafana.github.io/helm-charts/loki";
+    // a timestamp of today takes six varint bytes
+    private static final long T = 1_750_000_000_000L;
+
+    @TempDir Path dir;
+
+    @Test
+    void readsRecordsBackAfterReopening() {
+        List<HistoryRecord> records =
+                List.of(
+                        new VersionRecord(T, GRAFANA, "8.0.0"),
+                        new DriftRecord(T, "monitoring", 1, 2, 0, 3),
+                        new VersionRecord(T + 1, LOKI, "6.1.0-rc.1"),
+                        // multi-byte counts and a name outside ASCII
+                        new DriftRecord(T + 2, "prod:überwachung", 130, 300, 16_384, 20_000),
+                        new VersionRecord(T + 3, GRAFANA, "8.1.0"));
+        VersionHistoryStore store = open();
+        store.append(records.subList(0, 2));
+        store.append(records.subList(2, records.size()));
+
+        VersionHistoryStore reopened = open();
+        LastState state = reopened.load();
+
+        assertEquals(records, readAll(reopened));
+        assertEquals(Map.of(GRAFANA, "8.1.0", LOKI, "6.1.0-rc.1"), state.versions());
+        assertEquals(
+                Map.of(
+                        "monitoring", new DashboardSnapshot.AppDrift(1, 2, 0, 3),
+                        "prod:überwachung",
+                                new DashboardSnapshot.AppDrift(130, 300, 16_384, 20_000)),
+                state.drift());
+    }
+
+    @Test
+    void forgetsRemovedAppsOnLoad() {
+        VersionHistoryStore store = open();
+        store.append(
+                List.of(
+                        new DriftRecord(T, "monitoring", 1, 2, 0, 3),
+                        new DriftRecord(T + 1, "monitoring", DashboardSnapshot.AppDrift.NONE)));
+
+        assertEquals(Map.of(), open().load().drift());
+    }
+
+    @Test
+    void streamsInclusiveRangeAndStopsEarly() {
+        VersionHistoryStore store = open();
+        store.append(
+                List.of(
+                        new VersionRecord(T, GRAFANA, "1"),
+                        new VersionRecord(T + 10, GRAFANA, "2"),
+                        new VersionRecord(T + 20, GRAFANA, "3"),
+                        new VersionRecord(T + 30, GRAFANA, "4")));
+
+        List<String> inRange = new ArrayList<>();
+        store.forEach(T + 10, T + 20, record -> inRange.add(((VersionRecord) record).version()));
+        List<String> firstTwo = new ArrayList<>();
+        store.forEach(
+                Long.MIN_VALUE,
+                Long.MAX_VALUE,
+                record -> firstTwo.add(((VersionRecord) record).version()) && firstTwo.size() < 2);
+
+        assertEquals(List.of("2", "3"), inRange);
+        assertEquals(List.of("1", "2"), firstTwo);
+    }
+
+    @Test
+    void cutsOffTornRecordAndStaysAppendable() throws IOException {
+        VersionHistoryStore store = open();
+        store.append(List.of(new VersionRecord(T, GRAFANA, "8.0.0")));
+        long intact = Files.size(file());
+        // a new chart writes its name record and then the version record
+        store.append(List.of(new VersionRecord(T + 1, LOKI, "6.0.0")));
+        long withLoki = Files.size(file());
+        truncate(withLoki - 3);
+
+        VersionHistoryStore repaired = open();
+        LastState state = repaired.load();
+
+        assertEquals(Map.of(GRAFANA, "8.0.0"), state.versions());
+        long repairedSize = Files.size(file());
+        assertTrue(
+                repairedSize > intact && repairedSize < withLoki - 3,
+                "the complete name record of loki is kept, the torn version record is cut off");
+
+        repaired.append(
+                List.of(
+                        new VersionRecord(T + 2, LOKI, "6.0.1"),
+                        new VersionRecord(T + 3, GRAFANA, "8.0.1")));
+        VersionHistoryStore reopened = open();
+
+        assertEquals(Map.of(GRAFANA, "8.0.1", LOKI, "6.0.1"), reopened.load().versions());
+        assertEquals(
+                List.of(
+                        new VersionRecord(T, GRAFANA, "8.0.0"),
+                        new VersionRecord(T + 2, LOKI, "6.0.1"),
+                        new VersionRecord(T + 3, GRAFANA, "8.0.1")),
+                readAll(reopened));
+    }
+
+    @Test
+    void cutsOffTornVarint() throws IOException {
+        VersionHistoryStore store = open();
+        store.append(List.of(new VersionRecord(T, GRAFANA, "8.0.0")));
+        long intact = Files.size(file());
+        store.append(List.of(new DriftRecord(T + 1, "monitoring", 130, 300, 16_384, 20_000)));
+        // inside the three-byte varint of the last count
+        truncate(Files.size(file()) - 2);
+
+        VersionHistoryStore repaired = open();
+
+        assertEquals(Map.of(), repaired.load().drift());
+        // tag, id and the length-prefixed name of the complete name record
+        assertEquals(intact + 1 + 1 + 2 + "monitoring".length(), Files.size(file()));
+        repaired.append(List.of(new DriftRecord(T + 2, "monitoring", 1, 2, 0, 3)));
+        assertEquals(
+                Map.of("monitoring", new DashboardSnapshot.AppDrift(1, 2, 0, 3)),
+                open().load().drift());
+    }
+
+    @Test
+    void movesFileOfUnknownFormatAside() throws IOException {
+        Files.writeString(file(), "not a version history");
+
+        assertEquals(Map.of(), open().load().versions());
+        assertFalse(Files.exists(file()));
+        assertTrue(Files.exists(dir.resolve("version-history.bin.old")));
+    }
+
+    @Test
+    void compactionKeepsRecentRecordsAndLastStateOfTrackedNames() {
+        VersionHistoryStore store = open();
+        store.append(
+                List.of(
+                        new VersionRecord(T, "https://charts.example/retired", "1.0.0"),
+                        new VersionRecord(T + 100, GRAFANA, "8.0.0"),
+                        new DriftRecord(T + 150, "monitoring", 1, 2, 0, 3),
+                        new DriftRecord(T + 160, "retired-app", 1, 1, 0, 0),
+                        new VersionRecord(T + 200, GRAFANA, "8.1.0"),
+                        new VersionRecord(T + 300, LOKI, "6.0.0"),
+                        new DriftRecord(T + 400, "monitoring", 0, 2, 0, 3)));
+
+        store.compact(T + 250, Set.of(GRAFANA), Set.of("monitoring"));
+
+        List<HistoryRecord> expected =
+                List.of(
+                        new DriftRecord(T + 150, "monitoring", 1, 2, 0, 3),
+                        new VersionRecord(T + 200, GRAFANA, "8.1.0"),
+                        new VersionRecord(T + 300, LOKI, "6.0.0"),
+                        new DriftRecord(T + 400, "monitoring", 0, 2, 0, 3));
+        assertEquals(expected, readAll(store));
+
+        // the name ids were renumbered, appending must use the new ones
+        store.append(List.of(new VersionRecord(T + 500, GRAFANA, "8.2.0")));
+        VersionHistoryStore reopened = open();
+        assertEquals(Map.of(GRAFANA, "8.2.0", LOKI, "6.0.0"), reopened.load().versions());
+        assertEquals(5, readAll(reopened).size());
+        assertFalse(Files.exists(dir.resolve("version-history.bin.tmp")));
+    }
+
+    @Test
+    void keepsStartOfOutOfDatePeriodThroughCompaction() {
+        VersionHistoryStore store = open();
+        store.append(
+                List.of(
+                        new DriftRecord(T, "monitoring", 0, 2, 0, 3),
+                        new DriftRecord(T + 100, "monitoring", 1, 2, 0, 3),
+                        new DriftRecord(T + 200, "monitoring", 1, 2, 1, 3),
+                        new DriftRecord(T + 300, "monitoring", 2, 2, 1, 3)));
+
+        store.compact(T + 250, Set.of(), Set.of("monitoring"));
+
+        assertEquals(
+                List.of(
+                        new DriftRecord(T + 100, "monitoring", 1, 2, 0, 3),
+                        new DriftRecord(T + 200, "monitoring", 1, 2, 1, 3),
+                        new DriftRecord(T + 300, "monitoring", 2, 2, 1, 3)),
+                readAll(store));
+        LastState state = open().load();
+        assertEquals(Map.of("monitoring", T + 100), state.outOfDateSince());
+        assertEquals(
+                Map.of("monitoring", new DashboardSnapshot.AppDrift(2, 2, 1, 3)), state.drift());
+    }
+
+    @Test
+    void seeksThroughSparseIndex() {
+        // names written at the start are still resolved when reading starts further in
+        List<HistoryRecord> records = new ArrayList<>();
+        records.add(new VersionRecord(T, GRAFANA, "8.0.0"));
+        records.add(new DriftRecord(T, "monitoring", 1, 2, 0, 3));
+        for (int i = 1; i <= 20_000; i++) {
+            records.add(
+                    i % 2 == 0
+                            ? new VersionRecord(T + i / 3, LOKI, "6.0." + i)
+                            : new DriftRecord(T + i / 3, "monitoring", i % 5, 5, 0, 3));
+        }
+        VersionHistoryStore store = open();
+        store.append(records.subList(0, 9_000));
+        store.append(records.subList(9_000, records.size()));
+        assertTrue(
+                records.size() * 10L > 3L * VersionHistoryStore.INDEX_INTERVAL,
+                "the file spans several index entries");
+
+        for (VersionHistoryStore history : List.of(store, open())) {
+            for (long from : List.of(T - 1, T, T + 1, T + 2_500, T + 5_000, T + 6_666)) {
+                long to = from + 1_000;
+                List<HistoryRecord> expected =
+                        records.stream()
+                                .filter(r -> r.timestamp() >= from && r.timestamp() <= to)
+                                .toList();
+                List<HistoryRecord> actual = new ArrayList<>();
+                history.forEach(from, to, actual::add);
+
+                assertEquals(expected, actual, "from " + from);
+            }
+        }
+
+        store.compact(T + 3_000, Set.of(GRAFANA, LOKI), Set.of("monitoring"));
+        List<HistoryRecord> fromCompacted = new ArrayList<>();
+        store.forEach(T + 6_000, Long.MAX_VALUE, fromCompacted::add);
+        assertEquals(
+                records.stream().filter(r -> r.timestamp() >= T + 6_000).toList(), fromCompacted);
+    }
+
+    @Test
+    void isDisabledWithoutDirectory() {
+        VersionHistoryStore store = new VersionHistoryStore(new HistoryProperties());
+
+        store.append(List.of(new VersionRecord(T, GRAFANA, "8.0.0")));
+
+        assertEquals(List.of(), readAll(store));
+        assertEquals(Map.of(), store.load().versions());
+    }
+
+    private VersionHistoryStore open() {
+        HistoryProperties properties = new HistoryProperties();
+        properties.setDir(dir.toString());
+        VersionHistoryStore store = new VersionHistoryStore(properties);
+        store.load();
+        return store;
+    }
+
+    private Path file() {
+        return dir.resolve("version-history.bin");
+    }
+
+    private void truncate(long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static List<HistoryRecord> readAll(VersionHistoryStore store) {
+        List<HistoryRecord> records = new ArrayList<>();
+        store.forEach(Long.MIN_VALUE, Long.MAX_VALUE, records::add);
+        return records;
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.martinwitt.mavenversionmcp;
+
+import io.github.martinwitt.mavenversionmcp.utils.MavenDependencyUtil;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the requests to Maven repositories.
+ *
+ * <p>Versions are looked up in every one of the {@code registries}, in order, and their version
+ * lists are merged. Registries marked as {@code fallback} are only asked when none of the others
+ * has the artifact. A registry with a {@code file:} URL is a local repository, such as {@code
+ * ~/.m2/repository} or a mounted mirror, which is indexed in memory and needs no network. Each
+ * registry may have mirrors that serve the same content. A request goes to the registry's URL first
+ * and to the next mirror if it fails, or if it has not answered after the {@code hedge-percentile}
+ * of the URL's recent response times. The first answer wins and the other request is cancelled.
+ * Until a URL has enough samples, {@code initial-hedge-delay} is used instead, and the delay is
+ * never shorter than {@code min-hedge-delay}.
+ *
+ * <p>{@code max-concurrent-requests} caps the metadata requests in flight per repository, however
+ * many lookups run in parallel. A batch lookup gives up on the coordinates not resolved within
+ * {@code batch-timeout} and accepts at most {@code max-batch-size} coordinates.
+ */
+@ConfigurationProperties(prefix = "app.repository")
+public class MavenRepositoryProperties {
+
+    /** Google's mirror of Maven Central. */
+    public static final String GOOGLE_CENTRAL_MIRROR_URL =
+            "https://maven-central.storage-download.googleapis.com/maven2";
+
+    private int maxConcurrentRequests = 8;
+    private Duration batchTimeout = Duration.ofSeconds(30);
+    private int maxBatchSize = 200;
+    private List<Registry> registries =
+            new ArrayList<>(
+                    List.of(
+                            new Registry(
+                                    "central",
+                                    MavenDependencyUtil.MAVEN_CENTRAL_URL,
+                                    List.of(GOOGLE_CENTRAL_MIRROR_URL))));
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private double hedgePercentile = 0.95;
+    private Duration initialHedgeDelay = Duration.ofMillis(500);
+    private Duration minHedgeDelay = Duration.ofMillis(20);
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public Duration getBatchTimeout() {
+        return batchTimeout;
+    }
+
+    public void setBatchTimeout(Duration batchTimeout) {
+        this.batchTimeout = batchTimeout;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public List<Registry> getRegistries() {
+        return registries;
+    }
+
+    public void setRegistries(List<Registry> registries) {
+        this.registries = registries;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public Duration getInitialHedgeDelay() {
+        return initialHedgeDelay;
+    }
+
+    public void setInitialHedgeDelay(Duration initialHedgeDelay) {
+        this.initialHedgeDelay = initialHedgeDelay;
+    }
+
+    public Duration getMinHedgeDelay() {
+        return minHedgeDelay;
+    }
+
+    public void setMinHedgeDelay(Duration minHedgeDelay) {
+        this.minHedgeDelay = minHedgeDelay;
+    }
+
+    /**
+     * A Maven repository, such as Maven Central or an internal Nexus or Artifactory.
+     *
+     * <p>{@code timeout} limits the wait for the response of each request to the repository or one
+     * of its mirrors. A {@code fallback} registry is only asked for artifacts that none of the
+     * other registries has, or could answer for.
+     */
+    public static class Registry {
+
+        private String name;
+        private String url;
+        private List<String> mirrors = new ArrayList<>();
+        private Duration timeout = Duration.ofSeconds(10);
+        private boolean fallback;
+
+        public Registry() {}
+
+        public Registry(String name, String url, List<String> mirrors) {
+            this.name = name;
+            this.url = url;
+            this.mirrors = new ArrayList<>(mirrors);
+        }
+
+        /** The registry URL followed by its mirrors, in the order they are tried. */
+        public List<String> urls() {
+            List<String> urls = new ArrayList<>(mirrors.size() + 1);
+            urls.add(url);
+            urls.addAll(mirrors);
+            return urls;
+        }
+
+        /** True for a local repository directory, given as a {@code file:} URL. */
+        public boolean isLocal() {
+            return url != null && url.startsWith("file:");
+        }
+
+        /** The directory of a local repository. */
+        public Path localPath() {
+            return Path.of(URI.create(url));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public List<String> getMirrors() {
+            return mirrors;
+        }
+
+        public void setMirrors(List<String> mirrors) {
+            this.mirrors = mirrors;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public boolean isFallback() {
+            return fallback;
+        }
+
+        public void setFallback(boolean fallback) {
+            this.fallback = fallback;
+        }
+    }
+}
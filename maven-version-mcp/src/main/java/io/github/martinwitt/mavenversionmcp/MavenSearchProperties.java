@@ -0,0 +1,70 @@
+package io.github.martinwitt.mavenversionmcp;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the Maven Central search API ({@code /solrsearch/select}).
+ *
+ * <p>Results are cached for {@code ttl}, up to {@code maximum-size} distinct queries. A search
+ * returns at most {@code max-rows} artifacts, however many are requested, and {@code default-rows}
+ * if the caller does not say.
+ */
+@ConfigurationProperties(prefix = "app.search")
+public class MavenSearchProperties {
+
+    private String url = "https://search.maven.org";
+    private Duration timeout = Duration.ofSeconds(10);
+    private Duration ttl = Duration.ofMinutes(30);
+    private long maximumSize = 1_000;
+    private int defaultRows = 10;
+    private int maxRows = 50;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public int getDefaultRows() {
+        return defaultRows;
+    }
+
+    public void setDefaultRows(int defaultRows) {
+        this.defaultRows = defaultRows;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+}
@@ -2,10 +2,17 @@ package io.github.martinwitt.mavenversionmcp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableCaching
+@EnableScheduling
+@EnableConfigurationProperties({
+    MetadataCacheProperties.class,
+    MavenRepositoryProperties.class,
+    MavenSearchProperties.class,
+    PomCacheProperties.class
+})
 public class MavenVersionMcpApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,109 @@
+package io.github.martinwitt.mavenversionmcp;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Cache settings for the version lists read from maven-metadata.xml.
+ *
+ * <p>Entries are refreshed in the background once they are older than {@code refresh-after}, so
+ * frequently requested artifacts are served from the cache while the refresh runs. An entry that is
+ * not requested again expires after {@code ttl}. Missing artifacts and failed lookups are kept for
+ * {@code negative-ttl} only, so a new artifact or a recovered repository shows up quickly.
+ *
+ * <p>If {@code snapshot-file} is set, the version lists are written to that file every {@code
+ * snapshot-interval} and on shutdown, and read back on startup, so that a restarted server answers
+ * from its cache right away. Restored entries keep their age, and those older than {@code
+ * refresh-after} are revalidated on their first access.
+ *
+ * <p>Every {@code prewarm-interval}, the {@code prewarm-top-n} most requested artifacts and the
+ * {@code prewarm-seeds}, given as {@code groupId:artifactId}, are loaded or refreshed ahead of
+ * their expiry. Setting {@code prewarm-top-n} to 0 only warms the seeds.
+ */
+@ConfigurationProperties(prefix = "app.metadata-cache")
+public class MetadataCacheProperties {
+
+    private long maximumSize = 10_000;
+    private Duration ttl = Duration.ofHours(6);
+    private Duration refreshAfter = Duration.ofMinutes(15);
+    private Duration negativeTtl = Duration.ofMinutes(1);
+    private String snapshotFile;
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    private int prewarmTopN = 300;
+    private Duration prewarmInterval = Duration.ofMinutes(5);
+    private List<String> prewarmSeeds = new ArrayList<>();
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getRefreshAfter() {
+        return refreshAfter;
+    }
+
+    public void setRefreshAfter(Duration refreshAfter) {
+        this.refreshAfter = refreshAfter;
+    }
+
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    public void setNegativeTtl(Duration negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public int getPrewarmTopN() {
+        return prewarmTopN;
+    }
+
+    public void setPrewarmTopN(int prewarmTopN) {
+        this.prewarmTopN = prewarmTopN;
+    }
+
+    public Duration getPrewarmInterval() {
+        return prewarmInterval;
+    }
+
+    public void setPrewarmInterval(Duration prewarmInterval) {
+        this.prewarmInterval = prewarmInterval;
+    }
+
+    public List<String> getPrewarmSeeds() {
+        return prewarmSeeds;
+    }
+
+    public void setPrewarmSeeds(List<String> prewarmSeeds) {
+        this.prewarmSeeds = prewarmSeeds;
+    }
+}
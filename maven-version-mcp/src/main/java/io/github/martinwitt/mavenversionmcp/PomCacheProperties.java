@@ -0,0 +1,35 @@
+package io.github.martinwitt.mavenversionmcp;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Cache settings for the parent and BOM POMs fetched to analyze a pom.xml.
+ *
+ * <p>Released POMs never change, and a few BOMs such as {@code spring-boot-dependencies} are
+ * imported by almost every project, so both the parsed POMs and the versions managed by each BOM
+ * are kept for {@code ttl}, up to {@code maximum-size} entries each. Missing POMs and failed
+ * fetches are not cached.
+ */
+@ConfigurationProperties(prefix = "app.pom-cache")
+public class PomCacheProperties {
+
+    private long maximumSize = 5_000;
+    private Duration ttl = Duration.ofHours(24);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+}
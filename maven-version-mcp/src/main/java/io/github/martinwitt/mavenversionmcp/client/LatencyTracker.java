@@ -0,0 +1,44 @@
+package io.github.martinwitt.mavenversionmcp.client;
+
+import java.util.Arrays;
+
+/**
+ * Response times of the most recent requests to one repository URL.
+ *
+ * <p>Keeps the last {@value #SIZE} samples in a ring buffer, so the percentiles follow the current
+ * state of the repository rather than its whole history.
+ */
+final class LatencyTracker {
+
+    static final int SIZE = 128;
+
+    /** Fewer samples than this say too little about the repository to derive a percentile. */
+    static final int MIN_SAMPLES = 10;
+
+    private final long[] samples = new long[SIZE];
+    private int count;
+    private int next;
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % SIZE;
+        count = Math.min(count + 1, SIZE);
+    }
+
+    /**
+     * The given percentile of the recorded response times.
+     *
+     * @param percentile Between 0 and 1
+     * @return The response time in nanoseconds, or -1 if fewer than {@value #MIN_SAMPLES} were
+     *     recorded
+     */
+    synchronized long percentile(double percentile) {
+        if (count < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * count);
+        return sorted[Math.clamp(rank - 1, 0, count - 1)];
+    }
+}
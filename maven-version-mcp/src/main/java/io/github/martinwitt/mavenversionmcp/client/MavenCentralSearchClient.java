@@ -0,0 +1,110 @@
+package io.github.martinwitt.mavenversionmcp.client;
+
+import io.github.martinwitt.mavenversionmcp.MavenSearchProperties;
+import io.github.martinwitt.mavenversionmcp.client.dto.CentralSearchHit;
+import io.github.martinwitt.mavenversionmcp.client.dto.CentralSearchResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * HTTP client for the Maven Central search API, as described in {@code maven-central-api.yaml}.
+ *
+ * <p>Only {@code /solrsearch/select} with JSON responses is used. The response is read into a tree
+ * first, which stays small because the number of rows is capped, and each document is then reduced
+ * to coordinates, version, packaging and timestamp.
+ */
+@Component
+public class MavenCentralSearchClient {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration timeout;
+
+    public MavenCentralSearchClient(MavenSearchProperties properties) {
+        this(
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(CONNECT_TIMEOUT)
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build(),
+                properties);
+    }
+
+    MavenCentralSearchClient(HttpClient httpClient, MavenSearchProperties properties) {
+        this.httpClient = httpClient;
+        this.baseUrl = properties.getUrl().replaceAll("/$", "");
+        this.timeout = properties.getTimeout();
+    }
+
+    /**
+     * Search Maven Central.
+     *
+     * @param query Solr query, such as {@code guice}, {@code fc:org.junit.Test} or {@code 1:<sha1>}
+     * @param rows Maximum number of documents to return
+     * @return The matching documents
+     * @throws IOException if the request fails, the server answers with an error status or the
+     *     response is not valid JSON
+     */
+    public CentralSearchResponse search(String query, int rows) throws IOException {
+        URI uri =
+                URI.create(
+                        baseUrl
+                                + "/solrsearch/select?q="
+                                + URLEncoder.encode(query, StandardCharsets.UTF_8)
+                                + "&rows="
+                                + rows
+                                + "&wt=json");
+        HttpRequest request =
+                HttpRequest.newBuilder(uri)
+                        .timeout(timeout)
+                        .header("Accept", "application/json")
+                        .GET()
+                        .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while searching for " + query, e);
+        }
+
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException(
+                        "Unexpected HTTP status "
+                                + response.statusCode()
+                                + " searching for "
+                                + query);
+            }
+            JsonNode result = JsonMapper.shared().readTree(body).path("response");
+            List<CentralSearchHit> hits = new ArrayList<>();
+            for (JsonNode doc : result.path("docs")) {
+                hits.add(
+                        new CentralSearchHit(
+                                doc.path("g").asString(null),
+                                doc.path("a").asString(null),
+                                doc.path("v").asString(doc.path("latestVersion").asString(null)),
+                                doc.path("p").asString(null),
+                                doc.path("timestamp").asLong(0)));
+            }
+            return new CentralSearchResponse(result.path("numFound").asLong(hits.size()), hits);
+        } catch (JacksonException e) {
+            throw new IOException("Malformed search response for " + query, e);
+        }
+    }
+}
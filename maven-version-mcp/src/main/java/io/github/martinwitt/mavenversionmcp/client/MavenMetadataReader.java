@@ -0,0 +1,116 @@
+package io.github.martinwitt.mavenversionmcp.client;
+
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenMetadata;
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenVersioning;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads maven-metadata.xml with StAX straight from a stream.
+ *
+ * <p>Only the coordinates and the {@code <versioning>} element are read; every other element is
+ * skipped without building a tree or binding it. DTDs and external entities are disabled.
+ */
+public final class MavenMetadataReader {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private MavenMetadataReader() {}
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Reads the metadata from a stream, which is left open.
+     *
+     * @param in maven-metadata.xml content
+     * @return The metadata; {@link MavenMetadata#versioning()} is null if the document has no
+     *     {@code <versioning>} element, and its versions are null without a {@code <versions>}
+     *     element
+     * @throws XMLStreamException if the document is not well-formed
+     */
+    public static MavenMetadata read(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            String groupId = null;
+            String artifactId = null;
+            boolean hasVersioning = false;
+            String latest = null;
+            String release = null;
+            String lastUpdated = null;
+            List<String> versions = null;
+
+            // The enclosing <versioning> and <versions> elements, or null outside of them
+            String section = null;
+            String list = null;
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 3) {
+                        list = null;
+                    } else if (depth == 2) {
+                        section = null;
+                    }
+                    depth--;
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                depth++;
+                String name = reader.getLocalName();
+                if (depth == 2) {
+                    switch (name) {
+                        case "groupId" -> groupId = text(reader);
+                        case "artifactId" -> artifactId = text(reader);
+                        case "versioning" -> {
+                            hasVersioning = true;
+                            section = name;
+                        }
+                        default -> {}
+                    }
+                } else if (depth == 3 && "versioning".equals(section)) {
+                    switch (name) {
+                        case "latest" -> latest = text(reader);
+                        case "release" -> release = text(reader);
+                        case "lastUpdated" -> lastUpdated = text(reader);
+                        case "versions" -> {
+                            versions = new ArrayList<>();
+                            list = name;
+                        }
+                        default -> {}
+                    }
+                } else if (depth == 4 && "versions".equals(list) && name.equals("version")) {
+                    versions.add(text(reader));
+                }
+                if (reader.getEventType() == XMLStreamConstants.END_ELEMENT) {
+                    // the element text was read up to its end tag
+                    depth--;
+                }
+            }
+
+            MavenVersioning versioning =
+                    hasVersioning
+                            ? new MavenVersioning(latest, release, versions, lastUpdated)
+                            : null;
+            return new MavenMetadata(groupId, artifactId, versioning);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String text(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+}
@@ -1,30 +1,377 @@
 package io.github.martinwitt.mavenversionmcp.client;
 
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenMetadata;
+import io.github.martinwitt.mavenversionmcp.client.dto.Pom;
+import io.github.martinwitt.mavenversionmcp.utils.MavenDependencyUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * HTTP client for fetching Maven metadata and POM files.
  *
- * <p>Provides direct access to Maven repository metadata and artifact files using RestTemplate.
+ * <p>A single JDK {@link HttpClient} is shared by all requests. It prefers HTTP/2, so concurrent
+ * requests to the same repository are multiplexed over one pooled connection, and falls back to
+ * HTTP/1.1 with keep-alive where the server does not support it.
+ *
+ * <p>Requests for metadata and POMs are hedged across the mirrors of a registry. The registry's URL
+ * is asked first; if it fails, or has not answered within its usual response time, the next mirror
+ * is asked as well. The first usable answer wins and the requests still in flight are cancelled.
+ * Requests to further mirrors are counted in {@code maven.repository.hedge} by the reason they were
+ * sent.
  */
 @Component
 public class MavenRepositoryClient {
 
+    private static final Logger logger = LoggerFactory.getLogger(MavenRepositoryClient.class);
+
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
     private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final double hedgePercentile;
+    private final long initialHedgeDelayNanos;
+    private final long minHedgeDelayNanos;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
 
-    public MavenRepositoryClient() {
-        this.restTemplate = new RestTemplate();
+    public MavenRepositoryClient(
+            MavenRepositoryProperties properties, MeterRegistry meterRegistry) {
+        this(
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(properties.getConnectTimeout())
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build(),
+                properties,
+                meterRegistry);
+    }
+
+    MavenRepositoryClient(
+            HttpClient httpClient,
+            MavenRepositoryProperties properties,
+            MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.meterRegistry = meterRegistry;
+        this.hedgePercentile = properties.getHedgePercentile();
+        this.initialHedgeDelayNanos = properties.getInitialHedgeDelay().toNanos();
+        this.minHedgeDelayNanos = properties.getMinHedgeDelay().toNanos();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(RESPONSE_TIMEOUT);
+        this.restTemplate = new RestTemplate(requestFactory);
     }
 
     /**
-     * Fetch maven-metadata.xml as a string.
+     * Validators from a previous download of the same metadata, used for a conditional request.
      *
-     * @param url The full URL to the maven-metadata.xml file
-     * @return XML content as string
+     * @param etag ETag response header, or null
+     * @param lastModified Last-Modified response header, or null
      */
-    public String fetchMetadataXml(String url) {
-        return restTemplate.getForObject(url, String.class);
+    public record Validators(String etag, String lastModified) {
+        public static final Validators NONE = new Validators(null, null);
+    }
+
+    /**
+     * Outcome of a metadata request.
+     *
+     * @param status How the repository answered
+     * @param validators Validators to send with the next request for this metadata
+     * @param metadata The parsed metadata; null unless {@link Status#OK}
+     */
+    public record MetadataResponse(Status status, Validators validators, MavenMetadata metadata) {
+
+        public enum Status {
+            /** The metadata was downloaded and parsed. */
+            OK,
+            /** The server answered 304 and no body was read. */
+            NOT_MODIFIED,
+            /** The repository has no metadata for the artifact. */
+            NOT_FOUND
+        }
+    }
+
+    /**
+     * Fetch an artifact's maven-metadata.xml from a registry and parse it while it is received.
+     *
+     * <p>Sends If-None-Match/If-Modified-Since when validators are given, so unchanged metadata
+     * costs a 304 without a body and without parsing. Every mirror of the registry must serve the
+     * same metadata for the validators to stay meaningful.
+     *
+     * @param registry The registry and its mirrors
+     * @param groupId Maven groupId
+     * @param artifactId Maven artifactId
+     * @param validators Validators of the previously read copy, or {@link Validators#NONE}
+     * @return The response outcome
+     * @throws IOException if the registry and all its mirrors failed or answered with an error
+     *     status, or the document is malformed
+     */
+    public MetadataResponse fetchMetadata(
+            Registry registry, String groupId, String artifactId, Validators validators)
+            throws IOException {
+        return fetch(
+                registry,
+                baseUrl -> MavenDependencyUtil.getMavenMetadataUrl(baseUrl, groupId, artifactId),
+                validators,
+                (response, body) -> readMetadata(response, body, validators));
+    }
+
+    /**
+     * Fetch and parse a POM file from a registry, asking its mirrors like {@link #fetchMetadata}. A
+     * local repository is read directly.
+     *
+     * @param registry The registry and its mirrors
+     * @param groupId Maven groupId
+     * @param artifactId Maven artifactId
+     * @param version Artifact version
+     * @return The POM, or null if the registry does not have it
+     * @throws IOException if the registry and all its mirrors failed or answered with an error
+     *     status, or the document is malformed
+     */
+    public Pom fetchPom(Registry registry, String groupId, String artifactId, String version)
+            throws IOException {
+        if (registry.isLocal()) {
+            return readLocalPom(registry, groupId, artifactId, version);
+        }
+        return fetch(
+                registry,
+                baseUrl -> MavenDependencyUtil.getPomUrl(baseUrl, groupId, artifactId, version),
+                Validators.NONE,
+                (response, body) -> response.statusCode() == 404 ? null : PomReader.read(body));
+    }
+
+    private static Pom readLocalPom(
+            Registry registry, String groupId, String artifactId, String version)
+            throws IOException {
+        Path file =
+                registry.localPath()
+                        .resolve(MavenDependencyUtil.convertGroupIdToPath(groupId))
+                        .resolve(artifactId)
+                        .resolve(version)
+                        .resolve(artifactId + "-" + version + ".pom");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return PomReader.read(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed XML at " + file, e);
+        }
+    }
+
+    /** Reads the answer of the request that won. The body is closed by the caller. */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(HttpResponse<InputStream> response, InputStream body)
+                throws IOException, XMLStreamException;
+    }
+
+    /**
+     * Sends a request to the registry and, if it fails or is slow, to its mirrors, and reads the
+     * first answer with 200, 304 or 404.
+     *
+     * @param urlFor The URL of the requested file for a registry or mirror base URL
+     */
+    private <T> T fetch(
+            Registry registry,
+            Function<String, String> urlFor,
+            Validators validators,
+            ResponseReader<T> reader)
+            throws IOException {
+        List<String> urls = registry.urls();
+        BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+        List<Attempt> started = new ArrayList<>(urls.size());
+        try {
+            started.add(send(registry, urls.getFirst(), urlFor, validators, completed));
+            int pending = 1;
+            IOException failure = null;
+            while (pending > 0) {
+                boolean mirrorsLeft = started.size() < urls.size();
+                Attempt done =
+                        mirrorsLeft
+                                ? completed.poll(
+                                        hedgeDelayNanos(started.getLast().baseUrl),
+                                        TimeUnit.NANOSECONDS)
+                                : completed.take();
+                String reason;
+                if (done == null) {
+                    // the last request takes longer than usual, ask the next mirror as well
+                    reason = "slow";
+                } else {
+                    pending--;
+                    IOException error = check(done);
+                    if (error == null) {
+                        return read(done, reader);
+                    }
+                    logger.warn("Request to {} failed: {}", done.url, error.getMessage());
+                    failure = error;
+                    if (!mirrorsLeft) {
+                        continue;
+                    }
+                    reason = "failed";
+                }
+                String next = urls.get(started.size());
+                logger.debug(
+                        "Asking mirror {} of {}, previous request {}",
+                        next,
+                        registry.getUrl(),
+                        reason);
+                hedged(registry, reason);
+                started.add(send(registry, next, urlFor, validators, completed));
+                pending++;
+            }
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching from " + registry.getUrl(), e);
+        } finally {
+            started.forEach(Attempt::cancel);
+        }
+    }
+
+    private Attempt send(
+            Registry registry,
+            String baseUrl,
+            Function<String, String> urlFor,
+            Validators validators,
+            BlockingQueue<Attempt> completed) {
+        String url = urlFor.apply(baseUrl);
+        HttpRequest.Builder builder =
+                HttpRequest.newBuilder(URI.create(url))
+                        .timeout(registry.getTimeout())
+                        .header("Accept-Encoding", "gzip")
+                        .GET();
+        if (validators.etag() != null) {
+            builder.header("If-None-Match", validators.etag());
+        }
+        if (validators.lastModified() != null) {
+            builder.header("If-Modified-Since", validators.lastModified());
+        }
+        Attempt attempt =
+                new Attempt(
+                        baseUrl,
+                        url,
+                        System.nanoTime(),
+                        httpClient.sendAsync(
+                                builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+        attempt.future.whenComplete((response, e) -> completed.add(attempt));
+        return attempt;
+    }
+
+    /**
+     * Checks that a completed request has an answer to use, and records its response time.
+     *
+     * @return null if the request was answered with 200, 304 or 404, otherwise its failure
+     */
+    private IOException check(Attempt attempt) {
+        if (attempt.future.state() != Future.State.SUCCESS) {
+            Throwable cause = attempt.future.exceptionNow();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            return cause instanceof IOException io
+                    ? io
+                    : new IOException(cause.getMessage(), cause);
+        }
+        int status = attempt.future.resultNow().statusCode();
+        if (status != 200 && status != 304 && status != 404) {
+            attempt.cancel();
+            return new IOException("Unexpected HTTP status " + status + " from " + attempt.url);
+        }
+        latencies
+                .computeIfAbsent(attempt.baseUrl, k -> new LatencyTracker())
+                .record(System.nanoTime() - attempt.startedAt);
+        return null;
+    }
+
+    private static <T> T read(Attempt attempt, ResponseReader<T> reader) throws IOException {
+        HttpResponse<InputStream> response = attempt.future.resultNow();
+        try (InputStream body = response.body()) {
+            InputStream decoded =
+                    response.headers()
+                                    .firstValue("Content-Encoding")
+                                    .filter("gzip"::equalsIgnoreCase)
+                                    .isPresent()
+                            ? new GZIPInputStream(body, 8192)
+                            : body;
+            return reader.read(response, decoded);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed XML at " + attempt.url, e);
+        }
+    }
+
+    private static MetadataResponse readMetadata(
+            HttpResponse<InputStream> response, InputStream body, Validators validators)
+            throws XMLStreamException {
+        if (response.statusCode() == 304) {
+            // a 304 may carry a new ETag, otherwise the old validators stay valid
+            return new MetadataResponse(
+                    MetadataResponse.Status.NOT_MODIFIED,
+                    response.headers()
+                            .firstValue("ETag")
+                            .map(etag -> new Validators(etag, validators.lastModified()))
+                            .orElse(validators),
+                    null);
+        }
+        if (response.statusCode() == 404) {
+            return new MetadataResponse(MetadataResponse.Status.NOT_FOUND, Validators.NONE, null);
+        }
+        Validators received =
+                new Validators(
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null));
+        return new MetadataResponse(
+                MetadataResponse.Status.OK, received, MavenMetadataReader.read(body));
+    }
+
+    /**
+     * How long to wait for a URL before asking the next mirror: the configured percentile of its
+     * recent response times, or the initial delay until enough of them are known.
+     */
+    private long hedgeDelayNanos(String baseUrl) {
+        long percentile =
+                latencies
+                        .computeIfAbsent(baseUrl, k -> new LatencyTracker())
+                        .percentile(hedgePercentile);
+        return Math.max(minHedgeDelayNanos, percentile < 0 ? initialHedgeDelayNanos : percentile);
+    }
+
+    private void hedged(Registry registry, String reason) {
+        Counter.builder("maven.repository.hedge")
+                .description("Requests sent to a further mirror of a registry")
+                .tag(
+                        "registry",
+                        registry.getName() != null ? registry.getName() : registry.getUrl())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
     }
 
     /**
@@ -46,4 +393,35 @@ public class MavenRepositoryClient {
     public byte[] fetchFile(String url) {
         return restTemplate.getForObject(url, byte[].class);
     }
+
+    /** A request to one of the URLs of a registry. */
+    private static final class Attempt {
+        final String baseUrl;
+        final String url;
+        final long startedAt;
+        final CompletableFuture<HttpResponse<InputStream>> future;
+
+        Attempt(
+                String baseUrl,
+                String url,
+                long startedAt,
+                CompletableFuture<HttpResponse<InputStream>> future) {
+            this.baseUrl = baseUrl;
+            this.url = url;
+            this.startedAt = startedAt;
+            this.future = future;
+        }
+
+        /** Aborts the exchange if it is still running, or releases the response if it is not. */
+        void cancel() {
+            future.cancel(true);
+            if (future.state() == Future.State.SUCCESS) {
+                try {
+                    future.resultNow().body().close();
+                } catch (IOException e) {
+                    // nothing left to release
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,178 @@
+package io.github.martinwitt.mavenversionmcp.client;
+
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenDependencyParts;
+import io.github.martinwitt.mavenversionmcp.client.dto.Pom;
+import io.github.martinwitt.mavenversionmcp.client.dto.PomArtifact;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the coordinates, properties, dependencies and plugins of a pom.xml with StAX.
+ *
+ * <p>Like {@link MavenMetadataReader}, every other element is skipped without building a tree, and
+ * DTDs and external entities are disabled.
+ */
+public final class PomReader {
+
+    /** groupId of plugins that do not declare one. */
+    public static final String DEFAULT_PLUGIN_GROUP_ID = "org.apache.maven.plugins";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private PomReader() {}
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Reads a POM from a stream, which is left open.
+     *
+     * @param in pom.xml content
+     * @return The POM
+     * @throws XMLStreamException if the document is not well-formed
+     */
+    public static Pom read(InputStream in) throws XMLStreamException {
+        return read(FACTORY.createXMLStreamReader(in));
+    }
+
+    /**
+     * Reads a POM from characters, such as a pom.xml passed as a string.
+     *
+     * @param in pom.xml content
+     * @return The POM
+     * @throws XMLStreamException if the document is not well-formed
+     */
+    public static Pom read(Reader in) throws XMLStreamException {
+        return read(FACTORY.createXMLStreamReader(in));
+    }
+
+    private static Pom read(XMLStreamReader reader) throws XMLStreamException {
+        try {
+            String groupId = null;
+            String artifactId = null;
+            String version = null;
+            boolean hasParent = false;
+            String parentGroupId = null;
+            String parentArtifactId = null;
+            String parentVersion = null;
+            Map<String, String> properties = new LinkedHashMap<>();
+            List<PomArtifact> managedDependencies = new ArrayList<>();
+            List<PomArtifact> dependencies = new ArrayList<>();
+            List<PomArtifact> managedPlugins = new ArrayList<>();
+            List<PomArtifact> plugins = new ArrayList<>();
+
+            // Names of the enclosing elements, starting with <project>
+            List<String> path = new ArrayList<>();
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    path.removeLast();
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                path.add(name);
+                switch (String.join("/", path)) {
+                    case "project/groupId" -> groupId = text(reader);
+                    case "project/artifactId" -> artifactId = text(reader);
+                    case "project/version" -> version = text(reader);
+                    case "project/parent" -> hasParent = true;
+                    case "project/parent/groupId" -> parentGroupId = text(reader);
+                    case "project/parent/artifactId" -> parentArtifactId = text(reader);
+                    case "project/parent/version" -> parentVersion = text(reader);
+                    case "project/dependencyManagement/dependencies/dependency" ->
+                            managedDependencies.add(artifact(reader, null));
+                    case "project/dependencies/dependency" ->
+                            dependencies.add(artifact(reader, null));
+                    case "project/build/pluginManagement/plugins/plugin" ->
+                            managedPlugins.add(artifact(reader, DEFAULT_PLUGIN_GROUP_ID));
+                    case "project/build/plugins/plugin" ->
+                            plugins.add(artifact(reader, DEFAULT_PLUGIN_GROUP_ID));
+                    default -> {
+                        if (path.size() == 3 && path.get(1).equals("properties")) {
+                            properties.put(name, text(reader));
+                        }
+                    }
+                }
+                if (reader.getEventType() == XMLStreamConstants.END_ELEMENT) {
+                    // the element was read up to its end tag
+                    path.removeLast();
+                }
+            }
+
+            MavenDependencyParts parent =
+                    hasParent
+                            ? new MavenDependencyParts(
+                                    parentGroupId, parentArtifactId, parentVersion)
+                            : null;
+            return new Pom(
+                    groupId,
+                    artifactId,
+                    version,
+                    parent,
+                    properties,
+                    managedDependencies,
+                    dependencies,
+                    managedPlugins,
+                    plugins);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /** Reads a {@code <dependency>} or {@code <plugin>} element up to its end tag. */
+    private static PomArtifact artifact(XMLStreamReader reader, String defaultGroupId)
+            throws XMLStreamException {
+        String groupId = defaultGroupId;
+        String artifactId = null;
+        String version = null;
+        String type = null;
+        String scope = null;
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "groupId" -> groupId = text(reader);
+                case "artifactId" -> artifactId = text(reader);
+                case "version" -> version = text(reader);
+                case "type" -> type = text(reader);
+                case "scope" -> scope = text(reader);
+                default -> skip(reader);
+            }
+        }
+        return new PomArtifact(groupId, artifactId, version, type, scope);
+    }
+
+    /** Skips the current element, including its children, up to its end tag. */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String text(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.martinwitt.mavenversionmcp.client.dto;
+
+/**
+ * One document of a Maven Central search response, reduced to the fields that are used.
+ *
+ * @param groupId Maven groupId
+ * @param artifactId Maven artifactId
+ * @param version The matching version for version-level results, such as class or checksum
+ *     searches; for artifact-level keyword results, the latest version
+ * @param packaging Packaging, such as jar or pom
+ * @param timestamp Release time in milliseconds since the epoch, or 0 if unknown
+ */
+public record CentralSearchHit(
+        String groupId, String artifactId, String version, String packaging, long timestamp) {}
@@ -0,0 +1,11 @@
+package io.github.martinwitt.mavenversionmcp.client.dto;
+
+import java.util.List;
+
+/**
+ * A Maven Central search response.
+ *
+ * @param numFound Number of matching documents, which may be more than returned
+ * @param hits The returned documents, at most as many as requested
+ */
+public record CentralSearchResponse(long numFound, List<CentralSearchHit> hits) {}
@@ -1,9 +1,10 @@
 package io.github.martinwitt.mavenversionmcp.client.dto;
 
 /**
- * Parsed Maven dependency parts (groupId:artifactId).
+ * Parsed Maven dependency parts (groupId:artifactId[:version]).
  *
  * @param groupId Maven groupId
  * @param artifactId Maven artifactId
+ * @param version Version, or null if the dependency string has none
  */
-public record MavenDependencyParts(String groupId, String artifactId) {}
+public record MavenDependencyParts(String groupId, String artifactId, String version) {}
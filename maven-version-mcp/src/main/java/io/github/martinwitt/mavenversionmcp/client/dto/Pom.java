@@ -0,0 +1,30 @@
+package io.github.martinwitt.mavenversionmcp.client.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for the parts of a pom.xml that determine the versions of its dependencies and plugins, as
+ * far as they are read by {@link io.github.martinwitt.mavenversionmcp.client.PomReader}. Profiles
+ * are not read.
+ *
+ * @param groupId Project groupId, or null if it is inherited from the parent
+ * @param artifactId Project artifactId
+ * @param version Project version, or null if it is inherited from the parent
+ * @param parent Coordinates of the parent POM, or null
+ * @param properties Entries of {@code <properties>}
+ * @param managedDependencies Entries of {@code <dependencyManagement>}, including BOM imports
+ * @param dependencies Entries of {@code <dependencies>}
+ * @param managedPlugins Entries of {@code <build><pluginManagement>}
+ * @param plugins Entries of {@code <build><plugins>}
+ */
+public record Pom(
+        String groupId,
+        String artifactId,
+        String version,
+        MavenDependencyParts parent,
+        Map<String, String> properties,
+        List<PomArtifact> managedDependencies,
+        List<PomArtifact> dependencies,
+        List<PomArtifact> managedPlugins,
+        List<PomArtifact> plugins) {}
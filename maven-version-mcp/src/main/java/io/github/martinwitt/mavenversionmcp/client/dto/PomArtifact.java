@@ -0,0 +1,24 @@
+package io.github.martinwitt.mavenversionmcp.client.dto;
+
+/**
+ * A dependency or plugin declared in a pom.xml, as written, before properties are interpolated.
+ *
+ * @param groupId Maven groupId; for plugins without one, {@code org.apache.maven.plugins}
+ * @param artifactId Maven artifactId
+ * @param version Version, or null if it is managed elsewhere
+ * @param type Dependency type, or null for the default {@code jar}
+ * @param scope Dependency scope, or null
+ */
+public record PomArtifact(
+        String groupId, String artifactId, String version, String type, String scope) {
+
+    /** True for a {@code <dependencyManagement>} entry that imports a BOM. */
+    public boolean isImport() {
+        return "import".equals(scope) && "pom".equals(type);
+    }
+
+    /** The groupId:artifactId under which the artifact is managed. */
+    public String key() {
+        return groupId + ":" + artifactId;
+    }
+}
@@ -1,9 +1,13 @@
 package io.github.martinwitt.mavenversionmcp.config;
 
 import io.github.martinwitt.mavenversionmcp.client.dto.MavenDependencyParts;
-import io.github.martinwitt.mavenversionmcp.client.dto.MavenMetadata;
-import io.github.martinwitt.mavenversionmcp.client.dto.MavenVersioning;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.ArtifactExistsResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.ArtifactSearchHit;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.ArtifactSearchResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.BatchVersionResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.DependencyVersionResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.PomAnalysisResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.PomArtifactResult;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.VersionComparisonResult;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.VersionInfoResult;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.VersionResult;
@@ -16,10 +20,14 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @RegisterReflectionForBinding({
     ArtifactExistsResult.class,
+    ArtifactSearchHit.class,
+    ArtifactSearchResult.class,
+    BatchVersionResult.class,
     DefaultMetaProvider.class,
+    DependencyVersionResult.class,
     MavenDependencyParts.class,
-    MavenMetadata.class,
-    MavenVersioning.class,
+    PomAnalysisResult.class,
+    PomArtifactResult.class,
     VersionComparisonResult.class,
     VersionInfoResult.class,
     VersionResult.class,
@@ -0,0 +1,118 @@
+package io.github.martinwitt.mavenversionmcp.mcp;
+
+import io.github.martinwitt.mavenversionmcp.client.dto.CentralSearchHit;
+import io.github.martinwitt.mavenversionmcp.client.dto.CentralSearchResponse;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.ArtifactSearchHit;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.ArtifactSearchResult;
+import io.github.martinwitt.mavenversionmcp.service.MavenSearchService;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.mcp.annotation.McpTool;
+import org.springframework.ai.mcp.annotation.McpToolParam;
+import org.springframework.stereotype.Component;
+
+/**
+ * MCP Tools for finding Maven artifacts on Maven Central.
+ *
+ * <p>Exposes searches by keyword, class name and SHA-1 checksum, for when the coordinates of an
+ * artifact are not known yet.
+ */
+@Component
+public class MavenSearchMcpTools {
+
+    private static final Logger logger = LoggerFactory.getLogger(MavenSearchMcpTools.class);
+
+    private final MavenSearchService searchService;
+
+    public MavenSearchMcpTools(MavenSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @McpTool(
+            name = "maven-search",
+            description =
+                    """
+                    Search Maven Central for artifacts by keyword when you do not know the exact\
+                     coordinates, instead of guessing groupId and artifactId and checking\
+                     them with maven-artifact-exists. Returns one entry per artifact with\
+                     its latest version. Plain keywords match names and descriptions; the\
+                     query may also use the search syntax, e.g. 'g:com.google.inject',\
+                     'a:guice' or 'g:com.google.inject AND a:guice'.\
+                    """)
+    public ArtifactSearchResult search(
+            @McpToolParam(description = "Search keywords or query (e.g., guice)", required = true)
+                    String query,
+            @McpToolParam(
+                            description =
+                                    "Maximum number of results (optional, capped by the server)",
+                            required = false)
+                    Integer rows) {
+
+        logger.info("Searching for {}", query);
+        return toResult(query, searchService.searchByKeyword(query, rows));
+    }
+
+    @McpTool(
+            name = "maven-search-by-class",
+            description =
+                    """
+                    Find which Maven artifacts contain a Java class, e.g. to resolve an unknown\
+                     import or a ClassNotFoundException. Pass a simple class name\
+                     (ImmutableList) or, for far fewer false matches, a fully qualified one\
+                     (com.google.common.collect.ImmutableList). Returns one entry per\
+                     artifact version containing the class.\
+                    """)
+    public ArtifactSearchResult searchByClass(
+            @McpToolParam(
+                            description =
+                                    "Simple or fully qualified class name (e.g.,"
+                                            + " com.google.common.collect.ImmutableList)",
+                            required = true)
+                    String className,
+            @McpToolParam(
+                            description =
+                                    "Maximum number of results (optional, capped by the server)",
+                            required = false)
+                    Integer rows) {
+
+        logger.info("Searching for class {}", className);
+        return toResult(className, searchService.searchByClassName(className, rows));
+    }
+
+    @McpTool(
+            name = "maven-search-by-sha1",
+            description =
+                    """
+                    Identify the Maven artifact and version of a jar file by its SHA-1 checksum,\
+                     e.g. for a jar in a lib folder without build metadata. Returns the\
+                     artifact versions that published a file with this checksum.\
+                    """)
+    public ArtifactSearchResult searchBySha1(
+            @McpToolParam(description = "SHA-1 checksum as 40 hexadecimal digits", required = true)
+                    String sha1) {
+
+        logger.info("Searching for checksum {}", sha1);
+        return toResult(sha1, searchService.searchBySha1(sha1));
+    }
+
+    private static ArtifactSearchResult toResult(String query, CentralSearchResponse response) {
+        return new ArtifactSearchResult(
+                query,
+                response.numFound(),
+                response.hits().stream().map(MavenSearchMcpTools::toHit).toList());
+    }
+
+    private static ArtifactSearchHit toHit(CentralSearchHit hit) {
+        String released =
+                hit.timestamp() > 0
+                        ? Instant.ofEpochMilli(hit.timestamp())
+                                .atZone(ZoneOffset.UTC)
+                                .toLocalDate()
+                                .toString()
+                        : null;
+        return new ArtifactSearchHit(
+                hit.groupId(), hit.artifactId(), hit.version(), hit.packaging(), released);
+    }
+}
@@ -1,11 +1,16 @@
 package io.github.martinwitt.mavenversionmcp.mcp;
 
 import io.github.martinwitt.mavenversionmcp.mcp.dto.ArtifactExistsResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.BatchVersionResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.DependencyVersionResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.PomAnalysisResult;
+import io.github.martinwitt.mavenversionmcp.mcp.dto.PomArtifactResult;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.VersionComparisonResult;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.VersionInfoResult;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.VersionResult;
 import io.github.martinwitt.mavenversionmcp.mcp.dto.VersionsListResult;
 import io.github.martinwitt.mavenversionmcp.service.MavenMetadataService;
+import io.github.martinwitt.mavenversionmcp.service.PomAnalysisService;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,18 +30,22 @@ public class MavenVersionMcpTools {
     private static final Logger logger = LoggerFactory.getLogger(MavenVersionMcpTools.class);
 
     private final MavenMetadataService metadataService;
+    private final PomAnalysisService pomAnalysisService;
 
-    public MavenVersionMcpTools(MavenMetadataService metadataService) {
+    public MavenVersionMcpTools(
+            MavenMetadataService metadataService, PomAnalysisService pomAnalysisService) {
         this.metadataService = metadataService;
+        this.pomAnalysisService = pomAnalysisService;
     }
 
     @McpTool(
             name = "maven-get-latest-version",
             description =
                     """
-                    Look up the newest published version of a Maven artifact on Maven Central,\
-                     including snapshots and pre-releases. Use this when you need the\
-                     absolute latest version regardless of stability, for example when\
+                    Look up the newest published version of a Maven artifact in the\
+                     configured repositories (Maven Central by default), including\
+                     snapshots and pre-releases. Use this when you need the absolute\
+                     latest version regardless of stability, for example when\
                      tracking bleeding-edge releases or checking whether a new version\
                      was published. Prefer maven-get-latest-stable-version when updating\
                      production pom.xml dependencies.\
@@ -76,6 +85,110 @@ public class MavenVersionMcpTools {
         return new VersionResult(groupId, artifactId, latest, found);
     }
 
+    @McpTool(
+            name = "maven-get-latest-versions-batch",
+            description =
+                    """
+                    Look up the latest and latest stable versions of many Maven artifacts in one\
+                     call, e.g. all dependencies of a pom.xml. Pass coordinates as\
+                     'groupId:artifactId' or 'groupId:artifactId:version'; with a version,\
+                     the result also says whether upgrading to the latest stable version is\
+                     a major, minor or patch upgrade. Prefer this over calling\
+                     maven-get-latest-stable-version once per dependency. Results come back\
+                     in the order of the input, with an error for coordinates that could\
+                     not be resolved.\
+                    """)
+    public BatchVersionResult getLatestVersionsBatch(
+            @McpToolParam(
+                            description =
+                                    "Maven coordinates, each 'groupId:artifactId' or"
+                                            + " 'groupId:artifactId:version'",
+                            required = true)
+                    List<String> dependencies) {
+
+        logger.info("Getting latest versions for {} dependencies", dependencies.size());
+        List<DependencyVersionResult> results =
+                metadataService.getVersionInfos(dependencies).stream()
+                        .map(
+                                lookup ->
+                                        lookup.info() == null
+                                                ? new DependencyVersionResult(
+                                                        lookup.dependency(),
+                                                        lookup.currentVersion(),
+                                                        "",
+                                                        "",
+                                                        null,
+                                                        false,
+                                                        lookup.error())
+                                                : new DependencyVersionResult(
+                                                        lookup.dependency(),
+                                                        lookup.currentVersion(),
+                                                        lookup.info().latest(),
+                                                        lookup.info().latestStable(),
+                                                        lookup.upgrade(),
+                                                        true,
+                                                        null))
+                        .toList();
+        return new BatchVersionResult(results, results.size());
+    }
+
+    @McpTool(
+            name = "maven-analyze-pom",
+            description =
+                    """
+                    Report outdated dependencies and plugins of a pom.xml in one call. Pass the\
+                     complete pom.xml content; versions inherited from the parent, set by\
+                     properties or managed by imported BOMs such as spring-boot-dependencies\
+                     are resolved the way Maven does. For each dependency, managed\
+                     dependency, plugin and the parent, the result has the effective\
+                     version, the property that sets it (change that property to upgrade),\
+                     whether it is managed by a parent or BOM, the latest stable version\
+                     and whether the upgrade is major, minor or patch. Prefer this over\
+                     extracting coordinates and calling maven-get-latest-versions-batch.\
+                    """)
+    public PomAnalysisResult analyzePom(
+            @McpToolParam(description = "Complete content of the pom.xml file", required = true)
+                    String pomXml) {
+
+        logger.info("Analyzing pom.xml of {} characters", pomXml.length());
+        PomAnalysisService.PomReport report = pomAnalysisService.analyze(pomXml);
+        List<PomArtifactResult> dependencies =
+                report.dependencies().stream().map(MavenVersionMcpTools::toResult).toList();
+        List<PomArtifactResult> plugins =
+                report.plugins().stream().map(MavenVersionMcpTools::toResult).toList();
+        int outdated = 0;
+        for (PomArtifactResult result : dependencies) {
+            outdated += isOutdated(result) ? 1 : 0;
+        }
+        for (PomArtifactResult result : plugins) {
+            outdated += isOutdated(result) ? 1 : 0;
+        }
+        return new PomAnalysisResult(
+                report.project(), dependencies, plugins, outdated, report.warnings());
+    }
+
+    private static PomArtifactResult toResult(PomAnalysisService.ReportEntry entry) {
+        MavenMetadataService.BatchLookup lookup = entry.lookup();
+        String error = lookup.error();
+        if (error == null && entry.version() == null) {
+            error = "Version could not be resolved";
+        }
+        return new PomArtifactResult(
+                entry.section(),
+                entry.groupId(),
+                entry.artifactId(),
+                entry.version(),
+                entry.property(),
+                entry.managed(),
+                lookup.info() != null ? lookup.info().latestStable() : "",
+                lookup.upgrade(),
+                error);
+    }
+
+    private static boolean isOutdated(PomArtifactResult result) {
+        return result.upgrade() != null && !result.upgrade().equals("none");
+    }
+
     @McpTool(
             name = "maven-get-all-versions",
             description =
@@ -180,11 +293,11 @@ public class MavenVersionMcpTools {
             name = "maven-artifact-exists",
             description =
                     """
-                    Verify that a Maven artifact exists on Maven Central before adding it to a\
-                     pom.xml. Use this to catch typos in groupId or artifactId early,\
-                     avoiding broken builds. Also returns the total number of available\
-                     versions as a quick sanity check. Call this before adding any new\
-                     dependency you are not 100% certain about.\
+                    Verify that a Maven artifact exists in the configured repositories\
+                     before adding it to a pom.xml. Use this to catch typos in groupId or\
+                     artifactId early, avoiding broken builds. Also returns the total\
+                     number of available versions as a quick sanity check. Call this\
+                     before adding any new dependency you are not 100% certain about.\
                     """)
     public ArtifactExistsResult artifactExists(
             @McpToolParam(description = "Maven groupId (e.g., com.google.inject)", required = true)
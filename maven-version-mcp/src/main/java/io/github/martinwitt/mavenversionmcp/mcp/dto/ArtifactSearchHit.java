@@ -0,0 +1,7 @@
+package io.github.martinwitt.mavenversionmcp.mcp.dto;
+
+/** An artifact found by a Maven Central search. */
+public record ArtifactSearchHit(
+        String groupId, String artifactId, String version, String packaging, String released) {
+    // released is the release date as yyyy-MM-dd, or null if unknown
+}
@@ -0,0 +1,7 @@
+package io.github.martinwitt.mavenversionmcp.mcp.dto;
+
+import java.util.List;
+
+/** Result of a Maven Central search; totalFound may exceed the number of returned artifacts. */
+public record ArtifactSearchResult(
+        String query, long totalFound, List<ArtifactSearchHit> artifacts) {}
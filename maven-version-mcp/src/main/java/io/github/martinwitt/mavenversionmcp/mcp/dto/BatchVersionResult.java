@@ -0,0 +1,6 @@
+package io.github.martinwitt.mavenversionmcp.mcp.dto;
+
+import java.util.List;
+
+/** Result of a batch version lookup, in the order of the requested dependencies. */
+public record BatchVersionResult(List<DependencyVersionResult> results, int count) {}
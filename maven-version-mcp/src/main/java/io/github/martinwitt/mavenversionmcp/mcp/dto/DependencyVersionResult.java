@@ -0,0 +1,13 @@
+package io.github.martinwitt.mavenversionmcp.mcp.dto;
+
+/** Versions of one dependency of a batch lookup. */
+public record DependencyVersionResult(
+        String dependency,
+        String currentVersion,
+        String latest,
+        String latestStable,
+        String upgrade,
+        boolean found,
+        String error) {
+    // upgrade is one of: "major", "minor", "patch", "none"; null without a current version
+}
@@ -0,0 +1,11 @@
+package io.github.martinwitt.mavenversionmcp.mcp.dto;
+
+import java.util.List;
+
+/** Upgrade report for the dependencies and plugins of a pom.xml. */
+public record PomAnalysisResult(
+        String project,
+        List<PomArtifactResult> dependencies,
+        List<PomArtifactResult> plugins,
+        int outdated,
+        List<String> warnings) {}
@@ -0,0 +1,17 @@
+package io.github.martinwitt.mavenversionmcp.mcp.dto;
+
+/** A dependency or plugin of an analyzed pom.xml with its latest stable version. */
+public record PomArtifactResult(
+        String section,
+        String groupId,
+        String artifactId,
+        String currentVersion,
+        String versionProperty,
+        boolean managed,
+        String latestStable,
+        String upgrade,
+        String error) {
+    // section is one of: "parent", "dependencyManagement", "dependencies", "pluginManagement",
+    // "plugins"; versionProperty names the property to change, managed means the version comes
+    // from a parent or an imported BOM
+}
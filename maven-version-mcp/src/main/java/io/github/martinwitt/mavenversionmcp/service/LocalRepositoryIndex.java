@@ -0,0 +1,320 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.client.MavenMetadataReader;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.Validators;
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenMetadata;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Versions of the artifacts in a local Maven repository, such as {@code ~/.m2/repository} or a
+ * mounted mirror, kept in memory.
+ *
+ * <p>An artifact directory is one with {@code maven-metadata*.xml} files, or with version
+ * directories that contain the artifact's POM. Its versions are the union of both, so downloaded
+ * artifacts without metadata are found too. The repository is walked in parallel on {@link
+ * #start()}, and its directories are watched afterwards, so that only the directories that change
+ * are read again. Existing version directories are not watched, to spare watches on large
+ * repositories; their creation and deletion are seen by the artifact directory. Lookups wait for
+ * the first walk to finish.
+ */
+final class LocalRepositoryIndex implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRepositoryIndex.class);
+
+    private static final Pattern METADATA_FILE = Pattern.compile("maven-metadata(-.+)?\\.xml");
+
+    private final Path root;
+    private final String name;
+    private final Map<String, VersionLookup> artifacts = new ConcurrentHashMap<>();
+    private final VersionLookup notFound = VersionLookup.notFound();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final AtomicBoolean watchLimitLogged = new AtomicBoolean();
+    private volatile WatchService watchService;
+
+    LocalRepositoryIndex(Registry registry, MeterRegistry meterRegistry) {
+        this.root = registry.localPath().toAbsolutePath().normalize();
+        this.name = registry.getName() != null ? registry.getName() : registry.getUrl();
+        Gauge.builder("maven.local.artifacts", artifacts, Map::size)
+                .description("Artifacts indexed in a local repository")
+                .tag("registry", name)
+                .register(meterRegistry);
+    }
+
+    /** Walks the repository and then watches it for changes, on a background thread. */
+    void start() {
+        Thread.ofPlatform().daemon().name("local-repository-" + name).start(this::run);
+    }
+
+    @Override
+    public void close() throws IOException {
+        WatchService service = watchService;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    /**
+     * Versions of an artifact, waiting for the first walk of the repository if it is still running.
+     * The lookup of an artifact is the same instance until its directory changes.
+     */
+    VersionLookup lookup(String groupId, String artifactId) {
+        try {
+            ready.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for the index of " + root);
+        } catch (ExecutionException e) {
+            return VersionLookup.error();
+        }
+        return artifacts.getOrDefault(groupId + ":" + artifactId, notFound);
+    }
+
+    private void run() {
+        try {
+            if (!Files.isDirectory(root)) {
+                logger.warn("Local repository {} is not a directory", root);
+                return;
+            }
+            try {
+                watchService = root.getFileSystem().newWatchService();
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.warn("Cannot watch {}, changes will not be indexed: {}", root, e.toString());
+            }
+            long start = System.nanoTime();
+            rebuild();
+            logger.info(
+                    "Indexed {} artifacts in {} in {} ms",
+                    artifacts.size(),
+                    root,
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            ready.complete(null);
+        }
+        if (watchService != null) {
+            watch();
+        }
+    }
+
+    /** Walks the whole repository and drops the artifacts that are gone. */
+    private void rebuild() {
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ForkJoinPool pool =
+                new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            pool.invoke(new WalkTask(root, seen));
+        } finally {
+            pool.shutdown();
+        }
+        artifacts.keySet().retainAll(seen);
+    }
+
+    /** Indexes a directory, then its subdirectories in parallel. */
+    private final class WalkTask extends RecursiveAction {
+
+        private final Path dir;
+        private final Set<String> seen;
+
+        WalkTask(Path dir, Set<String> seen) {
+            this.dir = dir;
+            this.seen = seen;
+        }
+
+        @Override
+        protected void compute() {
+            List<Path> subdirectories;
+            try {
+                register(dir);
+                subdirectories = index(dir, seen);
+            } catch (IOException e) {
+                logger.debug("Cannot read {}: {}", dir, e.toString());
+                return;
+            }
+            invokeAll(subdirectories.stream().map(sub -> new WalkTask(sub, seen)).toList());
+        }
+    }
+
+    /**
+     * Updates the versions of the artifact in a directory, if it is one.
+     *
+     * @param seen Collects the keys of the artifacts found, or null
+     * @return The subdirectories that are not versions of the artifact, to walk further
+     */
+    private List<Path> index(Path dir, Set<String> seen) throws IOException {
+        String artifactId = dir.getFileName() == null ? "" : dir.getFileName().toString();
+        Set<String> versions = new LinkedHashSet<>();
+        List<Path> subdirectories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String entryName = entry.getFileName().toString();
+                if (entryName.startsWith(".")) {
+                    continue;
+                }
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    if (Files.exists(entry.resolve(artifactId + "-" + entryName + ".pom"))) {
+                        versions.add(entryName);
+                    } else {
+                        subdirectories.add(entry);
+                    }
+                } else if (METADATA_FILE.matcher(entryName).matches()) {
+                    versions.addAll(readMetadata(entry));
+                }
+            }
+        }
+        String key = key(dir);
+        if (key != null) {
+            if (versions.isEmpty()) {
+                artifacts.remove(key);
+            } else {
+                List<String> list = List.copyOf(versions);
+                artifacts.compute(
+                        key,
+                        (k, old) ->
+                                old != null && old.versions().equals(list)
+                                        ? old
+                                        : VersionLookup.found(list, Validators.NONE));
+                if (seen != null) {
+                    seen.add(key);
+                }
+            }
+        }
+        return subdirectories;
+    }
+
+    private static List<String> readMetadata(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            MavenMetadata metadata = MavenMetadataReader.read(in);
+            if (metadata.versioning() == null || metadata.versioning().versions() == null) {
+                return List.of();
+            }
+            return metadata.versioning().versions();
+        } catch (Exception e) {
+            logger.debug("Cannot read {}: {}", file, e.toString());
+            return List.of();
+        }
+    }
+
+    /** {@code groupId:artifactId} of an artifact directory, or null for the top two levels. */
+    private String key(Path dir) {
+        Path relative = root.relativize(dir);
+        int count = relative.getNameCount();
+        if (count < 2) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < count - 1; i++) {
+            key.append(i == 0 ? "" : ".").append(relative.getName(i));
+        }
+        return key.append(':').append(relative.getName(count - 1)).toString();
+    }
+
+    private void register(Path dir) {
+        WatchService service = watchService;
+        if (service == null) {
+            return;
+        }
+        try {
+            dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        } catch (IOException e) {
+            // usually the inotify watch limit, the initial walk is still complete
+            if (watchLimitLogged.compareAndSet(false, true)) {
+                logger.warn(
+                        "Cannot watch {}, some changes to {} will not be indexed: {}",
+                        dir,
+                        root,
+                        e.toString());
+            }
+        } catch (ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        logger.info("Missed changes to {}, walking it again", root);
+                        rebuild();
+                    } else {
+                        changed(dir, dir.resolve((Path) event.context()), event.kind());
+                    }
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {}", root);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Reads the directories affected by a change to {@code child} again. */
+    private void changed(Path dir, Path child, WatchEvent.Kind<?> kind) {
+        String childName = child.getFileName().toString();
+        try {
+            if (kind == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                // a new group, artifact or version directory, which may already have content
+                ForkJoinPool.commonPool().invoke(new WalkTask(child, null));
+                index(dir, null);
+            } else if (kind == ENTRY_DELETE) {
+                removeUnder(child);
+                index(dir, null);
+                if (childName.endsWith(".pom") && dir.getParent() != null) {
+                    index(dir.getParent(), null);
+                }
+            } else if (METADATA_FILE.matcher(childName).matches()) {
+                index(dir, null);
+            } else if (childName.endsWith(".pom") && dir.getParent() != null) {
+                index(dir.getParent(), null);
+            }
+        } catch (IOException e) {
+            // deleted in the meantime, its own delete event follows
+            logger.debug("Cannot read {}: {}", child, e.toString());
+        }
+    }
+
+    /** Drops the artifacts in a deleted directory. */
+    private void removeUnder(Path deleted) {
+        String prefix = root.relativize(deleted).toString().replace('\\', '/') + "/";
+        artifacts.keySet().removeIf(key -> (path(key) + "/").startsWith(prefix));
+    }
+
+    private static String path(String key) {
+        int colon = key.indexOf(':');
+        return key.substring(0, colon).replace('.', '/') + "/" + key.substring(colon + 1);
+    }
+}
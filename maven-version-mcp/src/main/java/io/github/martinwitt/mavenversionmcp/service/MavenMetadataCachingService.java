@@ -1,57 +1,584 @@
 package io.github.martinwitt.mavenversionmcp.service;
 
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.MetadataCacheProperties;
 import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.MetadataResponse;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.Validators;
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenDependencyParts;
 import io.github.martinwitt.mavenversionmcp.client.dto.MavenMetadata;
 import io.github.martinwitt.mavenversionmcp.utils.MavenDependencyUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
 
+/**
+ * Fetches and caches the version lists of Maven artifacts.
+ *
+ * <p>The cache is bounded by {@link MetadataCacheProperties#getMaximumSize()}. Entries older than
+ * the refresh interval are reloaded in the background on their next access, while the old list is
+ * still returned, so frequently requested artifacts never wait for the repository. Refreshes are
+ * conditional requests with the ETag and Last-Modified of the cached copy: unchanged metadata costs
+ * a 304 and restarts the TTL without being downloaded or parsed again. A refresh that fails keeps
+ * the old list until it expires. Missing artifacts and failed fetches are cached for the shorter
+ * negative TTL.
+ *
+ * <p>Without a registry URL, versions are looked up in all configured registries at once and their
+ * lists merged. Each registry is cached separately; the merged list is kept as long as none of its
+ * parts changes, so it is only rebuilt after a registry's list was reloaded. Local repositories are
+ * not cached here: their {@link LocalRepositoryIndex} is kept current by watching the directory.
+ *
+ * <p>With a snapshot file configured, the found version lists survive a restart: they are written
+ * to the file periodically and on shutdown, and put back into the cache on startup with their
+ * original age and validators. Lists older than the refresh interval are revalidated with a
+ * conditional request on their first access, while the restored list is returned.
+ *
+ * <p>Requests are counted per artifact in a {@link PopularityTracker}. Every pre-warm interval, the
+ * most requested artifacts and the configured seeds are loaded if they are not cached, and
+ * refreshed if they are older than the refresh interval, so they neither expire nor wait for a
+ * refresh on access. The seeds warm the cache after a cold start, before any traffic was counted.
+ *
+ * <p>Hits, misses, load times and evictions are published as {@code cache.*} metrics with {@code
+ * cache=mavenVersions}, and every request to a repository is counted in {@code
+ * maven.metadata.fetch} by its outcome.
+ */
 @Service
 public class MavenMetadataCachingService {
 
     private static final Logger logger = LoggerFactory.getLogger(MavenMetadataCachingService.class);
 
     private final MavenRepositoryClient repositoryClient;
-    private final XmlMapper xmlMapper;
+    private final MeterRegistry meterRegistry;
+    private final Ticker ticker;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncLoadingCache<ArtifactKey, VersionLookup> cache;
+    private final Map<String, Semaphore> registryPermits = new ConcurrentHashMap<>();
+    private final int maxConcurrentRequests;
+    private final List<Registry> primaryRegistries;
+    private final List<Registry> fallbackRegistries;
+    private final Map<String, LocalRepositoryIndex> localRepositories = new ConcurrentHashMap<>();
+    private final Map<String, Registry> registriesByUrl = new ConcurrentHashMap<>();
+    private final Cache<MergeKey, MergedLookup> mergedLookups;
+    private final Path snapshotFile;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    // Restored from the snapshot and not requested since, see revalidateRestored
+    private final Set<ArtifactKey> restored = ConcurrentHashMap.newKeySet();
+    private final PopularityTracker<ArtifactCoordinates> popularity;
+    private final int prewarmTopN;
+    private final List<ArtifactCoordinates> prewarmSeeds = new ArrayList<>();
 
-    public MavenMetadataCachingService(MavenRepositoryClient repositoryClient) {
+    private record ArtifactKey(String registryUrl, String groupId, String artifactId) {}
+
+    private record ArtifactCoordinates(String groupId, String artifactId) {}
+
+    /** An artifact in either the primary or the fallback registries. */
+    private record MergeKey(String groupId, String artifactId, boolean fallback) {}
+
+    /** A lookup merged from the lookups of each registry, in the order of the registries. */
+    private record MergedLookup(List<VersionLookup> parts, VersionLookup merged) {}
+
+    public MavenMetadataCachingService(
+            MavenRepositoryClient repositoryClient,
+            MetadataCacheProperties properties,
+            MavenRepositoryProperties repositoryProperties,
+            MeterRegistry meterRegistry) {
+        this(
+                repositoryClient,
+                properties,
+                repositoryProperties,
+                meterRegistry,
+                Ticker.systemTicker());
+    }
+
+    /** Measures ages and lifetimes with the given ticker, so tests can move time forward. */
+    MavenMetadataCachingService(
+            MavenRepositoryClient repositoryClient,
+            MetadataCacheProperties properties,
+            MavenRepositoryProperties repositoryProperties,
+            MeterRegistry meterRegistry,
+            Ticker ticker) {
         this.repositoryClient = repositoryClient;
-        this.xmlMapper = new XmlMapper();
+        this.ticker = ticker;
+        this.maxConcurrentRequests = Math.max(1, repositoryProperties.getMaxConcurrentRequests());
+        this.meterRegistry = meterRegistry;
+        List<Registry> registries = repositoryProperties.getRegistries();
+        this.primaryRegistries = registries.stream().filter(r -> !r.isFallback()).toList();
+        this.fallbackRegistries = registries.stream().filter(Registry::isFallback).toList();
+        for (Registry registry : registries) {
+            registriesByUrl.put(registry.getUrl(), registry);
+            if (registry.isLocal()) {
+                LocalRepositoryIndex index = new LocalRepositoryIndex(registry, meterRegistry);
+                localRepositories.put(registry.getUrl(), index);
+                index.start();
+            }
+        }
+        this.mergedLookups = Caffeine.newBuilder().maximumSize(properties.getMaximumSize()).build();
+        this.cache =
+                Caffeine.newBuilder()
+                        .maximumSize(properties.getMaximumSize())
+                        .expireAfter(
+                                new LookupExpiry(
+                                        properties.getTtl().toNanos(),
+                                        properties.getNegativeTtl().toNanos()))
+                        .refreshAfterWrite(properties.getRefreshAfter())
+                        .executor(refreshExecutor)
+                        .ticker(ticker)
+                        .recordStats()
+                        .buildAsync(
+                                new CacheLoader<>() {
+                                    @Override
+                                    public VersionLookup load(ArtifactKey key) {
+                                        return fetchVersions(key, null);
+                                    }
+
+                                    @Override
+                                    public VersionLookup reload(
+                                            ArtifactKey key, VersionLookup oldValue) {
+                                        VersionLookup fresh = fetchVersions(key, oldValue);
+                                        return fresh.status() == VersionLookup.Status.ERROR
+                                                ? oldValue
+                                                : fresh;
+                                    }
+                                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "mavenVersions");
+
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.refreshAfterNanos = properties.getRefreshAfter().toNanos();
+        String snapshot = properties.getSnapshotFile();
+        this.snapshotFile = snapshot == null || snapshot.isBlank() ? null : Path.of(snapshot);
+        restoreSnapshot();
+
+        this.prewarmTopN = Math.max(0, properties.getPrewarmTopN());
+        this.popularity = new PopularityTracker<>(prewarmTopN);
+        for (String seed : properties.getPrewarmSeeds()) {
+            try {
+                MavenDependencyParts parts = MavenDependencyUtil.parseDependency(seed.trim());
+                prewarmSeeds.add(new ArtifactCoordinates(parts.groupId(), parts.artifactId()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring pre-warm seed {}: {}", seed, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writeSnapshot();
+        refreshExecutor.shutdownNow();
+        for (LocalRepositoryIndex index : localRepositories.values()) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                logger.debug("Failed to stop watching a local repository: {}", e.getMessage());
+            }
+        }
     }
 
-    @Cacheable(value = "mavenVersions", key = "#registryUrl + ':' + #groupId + ':' + #artifactId")
+    /**
+     * Versions of an artifact, from the cache if present.
+     *
+     * @return The versions, or an empty list if the artifact is unknown or its metadata could not
+     *     be read
+     */
     public List<String> fetchAndCacheVersions(
             String registryUrl, String groupId, String artifactId) {
+        return lookupVersions(registryUrl, groupId, artifactId).versions();
+    }
+
+    /** Like {@link #fetchAndCacheVersions}, but tells a missing artifact from a failed fetch. */
+    public VersionLookup lookupVersions(String registryUrl, String groupId, String artifactId) {
+        popularity.record(new ArtifactCoordinates(groupId, artifactId));
+        return join(lookup(registryUrl, groupId, artifactId), groupId, artifactId);
+    }
+
+    /** Local repositories answer from their index, which is always current, the others cached. */
+    private CompletableFuture<VersionLookup> lookup(
+            String registryUrl, String groupId, String artifactId) {
+        LocalRepositoryIndex index = localRepositories.get(registryUrl);
+        if (index != null) {
+            return CompletableFuture.completedFuture(index.lookup(groupId, artifactId));
+        }
+        ArtifactKey key = new ArtifactKey(registryUrl, groupId, artifactId);
+        CompletableFuture<VersionLookup> future = cache.get(key);
+        if (!restored.isEmpty() && restored.remove(key)) {
+            revalidateRestored(key, future);
+        }
+        return future;
+    }
+
+    /**
+     * Revalidates a list restored from the snapshot on its first access, if it is older than the
+     * refresh interval. The cache only counts the age of an entry from the time it was put, which
+     * is the startup for all restored entries.
+     */
+    private void revalidateRestored(ArtifactKey key, CompletableFuture<VersionLookup> future) {
+        if (future.state() == Future.State.SUCCESS
+                && ticker.read() - future.resultNow().loadedAt() > refreshAfterNanos) {
+            cache.synchronous().refresh(key);
+        }
+    }
+
+    /**
+     * Loads the seed artifacts and the most requested ones that are not cached, and refreshes those
+     * older than the refresh interval, so that requests for them are always hits. Fallback
+     * registries are only warmed for artifacts that none of the other registries has.
+     *
+     * <p>The loads run on the refresh executor; the scheduler thread only starts them.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.metadata-cache.prewarm-interval:5m}",
+            initialDelay = 5,
+            timeUnit = TimeUnit.SECONDS)
+    public void prewarm() {
+        startPrewarm();
+    }
+
+    /**
+     * Starts the loads and refreshes of a pre-warm run.
+     *
+     * @return Completes when all of them have finished, successfully or not
+     */
+    CompletableFuture<Void> startPrewarm() {
+        Set<ArtifactCoordinates> artifacts = new LinkedHashSet<>(prewarmSeeds);
+        artifacts.addAll(popularity.top(prewarmTopN));
+        List<CompletableFuture<VersionLookup>> pending = new ArrayList<>();
+        for (ArtifactCoordinates artifact : artifacts) {
+            boolean missing = true;
+            for (Registry registry : primaryRegistries) {
+                missing &= warm(registry, artifact, pending);
+            }
+            if (missing) {
+                for (Registry registry : fallbackRegistries) {
+                    warm(registry, artifact, pending);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.info(
+                "Pre-warming {} version lists of {} artifacts", pending.size(), artifacts.size());
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null);
+    }
+
+    /**
+     * Loads or refreshes the cached versions of an artifact in a registry, if needed.
+     *
+     * @param pending Collects the loads and refreshes started
+     * @return Whether the registry is known not to have the artifact, or failed to answer
+     */
+    private boolean warm(
+            Registry registry,
+            ArtifactCoordinates artifact,
+            List<CompletableFuture<VersionLookup>> pending) {
+        LocalRepositoryIndex index = localRepositories.get(registry.getUrl());
+        if (index != null) {
+            return index.lookup(artifact.groupId(), artifact.artifactId()).isNegative();
+        }
+        ArtifactKey key =
+                new ArtifactKey(registry.getUrl(), artifact.groupId(), artifact.artifactId());
+        CompletableFuture<VersionLookup> cached = cache.getIfPresent(key);
+        if (cached == null) {
+            pending.add(cache.get(key));
+            countPrewarm("load");
+            return false;
+        }
+        if (cached.state() != Future.State.SUCCESS) {
+            return false;
+        }
+        VersionLookup lookup = cached.resultNow();
+        if (ticker.read() - lookup.loadedAt() > refreshAfterNanos) {
+            pending.add(cache.synchronous().refresh(key));
+            countPrewarm("refresh");
+        }
+        return lookup.isNegative();
+    }
+
+    private void countPrewarm(String action) {
+        Counter.builder("maven.metadata.prewarm")
+                .description("Version lists loaded or refreshed ahead of requests")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /** Writes the found version lists to the snapshot file, if one is configured. */
+    @Scheduled(
+            fixedDelayString = "${app.metadata-cache.snapshot-interval:5m}",
+            initialDelayString = "${app.metadata-cache.snapshot-interval:5m}")
+    public void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = ticker.read();
+        List<MetadataCacheSnapshot.Entry> entries = new ArrayList<>();
+        cache.asMap()
+                .forEach(
+                        (key, future) -> {
+                            if (future.state() != Future.State.SUCCESS
+                                    || future.resultNow().isNegative()) {
+                                return;
+                            }
+                            VersionLookup lookup = future.resultNow();
+                            long ageMillis =
+                                    TimeUnit.NANOSECONDS.toMillis(nowNanos - lookup.loadedAt());
+                            entries.add(
+                                    new MetadataCacheSnapshot.Entry(
+                                            key.registryUrl(),
+                                            key.groupId(),
+                                            key.artifactId(),
+                                            lookup.versions(),
+                                            lookup.validators(),
+                                            nowMillis - ageMillis));
+                        });
+        try {
+            MetadataCacheSnapshot.write(snapshotFile, entries);
+            logger.debug("Wrote {} version lists to {}", entries.size(), snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write cache snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /** Puts the version lists of the snapshot file that have not expired into the cache. */
+    private void restoreSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        List<MetadataCacheSnapshot.Entry> entries;
+        try {
+            entries = MetadataCacheSnapshot.read(snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Ignoring cache snapshot {}: {}", snapshotFile, e.getMessage());
+            return;
+        }
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = ticker.read();
+        Map<ArtifactKey, VersionLookup> lookups = new HashMap<>();
+        for (MetadataCacheSnapshot.Entry entry : entries) {
+            long ageNanos =
+                    TimeUnit.MILLISECONDS.toNanos(Math.max(0, nowMillis - entry.fetchedAt()));
+            if (ageNanos >= ttlNanos || localRepositories.containsKey(entry.registryUrl())) {
+                continue;
+            }
+            lookups.put(
+                    new ArtifactKey(entry.registryUrl(), entry.groupId(), entry.artifactId()),
+                    VersionLookup.restored(
+                            entry.versions(), entry.validators(), nowNanos - ageNanos));
+        }
+        cache.synchronous().putAll(lookups);
+        restored.addAll(lookups.keySet());
+        logger.info(
+                "Restored {} of {} version lists from {}",
+                lookups.size(),
+                entries.size(),
+                snapshotFile);
+    }
+
+    /**
+     * Versions of an artifact in all configured registries, merged into one list.
+     *
+     * <p>The registries are asked concurrently. The artifact is found if any registry has it, and
+     * its versions are the union of theirs, in the order of the registries. Otherwise the lookup
+     * failed if any registry failed, so that an unreachable registry is not reported as a missing
+     * artifact. The fallback registries are only asked if the others did not find the artifact, and
+     * the result is theirs if they found it.
+     */
+    public VersionLookup lookupVersions(String groupId, String artifactId) {
+        popularity.record(new ArtifactCoordinates(groupId, artifactId));
+        VersionLookup primary = lookupVersions(primaryRegistries, groupId, artifactId, false);
+        if (primary.status() == VersionLookup.Status.FOUND || fallbackRegistries.isEmpty()) {
+            return primary;
+        }
+        VersionLookup fallback = lookupVersions(fallbackRegistries, groupId, artifactId, true);
+        if (fallback.status() == VersionLookup.Status.FOUND) {
+            return fallback;
+        }
+        return primary.status() == VersionLookup.Status.ERROR ? primary : fallback;
+    }
+
+    private VersionLookup lookupVersions(
+            List<Registry> registries, String groupId, String artifactId, boolean fallback) {
+        if (registries.isEmpty()) {
+            return VersionLookup.notFound();
+        }
+        if (registries.size() == 1) {
+            return join(
+                    lookup(registries.getFirst().getUrl(), groupId, artifactId),
+                    groupId,
+                    artifactId);
+        }
+        List<CompletableFuture<VersionLookup>> futures = new ArrayList<>(registries.size());
+        for (Registry registry : registries) {
+            futures.add(lookup(registry.getUrl(), groupId, artifactId));
+        }
+        List<VersionLookup> parts = new ArrayList<>(futures.size());
+        for (CompletableFuture<VersionLookup> future : futures) {
+            parts.add(join(future, groupId, artifactId));
+        }
+
+        MergeKey key = new MergeKey(groupId, artifactId, fallback);
+        MergedLookup cached = mergedLookups.getIfPresent(key);
+        if (cached != null && sameLookups(cached.parts(), parts)) {
+            return cached.merged();
+        }
+        VersionLookup merged = merge(parts);
+        mergedLookups.put(key, new MergedLookup(parts, merged));
+        return merged;
+    }
+
+    private static boolean sameLookups(List<VersionLookup> cached, List<VersionLookup> current) {
+        for (int i = 0; i < current.size(); i++) {
+            if (cached.get(i) != current.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static VersionLookup merge(List<VersionLookup> parts) {
+        LinkedHashSet<String> versions = new LinkedHashSet<>();
+        boolean found = false;
+        boolean failed = false;
+        for (VersionLookup part : parts) {
+            switch (part.status()) {
+                case FOUND -> {
+                    found = true;
+                    versions.addAll(part.versions());
+                }
+                case ERROR -> failed = true;
+                case NOT_FOUND -> {}
+            }
+        }
+        if (found) {
+            return VersionLookup.found(List.copyOf(versions), Validators.NONE);
+        }
+        return failed ? VersionLookup.error() : VersionLookup.notFound();
+    }
+
+    private VersionLookup join(
+            CompletableFuture<VersionLookup> future, String groupId, String artifactId) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException(
+                    "Interrupted waiting for " + groupId + ":" + artifactId);
+        } catch (ExecutionException e) {
+            logger.error(
+                    "Failed to load metadata for {}:{}: {}",
+                    groupId,
+                    artifactId,
+                    e.getCause().getMessage());
+            return VersionLookup.error();
+        }
+    }
+
+    /**
+     * Fetches the versions of an artifact.
+     *
+     * @param previous The cached lookup being refreshed, or null
+     */
+    private VersionLookup fetchVersions(ArtifactKey key, VersionLookup previous) {
+        Semaphore permits =
+                registryPermits.computeIfAbsent(
+                        key.registryUrl(), k -> new Semaphore(maxConcurrentRequests));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Thrown rather than returned, so the cancelled load is not cached as an error
+            throw new CancellationException("Interrupted waiting for " + key.registryUrl());
+        }
+        try {
+            return fetchVersionsWithPermit(key, previous).withLoadedAt(ticker.read());
+        } finally {
+            permits.release();
+        }
+    }
+
+    private VersionLookup fetchVersionsWithPermit(ArtifactKey key, VersionLookup previous) {
+        String groupId = key.groupId();
+        String artifactId = key.artifactId();
+        // Only a found list can be revalidated, negative results are fetched again in full
+        boolean revalidate = previous != null && !previous.isNegative();
         try {
-            String metadataUrl =
-                    MavenDependencyUtil.getMavenMetadataUrl(registryUrl, groupId, artifactId);
-            logger.info("Fetching Maven metadata from: {}", metadataUrl);
+            Registry registry = registry(key.registryUrl());
+            logger.debug(
+                    "Fetching Maven metadata for {}:{} from {}",
+                    groupId,
+                    artifactId,
+                    key.registryUrl());
 
-            String xmlContent = repositoryClient.fetchMetadataXml(metadataUrl);
-            MavenMetadata metadata = xmlMapper.readValue(xmlContent, MavenMetadata.class);
+            MetadataResponse response =
+                    repositoryClient.fetchMetadata(
+                            registry,
+                            groupId,
+                            artifactId,
+                            revalidate ? previous.validators() : Validators.NONE);
+            if (response.status() == MetadataResponse.Status.NOT_FOUND) {
+                logger.debug("No metadata for {}:{} in {}", groupId, artifactId, key.registryUrl());
+                return count(VersionLookup.notFound());
+            }
+            if (response.status() == MetadataResponse.Status.NOT_MODIFIED) {
+                if (revalidate) {
+                    logger.debug("Metadata for {}:{} not modified", groupId, artifactId);
+                    count("not_modified");
+                    return previous.revalidated(response.validators());
+                }
+                // a 304 to an unconditional request cannot be used
+                logger.warn("Unexpected 304 for {}:{}", groupId, artifactId);
+                return count(VersionLookup.error());
+            }
 
+            MavenMetadata metadata = response.metadata();
             if (metadata.versioning() == null || metadata.versioning().versions() == null) {
                 logger.warn("No versions found in metadata for {}:{}", groupId, artifactId);
-                return new ArrayList<>();
+                return count(VersionLookup.found(List.of(), response.validators()));
             }
 
-            List<String> versions = new ArrayList<>(metadata.versioning().versions());
-            logger.info("Found {} versions for {}:{}", versions.size(), groupId, artifactId);
-            return versions;
+            List<String> versions = metadata.versioning().versions();
+            logger.debug("Found {} versions for {}:{}", versions.size(), groupId, artifactId);
+            return count(VersionLookup.found(versions, response.validators()));
 
-        } catch (RestClientException e) {
+        } catch (IOException e) {
             logger.error(
-                    "Failed to fetch metadata for {}:{} - HTTP error: {}",
+                    "Failed to fetch metadata for {}:{} - Error: {}",
                     groupId,
                     artifactId,
                     e.getMessage());
-            return new ArrayList<>();
+            return count(VersionLookup.error());
         } catch (Exception e) {
             logger.error(
                     "Failed to parse metadata for {}:{} - Error: {}",
@@ -59,7 +586,56 @@ public class MavenMetadataCachingService {
                     artifactId,
                     e.getMessage(),
                     e);
-            return new ArrayList<>();
+            return count(VersionLookup.error());
+        }
+    }
+
+    /** The configured registry with this URL, or one without mirrors for any other URL. */
+    private Registry registry(String url) {
+        return registriesByUrl.computeIfAbsent(url, k -> new Registry(null, url, List.of()));
+    }
+
+    private VersionLookup count(VersionLookup lookup) {
+        count(lookup.status().name().toLowerCase(Locale.ROOT));
+        return lookup;
+    }
+
+    private void count(String outcome) {
+        Counter.builder("maven.metadata.fetch")
+                .description("Requests for maven-metadata.xml by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Expires found version lists after the TTL and negative results after the negative TTL,
+     * counted from their fetch or their last revalidation. A failed refresh that kept the old list
+     * therefore does not extend its lifetime.
+     */
+    private record LookupExpiry(long ttlNanos, long negativeTtlNanos)
+            implements Expiry<ArtifactKey, VersionLookup> {
+
+        @Override
+        public long expireAfterCreate(ArtifactKey key, VersionLookup value, long currentTime) {
+            return remaining(value, currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                ArtifactKey key, VersionLookup value, long currentTime, long currentDuration) {
+            return remaining(value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                ArtifactKey key, VersionLookup value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long remaining(VersionLookup value, long currentTime) {
+            long ttl = value.isNegative() ? negativeTtlNanos : ttlNanos;
+            return Math.max(0, ttl - (currentTime - value.loadedAt()));
         }
     }
 }
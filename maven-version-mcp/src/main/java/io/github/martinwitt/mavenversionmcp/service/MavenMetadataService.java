@@ -1,9 +1,19 @@
 package io.github.martinwitt.mavenversionmcp.service;
 
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
 import io.github.martinwitt.mavenversionmcp.client.dto.MavenDependencyParts;
 import io.github.martinwitt.mavenversionmcp.utils.MavenDependencyUtil;
 import io.github.martinwitt.mavenversionmcp.utils.MavenVersioning;
+import io.github.martinwitt.mavenversionmcp.utils.VersionIndex;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -20,24 +30,28 @@ public class MavenMetadataService {
     private static final Logger logger = LoggerFactory.getLogger(MavenMetadataService.class);
 
     private final MavenMetadataCachingService cachingService;
+    private final Duration batchTimeout;
+    private final int maxBatchSize;
 
-    public MavenMetadataService(MavenMetadataCachingService cachingService) {
+    public MavenMetadataService(
+            MavenMetadataCachingService cachingService, MavenRepositoryProperties properties) {
         this.cachingService = cachingService;
+        this.batchTimeout = properties.getBatchTimeout();
+        this.maxBatchSize = properties.getMaxBatchSize();
     }
 
     /**
-     * Fetches all available versions for a Maven artifact from Maven Central.
+     * Fetches all available versions for a Maven artifact from the configured registries.
      *
-     * <p>Fetches maven-metadata.xml from Maven Central and extracts the list of all available
-     * versions.
+     * <p>Fetches maven-metadata.xml from every registry (Maven Central by default) and merges the
+     * lists of available versions.
      *
      * @param groupId Maven groupId (e.g., "com.example")
      * @param artifactId Maven artifactId (e.g., "mylib")
      * @return List of version strings, or empty list if metadata cannot be fetched
      */
     public List<String> getAvailableVersions(String groupId, String artifactId) {
-        return cachingService.fetchAndCacheVersions(
-                MavenDependencyUtil.MAVEN_CENTRAL_URL, groupId, artifactId);
+        return cachingService.lookupVersions(groupId, artifactId).versions();
     }
 
     /**
@@ -53,6 +67,14 @@ public class MavenMetadataService {
         return cachingService.fetchAndCacheVersions(registryUrl, groupId, artifactId);
     }
 
+    private VersionIndex getVersionIndex(String groupId, String artifactId) {
+        return cachingService.lookupVersions(groupId, artifactId).index();
+    }
+
+    private VersionIndex getVersionIndex(String registryUrl, String groupId, String artifactId) {
+        return cachingService.lookupVersions(registryUrl, groupId, artifactId).index();
+    }
+
     /**
      * Gets all stable versions (excluding snapshots, alphas, betas) for a Maven artifact.
      *
@@ -63,8 +85,7 @@ public class MavenMetadataService {
      * @return List of stable versions sorted by version number (highest first)
      */
     public List<String> getStableVersions(String groupId, String artifactId) {
-        List<String> versions = getAvailableVersions(groupId, artifactId);
-        return MavenVersioning.filterStableVersions(versions);
+        return getVersionIndex(groupId, artifactId).stableVersions();
     }
 
     /**
@@ -77,8 +98,7 @@ public class MavenMetadataService {
      * @return The latest stable version string, or empty string if none found
      */
     public String getLatestStableVersion(String groupId, String artifactId) {
-        List<String> versions = getAvailableVersions(groupId, artifactId);
-        return MavenVersioning.findLatestStable(versions);
+        return getVersionIndex(groupId, artifactId).latestStable();
     }
 
     /**
@@ -90,8 +110,7 @@ public class MavenMetadataService {
      * @return The latest stable version string, or empty string if none found
      */
     public String getLatestStableVersion(String registryUrl, String groupId, String artifactId) {
-        List<String> versions = getAvailableVersions(registryUrl, groupId, artifactId);
-        return MavenVersioning.findLatestStable(versions);
+        return getVersionIndex(registryUrl, groupId, artifactId).latestStable();
     }
 
     /**
@@ -102,11 +121,7 @@ public class MavenMetadataService {
      * @return The latest version string (could be a pre-release), or empty string if none found
      */
     public String getLatestVersion(String groupId, String artifactId) {
-        List<String> versions = getAvailableVersions(groupId, artifactId);
-        if (versions.isEmpty()) {
-            return "";
-        }
-        return versions.stream().max((v1, v2) -> MavenVersioning.compare(v1, v2)).orElse("");
+        return getVersionIndex(groupId, artifactId).latest();
     }
 
     /**
@@ -121,21 +136,115 @@ public class MavenMetadataService {
     public VersionInfo getVersionInfo(String dependency) {
         try {
             MavenDependencyParts parts = MavenDependencyUtil.parseDependency(dependency);
-            List<String> allVersions = getAvailableVersions(parts.groupId(), parts.artifactId());
-            String latestStable = MavenVersioning.findLatestStable(allVersions);
-            String latest =
-                    allVersions.stream()
-                            .max((v1, v2) -> MavenVersioning.compare(v1, v2))
-                            .orElse("");
-
+            VersionIndex index = getVersionIndex(parts.groupId(), parts.artifactId());
             return new VersionInfo(
-                    parts.groupId(), parts.artifactId(), allVersions, latestStable, latest);
+                    parts.groupId(),
+                    parts.artifactId(),
+                    index.versions(),
+                    index.latestStable(),
+                    index.latest());
         } catch (IllegalArgumentException e) {
             logger.error("Invalid dependency format: {}", dependency, e);
             throw e;
         }
     }
 
+    /**
+     * Gets version information for many dependencies at once.
+     *
+     * <p>The dependencies are resolved concurrently on virtual threads. Lookups of the same
+     * artifact share one fetch, and the requests per repository are capped by the caching service,
+     * so a large batch does not flood a registry. Dependencies not resolved within the batch
+     * timeout are reported with an error.
+     *
+     * @param dependencies Maven dependency strings in format "groupId:artifactId[:version]"
+     * @return One result per dependency, in the given order
+     * @throws IllegalArgumentException if the batch exceeds the maximum batch size
+     */
+    public List<BatchLookup> getVersionInfos(List<String> dependencies) {
+        if (dependencies.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "At most "
+                            + maxBatchSize
+                            + " dependencies per batch, got "
+                            + dependencies.size());
+        }
+        return lookupAll(dependencies);
+    }
+
+    /** Like {@link #getVersionInfos}, without limiting the number of dependencies. */
+    List<BatchLookup> lookupAll(List<String> dependencies) {
+        List<Callable<BatchLookup>> tasks = new ArrayList<>();
+        for (String dependency : dependencies) {
+            tasks.add(() -> lookup(dependency));
+        }
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<BatchLookup>> futures =
+                    executor.invokeAll(tasks, batchTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            List<BatchLookup> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(result(dependencies.get(i), futures.get(i)));
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving dependencies", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BatchLookup result(String dependency, Future<BatchLookup> future)
+            throws InterruptedException {
+        if (future.isCancelled()) {
+            return BatchLookup.failed(dependency, "Timed out after " + batchTimeout);
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.warn("Lookup of {} failed: {}", dependency, e.getCause().getMessage());
+            return BatchLookup.failed(dependency, e.getCause().getMessage());
+        }
+    }
+
+    private BatchLookup lookup(String dependency) {
+        MavenDependencyParts parts;
+        try {
+            parts = MavenDependencyUtil.parseDependency(dependency);
+        } catch (IllegalArgumentException e) {
+            return BatchLookup.failed(dependency, e.getMessage());
+        }
+
+        VersionLookup lookup = cachingService.lookupVersions(parts.groupId(), parts.artifactId());
+        return switch (lookup.status()) {
+            case NOT_FOUND ->
+                    BatchLookup.failed(dependency, "Artifact not found in any configured registry");
+            case ERROR -> BatchLookup.failed(dependency, "Failed to read the artifact's metadata");
+            case FOUND -> found(dependency, parts, lookup.index());
+        };
+    }
+
+    private static BatchLookup found(
+            String dependency, MavenDependencyParts parts, VersionIndex index) {
+        String latestStable = index.latestStable();
+        String upgrade =
+                parts.version() != null && !latestStable.isEmpty()
+                        ? MavenVersioning.upgradeType(parts.version(), latestStable)
+                        : null;
+        return new BatchLookup(
+                dependency,
+                parts.version(),
+                new VersionInfo(
+                        parts.groupId(),
+                        parts.artifactId(),
+                        index.versions(),
+                        latestStable,
+                        index.latest()),
+                upgrade,
+                null);
+    }
+
     /**
      * Compares two Maven versions according to Maven versioning rules.
      *
@@ -172,4 +281,26 @@ public class MavenMetadataService {
             List<String> allVersions,
             String latestStable,
             String latest) {}
+
+    /**
+     * Version information for one dependency of a batch.
+     *
+     * @param dependency The dependency string as given
+     * @param currentVersion Version given in the dependency string, or null
+     * @param info All versions of the artifact; null if it could not be resolved
+     * @param upgrade Upgrade from the current to the latest stable version: "major", "minor",
+     *     "patch" or "none"; null without a current or a stable version
+     * @param error Why the dependency could not be resolved; null if it was
+     */
+    public record BatchLookup(
+            String dependency,
+            String currentVersion,
+            VersionInfo info,
+            String upgrade,
+            String error) {
+
+        static BatchLookup failed(String dependency, String error) {
+            return new BatchLookup(dependency, null, null, null, error);
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.martinwitt.mavenversionmcp.MavenSearchProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenCentralSearchClient;
+import io.github.martinwitt.mavenversionmcp.client.dto.CentralSearchResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Searches Maven Central for artifacts by keyword, class name or checksum.
+ *
+ * <p>Results are cached per query and number of rows for {@link MavenSearchProperties#getTtl()};
+ * failed searches are not cached. The number of rows is capped by {@link
+ * MavenSearchProperties#getMaxRows()}, to keep the responses small. Hits and misses are published
+ * as {@code cache.*} metrics with {@code cache=mavenSearch}.
+ */
+@Service
+public class MavenSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MavenSearchService.class);
+
+    private static final Pattern SHA1 = Pattern.compile("[0-9a-fA-F]{40}");
+    private static final Pattern CLASS_NAME = Pattern.compile("[\\w$.]+");
+
+    private final MavenCentralSearchClient searchClient;
+    private final Cache<SearchKey, CentralSearchResponse> cache;
+    private final int defaultRows;
+    private final int maxRows;
+
+    private record SearchKey(String query, int rows) {}
+
+    public MavenSearchService(
+            MavenCentralSearchClient searchClient,
+            MavenSearchProperties properties,
+            MeterRegistry meterRegistry) {
+        this.searchClient = searchClient;
+        this.maxRows = Math.max(1, properties.getMaxRows());
+        this.defaultRows = Math.clamp(properties.getDefaultRows(), 1, maxRows);
+        this.cache =
+                Caffeine.newBuilder()
+                        .maximumSize(properties.getMaximumSize())
+                        .expireAfterWrite(properties.getTtl())
+                        .recordStats()
+                        .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "mavenSearch");
+    }
+
+    /**
+     * Searches artifacts by keyword. The query may also use the search syntax, such as {@code
+     * g:com.google.inject AND a:guice}.
+     *
+     * @param rows Maximum number of results, or null for the default
+     * @return One hit per artifact, with its latest version
+     */
+    public CentralSearchResponse searchByKeyword(String query, Integer rows) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("The search query must not be empty");
+        }
+        return search(query.trim(), rows);
+    }
+
+    /**
+     * Searches the artifact versions that contain a class.
+     *
+     * @param className A simple class name, such as {@code ImmutableList}, or a fully qualified
+     *     one, such as {@code com.google.common.collect.ImmutableList}
+     * @param rows Maximum number of results, or null for the default
+     * @return One hit per artifact version
+     */
+    public CentralSearchResponse searchByClassName(String className, Integer rows) {
+        String name = className == null ? "" : className.trim();
+        if (!CLASS_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Not a class name: " + className);
+        }
+        return search((name.contains(".") ? "fc:" : "c:") + name, rows);
+    }
+
+    /**
+     * Finds the artifact version a file belongs to by its SHA-1 checksum.
+     *
+     * @param sha1 SHA-1 checksum of the file as 40 hexadecimal digits
+     * @return The artifact versions with a file of that checksum, usually one
+     */
+    public CentralSearchResponse searchBySha1(String sha1) {
+        String checksum = sha1 == null ? "" : sha1.trim();
+        if (!SHA1.matcher(checksum).matches()) {
+            throw new IllegalArgumentException("Not a SHA-1 checksum: " + sha1);
+        }
+        return search("1:" + checksum.toLowerCase(Locale.ROOT), rows(null));
+    }
+
+    private CentralSearchResponse search(String query, Integer rows) {
+        SearchKey key = new SearchKey(query, rows(rows));
+        try {
+            return cache.get(key, this::fetch);
+        } catch (UncheckedIOException e) {
+            logger.error("Search for {} failed: {}", query, e.getCause().getMessage());
+            throw new IllegalStateException(
+                    "Maven Central search failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private CentralSearchResponse fetch(SearchKey key) {
+        logger.info("Searching Maven Central for {} ({} rows)", key.query(), key.rows());
+        try {
+            return searchClient.search(key.query(), key.rows());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int rows(Integer rows) {
+        return rows == null ? defaultRows : Math.clamp(rows, 1, maxRows);
+    }
+}
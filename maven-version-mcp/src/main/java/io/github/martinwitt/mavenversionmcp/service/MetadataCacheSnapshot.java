@@ -0,0 +1,186 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.Validators;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file with the version lists of the metadata cache, so that a restarted server starts warm.
+ *
+ * <p>The file starts with a magic number and a format version, followed by the table of registry
+ * URLs and the entries. Each entry refers to its registry by index and holds the coordinates, the
+ * wall-clock time of the fetch, the validators and the versions. Strings are UTF-8 with an unsigned
+ * 16-bit length, where {@code 0xFFFF} stands for null. The file is read through a memory mapping
+ * and written to a temporary file that then replaces it, so a crash never leaves a partial
+ * snapshot.
+ */
+final class MetadataCacheSnapshot {
+
+    private static final int MAGIC = 0x4D56_4D43; // "MVMC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int NULL_STRING = 0xFFFF;
+
+    /**
+     * A cached version list.
+     *
+     * @param fetchedAt Epoch milliseconds of the fetch or of the last revalidation
+     */
+    record Entry(
+            String registryUrl,
+            String groupId,
+            String artifactId,
+            List<String> versions,
+            Validators validators,
+            long fetchedAt) {}
+
+    private MetadataCacheSnapshot() {}
+
+    static void write(Path file, List<Entry> entries) throws IOException {
+        Map<String, Integer> registries = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            registries.putIfAbsent(entry.registryUrl(), registries.size());
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(registries.size());
+                for (String registryUrl : registries.keySet()) {
+                    writeString(out, registryUrl);
+                }
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeInt(registries.get(entry.registryUrl()));
+                    writeString(out, entry.groupId());
+                    writeString(out, entry.artifactId());
+                    out.writeLong(entry.fetchedAt());
+                    writeString(out, entry.validators().etag());
+                    writeString(out, entry.validators().lastModified());
+                    out.writeInt(entry.versions().size());
+                    for (String version : entry.versions()) {
+                        writeString(out, version);
+                    }
+                }
+            }
+            Files.move(
+                    temporary,
+                    file,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @return The entries, or an empty list if the file does not exist
+     * @throws IOException if the file cannot be read, is not a snapshot of this format, or is
+     *     truncated or corrupt
+     */
+    static List<Entry> read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a metadata cache snapshot: " + file);
+            }
+            String[] registries = new String[count(buffer)];
+            for (int i = 0; i < registries.length; i++) {
+                registries[i] = readRequiredString(buffer, "registry URL", file);
+            }
+            int count = count(buffer);
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String registryUrl = registries[buffer.getInt()];
+                String groupId = readRequiredString(buffer, "group id", file);
+                String artifactId = readRequiredString(buffer, "artifact id", file);
+                long fetchedAt = buffer.getLong();
+                Validators validators = new Validators(readString(buffer), readString(buffer));
+                String[] versions = new String[count(buffer)];
+                for (int j = 0; j < versions.length; j++) {
+                    versions[j] = readRequiredString(buffer, "version", file);
+                }
+                entries.add(
+                        new Entry(
+                                registryUrl,
+                                groupId,
+                                artifactId,
+                                List.of(versions),
+                                validators,
+                                fetchedAt));
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Trailing bytes in metadata cache snapshot: " + file);
+            }
+            return entries;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt metadata cache snapshot: " + file, e);
+        }
+    }
+
+    /** A count of items, each at least one byte long, so a corrupt count fails fast. */
+    private static int count(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IOException("String too long for a snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Reads a string that only a corrupt file leaves out. */
+    private static String readRequiredString(ByteBuffer buffer, String field, Path file)
+            throws IOException {
+        String value = readString(buffer);
+        if (value == null) {
+            throw new IOException("Missing " + field + " in metadata cache snapshot: " + file);
+        }
+        return value;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
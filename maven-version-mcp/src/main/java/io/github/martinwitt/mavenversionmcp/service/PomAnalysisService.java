@@ -0,0 +1,521 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.PomCacheProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient;
+import io.github.martinwitt.mavenversionmcp.client.PomReader;
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenDependencyParts;
+import io.github.martinwitt.mavenversionmcp.client.dto.Pom;
+import io.github.martinwitt.mavenversionmcp.client.dto.PomArtifact;
+import io.github.martinwitt.mavenversionmcp.service.MavenMetadataService.BatchLookup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reports outdated dependencies and plugins of a pom.xml.
+ *
+ * <p>Versions are resolved roughly as Maven builds the effective model: the POM inherits the
+ * properties, managed dependencies and managed plugins of its parents, its own entries winning;
+ * properties are interpolated with the merged properties, so a project can override a version
+ * property of its parent; and imported BOMs add the managed versions that are not declared
+ * directly, the first import winning. Profiles, settings and the super POM are not considered.
+ *
+ * <p>Parent and BOM POMs are fetched from the configured registries. The BOMs imported by one POM
+ * are resolved in parallel, and both the parsed POMs and the versions managed by each BOM are
+ * cached, so commonly imported BOMs are read once. POMs that cannot be fetched are reported as
+ * warnings, and the analysis continues without them.
+ */
+@Service
+public class PomAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PomAnalysisService.class);
+
+    /** Parent chains longer than this are assumed to be cyclic. */
+    private static final int MAX_PARENT_DEPTH = 16;
+
+    private static final int MAX_INTERPOLATION_ROUNDS = 10;
+    private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+    private final MavenRepositoryClient repositoryClient;
+    private final MavenMetadataService metadataService;
+    private final List<Registry> registries;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncLoadingCache<MavenDependencyParts, Pom> poms;
+    private final Cache<MavenDependencyParts, Map<String, String>> bomVersions;
+
+    public PomAnalysisService(
+            MavenRepositoryClient repositoryClient,
+            MavenMetadataService metadataService,
+            MavenRepositoryProperties repositoryProperties,
+            PomCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.repositoryClient = repositoryClient;
+        this.metadataService = metadataService;
+        // fallback registries last, as for the version lookups
+        this.registries =
+                repositoryProperties.getRegistries().stream()
+                        .sorted(Comparator.comparing(Registry::isFallback))
+                        .toList();
+        this.poms =
+                Caffeine.newBuilder()
+                        .maximumSize(properties.getMaximumSize())
+                        .expireAfterWrite(properties.getTtl())
+                        .executor(executor)
+                        .recordStats()
+                        .buildAsync(this::loadPom);
+        this.bomVersions =
+                Caffeine.newBuilder()
+                        .maximumSize(properties.getMaximumSize())
+                        .expireAfterWrite(properties.getTtl())
+                        .recordStats()
+                        .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, poms, "pomFiles");
+        CaffeineCacheMetrics.monitor(meterRegistry, bomVersions, "bomVersions");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Analysis of a pom.xml.
+     *
+     * @param project groupId:artifactId:version of the analyzed POM, as far as known
+     * @param dependencies Declared dependencies, managed dependencies and the parent
+     * @param plugins Declared plugins and managed plugins
+     * @param warnings Parents, BOMs and versions that could not be resolved
+     */
+    public record PomReport(
+            String project,
+            List<ReportEntry> dependencies,
+            List<ReportEntry> plugins,
+            List<String> warnings) {}
+
+    /**
+     * A dependency or plugin of the analyzed POM.
+     *
+     * @param section Where it is declared: parent, dependencyManagement, dependencies,
+     *     pluginManagement or plugins
+     * @param version The effective version, or null if it could not be resolved
+     * @param property Name of the property the version is declared with, or null
+     * @param managed True if the version comes from a parent or an imported BOM
+     * @param lookup Latest versions and the upgrade type
+     */
+    public record ReportEntry(
+            String section,
+            String groupId,
+            String artifactId,
+            String version,
+            String property,
+            boolean managed,
+            BatchLookup lookup) {}
+
+    /** A POM merged with its parents, before interpolation. Entries of the child come first. */
+    private record Inherited(
+            Map<String, String> properties,
+            Map<String, PomArtifact> managedDependencies,
+            List<PomArtifact> imports,
+            Map<String, PomArtifact> managedPlugins,
+            String groupId,
+            String version) {}
+
+    /**
+     * Resolves the effective versions of all dependencies and plugins declared in a pom.xml and
+     * looks up their latest versions.
+     *
+     * @param pomXml Content of the pom.xml
+     * @return The report, in the order of declaration
+     * @throws IllegalArgumentException if the pom.xml is malformed
+     */
+    public PomReport analyze(String pomXml) {
+        Pom pom;
+        try {
+            pom = PomReader.read(new StringReader(pomXml));
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed pom.xml: " + e.getMessage(), e);
+        }
+        List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+        Inherited inherited = inherit(pom, warnings);
+        Map<String, String> properties = properties(pom, inherited);
+        Map<String, String> managedVersions =
+                managedVersions(inherited, properties, Set.of(), warnings);
+        Map<String, String> managedPluginVersions = new HashMap<>();
+        inherited
+                .managedPlugins()
+                .forEach(
+                        (key, plugin) ->
+                                managedPluginVersions.put(
+                                        key, interpolate(plugin.version(), properties)));
+
+        List<Declared> dependencies = new ArrayList<>();
+        if (pom.parent() != null) {
+            MavenDependencyParts parent = pom.parent();
+            dependencies.add(
+                    declared(
+                            "parent",
+                            new PomArtifact(
+                                    parent.groupId(),
+                                    parent.artifactId(),
+                                    parent.version(),
+                                    "pom",
+                                    null),
+                            properties,
+                            Map.of()));
+        }
+        for (PomArtifact artifact : pom.managedDependencies()) {
+            dependencies.add(
+                    declared("dependencyManagement", artifact, properties, managedVersions));
+        }
+        for (PomArtifact artifact : pom.dependencies()) {
+            dependencies.add(declared("dependencies", artifact, properties, managedVersions));
+        }
+        List<Declared> plugins = new ArrayList<>();
+        for (PomArtifact artifact : pom.managedPlugins()) {
+            plugins.add(declared("pluginManagement", artifact, properties, managedPluginVersions));
+        }
+        for (PomArtifact artifact : pom.plugins()) {
+            plugins.add(declared("plugins", artifact, properties, managedPluginVersions));
+        }
+
+        List<Declared> all = new ArrayList<>(dependencies);
+        all.addAll(plugins);
+        List<BatchLookup> lookups =
+                metadataService.lookupAll(all.stream().map(Declared::coordinates).toList());
+        List<ReportEntry> entries = new ArrayList<>(all.size());
+        for (int i = 0; i < all.size(); i++) {
+            entries.add(all.get(i).entry(lookups.get(i)));
+        }
+
+        String project =
+                String.join(
+                        ":",
+                        String.valueOf(interpolate(inherited.groupId(), properties)),
+                        String.valueOf(pom.artifactId()),
+                        String.valueOf(interpolate(inherited.version(), properties)));
+        logger.info(
+                "Analyzed {}: {} dependencies, {} plugins, {} warnings",
+                project,
+                dependencies.size(),
+                plugins.size(),
+                warnings.size());
+        return new PomReport(
+                project,
+                entries.subList(0, dependencies.size()),
+                entries.subList(dependencies.size(), entries.size()),
+                List.copyOf(new LinkedHashSet<>(warnings)));
+    }
+
+    /** A dependency or plugin with its version resolved, before its latest versions are known. */
+    private record Declared(
+            String section,
+            String groupId,
+            String artifactId,
+            String version,
+            String property,
+            boolean managed) {
+
+        /** Coordinates for the version lookup, without the version if it is not resolved. */
+        String coordinates() {
+            return version != null
+                    ? groupId + ":" + artifactId + ":" + version
+                    : groupId + ":" + artifactId;
+        }
+
+        ReportEntry entry(BatchLookup lookup) {
+            return new ReportEntry(
+                    section, groupId, artifactId, version, property, managed, lookup);
+        }
+    }
+
+    private static Declared declared(
+            String section,
+            PomArtifact artifact,
+            Map<String, String> properties,
+            Map<String, String> managedVersions) {
+        String groupId = interpolate(artifact.groupId(), properties);
+        String artifactId = interpolate(artifact.artifactId(), properties);
+        String version;
+        boolean managed = artifact.version() == null;
+        if (managed) {
+            version = managedVersions.get(groupId + ":" + artifactId);
+        } else {
+            version = interpolate(artifact.version(), properties);
+        }
+        if (version != null && version.contains("${")) {
+            version = null;
+        }
+        return new Declared(
+                section, groupId, artifactId, version, propertyName(artifact.version()), managed);
+    }
+
+    /** The property name if the version is exactly one property reference. */
+    private static String propertyName(String version) {
+        if (version == null) {
+            return null;
+        }
+        Matcher matcher = PROPERTY.matcher(version);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /** Merges a POM with its parent chain. */
+    private Inherited inherit(Pom pom, List<String> warnings) {
+        Map<String, String> properties = new HashMap<>();
+        Map<String, PomArtifact> managedDependencies = new LinkedHashMap<>();
+        Map<String, PomArtifact> imports = new LinkedHashMap<>();
+        Map<String, PomArtifact> managedPlugins = new LinkedHashMap<>();
+        String groupId = pom.groupId();
+        String version = pom.version();
+
+        Pom current = pom;
+        for (int depth = 0; current != null; depth++) {
+            current.properties().forEach(properties::putIfAbsent);
+            for (PomArtifact artifact : current.managedDependencies()) {
+                (artifact.isImport() ? imports : managedDependencies)
+                        .putIfAbsent(artifact.key(), artifact);
+            }
+            for (PomArtifact plugin : current.managedPlugins()) {
+                managedPlugins.putIfAbsent(plugin.key(), plugin);
+            }
+            MavenDependencyParts parent = current.parent();
+            if (parent == null) {
+                break;
+            }
+            if (groupId == null) {
+                groupId = parent.groupId();
+            }
+            if (version == null) {
+                version = parent.version();
+            }
+            if (depth == MAX_PARENT_DEPTH) {
+                warnings.add("Parent chain of " + pom.artifactId() + " is too deep");
+                break;
+            }
+            current = fetchPom(resolve(parent, properties, "parent", warnings), warnings);
+        }
+        return new Inherited(
+                properties,
+                managedDependencies,
+                List.copyOf(imports.values()),
+                managedPlugins,
+                groupId,
+                version);
+    }
+
+    /** The merged properties of a POM and its parents, with the project coordinates. */
+    private static Map<String, String> properties(Pom pom, Inherited inherited) {
+        Map<String, String> properties = new HashMap<>(inherited.properties());
+        putIfNotNull(properties, "project.groupId", inherited.groupId());
+        putIfNotNull(properties, "project.artifactId", pom.artifactId());
+        putIfNotNull(properties, "project.version", inherited.version());
+        if (pom.parent() != null) {
+            putIfNotNull(properties, "project.parent.groupId", pom.parent().groupId());
+            putIfNotNull(properties, "project.parent.artifactId", pom.parent().artifactId());
+            putIfNotNull(properties, "project.parent.version", pom.parent().version());
+        }
+        return properties;
+    }
+
+    private static void putIfNotNull(Map<String, String> properties, String key, String value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    /**
+     * Versions managed by a merged POM, by groupId:artifactId: its own managed dependencies first,
+     * then those of its imported BOMs in the order of their import.
+     *
+     * @param importing BOMs whose import led here, to detect import cycles
+     */
+    private Map<String, String> managedVersions(
+            Inherited inherited,
+            Map<String, String> properties,
+            Set<MavenDependencyParts> importing,
+            List<String> warnings) {
+        Map<String, String> versions = new HashMap<>();
+        for (PomArtifact artifact : inherited.managedDependencies().values()) {
+            String version = interpolate(artifact.version(), properties);
+            if (version != null) {
+                versions.putIfAbsent(
+                        interpolate(artifact.groupId(), properties)
+                                + ":"
+                                + interpolate(artifact.artifactId(), properties),
+                        version);
+            }
+        }
+
+        List<CompletableFuture<Map<String, String>>> imports = new ArrayList<>();
+        for (PomArtifact artifact : inherited.imports()) {
+            MavenDependencyParts bom =
+                    resolve(
+                            new MavenDependencyParts(
+                                    artifact.groupId(), artifact.artifactId(), artifact.version()),
+                            properties,
+                            "BOM",
+                            warnings);
+            if (bom != null) {
+                imports.add(
+                        CompletableFuture.supplyAsync(
+                                () -> bomVersions(bom, importing, warnings), executor));
+            }
+        }
+        for (CompletableFuture<Map<String, String>> bom : imports) {
+            bom.join().forEach(versions::putIfAbsent);
+        }
+        return versions;
+    }
+
+    /** Versions managed by an imported BOM, from the cache if it was resolved before. */
+    private Map<String, String> bomVersions(
+            MavenDependencyParts bom, Set<MavenDependencyParts> importing, List<String> warnings) {
+        Map<String, String> cached = bomVersions.getIfPresent(bom);
+        if (cached != null) {
+            return cached;
+        }
+        if (importing.contains(bom)) {
+            warnings.add("BOM " + coordinates(bom) + " imports itself");
+            return Map.of();
+        }
+        Pom pom = fetchPom(bom, warnings);
+        if (pom == null) {
+            return Map.of();
+        }
+
+        Set<MavenDependencyParts> path = new HashSet<>(importing);
+        path.add(bom);
+        List<String> problems = Collections.synchronizedList(new ArrayList<>());
+        Inherited inherited = inherit(pom, problems);
+        Map<String, String> versions =
+                Map.copyOf(managedVersions(inherited, properties(pom, inherited), path, problems));
+        if (problems.isEmpty()) {
+            // incomplete tables are not cached, so a failed fetch is retried next time
+            bomVersions.put(bom, versions);
+        }
+        warnings.addAll(problems);
+        return versions;
+    }
+
+    /**
+     * Interpolates the coordinates of a parent or BOM.
+     *
+     * @return The coordinates, or null if the version is missing or not resolvable
+     */
+    private static MavenDependencyParts resolve(
+            MavenDependencyParts parts,
+            Map<String, String> properties,
+            String kind,
+            List<String> warnings) {
+        MavenDependencyParts resolved =
+                new MavenDependencyParts(
+                        interpolate(parts.groupId(), properties),
+                        interpolate(parts.artifactId(), properties),
+                        interpolate(parts.version(), properties));
+        if (resolved.version() == null || resolved.version().contains("${")) {
+            warnings.add("Cannot resolve the version of " + kind + " " + coordinates(resolved));
+            return null;
+        }
+        return resolved;
+    }
+
+    /** Replaces property references in a value; references to unknown properties are kept. */
+    static String interpolate(String value, Map<String, String> properties) {
+        if (value == null || !value.contains("${")) {
+            return value;
+        }
+        String result = value;
+        for (int round = 0; round < MAX_INTERPOLATION_ROUNDS && result.contains("${"); round++) {
+            Matcher matcher = PROPERTY.matcher(result);
+            StringBuilder interpolated = new StringBuilder();
+            while (matcher.find()) {
+                String replacement = properties.get(matcher.group(1));
+                matcher.appendReplacement(
+                        interpolated,
+                        Matcher.quoteReplacement(
+                                replacement != null ? replacement : matcher.group()));
+            }
+            matcher.appendTail(interpolated);
+            String next = interpolated.toString();
+            if (next.equals(result)) {
+                break;
+            }
+            result = next;
+        }
+        return result;
+    }
+
+    /** A POM from the cache or the registries, or null with a warning if it is not available. */
+    private Pom fetchPom(MavenDependencyParts parts, List<String> warnings) {
+        if (parts == null) {
+            return null;
+        }
+        try {
+            Pom pom = poms.get(parts).join();
+            if (pom == null) {
+                warnings.add("POM " + coordinates(parts) + " not found in any configured registry");
+            }
+            return pom;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof UncheckedIOException unchecked) {
+                cause = unchecked.getCause();
+            }
+            logger.warn("Failed to read POM {}: {}", coordinates(parts), cause.getMessage());
+            warnings.add("Failed to read POM " + coordinates(parts) + ": " + cause.getMessage());
+            return null;
+        }
+    }
+
+    /** Asks the registries in order; null, and therefore not cached, if none has the POM. */
+    private Pom loadPom(MavenDependencyParts parts) {
+        IOException failure = null;
+        for (Registry registry : registries) {
+            try {
+                Pom pom =
+                        repositoryClient.fetchPom(
+                                registry, parts.groupId(), parts.artifactId(), parts.version());
+                if (pom != null) {
+                    return pom;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        return null;
+    }
+
+    private static String coordinates(MavenDependencyParts parts) {
+        return parts.groupId() + ":" + parts.artifactId() + ":" + parts.version();
+    }
+}
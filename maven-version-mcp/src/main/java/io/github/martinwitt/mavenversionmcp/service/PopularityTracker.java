@@ -0,0 +1,101 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate request counts per key, to find the most requested ones.
+ *
+ * <p>Counts are kept in a count-min sketch: each key increments one counter in each of {@value
+ * #DEPTH} rows, and its estimate is the smallest of them, which may overcount through collisions
+ * but never undercounts. The memory does not grow with the number of keys. Next to the sketch, the
+ * keys with the highest estimates are kept as candidates for {@link #top(int)}. Once the sketch has
+ * counted ten times its width, all counts are halved, so the popularity follows the recent traffic
+ * rather than the whole uptime.
+ */
+final class PopularityTracker<K> {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int width;
+    private final AtomicIntegerArray counters;
+    private final AtomicLong additions = new AtomicLong();
+    private final long resetAfter;
+    private final int capacity;
+    private final Map<K, Integer> candidates = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity Number of most requested keys to track
+     */
+    PopularityTracker(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        // about 16 counters per tracked key keep the collisions between popular keys rare
+        this.width = Integer.highestOneBit(Math.max(64, this.capacity * 16) - 1) << 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.resetAfter = 10L * width;
+    }
+
+    /** Counts a request for a key. */
+    void record(K key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+        candidates.put(key, estimate);
+        if (candidates.size() > 2 * capacity) {
+            trim();
+        }
+        if (additions.incrementAndGet() % resetAfter == 0) {
+            halve();
+        }
+    }
+
+    /** The estimated number of requests for a key since the counts were last halved. */
+    int estimate(K key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /** The most requested keys, most requested first. */
+    List<K> top(int limit) {
+        List<Map.Entry<K, Integer>> entries = new ArrayList<>(candidates.entrySet());
+        entries.sort(Map.Entry.<K, Integer>comparingByValue(Comparator.reverseOrder()));
+        return entries.stream().limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * width + (h & (width - 1));
+    }
+
+    /** Keeps the {@code capacity} candidates with the highest estimates. */
+    private synchronized void trim() {
+        if (candidates.size() <= 2 * capacity) {
+            return;
+        }
+        Set<K> keep = new HashSet<>(top(capacity));
+        candidates.keySet().retainAll(keep);
+    }
+
+    private synchronized void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+        candidates.replaceAll((key, count) -> count >>> 1);
+        candidates.values().removeIf(count -> count == 0);
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.Validators;
+import io.github.martinwitt.mavenversionmcp.utils.VersionIndex;
+import java.util.List;
+
+/**
+ * Outcome of reading an artifact's maven-metadata.xml.
+ *
+ * <p>A missing artifact and a failed fetch are told apart from metadata that lists no versions, so
+ * that they can be cached for a shorter time.
+ *
+ * @param status Whether the metadata was read
+ * @param index Versions listed in the metadata, parsed and sorted once when they are loaded; empty
+ *     unless {@link Status#FOUND}
+ * @param validators ETag and Last-Modified of the metadata, to revalidate it on refresh
+ * @param loadedAt {@link System#nanoTime()} of the fetch or of the last revalidation, from which
+ *     the cache derives the remaining lifetime; the cache's ticker for cached lookups
+ */
+public record VersionLookup(
+        Status status, VersionIndex index, Validators validators, long loadedAt) {
+
+    public enum Status {
+        /** The metadata was read, even if it lists no versions. */
+        FOUND,
+        /** The repository has no metadata for the artifact. */
+        NOT_FOUND,
+        /** The metadata could not be fetched or parsed. */
+        ERROR
+    }
+
+    static VersionLookup found(List<String> versions, Validators validators) {
+        return new VersionLookup(
+                Status.FOUND, VersionIndex.of(versions), validators, System.nanoTime());
+    }
+
+    /** Versions read from a cache snapshot, fetched {@code loadedAt} in this JVM's nano time. */
+    static VersionLookup restored(List<String> versions, Validators validators, long loadedAt) {
+        return new VersionLookup(Status.FOUND, VersionIndex.of(versions), validators, loadedAt);
+    }
+
+    static VersionLookup notFound() {
+        return new VersionLookup(
+                Status.NOT_FOUND, VersionIndex.of(List.of()), Validators.NONE, System.nanoTime());
+    }
+
+    static VersionLookup error() {
+        return new VersionLookup(
+                Status.ERROR, VersionIndex.of(List.of()), Validators.NONE, System.nanoTime());
+    }
+
+    /** The same versions, confirmed unchanged by the repository just now. */
+    VersionLookup revalidated(Validators validators) {
+        return new VersionLookup(status, index, validators, System.nanoTime());
+    }
+
+    /** The same lookup, fetched or revalidated at the given nano time. */
+    VersionLookup withLoadedAt(long loadedAt) {
+        return new VersionLookup(status, index, validators, loadedAt);
+    }
+
+    /** Versions listed in the metadata, in their original order. */
+    public List<String> versions() {
+        return index.versions();
+    }
+
+    /** True for a missing artifact or a failed fetch. */
+    public boolean isNegative() {
+        return status != Status.FOUND;
+    }
+}
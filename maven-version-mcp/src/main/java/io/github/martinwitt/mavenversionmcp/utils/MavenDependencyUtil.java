@@ -44,7 +44,8 @@ public class MavenDependencyUtil {
                     "groupId and artifactId must not be empty in dependency: " + dependency);
         }
 
-        return new MavenDependencyParts(groupId, artifactId);
+        return new MavenDependencyParts(
+                groupId, artifactId, version == null || version.isEmpty() ? null : version);
     }
 
     /**
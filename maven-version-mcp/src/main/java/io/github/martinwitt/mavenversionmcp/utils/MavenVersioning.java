@@ -1,44 +1,69 @@
 package io.github.martinwitt.mavenversionmcp.utils;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Maven versioning rules and comparison logic.
  *
- * <p>Implements Maven's semantic versioning rules as defined in the Maven Versioning documentation.
- * Properly handles version qualifiers like SNAPSHOT, alpha, beta, rc, etc.
- *
- * <p>Stability hierarchy (from highest to lowest):
+ * <p>Orders versions like Maven's {@code ComparableVersion}, as described in the <a
+ * href="https://maven.apache.org/pom.html#Version_Order_Specification">version order
+ * specification</a>:
  *
  * <ul>
- *   <li>Release versions (e.g., 1.0.0)
- *   <li>Release candidates (e.g., 1.0.0-rc.1)
- *   <li>Beta versions (e.g., 1.0.0-beta.1)
- *   <li>Alpha versions (e.g., 1.0.0-alpha.1)
- *   <li>Snapshot versions (e.g., 1.0.0-SNAPSHOT)
+ *   <li>A version is split into numbers and qualifiers at {@code .}, {@code -} and at every switch
+ *       between digits and letters; a {@code -} or such a switch starts a nested sub-list
+ *   <li>Trailing zeros and release qualifiers are dropped, so {@code 1}, {@code 1.0}, {@code
+ *       1.0.0}, {@code 1-ga} and {@code 1.0.Final} are equal
+ *   <li>Qualifiers rank {@code alpha < beta < milestone < rc = cr < snapshot < (release) < sp};
+ *       unknown qualifiers rank after these, alphabetically. {@code a1}, {@code b1} and {@code m1}
+ *       are short for alpha, beta and milestone
+ *   <li>Numbers rank above sub-lists, and sub-lists above qualifiers: {@code 1.0.1 > 1-1 >
+ *       1.0.alpha}
  * </ul>
+ *
+ * <p>Stability is a separate question: a version is stable unless one of its qualifiers ranks below
+ * a release or names a preview such as {@code preview}, {@code ea} or {@code dev}.
  */
 public class MavenVersioning {
 
-    private static final Pattern VERSION_PATTERN =
-            Pattern.compile("^(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?(?:-(.+))?(?:(?:(?!)()))?$");
-
-    private static final Pattern QUALIFIER_PATTERN =
-            Pattern.compile("^([a-zA-Z]+)?(?:[.\\-]?(\\d+))?.*$");
-
-    // Qualifier priority (higher number = more stable)
-    private static final int SNAPSHOT_PRIORITY = 0;
-    private static final int ALPHA_PRIORITY = 1;
-    private static final int BETA_PRIORITY = 2;
-    private static final int RC_PRIORITY = 3;
-    private static final int RELEASE_PRIORITY = 4;
+    // A parsed version is a flat array of tokens. Each token holds its kind in the top four bits
+    // and its value in the rest. A LIST token opens a sub-list that runs to the end of the
+    // version, which is where Maven's parser always places it.
+    private static final int KIND_SHIFT = 60;
+    private static final long VALUE_MASK = (1L << KIND_SHIFT) - 1;
+    private static final int QUALIFIER = 1;
+    private static final int NUMBER = 2;
+    private static final int BIG_NUMBER = 3;
+    private static final int LIST = 4;
+    private static final long LIST_TOKEN = (long) LIST << KIND_SHIFT;
+    private static final long BIG_NUMBER_TOKEN = (long) BIG_NUMBER << KIND_SHIFT;
+    // Longer numbers may not fit into the token value and are compared by their digits
+    private static final int MAX_NUMBER_DIGITS = 18;
+
+    // Qualifier ranks; unknown qualifiers rank above all of them and are ordered by their text
+    private static final int ALPHA = 0;
+    private static final int BETA = 1;
+    private static final int MILESTONE = 2;
+    private static final int RC = 3;
+    private static final int SNAPSHOT = 4;
+    private static final int RELEASE = 5;
+    private static final int SP = 6;
+    private static final int UNKNOWN = 7;
+
+    // Unknown qualifiers, which Maven ranks above a release, that still mark a pre-release
+    private static final Set<String> PREVIEW_QUALIFIERS =
+            Set.of("dev", "ea", "eap", "nightly", "pre", "preview");
 
     /**
      * Compares two Maven versions.
      *
+     * <p>Both versions are parsed for every call. To compare the same versions repeatedly, parse
+     * them once with {@link #parse} or build a {@link VersionIndex}.
+     *
      * @param v1 First version string
      * @param v2 Second version string
      * @return negative if v1 < v2, zero if equal, positive if v1 > v2
@@ -47,30 +72,7 @@ public class MavenVersioning {
         if (v1.equals(v2)) {
             return 0;
         }
-
-        VersionParts parts1 = parseVersion(v1);
-        VersionParts parts2 = parseVersion(v2);
-
-        // Compare major version
-        int majorCmp = Integer.compare(parts1.major, parts2.major);
-        if (majorCmp != 0) {
-            return majorCmp;
-        }
-
-        // Compare minor version
-        int minorCmp = Integer.compare(parts1.minor, parts2.minor);
-        if (minorCmp != 0) {
-            return minorCmp;
-        }
-
-        // Compare patch version
-        int patchCmp = Integer.compare(parts1.patch, parts2.patch);
-        if (patchCmp != 0) {
-            return patchCmp;
-        }
-
-        // Compare qualifiers (e.g., alpha, beta, rc, SNAPSHOT)
-        return compareQualifiers(parts1.qualifier, parts2.qualifier);
+        return parse(v1).compareTo(parse(v2));
     }
 
     /**
@@ -83,14 +85,14 @@ public class MavenVersioning {
     }
 
     /**
-     * Determines if a version is considered stable (not a snapshot/alpha/beta/rc).
+     * Determines if a version is considered stable (not a snapshot, alpha, beta, milestone, release
+     * candidate or preview).
      *
      * @param version Version string to check
      * @return true if the version is stable, false otherwise
      */
     public static boolean isStable(String version) {
-        VersionParts parts = parseVersion(version);
-        return parts.qualifierPriority >= RELEASE_PRIORITY;
+        return parse(version).isStable();
     }
 
     /**
@@ -110,7 +112,7 @@ public class MavenVersioning {
      * @return List of stable versions sorted by version number (highest first)
      */
     public static List<String> filterStableVersions(List<String> versions) {
-        return versions.stream().filter(MavenVersioning::isStable).sorted(getComparator()).toList();
+        return VersionIndex.of(versions).stableVersions();
     }
 
     /**
@@ -120,131 +122,381 @@ public class MavenVersioning {
      * @return The latest stable version, or empty string if none found
      */
     public static String findLatestStable(List<String> versions) {
-        return filterStableVersions(versions).stream().findFirst().orElse("");
+        return VersionIndex.of(versions).latestStable();
     }
 
-    private static VersionParts parseVersion(String version) {
-        Matcher matcher = VERSION_PATTERN.matcher(version.trim());
-
-        if (!matcher.matches()) {
-            // Fallback for non-standard versions
-            return new VersionParts(0, 0, 0, version, getQualifierPriority(version));
+    /**
+     * Classifies the upgrade from one version to another by the first version number that changes.
+     *
+     * @param current Version in use
+     * @param target Version to upgrade to
+     * @return "major", "minor" or "patch", or "none" if the target is not newer
+     */
+    public static String upgradeType(String current, String target) {
+        ParsedVersion from = parse(current);
+        ParsedVersion to = parse(target);
+        if (to.compareTo(from) <= 0) {
+            return "none";
         }
-
-        int major = Integer.parseInt(matcher.group(1));
-        int minor = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
-        int patch = matcher.group(3) != null ? Integer.parseInt(matcher.group(3)) : 0;
-        String qualifier = matcher.group(4) != null ? matcher.group(4) : "";
-        String suffix = matcher.group(5);
-
-        if (suffix != null && !suffix.isEmpty()) {
-            qualifier = qualifier + "." + suffix;
+        if (!to.sameNumber(from, 0)) {
+            return "major";
         }
-
-        int priority = getQualifierPriority(qualifier);
-
-        return new VersionParts(major, minor, patch, qualifier, priority);
+        if (!to.sameNumber(from, 1)) {
+            return "minor";
+        }
+        return "patch";
     }
 
-    private static int getQualifierPriority(String qualifier) {
-        if (qualifier == null || qualifier.isEmpty()) {
-            return RELEASE_PRIORITY;
+    /**
+     * Parses a version once for repeated comparisons.
+     *
+     * <p>The version is read in a single pass. Apart from the text of unknown qualifiers and of
+     * numbers with more than 18 digits, the result is a single {@code long} array.
+     *
+     * @param version Version string
+     * @return The parsed version
+     */
+    public static ParsedVersion parse(String version) {
+        int length = version.length();
+        // Every character ends at most one item and opens at most one sub-list
+        long[] tokens = new long[2 * length + 2];
+        String[] texts = null;
+        int count = 0;
+        int listSize = 0;
+        boolean isDigit = false;
+        int start = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = version.charAt(i);
+            if (c == '.' || c == '-') {
+                if (i == start) {
+                    tokens[count++] = number(0);
+                } else {
+                    long token =
+                            isDigit
+                                    ? number(version, start, i)
+                                    : qualifier(version, start, i, false);
+                    texts = withText(texts, tokens.length, count, token, version, start, i);
+                    tokens[count++] = token;
+                }
+                listSize++;
+                start = i + 1;
+                if (c == '-') {
+                    tokens[count++] = LIST_TOKEN;
+                    listSize = 0;
+                }
+                isDigit = false;
+            } else if (Character.isDigit(c)) {
+                if (!isDigit && i > start) {
+                    // letters followed by digits, like rc1: 1.0.0.X1 < 1.0.0-X2
+                    if (listSize > 0) {
+                        tokens[count++] = LIST_TOKEN;
+                    }
+                    long token = qualifier(version, start, i, true);
+                    texts = withText(texts, tokens.length, count, token, version, start, i);
+                    tokens[count++] = token;
+                    tokens[count++] = LIST_TOKEN;
+                    listSize = 0;
+                    start = i;
+                }
+                isDigit = true;
+            } else {
+                if (isDigit && i > start) {
+                    // digits followed by letters, like 1ga
+                    long token = number(version, start, i);
+                    texts = withText(texts, tokens.length, count, token, version, start, i);
+                    tokens[count++] = token;
+                    tokens[count++] = LIST_TOKEN;
+                    listSize = 0;
+                    start = i;
+                }
+                isDigit = false;
+            }
+        }
+        if (length > start) {
+            if (!isDigit && listSize > 0) {
+                // a trailing .X is treated as -X
+                tokens[count++] = LIST_TOKEN;
+            }
+            long token =
+                    isDigit
+                            ? number(version, start, length)
+                            : qualifier(version, start, length, false);
+            texts = withText(texts, tokens.length, count, token, version, start, length);
+            tokens[count++] = token;
         }
 
-        String lowerQualifier = qualifier.toLowerCase();
+        return normalize(version, tokens, texts, count);
+    }
 
-        if (lowerQualifier.contains("snapshot")) {
-            return SNAPSHOT_PRIORITY;
+    /**
+     * Drops trailing zeros, release qualifiers and empty sub-lists from every list, as Maven's
+     * {@code ListItem.normalize()} does from the innermost list outwards. The kept tokens are moved
+     * to the end of the array while walking it backwards, so no second array is needed.
+     */
+    private static ParsedVersion normalize(
+            String version, long[] tokens, String[] texts, int count) {
+        int out = tokens.length;
+        boolean stripping = true;
+        boolean listEmpty = true;
+        for (int i = count - 1; i >= 0; i--) {
+            long token = tokens[i];
+            if (token == LIST_TOKEN) {
+                // an empty sub-list is dropped, and the list around it is stripped in either case
+                if (!listEmpty) {
+                    tokens[--out] = LIST_TOKEN;
+                    if (texts != null) {
+                        texts[out] = null;
+                    }
+                }
+                stripping = true;
+            } else if (!stripping || !isNull(token)) {
+                stripping = false;
+                listEmpty = false;
+                tokens[--out] = token;
+                if (texts != null) {
+                    texts[out] = texts[i];
+                }
+            }
         }
+        return new ParsedVersion(
+                version,
+                Arrays.copyOfRange(tokens, out, tokens.length),
+                texts != null ? Arrays.copyOfRange(texts, out, texts.length) : null);
+    }
 
-        // Treat "alpha" and shorthand forms like "a", "a1", "a01" as alpha.
-        boolean isAlphaShorthand = lowerQualifier.matches("a\\d*");
-        if (lowerQualifier.contains("alpha") || isAlphaShorthand) {
-            return ALPHA_PRIORITY;
-        }
+    private static long number(long value) {
+        return ((long) NUMBER << KIND_SHIFT) | value;
+    }
 
-        // Treat "beta" and shorthand forms like "b", "b1", "b02" as beta.
-        boolean isBetaShorthand = lowerQualifier.matches("b\\d*");
-        if (lowerQualifier.contains("beta") || isBetaShorthand) {
-            return BETA_PRIORITY;
+    private static long number(String version, int start, int end) {
+        while (start < end - 1 && Character.digit(version.charAt(start), 10) == 0) {
+            start++;
+        }
+        if (end - start > MAX_NUMBER_DIGITS) {
+            return BIG_NUMBER_TOKEN;
         }
-        if (lowerQualifier.contains("rc") || lowerQualifier.contains("cr")) {
-            return RC_PRIORITY;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + Character.digit(version.charAt(i), 10);
         }
+        return number(value);
+    }
 
-        // Unknown qualifier - treat as pre-release (less stable than release)
-        if (lowerQualifier.isEmpty() || !Character.isDigit(lowerQualifier.charAt(0))) {
-            return BETA_PRIORITY;
+    private static long qualifier(String version, int start, int end, boolean followedByDigit) {
+        int length = end - start;
+        if (followedByDigit && length == 1) {
+            switch (Character.toLowerCase(version.charAt(start))) {
+                case 'a' -> {
+                    return qualifier(ALPHA);
+                }
+                case 'b' -> {
+                    return qualifier(BETA);
+                }
+                case 'm' -> {
+                    return qualifier(MILESTONE);
+                }
+                default -> {}
+            }
         }
+        if (is(version, start, length, "alpha")) {
+            return qualifier(ALPHA);
+        } else if (is(version, start, length, "beta")) {
+            return qualifier(BETA);
+        } else if (is(version, start, length, "milestone")) {
+            return qualifier(MILESTONE);
+        } else if (is(version, start, length, "rc") || is(version, start, length, "cr")) {
+            return qualifier(RC);
+        } else if (is(version, start, length, "snapshot")) {
+            return qualifier(SNAPSHOT);
+        } else if (is(version, start, length, "ga")
+                || is(version, start, length, "final")
+                || is(version, start, length, "release")) {
+            return qualifier(RELEASE);
+        } else if (is(version, start, length, "sp")) {
+            return qualifier(SP);
+        }
+        return qualifier(UNKNOWN);
+    }
 
-        return RELEASE_PRIORITY;
+    private static long qualifier(int rank) {
+        return ((long) QUALIFIER << KIND_SHIFT) | rank;
     }
 
-    private static int compareQualifiers(String q1, String q2) {
-        // Both are release versions (no qualifier)
-        if ((q1 == null || q1.isEmpty()) && (q2 == null || q2.isEmpty())) {
-            return 0;
-        }
+    private static boolean is(String version, int start, int length, String qualifier) {
+        return length == qualifier.length()
+                && version.regionMatches(true, start, qualifier, 0, length);
+    }
 
-        // One is a release, the other isn't - release is higher
-        if ((q1 == null || q1.isEmpty()) && (q2 != null && !q2.isEmpty())) {
-            return 1;
+    /** Stores the text of an unknown qualifier or a long number next to its token. */
+    private static String[] withText(
+            String[] texts, int size, int index, long token, String version, int start, int end) {
+        String text;
+        if (token == qualifier(UNKNOWN)) {
+            text = version.substring(start, end).toLowerCase(Locale.ENGLISH);
+        } else if (token == BIG_NUMBER_TOKEN) {
+            StringBuilder digits = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                int digit = Character.digit(version.charAt(i), 10);
+                if (digit != 0 || !digits.isEmpty()) {
+                    digits.append((char) ('0' + digit));
+                }
+            }
+            text = digits.toString();
+        } else {
+            return texts;
         }
-        if ((q1 != null && !q1.isEmpty()) && (q2 == null || q2.isEmpty())) {
-            return -1;
+        if (texts == null) {
+            texts = new String[size];
         }
+        texts[index] = text;
+        return texts;
+    }
+
+    private static int kind(long token) {
+        return (int) (token >>> KIND_SHIFT);
+    }
 
-        int p1 = getQualifierPriority(q1);
-        int p2 = getQualifierPriority(q2);
+    /** Zeros and release qualifiers, which Maven drops from the end of a list. */
+    private static boolean isNull(long token) {
+        return token == number(0) || token == qualifier(RELEASE);
+    }
 
-        if (p1 != p2) {
-            return Integer.compare(p1, p2);
-        }
+    /** Compares an item with a missing one, as when one list is shorter than the other. */
+    private static int compareToMissing(long token) {
+        return switch (kind(token)) {
+            case NUMBER -> (token & VALUE_MASK) == 0 ? 0 : 1;
+            case BIG_NUMBER -> 1;
+            case QUALIFIER -> Long.compare(token & VALUE_MASK, RELEASE);
+            default -> 0; // a sub-list compares by its items, which follow it
+        };
+    }
 
-        // Same qualifier type - compare numerically
-        return compareQualifierNumbers(q1, q2);
+    /** Orders kinds as Maven does across item types: qualifiers < sub-lists < numbers. */
+    private static int kindRank(int kind) {
+        return switch (kind) {
+            case QUALIFIER -> 0;
+            case LIST -> 1;
+            default -> 2;
+        };
     }
 
-    private static int compareQualifierNumbers(String q1, String q2) {
-        Matcher m1 = QUALIFIER_PATTERN.matcher(q1);
-        Matcher m2 = QUALIFIER_PATTERN.matcher(q2);
+    /**
+     * A version parsed into the tokens of Maven's version order. Comparing two parsed versions
+     * walks their token arrays and does not allocate.
+     */
+    public static final class ParsedVersion implements Comparable<ParsedVersion> {
+        private final String version;
+        private final long[] tokens;
+        // Text of unknown qualifiers and long numbers at the index of their token; null if none
+        private final String[] texts;
+
+        private ParsedVersion(String version, long[] tokens, String[] texts) {
+            this.version = version;
+            this.tokens = tokens;
+            this.texts = texts;
+        }
 
-        boolean m1Match = m1.matches();
-        boolean m2Match = m2.matches();
+        /** The version string as given. */
+        public String version() {
+            return version;
+        }
 
-        String type1 = m1.group(1) != null ? m1.group(1) : "";
-        String type2 = m2.group(1) != null ? m2.group(1) : "";
+        public boolean isStable() {
+            for (int i = 0; i < tokens.length; i++) {
+                long token = tokens[i];
+                if (kind(token) != QUALIFIER) {
+                    continue;
+                }
+                if ((token & VALUE_MASK) < RELEASE
+                        || (texts != null && PREVIEW_QUALIFIERS.contains(texts[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
 
-        // If types are different, compare strings
-        if (!type1.equals(type2)) {
-            return type1.compareTo(type2);
+        /** True if both versions have the same number at the given position of the outer list. */
+        private boolean sameNumber(ParsedVersion other, int position) {
+            long token = numberAt(position);
+            return token == other.numberAt(position)
+                    && (token != BIG_NUMBER_TOKEN || texts[position].equals(other.texts[position]));
         }
 
-        // Compare numeric parts if available
-        if (m1.group(2) != null && m2.group(2) != null) {
-            int num1 = Integer.parseInt(m1.group(2));
-            int num2 = Integer.parseInt(m2.group(2));
-            return Integer.compare(num1, num2);
+        private long numberAt(int position) {
+            for (int i = 0; i <= position && i < tokens.length; i++) {
+                int kind = kind(tokens[i]);
+                if (kind != NUMBER && kind != BIG_NUMBER) {
+                    break;
+                }
+                if (i == position) {
+                    return tokens[i];
+                }
+            }
+            return number(0);
         }
 
-        // Fallback to string comparison
-        return q1.compareTo(q2);
-    }
+        @Override
+        public int compareTo(ParsedVersion other) {
+            if (version.equals(other.version)) {
+                return 0;
+            }
+            long[] left = tokens;
+            long[] right = other.tokens;
+            int common = Math.min(left.length, right.length);
+            for (int i = 0; i < common; i++) {
+                int result = compareTokens(i, other);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            for (int i = common; i < left.length; i++) {
+                int result = compareToMissing(left[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            for (int i = common; i < right.length; i++) {
+                int result = compareToMissing(right[i]);
+                if (result != 0) {
+                    return -result;
+                }
+            }
+            return 0;
+        }
 
-    /** Internal class for holding parsed version parts. */
-    private static class VersionParts {
-        int major;
-        int minor;
-        int patch;
-        String qualifier;
-        int qualifierPriority;
+        private int compareTokens(int index, ParsedVersion other) {
+            long left = tokens[index];
+            long right = other.tokens[index];
+            int leftKind = kind(left);
+            int rightKind = kind(right);
+            if (leftKind == LIST || rightKind == LIST) {
+                // both sub-lists are compared by the tokens that follow
+                return leftKind == rightKind ? 0 : kindRank(leftKind) - kindRank(rightKind);
+            }
+            if (leftKind != rightKind) {
+                // qualifiers < numbers < long numbers
+                return Integer.compare(leftKind, rightKind);
+            }
+            int result = Long.compare(left & VALUE_MASK, right & VALUE_MASK);
+            if (result != 0) {
+                return result;
+            }
+            if (leftKind == BIG_NUMBER) {
+                String leftDigits = texts[index];
+                String rightDigits = other.texts[index];
+                result = Integer.compare(leftDigits.length(), rightDigits.length());
+                return result != 0 ? result : leftDigits.compareTo(rightDigits);
+            }
+            if (leftKind == QUALIFIER && (left & VALUE_MASK) == UNKNOWN) {
+                return texts[index].compareTo(other.texts[index]);
+            }
+            return 0;
+        }
 
-        VersionParts(int major, int minor, int patch, String qualifier, int qualifierPriority) {
-            this.major = major;
-            this.minor = minor;
-            this.patch = patch;
-            this.qualifier = qualifier;
-            this.qualifierPriority = qualifierPriority;
+        @Override
+        public String toString() {
+            return version;
         }
     }
 }
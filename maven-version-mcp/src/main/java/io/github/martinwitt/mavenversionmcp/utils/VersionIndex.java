@@ -0,0 +1,84 @@
+package io.github.martinwitt.mavenversionmcp.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The versions of an artifact, parsed and sorted once.
+ *
+ * <p>Building the index parses every version and sorts them, which costs O(n log n) comparisons of
+ * parsed versions. Afterwards the latest version, the latest stable version and the sorted lists
+ * are returned without further work, so the index is meant to be cached next to the raw list.
+ */
+public final class VersionIndex {
+
+    private static final VersionIndex EMPTY = new VersionIndex(List.of(), List.of(), List.of());
+
+    private final List<String> versions;
+    private final List<String> sortedVersions;
+    private final List<String> stableVersions;
+
+    private VersionIndex(
+            List<String> versions, List<String> sortedVersions, List<String> stableVersions) {
+        this.versions = versions;
+        this.sortedVersions = sortedVersions;
+        this.stableVersions = stableVersions;
+    }
+
+    /**
+     * Indexes the given versions.
+     *
+     * @param versions Version strings in any order, e.g. as listed in maven-metadata.xml
+     * @return The index; versions that compare as equal keep their given order
+     */
+    public static VersionIndex of(List<String> versions) {
+        if (versions.isEmpty()) {
+            return EMPTY;
+        }
+        List<MavenVersioning.ParsedVersion> parsed = new ArrayList<>(versions.size());
+        for (String version : versions) {
+            parsed.add(MavenVersioning.parse(version));
+        }
+        parsed.sort(Comparator.reverseOrder());
+
+        List<String> sorted = new ArrayList<>(parsed.size());
+        List<String> stable = new ArrayList<>(parsed.size());
+        for (MavenVersioning.ParsedVersion version : parsed) {
+            sorted.add(version.version());
+            if (version.isStable()) {
+                stable.add(version.version());
+            }
+        }
+        return new VersionIndex(List.copyOf(versions), List.copyOf(sorted), List.copyOf(stable));
+    }
+
+    /** All versions in their original order. */
+    public List<String> versions() {
+        return versions;
+    }
+
+    /** All versions, highest first. */
+    public List<String> sortedVersions() {
+        return sortedVersions;
+    }
+
+    /** Stable versions, highest first. */
+    public List<String> stableVersions() {
+        return stableVersions;
+    }
+
+    /** The highest version including pre-releases, or empty string if there is none. */
+    public String latest() {
+        return sortedVersions.isEmpty() ? "" : sortedVersions.getFirst();
+    }
+
+    /** The highest stable version, or empty string if there is none. */
+    public String latestStable() {
+        return stableVersions.isEmpty() ? "" : stableVersions.getFirst();
+    }
+
+    public boolean isEmpty() {
+        return versions.isEmpty();
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.martinwitt.mavenversionmcp.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenMetadata;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.Test;
+
+class MavenMetadataReaderTest {
+
+    @Test
+    void shouldReadVersioning() throws XMLStreamException {
+        MavenMetadata metadata =
+                read(
+                        """
+                        <?xml version="1.0" encoding="UTF-8"?>
+                        <metadata modelVersion="1.1.0">
+                          <groupId>com.google.inject</groupId>
+                          <artifactId>guice</artifactId>
+                          <versioning>
+                            <latest>7.0.0</latest>
+                            <release>7.0.0</release>
+                            <versions>
+                              <version>6.0.0</version>
+                              <version>
+                                7.0.0
+                              </version>
+                            </versions>
+                            <lastUpdated>20230508103005</lastUpdated>
+                          </versioning>
+                        </metadata>
+                        """);
+
+        assertThat(metadata.groupId()).isEqualTo("com.google.inject");
+        assertThat(metadata.artifactId()).isEqualTo("guice");
+        assertThat(metadata.versioning().latest()).isEqualTo("7.0.0");
+        assertThat(metadata.versioning().release()).isEqualTo("7.0.0");
+        assertThat(metadata.versioning().versions()).containsExactly("6.0.0", "7.0.0");
+        assertThat(metadata.versioning().lastUpdated()).isEqualTo("20230508103005");
+    }
+
+    @Test
+    void shouldIgnoreOtherElements() throws XMLStreamException {
+        MavenMetadata metadata =
+                read(
+                        """
+                        <metadata>
+                          <version>1.0</version>
+                          <plugins><plugin><prefix>x</prefix></plugin></plugins>
+                          <versioning>
+                            <snapshot><version>2</version></snapshot>
+                            <versions><version>1.0</version></versions>
+                            <snapshotVersions><snapshotVersion><version>3</version></snapshotVersion></snapshotVersions>
+                          </versioning>
+                        </metadata>
+                        """);
+
+        assertThat(metadata.versioning().versions()).containsExactly("1.0");
+    }
+
+    @Test
+    void shouldLeaveMissingVersioningEmpty() throws XMLStreamException {
+        assertThat(read("<metadata><groupId>g</groupId></metadata>").versioning()).isNull();
+        assertThat(read("<metadata><versioning/></metadata>").versioning().versions()).isNull();
+        assertThat(
+                        read("<metadata><versioning><versions/></versioning></metadata>")
+                                .versioning()
+                                .versions())
+                .isEmpty();
+    }
+
+    @Test
+    void shouldRejectMalformedDocuments() {
+        assertThatThrownBy(() -> read("<metadata><versioning>"))
+                .isInstanceOf(XMLStreamException.class);
+    }
+
+    private static MavenMetadata read(String xml) throws XMLStreamException {
+        return MavenMetadataReader.read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
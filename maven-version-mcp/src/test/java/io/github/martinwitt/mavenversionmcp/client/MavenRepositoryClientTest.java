@@ -0,0 +1,182 @@
+package io.github.martinwitt.mavenversionmcp.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.MetadataResponse;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.Validators;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MavenRepositoryClientTest {
+
+    private static final String METADATA =
+            """
+            <metadata>
+              <groupId>com.example</groupId>
+              <artifactId>lib</artifactId>
+              <versioning>
+                <versions>
+                  <version>1.0</version>
+                  <version>1.1</version>
+                </versions>
+              </versioning>
+            </metadata>
+            """;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MavenRepositoryClient client;
+
+    @BeforeEach
+    void createClient() {
+        MavenRepositoryProperties properties = new MavenRepositoryProperties();
+        properties.setInitialHedgeDelay(Duration.ofSeconds(1));
+        client = new MavenRepositoryClient(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void shouldHedgeToMirrorWhenFirstIsSlow() throws IOException {
+        AtomicInteger slowRequests = new AtomicInteger();
+        String slow =
+                server(
+                        exchange -> {
+                            slowRequests.incrementAndGet();
+                            sleep(10_000);
+                            respond(exchange, 200, METADATA);
+                        });
+        String fast = server(exchange -> respond(exchange, 200, METADATA));
+
+        long start = System.nanoTime();
+        MetadataResponse response =
+                client.fetchMetadata(registry(slow, fast), "com.example", "lib", Validators.NONE);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(response.status()).isEqualTo(MetadataResponse.Status.OK);
+        assertThat(response.metadata().versioning().versions()).containsExactly("1.0", "1.1");
+        assertThat(slowRequests).hasValue(1);
+        assertThat(hedges("slow")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFallBackToMirrorOnServerError() throws IOException {
+        String failing = server(exchange -> respond(exchange, 503, ""));
+        String mirror = server(exchange -> respond(exchange, 200, METADATA));
+
+        MetadataResponse response =
+                client.fetchMetadata(
+                        registry(failing, mirror), "com.example", "lib", Validators.NONE);
+
+        assertThat(response.status()).isEqualTo(MetadataResponse.Status.OK);
+        assertThat(hedges("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReportMissingArtifactAndNotModified() throws IOException {
+        String missing = server(exchange -> respond(exchange, 404, ""));
+        String unchanged = server(exchange -> respond(exchange, 304, null));
+
+        assertThat(
+                        client.fetchMetadata(
+                                        registry(missing), "com.example", "lib", Validators.NONE)
+                                .status())
+                .isEqualTo(MetadataResponse.Status.NOT_FOUND);
+        Validators validators = new Validators("\"v1\"", null);
+        MetadataResponse response =
+                client.fetchMetadata(registry(unchanged), "com.example", "lib", validators);
+        assertThat(response.status()).isEqualTo(MetadataResponse.Status.NOT_MODIFIED);
+        assertThat(response.validators()).isEqualTo(validators);
+    }
+
+    @Test
+    void shouldFailWhenAllMirrorsFail() {
+        String first = server(exchange -> respond(exchange, 500, ""));
+        String second = server(exchange -> respond(exchange, 502, ""));
+
+        assertThatThrownBy(
+                        () ->
+                                client.fetchMetadata(
+                                        registry(first, second),
+                                        "com.example",
+                                        "lib",
+                                        Validators.NONE))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unexpected HTTP status");
+    }
+
+    private double hedges(String reason) {
+        return meterRegistry
+                .counter("maven.repository.hedge", "registry", "test", "reason", reason)
+                .count();
+    }
+
+    private static Registry registry(String url, String... mirrors) {
+        Registry registry = new Registry("test", url, List.of(mirrors));
+        registry.setTimeout(Duration.ofSeconds(10));
+        return registry;
+    }
+
+    private String server(Handler handler) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext(
+                    "/",
+                    exchange -> {
+                        try (exchange) {
+                            handler.handle(exchange);
+                        }
+                    });
+            server.start();
+            servers.add(server);
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/maven2";
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
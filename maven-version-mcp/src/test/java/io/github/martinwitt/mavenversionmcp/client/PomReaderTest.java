@@ -0,0 +1,139 @@
+package io.github.martinwitt.mavenversionmcp.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.mavenversionmcp.client.dto.MavenDependencyParts;
+import io.github.martinwitt.mavenversionmcp.client.dto.Pom;
+import io.github.martinwitt.mavenversionmcp.client.dto.PomArtifact;
+import java.io.StringReader;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.Test;
+
+class PomReaderTest {
+
+    @Test
+    void shouldReadCoordinatesAndProperties() throws XMLStreamException {
+        Pom pom =
+                PomReader.read(
+                        new StringReader(
+                                """
+                                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                                  <parent>
+                                    <groupId>org.springframework.boot</groupId>
+                                    <artifactId>spring-boot-starter-parent</artifactId>
+                                    <version>3.4.0</version>
+                                  </parent>
+                                  <artifactId>demo</artifactId>
+                                  <properties>
+                                    <java.version>21</java.version>
+                                    <guava.version> 33.4.0-jre </guava.version>
+                                  </properties>
+                                </project>
+                                """));
+
+        assertThat(pom.groupId()).isNull();
+        assertThat(pom.artifactId()).isEqualTo("demo");
+        assertThat(pom.version()).isNull();
+        assertThat(pom.parent())
+                .isEqualTo(
+                        new MavenDependencyParts(
+                                "org.springframework.boot", "spring-boot-starter-parent", "3.4.0"));
+        assertThat(pom.properties())
+                .containsEntry("java.version", "21")
+                .containsEntry("guava.version", "33.4.0-jre");
+    }
+
+    @Test
+    void shouldReadDependenciesAndPlugins() throws XMLStreamException {
+        Pom pom =
+                PomReader.read(
+                        new StringReader(
+                                """
+                                <project>
+                                  <groupId>com.example</groupId>
+                                  <artifactId>demo</artifactId>
+                                  <version>1.0</version>
+                                  <dependencyManagement>
+                                    <dependencies>
+                                      <dependency>
+                                        <groupId>com.fasterxml.jackson</groupId>
+                                        <artifactId>jackson-bom</artifactId>
+                                        <version>${jackson.version}</version>
+                                        <type>pom</type>
+                                        <scope>import</scope>
+                                      </dependency>
+                                    </dependencies>
+                                  </dependencyManagement>
+                                  <dependencies>
+                                    <dependency>
+                                      <groupId>com.google.guava</groupId>
+                                      <artifactId>guava</artifactId>
+                                      <version>33.4.0-jre</version>
+                                      <exclusions>
+                                        <exclusion>
+                                          <groupId>com.google.code.findbugs</groupId>
+                                          <artifactId>jsr305</artifactId>
+                                        </exclusion>
+                                      </exclusions>
+                                    </dependency>
+                                  </dependencies>
+                                  <build>
+                                    <pluginManagement>
+                                      <plugins>
+                                        <plugin>
+                                          <artifactId>maven-surefire-plugin</artifactId>
+                                          <version>3.5.2</version>
+                                        </plugin>
+                                      </plugins>
+                                    </pluginManagement>
+                                    <plugins>
+                                      <plugin>
+                                        <groupId>com.diffplug.spotless</groupId>
+                                        <artifactId>spotless-maven-plugin</artifactId>
+                                        <configuration><java><version>1.0</version></java></configuration>
+                                      </plugin>
+                                    </plugins>
+                                  </build>
+                                  <profiles>
+                                    <profile>
+                                      <dependencies>
+                                        <dependency>
+                                          <groupId>ignored</groupId>
+                                          <artifactId>ignored</artifactId>
+                                        </dependency>
+                                      </dependencies>
+                                    </profile>
+                                  </profiles>
+                                </project>
+                                """));
+
+        assertThat(pom.managedDependencies())
+                .containsExactly(
+                        new PomArtifact(
+                                "com.fasterxml.jackson",
+                                "jackson-bom",
+                                "${jackson.version}",
+                                "pom",
+                                "import"));
+        assertThat(pom.managedDependencies().getFirst().isImport()).isTrue();
+        assertThat(pom.dependencies())
+                .containsExactly(
+                        new PomArtifact("com.google.guava", "guava", "33.4.0-jre", null, null));
+        assertThat(pom.managedPlugins())
+                .containsExactly(
+                        new PomArtifact(
+                                PomReader.DEFAULT_PLUGIN_GROUP_ID,
+                                "maven-surefire-plugin",
+                                "3.5.2",
+                                null,
+                                null));
+        assertThat(pom.plugins())
+                .containsExactly(
+                        new PomArtifact(
+                                "com.diffplug.spotless",
+                                "spotless-maven-plugin",
+                                null,
+                                null,
+                                null));
+    }
+}
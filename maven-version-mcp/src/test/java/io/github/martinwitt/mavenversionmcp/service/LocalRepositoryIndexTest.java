@@ -0,0 +1,154 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.MetadataCacheProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalRepositoryIndexTest {
+
+    @TempDir Path repository;
+
+    private LocalRepositoryIndex index;
+
+    @BeforeEach
+    void createRepository() throws IOException {
+        // downloaded without metadata
+        pom("com/google/guava/guava", "33.3.0-jre");
+        pom("com/google/guava/guava", "33.4.0-jre");
+        // a group nested in an artifact directory
+        pom("org/apache/maven/maven", "3.9.9");
+        pom("org/apache/maven/plugins/maven-compiler-plugin", "3.13.0");
+        write(
+                "org/slf4j/slf4j-api/maven-metadata-central.xml",
+                "<metadata><versioning><versions><version>2.0.16</version>"
+                        + "<version>2.0.17</version></versions></versioning></metadata>");
+        pom("org/slf4j/slf4j-api", "2.0.16");
+        write("org/slf4j/slf4j-api/2.0.9/slf4j-api-2.0.9.jar", "");
+        Files.createDirectories(repository.resolve(".cache/m2e"));
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    void shouldIndexArtifactsFromPomsAndMetadata() {
+        index = start();
+
+        assertThat(index.lookup("com.google.guava", "guava").versions())
+                .containsExactlyInAnyOrder("33.3.0-jre", "33.4.0-jre");
+        assertThat(index.lookup("org.apache.maven", "maven").versions()).containsExactly("3.9.9");
+        assertThat(index.lookup("org.apache.maven.plugins", "maven-compiler-plugin").versions())
+                .containsExactly("3.13.0");
+        assertThat(index.lookup("org.slf4j", "slf4j-api").versions())
+                .containsExactlyInAnyOrder("2.0.16", "2.0.17");
+        assertThat(index.lookup("org.apache", "maven").status())
+                .isEqualTo(VersionLookup.Status.NOT_FOUND);
+    }
+
+    @Test
+    void shouldFollowChangesToTheRepository() throws Exception {
+        index = start();
+        VersionLookup before = index.lookup("com.google.guava", "guava");
+        assertThat(index.lookup("org.slf4j", "slf4j-api"))
+                .isSameAs(index.lookup("org.slf4j", "slf4j-api"));
+
+        pom("com/google/guava/guava", "33.5.0-jre");
+        pom("io/micrometer/micrometer-core", "1.15.0");
+        deleteRecursively(repository.resolve("org/apache/maven/maven"));
+
+        awaitVersions(() -> index.lookup("com.google.guava", "guava").versions(), 3);
+        awaitVersions(() -> index.lookup("io.micrometer", "micrometer-core").versions(), 1);
+        awaitVersions(() -> index.lookup("org.apache.maven", "maven").versions(), 0);
+        assertThat(index.lookup("com.google.guava", "guava")).isNotSameAs(before);
+        assertThat(index.lookup("org.apache.maven.plugins", "maven-compiler-plugin").versions())
+                .containsExactly("3.13.0");
+    }
+
+    @Test
+    void shouldAskLocalFallbackOnlyForArtifactsMissingElsewhere() {
+        pom("com/example/internal", "1.0");
+        MavenRepositoryProperties properties = new MavenRepositoryProperties();
+        Registry local = new Registry("local", repository.toUri().toString(), List.of());
+        local.setFallback(true);
+        // nothing listens on port 9, the primary registry fails fast
+        Registry unreachable = new Registry("remote", "http://127.0.0.1:9/maven2", List.of());
+        properties.setRegistries(List.of(local, unreachable));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MavenMetadataCachingService service =
+                new MavenMetadataCachingService(
+                        new MavenRepositoryClient(properties, meterRegistry),
+                        new MetadataCacheProperties(),
+                        properties,
+                        meterRegistry);
+        try {
+            assertThat(service.lookupVersions("com.example", "internal").versions())
+                    .containsExactly("1.0");
+            assertThat(service.lookupVersions("com.example", "missing").status())
+                    .isEqualTo(VersionLookup.Status.ERROR);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private LocalRepositoryIndex start() {
+        LocalRepositoryIndex started =
+                new LocalRepositoryIndex(
+                        new Registry("local", repository.toUri().toString(), List.of()),
+                        new SimpleMeterRegistry());
+        started.start();
+        return started;
+    }
+
+    private void pom(String artifactPath, String version) {
+        String artifactId = artifactPath.substring(artifactPath.lastIndexOf('/') + 1);
+        write(
+                artifactPath + "/" + version + "/" + artifactId + "-" + version + ".pom",
+                "<project/>");
+    }
+
+    private void write(String path, String content) {
+        try {
+            Path file = repository.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void awaitVersions(Supplier<List<String>> versions, int expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (versions.get().size() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(versions.get()).hasSize(expected);
+    }
+}
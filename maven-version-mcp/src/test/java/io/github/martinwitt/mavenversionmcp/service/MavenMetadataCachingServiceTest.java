@@ -0,0 +1,252 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.MetadataCacheProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MavenMetadataCachingServiceTest {
+
+    private static final String METADATA =
+            "<metadata><versioning><versions><version>1.0</version></versions></versioning>"
+                    + "</metadata>";
+
+    /** Path and If-None-Match header of each request, the latter "-" if it was unconditional. */
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong nanos = new AtomicLong();
+    private volatile CountDownLatch responses = new CountDownLatch(0);
+    private volatile boolean failing;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HttpServer server;
+    private MavenRepositoryProperties repositoryProperties;
+    private MavenMetadataCachingService service;
+
+    @BeforeEach
+    void startRepository() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(
+                "/maven2/",
+                exchange -> {
+                    try (exchange) {
+                        String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+                        requests.add(
+                                exchange.getRequestURI().getPath().substring(8)
+                                        + " "
+                                        + (etag == null ? "-" : etag));
+                        try {
+                            responses.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        if (exchange.getRequestURI().getPath().contains("/missing/")) {
+                            exchange.sendResponseHeaders(404, -1);
+                            return;
+                        }
+                        if (failing) {
+                            exchange.sendResponseHeaders(500, -1);
+                            return;
+                        }
+                        if (etag != null) {
+                            exchange.sendResponseHeaders(304, -1);
+                            return;
+                        }
+                        byte[] bytes = METADATA.getBytes(StandardCharsets.UTF_8);
+                        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                        exchange.sendResponseHeaders(200, bytes.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(bytes);
+                        }
+                    }
+                });
+        server.start();
+        repositoryProperties = new MavenRepositoryProperties();
+        repositoryProperties.setRegistries(
+                List.of(
+                        new Registry(
+                                "stub",
+                                "http://127.0.0.1:" + server.getAddress().getPort() + "/maven2",
+                                List.of())));
+    }
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void shouldPrewarmSeedsBeforeTheFirstRequest() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setPrewarmSeeds(List.of("com.example:lib", "not-a-coordinate"));
+        service = createService(properties);
+
+        service.startPrewarm().join();
+        service.startPrewarm().join();
+        assertThat(service.lookupVersions("com.example", "lib").versions()).containsExactly("1.0");
+
+        assertThat(requests).containsExactly("com/example/lib/maven-metadata.xml -");
+    }
+
+    @Test
+    void shouldRefreshPopularArtifactsAheadOfExpiry() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setRefreshAfter(Duration.ofMinutes(1));
+        properties.setPrewarmTopN(1);
+        service = createService(properties);
+        service.lookupVersions("com.example", "lib");
+        service.startPrewarm().join();
+        assertThat(requests).hasSize(1);
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        requests.clear();
+        service.startPrewarm().join();
+
+        assertThat(requests).containsExactly("com/example/lib/maven-metadata.xml \"v1\"");
+    }
+
+    @Test
+    void shouldReturnFromPrewarmWhileLoadsAreRunning() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setPrewarmSeeds(List.of("com.example:lib"));
+        service = createService(properties);
+        responses = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = service.startPrewarm();
+
+        assertThat(running).isNotDone();
+        responses.countDown();
+        running.join();
+        assertThat(service.lookupVersions("com.example", "lib").versions()).containsExactly("1.0");
+        assertThat(requests).containsExactly("com/example/lib/maven-metadata.xml -");
+    }
+
+    @Test
+    void shouldCacheMissingArtifactsForTheShorterNegativeTtl() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setTtl(Duration.ofHours(1));
+        properties.setRefreshAfter(Duration.ofMinutes(30));
+        properties.setNegativeTtl(Duration.ofMinutes(5));
+        service = createService(properties);
+        assertThat(service.lookupVersions("com.example", "lib").status())
+                .isEqualTo(VersionLookup.Status.FOUND);
+        assertThat(service.lookupVersions("com.example", "missing").status())
+                .isEqualTo(VersionLookup.Status.NOT_FOUND);
+
+        advance(Duration.ofMinutes(4));
+        service.lookupVersions("com.example", "lib");
+        service.lookupVersions("com.example", "missing");
+        assertThat(requests).hasSize(2);
+
+        advance(Duration.ofMinutes(2));
+        service.lookupVersions("com.example", "lib");
+        assertThat(service.lookupVersions("com.example", "missing").status())
+                .isEqualTo(VersionLookup.Status.NOT_FOUND);
+
+        assertThat(requests)
+                .containsExactly(
+                        "com/example/lib/maven-metadata.xml -",
+                        "com/example/missing/maven-metadata.xml -",
+                        "com/example/missing/maven-metadata.xml -");
+    }
+
+    @Test
+    void shouldReturnCachedVersionsWhileRefreshingAhead() throws InterruptedException {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setTtl(Duration.ofHours(1));
+        properties.setRefreshAfter(Duration.ofMinutes(10));
+        service = createService(properties);
+        service.lookupVersions("com.example", "lib");
+
+        advance(Duration.ofMinutes(11));
+        responses = new CountDownLatch(1);
+        VersionLookup stale = service.lookupVersions("com.example", "lib");
+        assertThat(stale.versions()).containsExactly("1.0");
+        responses.countDown();
+        awaitFetches("not_modified", 1);
+
+        // the 304 restarted the lifetime: an hour after the first fetch the list is still cached
+        advance(Duration.ofMinutes(50));
+        assertThat(service.lookupVersions("com.example", "lib").status())
+                .isEqualTo(VersionLookup.Status.FOUND);
+        assertThat(requests)
+                .containsExactly(
+                        "com/example/lib/maven-metadata.xml -",
+                        "com/example/lib/maven-metadata.xml \"v1\"");
+    }
+
+    @Test
+    void shouldKeepCachedVersionsWhenRefreshFails() throws InterruptedException {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setTtl(Duration.ofHours(1));
+        properties.setRefreshAfter(Duration.ofMinutes(10));
+        service = createService(properties);
+        service.lookupVersions("com.example", "lib");
+
+        failing = true;
+        advance(Duration.ofMinutes(11));
+        service.lookupVersions("com.example", "lib");
+        awaitFetches("error", 1);
+
+        VersionLookup kept = service.lookupVersions("com.example", "lib");
+        assertThat(kept.status()).isEqualTo(VersionLookup.Status.FOUND);
+        assertThat(kept.versions()).containsExactly("1.0");
+
+        // the failed refresh does not extend the lifetime of the old list
+        advance(Duration.ofMinutes(50));
+        assertThat(service.lookupVersions("com.example", "lib").status())
+                .isEqualTo(VersionLookup.Status.ERROR);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    /** Waits for background refreshes, which run on the cache's executor. */
+    private void awaitFetches(String outcome, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (fetches(outcome) < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(fetches(outcome)).isEqualTo(count);
+    }
+
+    private double fetches(String outcome) {
+        Counter counter =
+                meterRegistry.find("maven.metadata.fetch").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private MavenMetadataCachingService createService(MetadataCacheProperties properties) {
+        return new MavenMetadataCachingService(
+                new MavenRepositoryClient(repositoryProperties, meterRegistry),
+                properties,
+                repositoryProperties,
+                meterRegistry,
+                nanos::get);
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.MetadataCacheProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient;
+import io.github.martinwitt.mavenversionmcp.service.MavenMetadataService.BatchLookup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Resolves batches against a stub repository. Artifacts named {@code slow} are held back until the
+ * test releases them, {@code missing} ones answer 404.
+ */
+class MavenMetadataServiceTest {
+
+    private static final String METADATA =
+            "<metadata><versioning><versions><version>1.0</version><version>2.0</version>"
+                    + "</versions></versioning></metadata>";
+
+    /** Path of each request. */
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private MavenRepositoryProperties repositoryProperties;
+    private MavenMetadataCachingService cachingService;
+
+    @BeforeEach
+    void startRepository() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(
+                "/maven2/",
+                exchange -> {
+                    try (exchange) {
+                        String path = exchange.getRequestURI().getPath().substring(8);
+                        requests.add(path);
+                        if (path.contains("/missing/")) {
+                            exchange.sendResponseHeaders(404, -1);
+                            return;
+                        }
+                        if (path.contains("/slow/")) {
+                            release.await();
+                        }
+                        byte[] bytes = METADATA.getBytes(StandardCharsets.UTF_8);
+                        exchange.sendResponseHeaders(200, bytes.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(bytes);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        server.start();
+        repositoryProperties = new MavenRepositoryProperties();
+        repositoryProperties.setRegistries(
+                List.of(
+                        new Registry(
+                                "stub",
+                                "http://127.0.0.1:" + server.getAddress().getPort() + "/maven2",
+                                List.of())));
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (cachingService != null) {
+            cachingService.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void shouldReturnResultsInRequestOrder() {
+        MavenMetadataService service = createService();
+        release.countDown();
+
+        List<BatchLookup> results =
+                service.getVersionInfos(
+                        List.of(
+                                "com.example:slow:1.0",
+                                "not-a-coordinate",
+                                "com.example:fast",
+                                "com.example:missing"));
+
+        assertThat(results)
+                .extracting(BatchLookup::dependency)
+                .containsExactly(
+                        "com.example:slow:1.0",
+                        "not-a-coordinate",
+                        "com.example:fast",
+                        "com.example:missing");
+        assertThat(results.get(0).upgrade()).isEqualTo("major");
+        assertThat(results.get(0).info().latestStable()).isEqualTo("2.0");
+        assertThat(results.get(1).error()).isNotNull();
+        assertThat(results.get(2).error()).isNull();
+        assertThat(results.get(2).currentVersion()).isNull();
+        assertThat(results.get(3).error()).contains("not found");
+    }
+
+    @Test
+    void shouldReportLookupsThatMissTheBatchTimeout() {
+        repositoryProperties.setBatchTimeout(Duration.ofMillis(300));
+        MavenMetadataService service = createService();
+
+        List<BatchLookup> results =
+                service.getVersionInfos(List.of("com.example:fast", "com.example:slow"));
+
+        assertThat(results.get(0).error()).isNull();
+        assertThat(results.get(0).info().allVersions()).containsExactly("1.0", "2.0");
+        assertThat(results.get(1).info()).isNull();
+        assertThat(results.get(1).error()).startsWith("Timed out");
+    }
+
+    @Test
+    void shouldRejectBatchesAboveTheMaximumSize() {
+        repositoryProperties.setMaxBatchSize(2);
+        MavenMetadataService service = createService();
+
+        assertThatThrownBy(
+                        () ->
+                                service.getVersionInfos(
+                                        List.of("com.example:a", "com.example:b", "com.example:c")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("At most 2");
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void shouldShareOneFetchBetweenDuplicateLookups() throws InterruptedException {
+        MavenMetadataService service = createService();
+        Thread releaser =
+                Thread.ofPlatform()
+                        .start(
+                                () -> {
+                                    // hold the first fetch until the duplicates have joined it
+                                    try {
+                                        while (requests.isEmpty()) {
+                                            TimeUnit.MILLISECONDS.sleep(5);
+                                        }
+                                        TimeUnit.MILLISECONDS.sleep(100);
+                                    } catch (InterruptedException e) {
+                                        return;
+                                    }
+                                    release.countDown();
+                                });
+
+        List<BatchLookup> results = service.lookupAll(Collections.nCopies(50, "com.example:slow"));
+        releaser.join();
+
+        assertThat(results).hasSize(50).allMatch(result -> result.error() == null);
+        assertThat(requests).containsExactly("com/example/slow/maven-metadata.xml");
+    }
+
+    private MavenMetadataService createService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cachingService =
+                new MavenMetadataCachingService(
+                        new MavenRepositoryClient(repositoryProperties, meterRegistry),
+                        new MetadataCacheProperties(),
+                        repositoryProperties,
+                        meterRegistry);
+        return new MavenMetadataService(cachingService, repositoryProperties);
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.mavenversionmcp.MavenSearchProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenCentralSearchClient;
+import io.github.martinwitt.mavenversionmcp.client.dto.CentralSearchHit;
+import io.github.martinwitt.mavenversionmcp.client.dto.CentralSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MavenSearchServiceTest {
+
+    private static final String ARTIFACTS =
+            """
+            {"responseHeader":{"status":0,"QTime":1},
+             "response":{"numFound":120,"start":0,"docs":[
+               {"id":"com.google.inject:guice","g":"com.google.inject","a":"guice",
+                "latestVersion":"7.0.0","repositoryId":"central","p":"jar",
+                "timestamp":1683541505000,"versionCount":23,
+                "text":["com.google.inject","guice","-sources.jar",".jar",".pom"],
+                "ec":["-sources.jar",".jar",".pom"]}]}}
+            """;
+
+    private static final String VERSIONS =
+            """
+            {"response":{"numFound":1,"docs":[
+               {"id":"junit:junit:4.13.2","g":"junit","a":"junit","v":"4.13.2","p":"jar",
+                "timestamp":1613335200000}]}}
+            """;
+
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private HttpServer server;
+    private MavenSearchService service;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(
+                "/solrsearch/select",
+                exchange -> {
+                    try (exchange) {
+                        String query =
+                                URLDecoder.decode(
+                                        exchange.getRequestURI().getRawQuery(),
+                                        StandardCharsets.UTF_8);
+                        queries.add(query);
+                        byte[] body =
+                                (query.startsWith("q=fc:") || query.startsWith("q=1:")
+                                                ? VERSIONS
+                                                : ARTIFACTS)
+                                        .getBytes(StandardCharsets.UTF_8);
+                        exchange.sendResponseHeaders(status, body.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(body);
+                        }
+                    }
+                });
+        server.start();
+
+        MavenSearchProperties properties = new MavenSearchProperties();
+        properties.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        properties.setMaxRows(25);
+        service =
+                new MavenSearchService(
+                        new MavenCentralSearchClient(properties),
+                        properties,
+                        new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldReduceDocumentsToCompactHits() {
+        CentralSearchResponse response = service.searchByKeyword(" guice ", null);
+
+        assertThat(queries).containsExactly("q=guice&rows=10&wt=json");
+        assertThat(response.numFound()).isEqualTo(120);
+        assertThat(response.hits())
+                .containsExactly(
+                        new CentralSearchHit(
+                                "com.google.inject", "guice", "7.0.0", "jar", 1683541505000L));
+    }
+
+    @Test
+    void shouldCacheResultsPerQueryAndRows() {
+        service.searchByKeyword("guice", 5);
+        service.searchByKeyword("guice", 5);
+        service.searchByKeyword("guice", 500);
+
+        assertThat(queries).containsExactly("q=guice&rows=5&wt=json", "q=guice&rows=25&wt=json");
+    }
+
+    @Test
+    void shouldBuildClassAndChecksumQueries() {
+        assertThat(service.searchByClassName("org.junit.Test", 3).hits())
+                .extracting(CentralSearchHit::artifactId, CentralSearchHit::version)
+                .containsExactly(tuple("junit", "4.13.2"));
+        service.searchByClassName("ImmutableList", 3);
+        service.searchBySha1("E4FAB7A5A8E6B8A1A0DBEF4E6B7C1C2D3E4F5A6B");
+
+        assertThat(queries)
+                .containsExactly(
+                        "q=fc:org.junit.Test&rows=3&wt=json",
+                        "q=c:ImmutableList&rows=3&wt=json",
+                        "q=1:e4fab7a5a8e6b8a1a0dbef4e6b7c1c2d3e4f5a6b&rows=10&wt=json");
+        assertThatThrownBy(() -> service.searchBySha1("abc"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.searchByClassName("a b", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldNotCacheFailedSearches() {
+        status = 503;
+        assertThatThrownBy(() -> service.searchByKeyword("guice", null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("503");
+
+        status = 200;
+        assertThat(service.searchByKeyword("guice", null).hits()).hasSize(1);
+        assertThat(queries).hasSize(2);
+    }
+}
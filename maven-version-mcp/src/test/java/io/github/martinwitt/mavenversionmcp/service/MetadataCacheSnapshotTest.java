@@ -0,0 +1,233 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.MetadataCacheProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient.Validators;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MetadataCacheSnapshotTest {
+
+    private static final String METADATA =
+            "<metadata><versioning><versions><version>1.0</version><version>1.1</version>"
+                    + "</versions></versioning></metadata>";
+
+    @TempDir Path directory;
+
+    /** The If-None-Match header of each request, or "-" for an unconditional one. */
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+
+    private HttpServer server;
+    private MavenRepositoryProperties repositoryProperties;
+
+    @BeforeEach
+    void startRepository() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(
+                "/maven2/",
+                exchange -> {
+                    try (exchange) {
+                        String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+                        requests.add(etag == null ? "-" : etag);
+                        if ("\"v1\"".equals(etag)) {
+                            exchange.sendResponseHeaders(304, -1);
+                            return;
+                        }
+                        byte[] bytes = METADATA.getBytes(StandardCharsets.UTF_8);
+                        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                        exchange.sendResponseHeaders(200, bytes.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(bytes);
+                        }
+                    }
+                });
+        server.start();
+        repositoryProperties = new MavenRepositoryProperties();
+        repositoryProperties.setRegistries(
+                List.of(
+                        new Registry(
+                                "stub",
+                                "http://127.0.0.1:" + server.getAddress().getPort() + "/maven2",
+                                List.of())));
+    }
+
+    @AfterEach
+    void stopRepository() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldRoundTripEntries() throws IOException {
+        Path file = directory.resolve("cache/snapshot.bin");
+        List<MetadataCacheSnapshot.Entry> entries =
+                List.of(
+                        new MetadataCacheSnapshot.Entry(
+                                "https://repo1.maven.org/maven2",
+                                "com.google.guava",
+                                "guava",
+                                List.of("33.3.0-jre", "33.4.0-jre"),
+                                new Validators("\"abc\"", null),
+                                1_700_000_000_000L),
+                        new MetadataCacheSnapshot.Entry(
+                                "https://repo1.maven.org/maven2",
+                                "org.slf4j",
+                                "slf4j-api",
+                                List.of(),
+                                Validators.NONE,
+                                1_700_000_000_001L));
+
+        MetadataCacheSnapshot.write(file, entries);
+
+        assertThat(MetadataCacheSnapshot.read(file)).isEqualTo(entries);
+        assertThat(MetadataCacheSnapshot.read(directory.resolve("missing.bin"))).isEmpty();
+    }
+
+    @Test
+    void shouldRejectTruncatedSnapshot() throws IOException {
+        Path file = directory.resolve("snapshot.bin");
+        MetadataCacheSnapshot.write(
+                file,
+                List.of(
+                        new MetadataCacheSnapshot.Entry(
+                                "https://repo1.maven.org/maven2",
+                                "com.google.guava",
+                                "guava",
+                                List.of("33.4.0-jre"),
+                                Validators.NONE,
+                                0)));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> MetadataCacheSnapshot.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    void shouldRejectCorruptEntries() throws IOException {
+        String registry = "https://repo1.maven.org/maven2";
+        Path file = directory.resolve("snapshot.bin");
+        MetadataCacheSnapshot.write(
+                file,
+                List.of(
+                        new MetadataCacheSnapshot.Entry(
+                                registry,
+                                "com.google.guava",
+                                "guava",
+                                List.of("1.0"),
+                                Validators.NONE,
+                                0)));
+        byte[] valid = Files.readAllBytes(file);
+
+        // the last version's length replaced by the null marker
+        byte[] nullVersion = valid.clone();
+        nullVersion[valid.length - 5] = (byte) 0xFF;
+        nullVersion[valid.length - 4] = (byte) 0xFF;
+        Files.write(file, nullVersion);
+        assertThatThrownBy(() -> MetadataCacheSnapshot.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Missing version");
+
+        // an entry pointing past the registry table
+        byte[] badRegistry = valid.clone();
+        badRegistry[4 + 4 + 4 + 2 + registry.length() + 4 + 3] = 7;
+        Files.write(file, badRegistry);
+        assertThatThrownBy(() -> MetadataCacheSnapshot.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("corrupt");
+
+        byte[] trailing = Arrays.copyOf(valid, valid.length + 1);
+        Files.write(file, trailing);
+        assertThatThrownBy(() -> MetadataCacheSnapshot.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Trailing");
+    }
+
+    @Test
+    void shouldStartEmptyFromCorruptSnapshot() throws IOException {
+        MetadataCacheProperties properties = snapshotProperties();
+        Files.write(Path.of(properties.getSnapshotFile()), new byte[] {0x4D, 0x56, 0x4D, 0x43});
+        MavenMetadataCachingService service = createService(properties);
+        try {
+            assertThat(service.lookupVersions("com.example", "lib").versions())
+                    .containsExactly("1.0", "1.1");
+            assertThat(requests).containsExactly("-");
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void shouldServeRestoredVersionsWithoutRequest() {
+        MetadataCacheProperties properties = snapshotProperties();
+        MavenMetadataCachingService first = createService(properties);
+        assertThat(first.lookupVersions("com.example", "lib").versions())
+                .containsExactly("1.0", "1.1");
+        first.shutdown();
+
+        MavenMetadataCachingService restarted = createService(properties);
+        assertThat(restarted.lookupVersions("com.example", "lib").versions())
+                .containsExactly("1.0", "1.1");
+        restarted.shutdown();
+
+        assertThat(requests).containsExactly("-");
+    }
+
+    @Test
+    void shouldRevalidateStaleRestoredVersionsOnFirstAccess() throws InterruptedException {
+        MetadataCacheProperties properties = snapshotProperties();
+        properties.setRefreshAfter(Duration.ofMillis(1));
+        MavenMetadataCachingService first = createService(properties);
+        first.lookupVersions("com.example", "lib");
+        first.shutdown();
+        Thread.sleep(10);
+
+        MavenMetadataCachingService restarted = createService(properties);
+        assertThat(restarted.lookupVersions("com.example", "lib").versions())
+                .containsExactly("1.0", "1.1");
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (requests.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        restarted.shutdown();
+
+        assertThat(requests).startsWith("-", "\"v1\"");
+    }
+
+    private MetadataCacheProperties snapshotProperties() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setSnapshotFile(directory.resolve("snapshot.bin").toString());
+        return properties;
+    }
+
+    private MavenMetadataCachingService createService(MetadataCacheProperties properties) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new MavenMetadataCachingService(
+                new MavenRepositoryClient(repositoryProperties, meterRegistry),
+                properties,
+                repositoryProperties,
+                meterRegistry);
+    }
+}
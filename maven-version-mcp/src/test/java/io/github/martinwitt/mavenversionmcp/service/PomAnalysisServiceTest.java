@@ -0,0 +1,264 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties;
+import io.github.martinwitt.mavenversionmcp.MavenRepositoryProperties.Registry;
+import io.github.martinwitt.mavenversionmcp.MetadataCacheProperties;
+import io.github.martinwitt.mavenversionmcp.PomCacheProperties;
+import io.github.martinwitt.mavenversionmcp.client.MavenRepositoryClient;
+import io.github.martinwitt.mavenversionmcp.service.PomAnalysisService.PomReport;
+import io.github.martinwitt.mavenversionmcp.service.PomAnalysisService.ReportEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PomAnalysisServiceTest {
+
+    private static final String PARENT =
+            """
+            <project>
+              <groupId>com.example</groupId>
+              <artifactId>parent</artifactId>
+              <version>1.0</version>
+              <properties>
+                <jackson.version>2.15.0</jackson.version>
+                <slf4j.version>2.0.0</slf4j.version>
+              </properties>
+              <dependencyManagement>
+                <dependencies>
+                  <dependency>
+                    <groupId>org.slf4j</groupId>
+                    <artifactId>slf4j-api</artifactId>
+                    <version>${slf4j.version}</version>
+                  </dependency>
+                  <dependency>
+                    <groupId>com.fasterxml.jackson</groupId>
+                    <artifactId>jackson-bom</artifactId>
+                    <version>${jackson.version}</version>
+                    <type>pom</type>
+                    <scope>import</scope>
+                  </dependency>
+                </dependencies>
+              </dependencyManagement>
+              <build>
+                <pluginManagement>
+                  <plugins>
+                    <plugin>
+                      <artifactId>maven-compiler-plugin</artifactId>
+                      <version>3.11.0</version>
+                    </plugin>
+                  </plugins>
+                </pluginManagement>
+              </build>
+            </project>
+            """;
+
+    private static final String JACKSON_BOM =
+            """
+            <project>
+              <groupId>com.fasterxml.jackson</groupId>
+              <artifactId>jackson-bom</artifactId>
+              <version>2.17.0</version>
+              <dependencyManagement>
+                <dependencies>
+                  <dependency>
+                    <groupId>com.fasterxml.jackson.core</groupId>
+                    <artifactId>jackson-databind</artifactId>
+                    <version>${project.version}</version>
+                  </dependency>
+                </dependencies>
+              </dependencyManagement>
+            </project>
+            """;
+
+    private static final String PROJECT =
+            """
+            <project>
+              <parent>
+                <groupId>com.example</groupId>
+                <artifactId>parent</artifactId>
+                <version>1.0</version>
+              </parent>
+              <artifactId>app</artifactId>
+              <properties>
+                <jackson.version>2.17.0</jackson.version>
+                <guava.version>32.0.0-jre</guava.version>
+              </properties>
+              <dependencies>
+                <dependency>
+                  <groupId>com.fasterxml.jackson.core</groupId>
+                  <artifactId>jackson-databind</artifactId>
+                </dependency>
+                <dependency>
+                  <groupId>org.slf4j</groupId>
+                  <artifactId>slf4j-api</artifactId>
+                </dependency>
+                <dependency>
+                  <groupId>com.google.guava</groupId>
+                  <artifactId>guava</artifactId>
+                  <version>${guava.version}</version>
+                </dependency>
+              </dependencies>
+              <build>
+                <plugins>
+                  <plugin>
+                    <artifactId>maven-compiler-plugin</artifactId>
+                  </plugin>
+                </plugins>
+              </build>
+            </project>
+            """;
+
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private PomAnalysisService service;
+
+    @BeforeEach
+    void startRepository() throws IOException {
+        files.put("com/example/parent/1.0/parent-1.0.pom", PARENT);
+        files.put("com/fasterxml/jackson/jackson-bom/2.17.0/jackson-bom-2.17.0.pom", JACKSON_BOM);
+        files.put("com/example/parent/maven-metadata.xml", metadata("1.0"));
+        files.put(
+                "com/fasterxml/jackson/core/jackson-databind/maven-metadata.xml",
+                metadata("2.17.0", "2.18.1"));
+        files.put("org/slf4j/slf4j-api/maven-metadata.xml", metadata("2.0.0", "2.0.16"));
+        files.put(
+                "com/google/guava/guava/maven-metadata.xml", metadata("32.0.0-jre", "33.4.0-jre"));
+        files.put(
+                "org/apache/maven/plugins/maven-compiler-plugin/maven-metadata.xml",
+                metadata("3.11.0", "3.13.0"));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(
+                "/maven2/",
+                exchange -> {
+                    try (exchange) {
+                        String path = exchange.getRequestURI().getPath().substring(8);
+                        requests.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+                        String body = files.get(path);
+                        if (body == null) {
+                            exchange.sendResponseHeaders(404, -1);
+                            return;
+                        }
+                        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                        exchange.sendResponseHeaders(200, bytes.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(bytes);
+                        }
+                    }
+                });
+        server.start();
+
+        MavenRepositoryProperties repositoryProperties = new MavenRepositoryProperties();
+        repositoryProperties.setRegistries(
+                List.of(
+                        new Registry(
+                                "stub",
+                                "http://127.0.0.1:" + server.getAddress().getPort() + "/maven2",
+                                List.of())));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MavenRepositoryClient client =
+                new MavenRepositoryClient(repositoryProperties, meterRegistry);
+        MavenMetadataService metadataService =
+                new MavenMetadataService(
+                        new MavenMetadataCachingService(
+                                client,
+                                new MetadataCacheProperties(),
+                                repositoryProperties,
+                                meterRegistry),
+                        repositoryProperties);
+        service =
+                new PomAnalysisService(
+                        client,
+                        metadataService,
+                        repositoryProperties,
+                        new PomCacheProperties(),
+                        meterRegistry);
+    }
+
+    @AfterEach
+    void stopRepository() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldResolveInheritedAndImportedVersions() {
+        PomReport report = service.analyze(PROJECT);
+
+        assertThat(report.project()).isEqualTo("com.example:app:1.0");
+        assertThat(report.warnings()).isEmpty();
+        assertThat(report.dependencies())
+                .extracting(
+                        ReportEntry::section,
+                        ReportEntry::artifactId,
+                        ReportEntry::version,
+                        ReportEntry::property,
+                        ReportEntry::managed,
+                        entry -> entry.lookup().upgrade())
+                .containsExactly(
+                        tuple("parent", "parent", "1.0", null, false, "none"),
+                        // the parent imports the BOM with the version overridden here
+                        tuple("dependencies", "jackson-databind", "2.17.0", null, true, "minor"),
+                        tuple("dependencies", "slf4j-api", "2.0.0", null, true, "patch"),
+                        tuple(
+                                "dependencies",
+                                "guava",
+                                "32.0.0-jre",
+                                "guava.version",
+                                false,
+                                "major"));
+        assertThat(report.plugins())
+                .extracting(
+                        ReportEntry::groupId,
+                        ReportEntry::version,
+                        entry -> entry.lookup().info().latestStable())
+                .containsExactly(tuple("org.apache.maven.plugins", "3.11.0", "3.13.0"));
+    }
+
+    @Test
+    void shouldFetchParentAndBomOnce() {
+        service.analyze(PROJECT);
+        service.analyze(PROJECT);
+
+        assertThat(requests.get("com/example/parent/1.0/parent-1.0.pom")).hasValue(1);
+        assertThat(requests.get("com/fasterxml/jackson/jackson-bom/2.17.0/jackson-bom-2.17.0.pom"))
+                .hasValue(1);
+    }
+
+    @Test
+    void shouldWarnAboutMissingBom() {
+        files.remove("com/fasterxml/jackson/jackson-bom/2.17.0/jackson-bom-2.17.0.pom");
+
+        PomReport report = service.analyze(PROJECT);
+
+        assertThat(report.warnings())
+                .containsExactly(
+                        "POM com.fasterxml.jackson:jackson-bom:2.17.0 not found in any"
+                                + " configured registry");
+        assertThat(report.dependencies().get(1).version()).isNull();
+        assertThat(report.dependencies().get(2).version()).isEqualTo("2.0.0");
+    }
+
+    private static String metadata(String... versions) {
+        StringBuilder xml = new StringBuilder("<metadata><versioning><versions>");
+        for (String version : versions) {
+            xml.append("<version>").append(version).append("</version>");
+        }
+        return xml.append("</versions></versioning></metadata>").toString();
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.martinwitt.mavenversionmcp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class PopularityTrackerTest {
+
+    @Test
+    void shouldRankMostRequestedKeysFirst() {
+        PopularityTracker<String> tracker = new PopularityTracker<>(3);
+        for (int i = 0; i < 50; i++) {
+            tracker.record("jackson-databind");
+            if (i % 2 == 0) {
+                tracker.record("junit-jupiter");
+            }
+            if (i % 5 == 0) {
+                tracker.record("guava");
+            }
+            // a long tail of keys requested once
+            tracker.record("rare-" + i);
+        }
+
+        assertThat(tracker.top(3)).containsExactly("jackson-databind", "junit-jupiter", "guava");
+        assertThat(tracker.estimate("jackson-databind")).isGreaterThanOrEqualTo(50);
+        assertThat(tracker.estimate("never-requested")).isLessThan(10);
+    }
+
+    @Test
+    void shouldHalveCountsToFollowRecentTraffic() {
+        PopularityTracker<String> tracker = new PopularityTracker<>(1);
+        // the sketch is 64 counters wide and halves after 640 requests
+        for (int i = 0; i < 600; i++) {
+            tracker.record("old-favourite");
+        }
+        for (int i = 0; i < 40; i++) {
+            tracker.record("new-favourite");
+        }
+
+        assertThat(tracker.estimate("old-favourite")).isEqualTo(300);
+        assertThat(tracker.estimate("new-favourite")).isLessThan(300);
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.martinwitt.mavenversionmcp.utils;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing and comparing single versions with {@link MavenVersioning} and with the
+ * regular-expression based {@link RegexMavenVersioning} it replaced.
+ *
+ * <p>{@code compare} parses both versions on every call, {@code parse} only parses, and {@code
+ * compareParsed} compares versions parsed in advance, as {@link VersionIndex} does while sorting.
+ * Scores are per version or per comparison.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="MavenVersioningBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MavenVersioningBenchmark {
+
+    private static final String[] VERSIONS = {
+        "6.1.14", "6.0.0-RC1", "5.4.33.Final", "6.0.0.CR2", "33.4.0-jre", "31.0-android",
+        "5.10.0-M1", "4.13.2", "2.15.0-rc1", "2.9.10.8", "3.17.0", "3.0-beta",
+        "2.0.0-preview-12", "2.28.16", "20231013", "9.4.52.v20230823", "12.0.0.beta0", "2.0-beta9",
+        "4.1.114.Final", "5.0.0.Alpha2", "1.9.20-Beta2", "2.0.21", "3.0.0-alpha-1", "3.3.1.SP1",
+        "3.30.2-GA", "2023.0.3", "1.0.0-20230101.123456-1", "1.0-SNAPSHOT", "0.10", "1.2.17",
+        "2.24.1", "6.0.0-M6"
+    };
+    // Must match VERSIONS, as JMH needs the operations per invocation as a constant
+    private static final int COUNT = 32;
+
+    private MavenVersioning.ParsedVersion[] parsed;
+    private RegexMavenVersioning.ParsedVersion[] regexParsed;
+
+    @Setup
+    public void parseVersions() {
+        if (VERSIONS.length != COUNT) {
+            throw new IllegalStateException("COUNT must be " + VERSIONS.length);
+        }
+        parsed = new MavenVersioning.ParsedVersion[COUNT];
+        regexParsed = new RegexMavenVersioning.ParsedVersion[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            parsed[i] = MavenVersioning.parse(VERSIONS[i]);
+            regexParsed[i] = RegexMavenVersioning.parse(VERSIONS[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void compare(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(MavenVersioning.compare(VERSIONS[i], VERSIONS[(i + 1) % COUNT]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void regexCompare(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(RegexMavenVersioning.compare(VERSIONS[i], VERSIONS[(i + 1) % COUNT]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void parse(Blackhole blackhole) {
+        for (String version : VERSIONS) {
+            blackhole.consume(MavenVersioning.parse(version));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void regexParse(Blackhole blackhole) {
+        for (String version : VERSIONS) {
+            blackhole.consume(RegexMavenVersioning.parse(version));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void compareParsed(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(parsed[i].compareTo(parsed[(i + 1) % COUNT]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void regexCompareParsed(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(regexParsed[i].compareTo(regexParsed[(i + 1) % COUNT]));
+        }
+    }
+}
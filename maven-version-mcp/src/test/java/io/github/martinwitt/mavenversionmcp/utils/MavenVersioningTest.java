@@ -0,0 +1,113 @@
+package io.github.martinwitt.mavenversionmcp.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MavenVersioningTest {
+
+    @Test
+    void shouldOrderCorpusLikeMaven() throws IOException {
+        List<List<String>> corpus = readCorpus();
+        for (int i = 0; i < corpus.size(); i++) {
+            for (int j = 0; j < corpus.size(); j++) {
+                for (String left : corpus.get(i)) {
+                    for (String right : corpus.get(j)) {
+                        assertThat(Integer.signum(MavenVersioning.compare(left, right)))
+                                .as("%s <=> %s", left, right)
+                                .isEqualTo(Integer.compare(i, j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldSortShuffledCorpus() throws IOException {
+        List<List<String>> corpus = readCorpus();
+        List<String> versions = new ArrayList<>();
+        corpus.forEach(group -> versions.add(group.getFirst()));
+        List<String> shuffled = new ArrayList<>(versions);
+        Collections.shuffle(shuffled, new Random(42));
+
+        assertThat(VersionIndex.of(shuffled).sortedVersions())
+                .containsExactlyElementsOf(versions.reversed());
+    }
+
+    @Test
+    void shouldFollowVersionOrderSpecification() {
+        assertThat(MavenVersioning.compare("1", "1.1")).isNegative();
+        assertThat(MavenVersioning.compare("1-snapshot", "1")).isNegative();
+        assertThat(MavenVersioning.compare("1", "1-sp")).isNegative();
+        assertThat(MavenVersioning.compare("1-foo2", "1-foo10")).isNegative();
+        assertThat(MavenVersioning.compare("1.foo", "1-foo")).isZero();
+        assertThat(MavenVersioning.compare("1-foo", "1-1")).isNegative();
+        assertThat(MavenVersioning.compare("1-1", "1.1")).isNegative();
+        assertThat(MavenVersioning.compare("1.ga", "1-ga")).isZero();
+        assertThat(MavenVersioning.compare("1-ga", "1-0")).isZero();
+        assertThat(MavenVersioning.compare("1-0", "1.0")).isZero();
+        assertThat(MavenVersioning.compare("1.0", "1")).isZero();
+        assertThat(MavenVersioning.compare("1-sp", "1-ga")).isPositive();
+        assertThat(MavenVersioning.compare("1-sp.1", "1-ga.1")).isPositive();
+        assertThat(MavenVersioning.compare("1-sp-1", "1-ga-1")).isNegative();
+        assertThat(MavenVersioning.compare("1-a1", "1-alpha-1")).isZero();
+    }
+
+    @Test
+    void shouldCompareNumbersBeyondLongRange() {
+        assertThat(MavenVersioning.compare("1.123456789012345678901", "1.99999999999999999"))
+                .isPositive();
+        assertThat(MavenVersioning.compare("1.123456789012345678901", "1.123456789012345678902"))
+                .isNegative();
+        assertThat(MavenVersioning.compare("1.00123456789012345678901", "1.123456789012345678901"))
+                .isZero();
+    }
+
+    @Test
+    void shouldDetectStableVersions() {
+        assertThat(MavenVersioning.isStable("33.0.0-jre")).isTrue();
+        assertThat(MavenVersioning.isStable("6.0.0.Final")).isTrue();
+        assertThat(MavenVersioning.isStable("3.3.1.SP1")).isTrue();
+        assertThat(MavenVersioning.isStable("20231013")).isTrue();
+        assertThat(MavenVersioning.isStable("2.0-M1")).isFalse();
+        assertThat(MavenVersioning.isStable("6.0.0.CR1")).isFalse();
+        assertThat(MavenVersioning.isStable("1.0-SNAPSHOT")).isFalse();
+        assertThat(MavenVersioning.isStable("2.0.0-preview-1")).isFalse();
+    }
+
+    @Test
+    void shouldClassifyUpgrades() {
+        assertThat(MavenVersioning.upgradeType("1.2.3", "2.0.0")).isEqualTo("major");
+        assertThat(MavenVersioning.upgradeType("1.2.3", "1.3")).isEqualTo("minor");
+        assertThat(MavenVersioning.upgradeType("1.2.3", "1.2.4")).isEqualTo("patch");
+        assertThat(MavenVersioning.upgradeType("5.4.0.Final", "5.4.1.Final")).isEqualTo("patch");
+        assertThat(MavenVersioning.upgradeType("2.0", "2.0.0")).isEqualTo("none");
+    }
+
+    /** Groups of equal versions from the corpus, in ascending order. */
+    private static List<List<String>> readCorpus() throws IOException {
+        List<List<String>> corpus = new ArrayList<>();
+        try (BufferedReader reader =
+                new BufferedReader(
+                        new InputStreamReader(
+                                MavenVersioningTest.class.getResourceAsStream(
+                                        "/maven-versions.txt"),
+                                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    corpus.add(List.of(line.trim().split("\\s+")));
+                }
+            }
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,201 @@
+package io.github.martinwitt.mavenversionmcp.utils;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regular-expression based comparison that {@link MavenVersioning} used before it followed
+ * Maven's {@code ComparableVersion}, kept as a baseline for {@link MavenVersioningBenchmark}.
+ */
+final class RegexMavenVersioning {
+
+    private static final Pattern VERSION_PATTERN =
+            Pattern.compile("^(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?(?:-(.+))?(?:(?:(?!)()))?$");
+
+    private static final Pattern QUALIFIER_PATTERN =
+            Pattern.compile("^([a-zA-Z]+)?(?:[.\\-]?(\\d+))?.*$");
+
+    // Qualifier priority (higher number = more stable)
+    private static final int SNAPSHOT_PRIORITY = 0;
+    private static final int ALPHA_PRIORITY = 1;
+    private static final int BETA_PRIORITY = 2;
+    private static final int RC_PRIORITY = 3;
+    private static final int RELEASE_PRIORITY = 4;
+
+    /**
+     * Compares two Maven versions.
+     *
+     * @param v1 First version string
+     * @param v2 Second version string
+     * @return negative if v1 < v2, zero if equal, positive if v1 > v2
+     */
+    static int compare(String v1, String v2) {
+        if (v1.equals(v2)) {
+            return 0;
+        }
+        return parse(v1).compareTo(parse(v2));
+    }
+
+    /**
+     * Parses a version once for repeated comparisons.
+     *
+     * @param version Version string
+     * @return The parsed version; versions that do not start with a number compare as 0.0.0 with
+     *     their whole text as qualifier
+     */
+    static ParsedVersion parse(String version) {
+        Matcher matcher = VERSION_PATTERN.matcher(version.trim());
+
+        if (!matcher.matches()) {
+            // Fallback for non-standard versions
+            return new ParsedVersion(version, 0, 0, 0, version);
+        }
+
+        long major = Long.parseLong(matcher.group(1));
+        long minor = matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0;
+        long patch = matcher.group(3) != null ? Long.parseLong(matcher.group(3)) : 0;
+        String qualifier = matcher.group(4) != null ? matcher.group(4) : "";
+        String suffix = matcher.group(5);
+
+        if (suffix != null && !suffix.isEmpty()) {
+            qualifier = qualifier + "." + suffix;
+        }
+
+        return new ParsedVersion(version, major, minor, patch, qualifier);
+    }
+
+    private static int getQualifierPriority(String qualifier) {
+        if (qualifier == null || qualifier.isEmpty()) {
+            return RELEASE_PRIORITY;
+        }
+
+        String lowerQualifier = qualifier.toLowerCase();
+
+        if (lowerQualifier.contains("snapshot")) {
+            return SNAPSHOT_PRIORITY;
+        }
+
+        // Treat "alpha" and shorthand forms like "a", "a1", "a01" as alpha.
+        boolean isAlphaShorthand = lowerQualifier.matches("a\\d*");
+        if (lowerQualifier.contains("alpha") || isAlphaShorthand) {
+            return ALPHA_PRIORITY;
+        }
+
+        // Treat "beta" and shorthand forms like "b", "b1", "b02" as beta.
+        boolean isBetaShorthand = lowerQualifier.matches("b\\d*");
+        if (lowerQualifier.contains("beta") || isBetaShorthand) {
+            return BETA_PRIORITY;
+        }
+        if (lowerQualifier.contains("rc") || lowerQualifier.contains("cr")) {
+            return RC_PRIORITY;
+        }
+
+        // Unknown qualifier - treat as pre-release (less stable than release)
+        if (lowerQualifier.isEmpty() || !Character.isDigit(lowerQualifier.charAt(0))) {
+            return BETA_PRIORITY;
+        }
+
+        return RELEASE_PRIORITY;
+    }
+
+    /**
+     * A version parsed into its numbers and qualifier, with everything a comparison needs
+     * precomputed, so comparing two parsed versions runs no regular expressions.
+     */
+    static final class ParsedVersion implements Comparable<ParsedVersion> {
+        private final String version;
+        private final long major;
+        private final long minor;
+        private final long patch;
+        private final String qualifier;
+        private final int qualifierPriority;
+        // Leading letters and first number of the qualifier, e.g. "rc" and 2 for "rc.2"
+        private final String qualifierType;
+        private final Long qualifierNumber;
+
+        private ParsedVersion(
+                String version, long major, long minor, long patch, String qualifier) {
+            this.version = version;
+            this.major = major;
+            this.minor = minor;
+            this.patch = patch;
+            this.qualifier = qualifier;
+            this.qualifierPriority = getQualifierPriority(qualifier);
+            Matcher matcher = QUALIFIER_PATTERN.matcher(qualifier);
+            boolean matches = matcher.matches();
+            this.qualifierType = matches && matcher.group(1) != null ? matcher.group(1) : "";
+            this.qualifierNumber = matches ? parseNumber(matcher.group(2)) : null;
+        }
+
+        private static Long parseNumber(String digits) {
+            try {
+                return digits != null ? Long.valueOf(digits) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public int compareTo(ParsedVersion other) {
+            if (version.equals(other.version)) {
+                return 0;
+            }
+
+            // Compare major version
+            int majorCmp = Long.compare(major, other.major);
+            if (majorCmp != 0) {
+                return majorCmp;
+            }
+
+            // Compare minor version
+            int minorCmp = Long.compare(minor, other.minor);
+            if (minorCmp != 0) {
+                return minorCmp;
+            }
+
+            // Compare patch version
+            int patchCmp = Long.compare(patch, other.patch);
+            if (patchCmp != 0) {
+                return patchCmp;
+            }
+
+            // Compare qualifiers (e.g., alpha, beta, rc, SNAPSHOT)
+            return compareQualifiers(other);
+        }
+
+        private int compareQualifiers(ParsedVersion other) {
+            // Both are release versions (no qualifier)
+            if (qualifier.isEmpty() && other.qualifier.isEmpty()) {
+                return 0;
+            }
+
+            // One is a release, the other isn't - release is higher
+            if (qualifier.isEmpty()) {
+                return 1;
+            }
+            if (other.qualifier.isEmpty()) {
+                return -1;
+            }
+
+            if (qualifierPriority != other.qualifierPriority) {
+                return Integer.compare(qualifierPriority, other.qualifierPriority);
+            }
+
+            // Same qualifier type - compare numerically
+            if (!qualifierType.equals(other.qualifierType)) {
+                return qualifierType.compareTo(other.qualifierType);
+            }
+            if (qualifierNumber != null && other.qualifierNumber != null) {
+                return Long.compare(qualifierNumber, other.qualifierNumber);
+            }
+
+            // Fallback to string comparison
+            return qualifier.compareTo(other.qualifier);
+        }
+
+        @Override
+        public String toString() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.martinwitt.mavenversionmcp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latest and stable versions of an artifact with a long release history, as for the AWS SDK.
+ *
+ * <p>{@code scan*} compute them from the raw version strings, parsing both versions on every
+ * comparison, which is what each query cost before the index. {@code buildIndex} is the one-off
+ * cost when the metadata is loaded, and {@code indexed} a query against the cached index.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="VersionIndexBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VersionIndexBenchmark {
+
+    @Param({"100", "2000"})
+    int versionCount;
+
+    private List<String> versions;
+    private VersionIndex index;
+
+    @Setup
+    public void createVersions() {
+        versions = versions(versionCount);
+        index = VersionIndex.of(versions);
+    }
+
+    /**
+     * {@code count} versions in release order: mostly {@code 2.minor.patch}, with a preview, a
+     * release candidate or a snapshot every few releases.
+     */
+    static List<String> versions(int count) {
+        List<String> versions = new ArrayList<>(count);
+        for (int i = 0; versions.size() < count; i++) {
+            String release = "2." + (i / 40) + "." + (i % 40);
+            if (i % 40 == 0) {
+                versions.add(release + "-preview-1");
+            }
+            if (i % 13 == 0 && versions.size() < count) {
+                versions.add(release + "-RC1");
+            }
+            if (i % 17 == 0 && versions.size() < count) {
+                versions.add(release + "-SNAPSHOT");
+            }
+            if (versions.size() < count) {
+                versions.add(release);
+            }
+        }
+        return versions;
+    }
+
+    @Benchmark
+    public String scanLatest() {
+        return versions.stream().max(MavenVersioning::compare).orElse("");
+    }
+
+    @Benchmark
+    public List<String> scanStableVersions() {
+        return versions.stream()
+                .filter(MavenVersioning::isStable)
+                .sorted(MavenVersioning.getComparator())
+                .toList();
+    }
+
+    @Benchmark
+    public VersionIndex buildIndex() {
+        return VersionIndex.of(versions);
+    }
+
+    @Benchmark
+    public int indexed() {
+        return index.latest().length()
+                + index.latestStable().length()
+                + index.stableVersions().size();
+    }
+}